@@ -0,0 +1,85 @@
+package SimpleAgent;
+
+import java.awt.Color;
+import java.io.Serializable;
+
+/**
+ * The agent's log: the last [capacity] lines, each with its colour (null for plain lines), in a ring buffer.
+ *
+ * Lines are numbered from 0 as they are written, so a reader remembers the number of the next line it wants and
+ * asks for everything from there; lines that were overwritten meanwhile are skipped. The agent writes, the GUI
+ * reads on the Swing thread, hence the locking. The buffer travels with the agent when it moves or clones, so a GUI
+ * opened in the new container shows the same log; the listener telling the GUI about new lines does not.
+ */
+public class LogBuffer implements Serializable {
+    private final String[] texts;
+    private final Color[] colors;
+    // Number of lines ever written; line n lives in slot n % capacity
+    private long written = 0;
+    private transient Runnable listener;
+
+    /**
+     * Lines copied out of the buffer, oldest first, and the number of the line after the last one.
+     */
+    public static final class Lines {
+        public final String[] texts;
+        public final Color[] colors;
+        public final long end;
+
+        Lines(String[] texts, Color[] colors, long end) {
+            this.texts = texts;
+            this.colors = colors;
+            this.end = end;
+        }
+    }
+
+    public LogBuffer(int capacity) {
+        texts = new String[capacity];
+        colors = new Color[capacity];
+    }
+
+    public void append(String text, Color color) {
+        Runnable toCall;
+        synchronized (this) {
+            int slot = (int) (written % texts.length);
+            texts[slot] = text;
+            colors[slot] = color;
+            written++;
+            toCall = listener;
+        }
+        if (toCall != null) {
+            toCall.run();
+        }
+    }
+
+    /**
+     * Copies the lines from number [from] on, or from the oldest one still kept if those were overwritten.
+     */
+    public synchronized Lines readSince(long from) {
+        long start = Math.max(from, written - texts.length);
+        int count = (int) Math.max(0, written - start);
+        String[] outTexts = new String[count];
+        Color[] outColors = new Color[count];
+        for (int i = 0; i < count; i++) {
+            int slot = (int) ((start + i) % texts.length);
+            outTexts[i] = texts[slot];
+            outColors[i] = colors[slot];
+        }
+        return new Lines(outTexts, outColors, written);
+    }
+
+    /**
+     * Called after every append, on the appending thread; null to stop.
+     */
+    public synchronized void setListener(Runnable listener) {
+        this.listener = listener;
+    }
+
+    public synchronized long getWritten() {
+        return written;
+    }
+
+    public int getCapacity() {
+        return texts.length;
+    }
+}
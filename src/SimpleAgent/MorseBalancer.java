@@ -0,0 +1,197 @@
+package SimpleAgent;
+
+import jade.core.AID;
+import jade.core.Agent;
+import jade.domain.DFSubscriber;
+import jade.domain.FIPAAgentManagement.DFAgentDescription;
+import jade.domain.FIPAAgentManagement.ServiceDescription;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Client-side load balancer for a DF service, used to pick the Morse translator for each request.
+ *
+ * The providers come from a DF subscription: the DF sends the matching registrations once and then every
+ * registration or deregistration of the service, so choosing a provider needs no DF search.
+ * For each provider it counts the requests this agent has in flight and keeps an exponentially weighted
+ * moving average (EWMA) of their latency. Requests go to the better of two providers picked at random
+ * (power of two choices), where the cost is the expected latency times the requests already waiting.
+ * The random pick spreads clients that share a view of the providers, and the costs keep traffic away
+ * from slow or busy ones.
+ *
+ * Runs as a behaviour of the owning agent, so the provider table is only touched from the agent's thread.
+ * It moves with the agent (the subscription is tied to the AID); a clone must start a balancer of its own.
+ */
+public class MorseBalancer extends DFSubscriber {
+    // Weight of the newest latency sample in the moving average
+    private static final double EWMA_WEIGHT = 0.3;
+    // Assumed latency while nobody has answered yet
+    private static final double DEFAULT_LATENCY_MILLIS = 1.0;
+
+    static class Provider {
+        final AID aid;
+        int inFlight = 0;
+        double latencyMillis = -1; // EWMA, negative until the first answer
+        long answered = 0;
+        long failed = 0;
+
+        Provider(AID aid) {
+            this.aid = aid;
+        }
+    }
+
+    // Few providers, so a list; a random pick is an index
+    private final List<Provider> providers = new ArrayList<>();
+    private final Random random = new Random();
+
+    public MorseBalancer(Agent a, String serviceType) {
+        super(a, template(serviceType));
+    }
+
+    private static DFAgentDescription template(String serviceType) {
+        DFAgentDescription template = new DFAgentDescription();
+        ServiceDescription sd = new ServiceDescription();
+        sd.setType(serviceType);
+        template.addServices(sd);
+        return template;
+    }
+
+    @Override
+    public void onRegister(DFAgentDescription dfad) {
+        if (get(dfad.getName()) == null) {
+            providers.add(new Provider(dfad.getName()));
+        }
+    }
+
+    @Override
+    public void onDeregister(DFAgentDescription dfad) {
+        providers.remove(get(dfad.getName()));
+    }
+
+    private Provider get(AID aid) {
+        for (Provider p : providers) {
+            if (p.aid.equals(aid)) {
+                return p;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The provider with this local name (ignoring case), or null if it does not offer the service.
+     */
+    public AID find(String localName) {
+        for (Provider p : providers) {
+            if (p.aid.getLocalName().equalsIgnoreCase(localName)) {
+                return p.aid;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Provider for the next request, or null if there is none. Other agents are preferred over self,
+     * which is only returned when it is the only provider.
+     */
+    public AID choose(AID self) {
+        List<Provider> candidates = new ArrayList<>(providers.size());
+        for (Provider p : providers) {
+            if (!p.aid.equals(self)) {
+                candidates.add(p);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return get(self) != null ? self : null;
+        }
+        if (candidates.size() == 1) {
+            return candidates.get(0).aid;
+        }
+        int first = random.nextInt(candidates.size());
+        int second = random.nextInt(candidates.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+        Provider a = candidates.get(first);
+        Provider b = candidates.get(second);
+        return cost(a) <= cost(b) ? a.aid : b.aid;
+    }
+
+    private double cost(Provider p) {
+        return latency(p) * (p.inFlight + 1);
+    }
+
+    // Providers that have not answered yet are assumed as fast as the average, so they get tried
+    private double latency(Provider p) {
+        if (p.latencyMillis >= 0) {
+            return p.latencyMillis;
+        }
+        double sum = 0;
+        int known = 0;
+        for (Provider other : providers) {
+            if (other.latencyMillis >= 0) {
+                sum += other.latencyMillis;
+                known++;
+            }
+        }
+        return known > 0 ? sum / known : DEFAULT_LATENCY_MILLIS;
+    }
+
+    /**
+     * A request was sent to the provider.
+     */
+    public void started(AID provider) {
+        Provider p = get(provider);
+        if (p != null) {
+            p.inFlight++;
+        }
+    }
+
+    /**
+     * The provider answered a request after this long.
+     */
+    public void finished(AID provider, long millis) {
+        Provider p = get(provider);
+        if (p != null) {
+            p.inFlight = Math.max(0, p.inFlight - 1);
+            p.answered++;
+            sample(p, millis);
+        }
+    }
+
+    /**
+     * A request failed or timed out after this long; the time counts as latency, so the provider is avoided.
+     */
+    public void failed(AID provider, long millis) {
+        Provider p = get(provider);
+        if (p != null) {
+            p.inFlight = Math.max(0, p.inFlight - 1);
+            p.failed++;
+            sample(p, millis);
+        }
+    }
+
+    private static void sample(Provider p, long millis) {
+        p.latencyMillis = p.latencyMillis < 0 ? millis : EWMA_WEIGHT * millis + (1 - EWMA_WEIGHT) * p.latencyMillis;
+    }
+
+    public int getProviderCount() {
+        return providers.size();
+    }
+
+    /**
+     * One line per provider: requests in flight, average latency, answered and failed requests.
+     */
+    public List<String> describe() {
+        List<String> lines = new ArrayList<>();
+        for (Provider p : providers) {
+            lines.add(String.format(Locale.ROOT, "%s: %d in flight, %s, %d answered, %d failed",
+                p.aid.getLocalName(), p.inFlight,
+                p.latencyMillis < 0 ? "no latency yet" : String.format(Locale.ROOT, "%.1f ms", p.latencyMillis),
+                p.answered, p.failed));
+        }
+        return lines;
+    }
+}
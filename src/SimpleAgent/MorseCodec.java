@@ -0,0 +1,274 @@
+package SimpleAgent;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Serializable;
+import java.io.Writer;
+import java.nio.CharBuffer;
+
+/**
+ * Table-driven Morse codec.
+ *
+ * Encoding looks each character up in an array indexed by its code; letters are separated by a space and
+ * words by " / ", runs of whitespace collapse into one word gap, and characters without a Morse code become "?".
+ * Decoding walks a binary trie kept in an array (root 0, dot at 2n+1, dash at 2n+2), so a letter costs one step
+ * per symbol; codes it does not know come back as '?'. Decoded text is upper case.
+ *
+ * Both directions work on a CharSequence or stream from a Reader to a Writer. Encoder and Decoder keep the state
+ * between calls, so a long text can be converted piece by piece (see the chunked replies of the Morse service).
+ */
+public final class MorseCodec {
+    public static final String WORD_GAP = " / ";
+
+    // Character (ASCII) -> Morse code, lower case folded onto upper case
+    private static final char[][] CODES = new char[128][];
+    private static final boolean[] WHITESPACE = new boolean[128];
+    // Trie node -> character; the longest codes (6 symbols) end at node 126
+    private static final char[] TRIE = new char[127];
+
+    // Input characters converted per step of the streaming loops
+    private static final int BLOCK = 4096;
+
+    static {
+        for (char ch = 0; ch < 128; ch++) {
+            WHITESPACE[ch] = Character.isWhitespace(ch);
+        }
+        put('A', ".-");
+        put('B', "-...");
+        put('C', "-.-.");
+        put('D', "-..");
+        put('E', ".");
+        put('F', "..-.");
+        put('G', "--.");
+        put('H', "....");
+        put('I', "..");
+        put('J', ".---");
+        put('K', "-.-");
+        put('L', ".-..");
+        put('M', "--");
+        put('N', "-.");
+        put('O', "---");
+        put('P', ".--.");
+        put('Q', "--.-");
+        put('R', ".-.");
+        put('S', "...");
+        put('T', "-");
+        put('U', "..-");
+        put('V', "...-");
+        put('W', ".--");
+        put('X', "-..-");
+        put('Y', "-.--");
+        put('Z', "--..");
+        put('0', "-----");
+        put('1', ".----");
+        put('2', "..---");
+        put('3', "...--");
+        put('4', "....-");
+        put('5', ".....");
+        put('6', "-....");
+        put('7', "--...");
+        put('8', "---..");
+        put('9', "----.");
+        put('.', ".-.-.-");
+        put(',', "--..--");
+        put('?', "..--..");
+        put('!', "-.-.--");
+        put('-', "-....-");
+        put('/', "-..-.");
+        put('@', ".--.-.");
+        put('(', "-.--.");
+        put(')', "-.--.-");
+        put('&', ".-...");
+    }
+
+    private static void put(char ch, String code) {
+        CODES[ch] = code.toCharArray();
+        CODES[Character.toLowerCase(ch)] = CODES[ch];
+        int node = 0;
+        for (int i = 0; i < code.length(); i++) {
+            node = 2 * node + (code.charAt(i) == '.' ? 1 : 2);
+        }
+        TRIE[node] = ch;
+    }
+
+    private MorseCodec() {
+    }
+
+    public static String encode(CharSequence text) {
+        if (text == null || text.length() == 0) {
+            return "";
+        }
+        StringBuilder out = new StringBuilder(text.length() * 5);
+        new Encoder().encode(text, 0, text.length(), out);
+        return out.toString();
+    }
+
+    public static void encode(Reader in, Writer out) throws IOException {
+        Encoder encoder = new Encoder();
+        char[] buf = new char[BLOCK];
+        int n;
+        while ((n = in.read(buf)) > 0) {
+            encoder.encode(CharBuffer.wrap(buf, 0, n), 0, n, out);
+        }
+    }
+
+    public static String decode(CharSequence morse) {
+        if (morse == null || morse.length() == 0) {
+            return "";
+        }
+        StringBuilder out = new StringBuilder(morse.length() / 3 + 1);
+        Decoder decoder = new Decoder();
+        decoder.decode(morse, 0, morse.length(), out);
+        decoder.finish(out);
+        return out.toString();
+    }
+
+    public static void decode(Reader in, Writer out) throws IOException {
+        Decoder decoder = new Decoder();
+        char[] buf = new char[BLOCK];
+        int n;
+        while ((n = in.read(buf)) > 0) {
+            decoder.decode(CharBuffer.wrap(buf, 0, n), 0, n, out);
+        }
+        decoder.finish(out);
+    }
+
+    /**
+     * Streaming encoder: remembers whether anything was written and whether the last thing was a word gap,
+     * so consecutive calls produce the same output as one call on the whole text.
+     * Works through the input a block at a time into a reused char[], which is copied out in one go.
+     */
+    public static final class Encoder implements Serializable {
+        private boolean started = false;
+        private boolean inGap = false;
+        private transient char[] block;
+
+        public void encode(CharSequence text, int start, int end, StringBuilder out) {
+            for (int from = start; from < end; from += BLOCK) {
+                int n = encodeBlock(text, from, Math.min(from + BLOCK, end));
+                out.append(block, 0, n);
+            }
+        }
+
+        public void encode(CharSequence text, int start, int end, Writer out) throws IOException {
+            for (int from = start; from < end; from += BLOCK) {
+                int n = encodeBlock(text, from, Math.min(from + BLOCK, end));
+                out.write(block, 0, n);
+            }
+        }
+
+        // At most BLOCK input characters; each becomes at most 7 output characters (gap and a 6-symbol code)
+        private int encodeBlock(CharSequence text, int start, int end) {
+            if (block == null || block.length < (end - start) * 7) {
+                block = new char[(end - start) * 7];
+            }
+            char[] buf = block;
+            int n = 0;
+            for (int i = start; i < end; i++) {
+                char ch = text.charAt(i);
+                if (ch >= 128) {
+                    ch = Character.toUpperCase(ch); // a few non-ASCII letters upper-case to ASCII ones
+                }
+                boolean ascii = ch < 128;
+                if (ascii ? WHITESPACE[ch] : Character.isWhitespace(ch)) {
+                    if (started && !inGap) {
+                        buf[n++] = ' ';
+                        buf[n++] = '/';
+                        buf[n++] = ' ';
+                        inGap = true;
+                    }
+                    continue;
+                }
+                if (started && !inGap) {
+                    buf[n++] = ' ';
+                }
+                char[] code = ascii ? CODES[ch] : null;
+                if (code == null) {
+                    buf[n++] = '?';
+                } else {
+                    for (char symbol : code) {
+                        buf[n++] = symbol;
+                    }
+                }
+                started = true;
+                inGap = false;
+            }
+            return n;
+        }
+    }
+
+    /**
+     * Streaming decoder: a letter may span two calls, so call finish() after the last piece.
+     */
+    public static final class Decoder implements Serializable {
+        private int node = 0;            // trie position within the current letter
+        private boolean inLetter = false;
+        private boolean invalid = false; // current letter has a symbol other than '.' or '-', or is too long
+        private transient char[] block;
+
+        public void decode(CharSequence morse, int start, int end, StringBuilder out) {
+            for (int from = start; from < end; from += BLOCK) {
+                int n = decodeBlock(morse, from, Math.min(from + BLOCK, end));
+                out.append(block, 0, n);
+            }
+        }
+
+        public void decode(CharSequence morse, int start, int end, Writer out) throws IOException {
+            for (int from = start; from < end; from += BLOCK) {
+                int n = decodeBlock(morse, from, Math.min(from + BLOCK, end));
+                out.write(block, 0, n);
+            }
+        }
+
+        public void finish(StringBuilder out) {
+            if (inLetter) {
+                out.append(letter());
+            }
+        }
+
+        public void finish(Writer out) throws IOException {
+            if (inLetter) {
+                out.write(letter());
+            }
+        }
+
+        // At most BLOCK input characters; each ends at most one letter and adds at most one space
+        private int decodeBlock(CharSequence morse, int start, int end) {
+            if (block == null || block.length < (end - start) * 2) {
+                block = new char[(end - start) * 2];
+            }
+            char[] buf = block;
+            int n = 0;
+            for (int i = start; i < end; i++) {
+                char ch = morse.charAt(i);
+                if (ch == '.' || ch == '-') {
+                    if (!invalid) {
+                        node = 2 * node + (ch == '.' ? 1 : 2);
+                        invalid = node >= TRIE.length;
+                    }
+                    inLetter = true;
+                } else if (ch == ' ' || ch == '/') {
+                    if (inLetter) {
+                        buf[n++] = letter();
+                    }
+                    if (ch == '/') {
+                        buf[n++] = ' ';
+                    }
+                } else {
+                    invalid = true;
+                    inLetter = true;
+                }
+            }
+            return n;
+        }
+
+        // The letter just read, and back to the root for the next one
+        private char letter() {
+            char ch = invalid ? 0 : TRIE[node];
+            node = 0;
+            inLetter = false;
+            invalid = false;
+            return ch != 0 ? ch : '?';
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package SimpleAgent;
+
+import jade.core.AID;
+import jade.core.ContainerID;
+import jade.domain.introspection.AMSSubscriber;
+import jade.domain.introspection.AddedContainer;
+import jade.domain.introspection.BornAgent;
+import jade.domain.introspection.DeadAgent;
+import jade.domain.introspection.IntrospectionVocabulary;
+import jade.domain.introspection.MovedAgent;
+import jade.domain.introspection.RemovedContainer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Local copy of the platform's containers and agents, kept up to date from AMS introspection events.
+ *
+ * On subscription the AMS replays the current platform (a reset, every container, every agent, then the
+ * platform description) and afterwards sends an event whenever an agent is born, dies or moves, or a
+ * container joins or leaves. Looking an agent up is then a map lookup instead of one AMS query per container.
+ *
+ * Runs as a behaviour of the owning agent, so the maps are only touched from the agent's thread.
+ * It moves with the agent (the subscription is tied to the AID, which stays the same); a clone has a new AID
+ * and must start a directory of its own.
+ */
+public class PlatformDirectory extends AMSSubscriber {
+    // Container name -> local names of the agents living there
+    private final Map<String, TreeSet<String>> containers = new LinkedHashMap<>();
+    // Agent local name -> full AID and current container name
+    private final Map<String, AID> agents = new HashMap<>();
+    private final Map<String, String> locations = new HashMap<>();
+    // Set once the AMS has finished replaying the platform
+    private volatile boolean ready = false;
+    // Bumped on every change, so callers can tell when something they derived from the directory is stale
+    private long version = 0;
+
+    // AMSSubscriber predates generics: its map is raw, but only ever holds event name -> EventHandler
+    @Override
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    protected void installHandlers(Map handlers) {
+        putHandlers((Map<String, EventHandler>) handlers);
+    }
+
+    private void putHandlers(Map<String, EventHandler> handlers) {
+        handlers.put(IntrospectionVocabulary.META_RESETEVENTS, ev -> {
+            ready = false;
+            version++;
+            containers.clear();
+            agents.clear();
+            locations.clear();
+        });
+        handlers.put(IntrospectionVocabulary.PLATFORMDESCRIPTION, ev -> ready = true);
+        handlers.put(IntrospectionVocabulary.ADDEDCONTAINER, ev -> {
+            ContainerID cid = ((AddedContainer) ev).getContainer();
+            version++;
+            containers.computeIfAbsent(cid.getName(), k -> new TreeSet<>());
+        });
+        handlers.put(IntrospectionVocabulary.REMOVEDCONTAINER, ev -> {
+            ContainerID cid = ((RemovedContainer) ev).getContainer();
+            TreeSet<String> residents = containers.remove(cid.getName());
+            version++;
+            if (residents != null) {
+                for (String name : residents) {
+                    agents.remove(name);
+                    locations.remove(name);
+                }
+            }
+        });
+        handlers.put(IntrospectionVocabulary.BORNAGENT, ev -> {
+            BornAgent born = (BornAgent) ev;
+            place(born.getAgent(), born.getWhere());
+        });
+        handlers.put(IntrospectionVocabulary.DEADAGENT, ev -> remove(((DeadAgent) ev).getAgent()));
+        handlers.put(IntrospectionVocabulary.MOVEDAGENT, ev -> {
+            MovedAgent moved = (MovedAgent) ev;
+            place(moved.getAgent(), moved.getTo());
+        });
+    }
+
+    private void place(AID aid, ContainerID where) {
+        remove(aid);
+        String name = aid.getLocalName();
+        String container = where != null ? where.getName() : null;
+        agents.put(name, aid);
+        if (container != null) {
+            locations.put(name, container);
+            containers.computeIfAbsent(container, k -> new TreeSet<>()).add(name);
+        }
+    }
+
+    private void remove(AID aid) {
+        String name = aid.getLocalName();
+        version++;
+        agents.remove(name);
+        String container = locations.remove(name);
+        if (container != null && containers.containsKey(container)) {
+            containers.get(container).remove(name);
+        }
+    }
+
+    /**
+     * True once the AMS has replayed the whole platform; until then lookups may miss agents that exist.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * The agent with this local name, or null if it is not on the platform.
+     */
+    public AID find(String localName) {
+        return agents.get(localName);
+    }
+
+    /**
+     * Name of the container the agent lives in, or null if unknown.
+     */
+    public String locate(String localName) {
+        return locations.get(localName);
+    }
+
+    public List<String> getContainerNames() {
+        return new ArrayList<>(containers.keySet());
+    }
+
+    /**
+     * Local names of the agents in a container, sorted; empty if the container is unknown.
+     */
+    public List<String> getAgentsOn(String containerName) {
+        TreeSet<String> residents = containers.get(containerName);
+        return residents == null ? new ArrayList<>() : new ArrayList<>(residents);
+    }
+
+    /**
+     * Every agent on the platform, in no particular order.
+     */
+    public List<AID> getAgents() {
+        return new ArrayList<>(agents.values());
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int getAgentCount() {
+        return agents.size();
+    }
+}
@@ -14,17 +14,19 @@ import jade.domain.JADEAgentManagement.QueryAgentsOnLocation;
 import jade.domain.JADEAgentManagement.CreateAgent;
 import jade.content.lang.sl.SLCodec;
 import jade.domain.JADEAgentManagement.JADEManagementOntology;
+import jade.domain.introspection.IntrospectionOntology;
+import jade.domain.FIPANames;
+import jade.core.ServiceException;
+import jade.core.messaging.TopicManagementHelper;
 import jade.util.leap.List;
 import java.awt.Color;
-import java.util.ArrayList;
 import java.util.Random;
 // DF imports for registering/searching services
 import jade.domain.DFService;
 import jade.domain.FIPAAgentManagement.DFAgentDescription;
+import jade.domain.FIPAAgentManagement.FIPAManagementOntology;
 import jade.domain.FIPAAgentManagement.ServiceDescription;
 import jade.domain.FIPAException;
-import java.util.Set;
-import java.util.HashSet;
 
 import javax.swing.JOptionPane;
 
@@ -32,7 +34,9 @@ public class SimpleAgentClass extends Agent {
     private transient SimpleGui.SimpleGuiClass gui;
     private transient SimpleGui.ContainerViewGui containerView;
     private Color agentColor;
-    private ArrayList<String> logHistory;
+    // Everything logged, bounded; the GUI shows it and a rebuilt GUI picks it up again
+    private LogBuffer logHistory;
+    public static final int LOG_CAPACITY = 2000;
     // Track last opened container view and whether to reopen it after move
     private String lastContainerViewName;
     private boolean reopenContainerAfterMove = false;
@@ -42,41 +46,74 @@ public class SimpleAgentClass extends Agent {
     // - When false, the agent deregisters from DF and cannot be discovered as a chat provider
     private boolean chatEnabled = true;
     private static final String CHAT_SERVICE_TYPE = "chat";
+    // Chat agents also join this topic, so a broadcast is a single message to the topic
+    public static final String CHAT_TOPIC = "chat";
+
+    // Containers and agents mirrored from AMS events, so sending a message doesn't have to walk the platform
+    private PlatformDirectory directory;
+    // Broadcast receivers when there is no topic service, rebuilt only when the directory changes
+    private java.util.List<AID> broadcastRecipients;
+    private long broadcastRecipientsVersion = -1;
+    // Receivers per multi-receiver message. Every delivered copy carries the whole receiver list,
+    // so one message to N agents would put N*N receiver entries on the wire; small batches keep it linear.
+    private static final int BROADCAST_BATCH = 10;
 
     // ================= MORSE SERVICE FEATURE (teacher demo) =================
     // A dedicated DF service that converts plain text to Morse code on request.
     // Toggled independently from chat so it is easy to explain and showcase.
     private boolean morseServiceEnabled = false;
-    private static final String MORSE_SERVICE_TYPE = "morse-translator";
-    private static final String MORSE_SERVICE_ONTOLOGY = "morse-ontology";
+    public static final String MORSE_SERVICE_TYPE = "morse-translator";
+    public static final String MORSE_SERVICE_ONTOLOGY = "morse-ontology";
     private MorseProviderBehaviour morseProviderBehaviour;
-    private static final java.util.Map<Character, String> MORSE_MAP = buildMorseMap();
+    // Providers of the Morse service, followed through a DF subscription, with their load and latency
+    private MorseBalancer morseProviders;
+    private static final long MORSE_REPLY_TIMEOUT = 5000;
+    private int morseRequestCounter = 0;
+    // Requests beyond this many in flight wait here [provider name, text]; picking the provider when one is started,
+    // rather than all at once, lets a burst use the latencies of the answers that came back meanwhile
+    private static final int MORSE_MAX_IN_FLIGHT = 8;
+    private final java.util.ArrayDeque<String[]> morseBacklog = new java.util.ArrayDeque<>();
+    private int morseInFlight = 0;
+    // Conversations a MorseRequestBehaviour is still collecting; Morse replies to any other conversation (chunks
+    // left over after a timeout or abort, strays) are thrown away by MorseReplyCleaner
+    private final java.util.Set<String> morseConversations = new java.util.HashSet<>();
+    // Long texts are answered in several INFORMs, one chunk per behaviour step, so a big request never holds
+    // the provider's thread; every chunk carries its index and the last one says so
+    private static final int MORSE_CHUNK_CHARS = 16 * 1024;
+    private static final String MORSE_CHUNK_PARAM = "morse-chunk";
+    private static final String MORSE_LAST_PARAM = "morse-last";
+    private static final int MORSE_LOG_PREVIEW = 200;
     
     @Override
     protected void setup() {
         System.out.println("Agent " + getLocalName() + " started in container: " + here().getName());
         
         // Initialize log history
-        logHistory = new ArrayList<>();
+        logHistory = new LogBuffer(LOG_CAPACITY);
         
         // Generate unique color for this agent
         agentColor = generateUniqueColor();
         
         // Create GUI
-        javax.swing.SwingUtilities.invokeLater(() -> {
-            gui = new SimpleGui.SimpleGuiClass(this);
-            gui.setAgentColor(agentColor); // Set the color indicator
-            restoreLogHistory(); // Restore previous logs
-            gui.log("Agent " + getLocalName() + " ready in container: " + here().getName());
-            gui.updateChatToggle(chatEnabled);
-            gui.updateMorseToggle(morseServiceEnabled);
-        });
+        logToGui("Agent " + getLocalName() + " ready in container: " + here().getName());
+        openGui(null);
         
+        // Register the AMS content languages once; every AMS request below reuses them
+        registerLanguages();
+
+        // Keep a local copy of the platform for name resolution
+        directory = new PlatformDirectory();
+        addBehaviour(directory);
+        refreshTopicRegistration();
+        morseProviders = new MorseBalancer(this, MORSE_SERVICE_TYPE);
+        addBehaviour(morseProviders);
+
         // Add behaviour to listen for commands from GUI
         addBehaviour(new CommandListener());
         
         // Add behaviour to listen for messages from other agents
         addBehaviour(new MessageReceiver());
+        addBehaviour(new MorseReplyCleaner());
 
         // Register any active DF services (chat / morse) so other agents can discover us
         try {
@@ -109,9 +146,8 @@ public class SimpleAgentClass extends Agent {
             reopenContainerAfterMove = false;
         }
         
-        // Close agent GUI
+        // Close agent GUI (the log stays in logHistory and moves with us)
         if (gui != null) {
-            saveLogHistory(); // Save logs before closing GUI
             try {
                 javax.swing.SwingUtilities.invokeAndWait(() -> {
                     gui.setVisible(false);
@@ -128,15 +164,11 @@ public class SimpleAgentClass extends Agent {
     protected void afterMove() {
         super.afterMove();
         System.out.println("Agent afterMove to " + here().getName());
+        registerLanguages(); // Codecs are not carried over by the move
         
-        // Recreate GUI in new container
-        javax.swing.SwingUtilities.invokeLater(() -> {
-            gui = new SimpleGui.SimpleGuiClass(this);
-            gui.setAgentColor(agentColor); // Set the color indicator
-            restoreLogHistory(); // Restore logs after move
-            gui.log("Agent moved to container: " + here().getName());
-            gui.updateChatToggle(chatEnabled);
-            gui.updateMorseToggle(morseServiceEnabled);
+        // Recreate GUI in new container; it reattaches to the log we brought along
+        logToGui("Agent moved to container: " + here().getName());
+        openGui(() -> {
             // Restore last container view if it was open before moving
             if (reopenContainerAfterMove && lastContainerViewName != null && !lastContainerViewName.isEmpty()) {
                 openContainerViewFor(lastContainerViewName);
@@ -155,16 +187,21 @@ public class SimpleAgentClass extends Agent {
         
         // Generate NEW color for cloned agent (different from original)
         agentColor = generateUniqueColor();
-        logHistory = new ArrayList<>(); // Fresh logs for clone
+        // logHistory is the original's log as it was when cloned; the clone's own lines follow it
+        registerLanguages();
+
+        // The copied directory is subscribed under the original's AID; the clone needs its own
+        removeBehaviour(directory);
+        directory = new PlatformDirectory();
+        addBehaviour(directory);
+        refreshTopicRegistration(); // Topic membership belongs to the original's AID too
+        removeBehaviour(morseProviders); // So does the DF subscription
+        morseProviders = new MorseBalancer(this, MORSE_SERVICE_TYPE);
+        addBehaviour(morseProviders);
         
         // Create GUI for cloned agent
-        javax.swing.SwingUtilities.invokeLater(() -> {
-            gui = new SimpleGui.SimpleGuiClass(this);
-            gui.setAgentColor(agentColor); // Set the color indicator
-            gui.log("Agent cloned as " + getLocalName() + " in container: " + here().getName());
-            gui.updateChatToggle(chatEnabled);
-            gui.updateMorseToggle(morseServiceEnabled);
-        });
+        logToGui("Agent cloned as " + getLocalName() + " in container: " + here().getName());
+        openGui(null);
 
         // For clones, refresh DF registration so services stay consistent
         try { refreshDfRegistration(); } catch (FIPAException ignored) {}
@@ -178,12 +215,37 @@ public class SimpleAgentClass extends Agent {
             removeBehaviour(morseProviderBehaviour);
             morseProviderBehaviour = null;
         }
+        if (directory != null) {
+            directory.cancel();
+        }
+        if (morseProviders != null) {
+            morseProviders.cancel(getDefaultDF(), true);
+        }
         // Clean all DF entries so the directory doesn't keep stale records
         try { DFService.deregister(this); } catch (FIPAException ignored) {}
         if (gui != null) {
             gui.dispose();
         }
     }
+    /**
+     * Opens the control panel on the Swing thread, then runs [then] there (may be null).
+     * The panel attaches to logHistory and shows what was logged so far. Without a display there is no panel;
+     * the agent runs the same and its log only fills the buffer.
+     */
+    private void openGui(Runnable then) {
+        if (java.awt.GraphicsEnvironment.isHeadless()) {
+            return;
+        }
+        javax.swing.SwingUtilities.invokeLater(() -> {
+            gui = new SimpleGui.SimpleGuiClass(this);
+            gui.setAgentColor(agentColor); // Set the color indicator
+            gui.updateChatToggle(chatEnabled);
+            gui.updateMorseToggle(morseServiceEnabled);
+            if (then != null) {
+                then.run();
+            }
+        });
+    }
     //-------------------------------------------------------------------------------------------------------------------------------
     // Method for GUI to send commands
     public void sendCommand(String command) {
@@ -307,9 +369,9 @@ public class SimpleAgentClass extends Agent {
     //---------------------------------------------------------------------------------------------------------------------------------------------------
     /**
      * Handle GUI requests to translate some plain text into Morse.
-     * The request is routed through the DF so we only proceed when a provider is actually registered.
+     * Providers come from the DF subscription of the balancer, which picks the least loaded one unless the GUI names one.
      * When the selected provider is this agent (service enabled locally) we short-circuit and translate immediately;
-     * otherwise we issue an ACL REQUEST using the dedicated ontology and wait for the INFORM reply.
+     * otherwise a MorseRequestBehaviour sends the ACL REQUEST and collects the reply without blocking the agent.
      */
     private void handleMorseRequestCommand(String payload) {
         final String raw = payload == null ? "" : payload;
@@ -321,82 +383,54 @@ public class SimpleAgentClass extends Agent {
             logColoredMessage("Morse request ignored: no text provided.", Color.RED);
             return;
         }
+        if (morseInFlight >= MORSE_MAX_IN_FLIGHT) {
+            morseBacklog.add(new String[] { requestedProvider, plainText });
+            return;
+        }
+        startMorseRequest(requestedProvider, plainText);
+    }
 
-        addBehaviour(new jade.core.behaviours.OneShotBehaviour(this) {
-            @Override
-            public void action() {
-                try {
-                    AID provider = findMorseProvider(requestedProvider);
-                    if (provider == null) {
-                        if (requestedProvider == null || requestedProvider.isEmpty()) {
-                            logColoredMessage("No Morse translator registered in DF. Ask another agent to enable it first.", Color.RED);
-                        } else {
-                            logColoredMessage("Agent '" + requestedProvider + "' is not advertising the Morse service.", Color.RED);
-                        }
-                        return;
-                    }
+    private void startMorseRequest(String requestedProvider, String plainText) {
+        AID provider = requestedProvider.isEmpty()
+            ? morseProviders.choose(getAID())
+            : morseProviders.find(requestedProvider);
+        if (provider == null) {
+            if (requestedProvider.isEmpty()) {
+                logColoredMessage("No Morse translator registered in DF. Ask another agent to enable it first.", Color.RED);
+            } else {
+                logColoredMessage("Agent '" + requestedProvider + "' is not advertising the Morse service.", Color.RED);
+            }
+            return;
+        }
 
-                    if (provider.equals(getAID())) {
-                        if (!morseServiceEnabled) {
-                            logColoredMessage("Local Morse service is disabled. Toggle it ON before processing requests.", Color.RED);
-                            return;
-                        }
-                        String morse = translateToMorse(plainText);
-                        logColoredMessage("Local Morse translation: " + morse, agentColor);
-                        if (gui != null) {
-                            gui.log("Morse (self) " + plainText + " => " + morse);
-                        }
-                        return;
-                    }
+        if (provider.equals(getAID())) {
+            if (!morseServiceEnabled) {
+                logColoredMessage("Local Morse service is disabled. Toggle it ON before processing requests.", Color.RED);
+                return;
+            }
+            String morse = previewMorse(MorseCodec.encode(plainText));
+            logColoredMessage("Local Morse translation: " + morse, agentColor);
+            logToGui("Morse (self) " + previewMorse(plainText) + " => " + morse);
+            return;
+        }
 
-                    final String convId = "morse-" + System.currentTimeMillis() + "-" + getLocalName();
-                    ACLMessage req = new ACLMessage(ACLMessage.REQUEST);
-                    req.addReceiver(provider);
-                    req.setOntology(MORSE_SERVICE_ONTOLOGY);
-                    req.setConversationId(convId);
-                    req.setReplyWith(convId + "-req");
-                    req.setContent(plainText);
-                    send(req);
-
-                    String providerName = provider.getLocalName();
-                    logColoredMessage("Requested Morse translation from " + providerName + "...", agentColor);
-
-                    MessageTemplate mt = MessageTemplate.and(
-                        MessageTemplate.MatchConversationId(convId),
-                        MessageTemplate.MatchOntology(MORSE_SERVICE_ONTOLOGY)
-                    );
-
-                    ACLMessage resp = blockingReceive(mt, 5000);
-                    if (resp == null) {
-                        logColoredMessage("No Morse reply from " + providerName + " (timeout).", Color.RED);
-                        return;
-                    }
+        morseInFlight++;
+        addBehaviour(new MorseRequestBehaviour(provider, plainText));
+    }
 
-                    if (resp.getPerformative() == ACLMessage.INFORM) {
-                        String morse = resp.getContent();
-                        logColoredMessage("Morse reply from " + providerName + ": " + morse, agentColor);
-                        if (gui != null) {
-                            gui.log("Morse (" + providerName + ") " + plainText + " => " + morse);
-                        }
-                    } else {
-                        logColoredMessage("Morse request failed: " + resp.getContent(), Color.RED);
-                    }
-                } catch (FIPAException fe) {
-                    logColoredMessage("DF lookup for Morse service failed: " + fe.getMessage(), Color.RED);
-                } catch (Exception e) {
-                    logColoredMessage("Unexpected Morse request error: " + e.getMessage(), Color.RED);
-                    e.printStackTrace();
-                }
-            }
-        });
+    // A request ended; start the waiting ones it makes room for
+    private void morseRequestDone() {
+        morseInFlight--;
+        while (morseInFlight < MORSE_MAX_IN_FLIGHT && !morseBacklog.isEmpty()) {
+            String[] next = morseBacklog.poll();
+            startMorseRequest(next[0], next[1]);
+        }
     }
      //-------------------------------------------------------------------------------------------------------------------------------
     // Command 1: Show agent name
     private void showAgentName() {
-        if (gui != null) {
-            gui.log("Agent Name: " + getLocalName());
-            gui.log("Agent AID: " + getAID().getName());
-        }
+        logToGui("Agent Name: " + getLocalName());
+        logToGui("Agent AID: " + getAID().getName());
     }
     
     // Command 2: Show containers
@@ -405,9 +439,6 @@ public class SimpleAgentClass extends Agent {
             @Override
             public void action() {
                 try {
-                    getContentManager().registerLanguage(new SLCodec());
-                    getContentManager().registerOntology(JADEManagementOntology.getInstance());
-                    
                     ACLMessage request = new ACLMessage(ACLMessage.REQUEST);
                     request.addReceiver(new AID("ams", AID.ISLOCALNAME));
                     request.setLanguage("fipa-sl");
@@ -419,7 +450,7 @@ public class SimpleAgentClass extends Agent {
                     
                     send(request);
                     
-                    MessageTemplate mt = MessageTemplate.MatchSender(new AID("ams", AID.ISLOCALNAME));
+                    MessageTemplate mt = amsReplyTemplate();
                     ACLMessage response = blockingReceive(mt, 5000);
                     
                     if (response != null && response.getPerformative() == ACLMessage.INFORM) {
@@ -428,24 +459,18 @@ public class SimpleAgentClass extends Agent {
                             Result result = (Result) content;
                             List locations = (List) result.getValue();
                             
-                            if (gui != null) {
-                                gui.log("=== Containers in Platform ===");
-                                for (int i = 0; i < locations.size(); i++) {
-                                    Location loc = (Location) locations.get(i);
-                                    gui.log((i + 1) + ". " + loc.getName());
-                                }
-                                gui.log("Current container: " + here().getName());
+                            logToGui("=== Containers in Platform ===");
+                            for (int i = 0; i < locations.size(); i++) {
+                                Location loc = (Location) locations.get(i);
+                                logToGui((i + 1) + ". " + loc.getName());
                             }
+                            logToGui("Current container: " + here().getName());
                         }
                     } else {
-                        if (gui != null) {
-                            gui.log("Failed to query containers from AMS");
-                        }
+                        logToGui("Failed to query containers from AMS");
                     }
                 } catch (Exception e) {
-                    if (gui != null) {
-                        gui.log("Error querying containers: " + e.getMessage());
-                    }
+                    logToGui("Error querying containers: " + e.getMessage());
                     e.printStackTrace();
                 }
             }
@@ -469,17 +494,14 @@ public class SimpleAgentClass extends Agent {
                     p.setParameter(jade.core.Profile.MAIN_HOST, "127.0.0.1");
                     p.setParameter(jade.core.Profile.MAIN_PORT, "1099");
                     p.setParameter(jade.core.Profile.CONTAINER_NAME, containerName);
+                    p.setParameter(jade.core.Profile.SERVICES, SimpleLauncher.PLATFORM_SERVICES);
                     
                     jade.core.Runtime rt = jade.core.Runtime.instance();
                     rt.createAgentContainer(p);
                     
-                    if (gui != null) {
-                        gui.log("Container '" + containerName + "' created successfully");
-                    }
+                    logToGui("Container '" + containerName + "' created successfully");
                 } catch (Exception e) {
-                    if (gui != null) {
-                        gui.log("Error creating container: " + e.getMessage());
-                    }
+                    logToGui("Error creating container: " + e.getMessage());
                     e.printStackTrace();
                 }
             }
@@ -497,14 +519,10 @@ public class SimpleAgentClass extends Agent {
     private void doTransfer(String containerName) {
         try {
             Location dest = new ContainerID(containerName, null);
-            if (gui != null) {
-                gui.log("Transferring to container: " + containerName);
-            }
+            logToGui("Transferring to container: " + containerName);
             doMove(dest);
         } catch (Exception e) {
-            if (gui != null) {
-                gui.log("Error transferring agent: " + e.getMessage());
-            }
+            logToGui("Error transferring agent: " + e.getMessage());
             e.printStackTrace();
         }
     }
@@ -520,23 +538,17 @@ public class SimpleAgentClass extends Agent {
     private void doClone(String containerName, String newName) {
         try {
             Location dest = new ContainerID(containerName, null);
-            if (gui != null) {
-                gui.log("Cloning as '" + newName + "' to container: " + containerName);
-            }
+            logToGui("Cloning as '" + newName + "' to container: " + containerName);
             doClone(dest, newName);
         } catch (Exception e) {
-            if (gui != null) {
-                gui.log("Error cloning agent: " + e.getMessage());
-            }
+            logToGui("Error cloning agent: " + e.getMessage());
             e.printStackTrace();
         }
     }
     
     // Command 6: Kill agent
     private void killAgent() {
-        if (gui != null) {
-            gui.log("Agent will be killed...");
-        }
+        logToGui("Agent will be killed...");
         doDelete();
     }
     
@@ -546,9 +558,6 @@ public class SimpleAgentClass extends Agent {
             @Override
             public void action() {
                 try {
-                    getContentManager().registerLanguage(new SLCodec());
-                    getContentManager().registerOntology(JADEManagementOntology.getInstance());
-                    
                     ACLMessage request = new ACLMessage(ACLMessage.REQUEST);
                     request.addReceiver(new AID("ams", AID.ISLOCALNAME));
                     request.setLanguage("fipa-sl");
@@ -562,7 +571,7 @@ public class SimpleAgentClass extends Agent {
                     
                     send(request);
                     
-                    MessageTemplate mt = MessageTemplate.MatchSender(new AID("ams", AID.ISLOCALNAME));
+                    MessageTemplate mt = amsReplyTemplate();
                     ACLMessage response = blockingReceive(mt, 5000);
                     
                     if (response != null && response.getPerformative() == ACLMessage.INFORM) {
@@ -595,9 +604,6 @@ public class SimpleAgentClass extends Agent {
             @Override
             public void action() {
                 try {
-                    getContentManager().registerLanguage(new SLCodec());
-                    getContentManager().registerOntology(JADEManagementOntology.getInstance());
-                    
                     ACLMessage request = new ACLMessage(ACLMessage.REQUEST);
                     request.addReceiver(new AID("ams", AID.ISLOCALNAME));
                     request.setLanguage("fipa-sl");
@@ -614,7 +620,7 @@ public class SimpleAgentClass extends Agent {
                     
                     send(request);
                     
-                    MessageTemplate mt = MessageTemplate.MatchSender(new AID("ams", AID.ISLOCALNAME));
+                    MessageTemplate mt = amsReplyTemplate();
                     ACLMessage response = blockingReceive(mt, 5000);
                     
                     if (response != null && response.getPerformative() == ACLMessage.INFORM) {
@@ -654,9 +660,6 @@ public class SimpleAgentClass extends Agent {
             @Override
             public void action() {
                 try {
-                    getContentManager().registerLanguage(new SLCodec());
-                    getContentManager().registerOntology(JADEManagementOntology.getInstance());
-                    
                     // Create the container ID
                     jade.core.ContainerID cid = new jade.core.ContainerID();
                     cid.setName(containerName);
@@ -678,27 +681,21 @@ public class SimpleAgentClass extends Agent {
                     send(request);
                     
                     // Wait for response
-                    MessageTemplate mt = MessageTemplate.MatchSender(new AID("ams", AID.ISLOCALNAME));
+                    MessageTemplate mt = amsReplyTemplate();
                     ACLMessage response = blockingReceive(mt, 5000);
                     
                     if (response != null && response.getPerformative() == ACLMessage.INFORM) {
-                        if (gui != null) {
-                            gui.log("Agent '" + agentName + "' created in container: " + containerName);
-                            gui.log("Class: " + className);
-                        }
+                        logToGui("Agent '" + agentName + "' created in container: " + containerName);
+                        logToGui("Class: " + className);
                         
                         // Refresh the container view for the specific container
                         refreshContainerViewFor(containerName);
                     } else {
-                        if (gui != null) {
-                            gui.log("Error creating agent - no response from AMS");
-                        }
+                        logToGui("Error creating agent - no response from AMS");
                     }
                     
                 } catch (Exception e) {
-                    if (gui != null) {
-                        gui.log("Error creating agent: " + e.getMessage());
-                    }
+                    logToGui("Error creating agent: " + e.getMessage());
                     e.printStackTrace();
                 }
             }
@@ -712,9 +709,6 @@ public class SimpleAgentClass extends Agent {
             @Override
             public void action() {
                 try {
-                    getContentManager().registerLanguage(new SLCodec());
-                    getContentManager().registerOntology(JADEManagementOntology.getInstance());
-                    
                     // Query AMS for all containers
                     ACLMessage request = new ACLMessage(ACLMessage.REQUEST);
                     request.addReceiver(new AID("ams", AID.ISLOCALNAME));
@@ -727,7 +721,7 @@ public class SimpleAgentClass extends Agent {
                     
                     send(request);
                     
-                    MessageTemplate mt = MessageTemplate.MatchSender(new AID("ams", AID.ISLOCALNAME));
+                    MessageTemplate mt = amsReplyTemplate();
                     ACLMessage response = blockingReceive(mt, 5000);
                     
                     if (response != null && response.getPerformative() == ACLMessage.INFORM) {
@@ -761,14 +755,10 @@ public class SimpleAgentClass extends Agent {
                             });
                         }
                     } else {
-                        if (gui != null) {
-                            gui.log("Failed to query containers from AMS");
-                        }
+                        logToGui("Failed to query containers from AMS");
                     }
                 } catch (Exception e) {
-                    if (gui != null) {
-                        gui.log("Error querying containers: " + e.getMessage());
-                    }
+                    logToGui("Error querying containers: " + e.getMessage());
                     e.printStackTrace();
                 }
             }
@@ -795,26 +785,38 @@ public class SimpleAgentClass extends Agent {
             lastContainerViewName = containerName;
             System.out.println("ContainerViewGui created");
             refreshContainerViewFor(containerName); // Load agent list for selected container
-            if (gui != null) {
-                gui.log("Container view opened for: " + here().getName());
-            }
+            logToGui("Container view opened for: " + here().getName());
         });
     }
     
-    // Public method for GUI to log messages (with history tracking)
+    // SL + JADE management for our AMS requests, SL0 + introspection for the directory's AMS events
+    private void registerLanguages() {
+        getContentManager().registerLanguage(new SLCodec());
+        getContentManager().registerOntology(JADEManagementOntology.getInstance());
+        getContentManager().registerLanguage(new SLCodec(), FIPANames.ContentLanguage.FIPA_SL0);
+        getContentManager().registerOntology(IntrospectionOntology.getInstance());
+    }
+
+    // Replies to our own AMS requests (the directory's event notifications use another ontology)
+    private MessageTemplate amsReplyTemplate() {
+        return MessageTemplate.and(
+            MessageTemplate.MatchSender(getAMS()),
+            MessageTemplate.MatchOntology(JADEManagementOntology.NAME)
+        );
+    }
+
+    // Public method for GUI to log messages (with history tracking); the GUI picks new lines up from the buffer
     public void logToGui(String message) {
-        logHistory.add(message); // Save to history
-        if (gui != null) {
-            gui.log(message);
-        }
+        logHistory.append(message, null);
     }
     
     // Public method for GUI to log colored messages
     public void logColoredMessage(String message, Color color) {
-        logHistory.add(message); // Save plain text to history
-        if (gui != null) {
-            gui.logColored(message, color);
-        }
+        logHistory.append(message, color);
+    }
+
+    public LogBuffer getLogBuffer() {
+        return logHistory;
     }
     
     // Get agent's color
@@ -826,10 +828,20 @@ public class SimpleAgentClass extends Agent {
     private class MessageReceiver extends CyclicBehaviour {
         @Override
         public void action() {
-            // Listen for INFORM messages from other agents (not from self)
+            // Listen for INFORM messages from other agents (not from self, and not the AMS events, DF notifications
+            // and Morse replies that other behaviours are waiting for)
             MessageTemplate mt = MessageTemplate.and(
-                MessageTemplate.MatchPerformative(ACLMessage.INFORM),
-                MessageTemplate.not(MessageTemplate.MatchSender(getAID()))
+                MessageTemplate.and(
+                    MessageTemplate.MatchPerformative(ACLMessage.INFORM),
+                    MessageTemplate.not(MessageTemplate.MatchSender(getAID()))
+                ),
+                MessageTemplate.not(MessageTemplate.or(
+                    MessageTemplate.or(
+                        MessageTemplate.MatchOntology(IntrospectionOntology.NAME),
+                        MessageTemplate.MatchOntology(FIPAManagementOntology.NAME)
+                    ),
+                    MessageTemplate.MatchOntology(MORSE_SERVICE_ONTOLOGY)
+                ))
             );
             ACLMessage msg = receive(mt);
             
@@ -887,65 +899,14 @@ public class SimpleAgentClass extends Agent {
             @Override
             public void action() {
                 try {
-                    // Discover all containers first
-                    getContentManager().registerLanguage(new SLCodec());
-                    getContentManager().registerOntology(JADEManagementOntology.getInstance());
-
-                    ACLMessage reqLocations = new ACLMessage(ACLMessage.REQUEST);
-                    reqLocations.addReceiver(new AID("ams", AID.ISLOCALNAME));
-                    reqLocations.setLanguage("fipa-sl");
-                    reqLocations.setOntology("JADE-agent-management");
-
-                    QueryPlatformLocationsAction qpla = new QueryPlatformLocationsAction();
-                    Action actLocations = new Action(getAID(), qpla);
-                    getContentManager().fillContent(reqLocations, actLocations);
-                    send(reqLocations);
-
-                    MessageTemplate mtAms = MessageTemplate.MatchSender(new AID("ams", AID.ISLOCALNAME));
-                    ACLMessage respLocations = blockingReceive(mtAms, 5000);
-
-                    boolean found = false;
-                    if (respLocations != null && respLocations.getPerformative() == ACLMessage.INFORM) {
-                        Object content = getContentManager().extractContent(respLocations);
-                        if (content instanceof Result) {
-                            Result res = (Result) content;
-                            List locations = (List) res.getValue();
-
-                            // Scan each container for the target agent
-                            for (int i = 0; i < locations.size() && !found; i++) {
-                                Location loc = (Location) locations.get(i);
-
-                                ACLMessage reqAgents = new ACLMessage(ACLMessage.REQUEST);
-                                reqAgents.addReceiver(new AID("ams", AID.ISLOCALNAME));
-                                reqAgents.setLanguage("fipa-sl");
-                                reqAgents.setOntology("JADE-agent-management");
-
-                                QueryAgentsOnLocation q = new QueryAgentsOnLocation();
-                                q.setLocation(loc);
-                                Action a = new Action(getAID(), q);
-                                getContentManager().fillContent(reqAgents, a);
-                                send(reqAgents);
-
-                                ACLMessage respAgents = blockingReceive(mtAms, 5000);
-                                if (respAgents != null && respAgents.getPerformative() == ACLMessage.INFORM) {
-                                    Object c2 = getContentManager().extractContent(respAgents);
-                                    if (c2 instanceof Result) {
-                                        Result r2 = (Result) c2;
-                                        List agentList = (List) r2.getValue();
-                                        for (int j = 0; j < agentList.size(); j++) {
-                                            AID aid = (AID) agentList.get(j);
-                                            if (aid.getLocalName().equals(targetAgent)) {
-                                                found = true;
-                                                break;
-                                            }
-                                        }
-                                    }
-                                }
-                            }
-                        }
+                    if (!directory.isReady()) {
+                        logColoredMessage("Cannot send yet: still loading the platform directory, try again in a moment.", Color.RED);
+                        return;
                     }
 
-                    if (!found) {
+                    // Resolve the target locally; the directory follows the AMS, so no round trips here
+                    AID target = directory.find(targetAgent);
+                    if (target == null) {
                         // Target agent not found anywhere – report error
                         String err = "Error: agent '" + targetAgent + "' does not exist on the platform.";
                         logColoredMessage(err, Color.RED);
@@ -955,27 +916,23 @@ public class SimpleAgentClass extends Agent {
 
                     // Build and send the message now that target exists
                     ACLMessage msg = new ACLMessage(ACLMessage.INFORM);
-                    msg.addReceiver(new AID(targetAgent, AID.ISLOCALNAME));
+                    msg.addReceiver(target);
                     String colorStr = agentColor.getRed() + "," + agentColor.getGreen() + "," + agentColor.getBlue();
                     msg.setContent("COLOR:" + colorStr + "|" + message);
                     send(msg);
 
-                    if (gui != null) {
-                        gui.log("Sent to " + targetAgent + ": " + message);
-                    }
+                    logToGui("Sent to " + targetAgent + ": " + message);
                     System.out.println("[" + getLocalName() + "] Sent to " + targetAgent + ": " + message);
                 } catch (Exception e) {
                     String err = "Error sending message: " + e.getMessage();
-                    if (gui != null) {
-                        gui.log(err);
-                    }
+                    logToGui(err);
                     e.printStackTrace();
                 }
             }
         });
     }
     
-    // Broadcast message to all agents across ALL containers
+    // Broadcast message to every chat agent: one send to the chat topic, or multi-receiver messages without topics
     private void broadcastMessage(String message) {
         // Block broadcasting when chat is disabled
         if (!chatEnabled) {
@@ -987,99 +944,99 @@ public class SimpleAgentClass extends Agent {
             @Override
             public void action() {
                 try {
-                    getContentManager().registerLanguage(new SLCodec());
-                    getContentManager().registerOntology(JADEManagementOntology.getInstance());
-
-                    // 1) Ask AMS for all platform locations (containers)
-                    ACLMessage reqLocations = new ACLMessage(ACLMessage.REQUEST);
-                    reqLocations.addReceiver(new AID("ams", AID.ISLOCALNAME));
-                    reqLocations.setLanguage("fipa-sl");
-                    reqLocations.setOntology("JADE-agent-management");
-
-                    QueryPlatformLocationsAction qpla = new QueryPlatformLocationsAction();
-                    Action actLocations = new Action(getAID(), qpla);
-                    getContentManager().fillContent(reqLocations, actLocations);
-                    send(reqLocations);
-
-                    MessageTemplate mtAms = MessageTemplate.MatchSender(new AID("ams", AID.ISLOCALNAME));
-                    ACLMessage respLocations = blockingReceive(mtAms, 5000);
-
-                    if (respLocations == null || respLocations.getPerformative() != ACLMessage.INFORM) {
-                        if (gui != null) gui.log("Error broadcasting: no response from AMS for locations");
-                        return;
-                    }
-
-                    Object content = getContentManager().extractContent(respLocations);
-                    if (!(content instanceof Result)) {
-                        if (gui != null) gui.log("Error broadcasting: unexpected AMS response format");
-                        return;
-                    }
-
-                    Result res = (Result) content;
-                    List locations = (List) res.getValue();
-
-                    // Use a set to avoid accidental duplicates
-                    Set<String> recipients = new HashSet<>();
-
-                    // 2) For each location, query agents on that location
-                    for (int i = 0; i < locations.size(); i++) {
-                        Location loc = (Location) locations.get(i);
-
-                        ACLMessage reqAgents = new ACLMessage(ACLMessage.REQUEST);
-                        reqAgents.addReceiver(new AID("ams", AID.ISLOCALNAME));
-                        reqAgents.setLanguage("fipa-sl");
-                        reqAgents.setOntology("JADE-agent-management");
-
-                        QueryAgentsOnLocation q = new QueryAgentsOnLocation();
-                        q.setLocation(loc);
-                        Action actAgents = new Action(getAID(), q);
-                        getContentManager().fillContent(reqAgents, actAgents);
-                        send(reqAgents);
-
-                        ACLMessage respAgents = blockingReceive(mtAms, 5000);
-                        if (respAgents != null && respAgents.getPerformative() == ACLMessage.INFORM) {
-                            Object c2 = getContentManager().extractContent(respAgents);
-                            if (c2 instanceof Result) {
-                                Result r2 = (Result) c2;
-                                List agentList = (List) r2.getValue();
-                                for (int j = 0; j < agentList.size(); j++) {
-                                    AID aid = (AID) agentList.get(j);
-                                    String local = aid.getLocalName();
-                                    // Skip self and system agents
-                                    if (!aid.equals(getAID()) && !"ams".equals(local) && !"df".equals(local)) {
-                                        recipients.add(local);
-                                    }
-                                }
-                            }
-                        }
-                    }
+                    String colorStr = agentColor.getRed() + "," + agentColor.getGreen() + "," + agentColor.getBlue();
+                    String content = "COLOR:" + colorStr + "|" + message;
 
-                    // 3) Send the broadcast to all collected recipients
-                    int sentCount = 0;
-                    for (String localName : recipients) {
+                    String audience;
+                    TopicManagementHelper topics = topicHelper();
+                    if (topics != null) {
+                        // The topic service fans the message out to every registered chat agent
                         ACLMessage msg = new ACLMessage(ACLMessage.INFORM);
-                        msg.addReceiver(new AID(localName, AID.ISLOCALNAME));
-                        String colorStr = agentColor.getRed() + "," + agentColor.getGreen() + "," + agentColor.getBlue();
-                        msg.setContent("COLOR:" + colorStr + "|" + message);
+                        msg.addReceiver(topics.createTopic(CHAT_TOPIC));
+                        msg.setContent(content);
                         send(msg);
-                        sentCount++;
+                        audience = "chat topic";
+                    } else {
+                        if (!directory.isReady()) {
+                            logColoredMessage("Cannot broadcast yet: still loading the platform directory, try again in a moment.", Color.RED);
+                            return;
+                        }
+                        java.util.List<AID> recipients = getBroadcastRecipients();
+                        if (recipients.isEmpty()) {
+                            logColoredMessage("Broadcast skipped: no other agents on the platform.", Color.ORANGE);
+                            return;
+                        }
+                        for (int from = 0; from < recipients.size(); from += BROADCAST_BATCH) {
+                            ACLMessage msg = new ACLMessage(ACLMessage.INFORM);
+                            for (AID aid : recipients.subList(from, Math.min(from + BROADCAST_BATCH, recipients.size()))) {
+                                msg.addReceiver(aid);
+                            }
+                            msg.setContent(content);
+                            send(msg);
+                        }
+                        audience = recipients.size() + " agent(s)";
                     }
 
-                    if (gui != null) {
-                        gui.log("Broadcast (all containers) sent to " + sentCount + " agent(s): " + message);
-                    }
-                    System.out.println("[" + getLocalName() + "] Broadcast (all containers) to " + sentCount + " agents: " + message);
+                    logToGui("Broadcast (" + audience + ") sent: " + message);
+                    System.out.println("[" + getLocalName() + "] Broadcast (" + audience + "): " + message);
 
                 } catch (Exception e) {
-                    if (gui != null) {
-                        gui.log("Error broadcasting: " + e.getMessage());
-                    }
+                    logToGui("Error broadcasting: " + e.getMessage());
                     e.printStackTrace();
                 }
             }
         });
     }
 
+    // Every agent in the directory except ourselves and the platform agents, cached until the directory changes
+    private java.util.List<AID> getBroadcastRecipients() {
+        if (broadcastRecipients == null || broadcastRecipientsVersion != directory.getVersion()) {
+            java.util.List<AID> recipients = new java.util.ArrayList<>();
+            for (AID aid : directory.getAgents()) {
+                String local = aid.getLocalName();
+                if (!aid.equals(getAID()) && !"ams".equals(local) && !"df".equals(local)) {
+                    recipients.add(aid);
+                }
+            }
+            broadcastRecipients = recipients;
+            broadcastRecipientsVersion = directory.getVersion();
+        }
+        return broadcastRecipients;
+    }
+
+    // ---------------- Chat topic: membership follows the chat toggle ----------------
+    /**
+     * The topic service helper, or null when the container runs without TopicManagementService.
+     */
+    private TopicManagementHelper topicHelper() {
+        try {
+            return (TopicManagementHelper) getHelper(TopicManagementHelper.SERVICE_NAME);
+        } catch (ServiceException se) {
+            return null;
+        }
+    }
+
+    /**
+     * Join the chat topic while chat is enabled and leave it otherwise, so broadcasts reach the same agents
+     * the DF lists as chat providers.
+     */
+    private void refreshTopicRegistration() {
+        TopicManagementHelper topics = topicHelper();
+        if (topics == null) {
+            return; // No topic service: broadcasts fall back to multi-receiver messages
+        }
+        try {
+            AID topic = topics.createTopic(CHAT_TOPIC);
+            if (chatEnabled) {
+                topics.register(topic);
+            } else {
+                topics.deregister(topic);
+            }
+        } catch (ServiceException se) {
+            System.err.println("Chat topic update failed: " + se.getMessage());
+        }
+    }
+
     // ---------------- DF: Register/deregister chat service and toggle support ----------------
     /**
      * Register this agent in the DF as a provider of service type "chat".
@@ -1105,6 +1062,7 @@ public class SimpleAgentClass extends Agent {
                         // Turn OFF: remove DF entry so others can't discover this agent by chat service
                         chatEnabled = false;
                         try { refreshDfRegistration(); } catch (FIPAException ignored) {}
+                        refreshTopicRegistration();
                         if (gui != null) gui.updateChatToggle(false);
                         logColoredMessage("Chat service disabled (DF entry removed).", Color.ORANGE);
                     } else {
@@ -1112,6 +1070,7 @@ public class SimpleAgentClass extends Agent {
                         chatEnabled = true;
                         try {
                             refreshDfRegistration();
+                            refreshTopicRegistration();
                             if (gui != null) gui.updateChatToggle(true);
                             logColoredMessage("Chat service enabled (registered in DF).", agentColor);
                         } catch (FIPAException e) {
@@ -1266,6 +1225,13 @@ public class SimpleAgentClass extends Agent {
                             logColoredMessage(sb.toString(), Color.DARK_GRAY);
                         }
                     }
+                    // How this agent's Morse requests are spread over the providers
+                    if (morseProviders.getProviderCount() > 0) {
+                        logColoredMessage("Morse providers as seen from " + getLocalName() + ":", new Color(80,80,160));
+                        for (String line : morseProviders.describe()) {
+                            logColoredMessage("  - " + line, Color.DARK_GRAY);
+                        }
+                    }
                 } catch (FIPAException fe) {
                     logColoredMessage("DF list error: " + fe.getMessage(), Color.RED);
                 } catch (Exception e) {
@@ -1276,80 +1242,140 @@ public class SimpleAgentClass extends Agent {
     }
 
     /**
-     * Locate a registered Morse provider via the DF. Prefers remote providers so the teacher can demonstrate inter-agent calls,
-     * but gracefully falls back to this agent when we happen to be the only provider.
+     * One Morse request: sends it, then collects the reply chunks as they arrive, giving up when the provider stays
+     * silent for MORSE_REPLY_TIMEOUT. Several can run at once; the balancer is told when each one ends and how long it took.
      */
-    private AID findMorseProvider(String preferredLocalName) throws FIPAException {
-
-        DFAgentDescription template = new DFAgentDescription();
-        ServiceDescription sd = new ServiceDescription();
-        sd.setType(MORSE_SERVICE_TYPE);
-        template.addServices(sd);
+    private class MorseRequestBehaviour extends jade.core.behaviours.SimpleBehaviour {
+        private final AID provider;
+        private final String plainText;
+        private final String convId;
+        private final MessageTemplate template;
+        private final StringBuilder morse = new StringBuilder();
+        private long startedAt;
+        private long deadline;
+        private int chunks = 0;
+        private boolean finished = false;
+
+        MorseRequestBehaviour(AID provider, String plainText) {
+            super(SimpleAgentClass.this);
+            this.provider = provider;
+            this.plainText = plainText;
+            // The counter keeps requests started in the same millisecond apart
+            this.convId = "morse-" + System.currentTimeMillis() + "-" + getLocalName() + "-" + (morseRequestCounter++);
+            this.template = MessageTemplate.and(
+                MessageTemplate.MatchConversationId(convId),
+                MessageTemplate.MatchOntology(MORSE_SERVICE_ONTOLOGY)
+            );
+        }
 
-        jade.domain.FIPAAgentManagement.SearchConstraints sc = new jade.domain.FIPAAgentManagement.SearchConstraints();
-        sc.setMaxResults(10L);//constrained about max results to avoid error idk why
-        DFAgentDescription[] results = DFService.search(this, template, sc);
-        if (results == null || results.length == 0) {
-            return null;
+        @Override
+        public void onStart() {
+            ACLMessage req = new ACLMessage(ACLMessage.REQUEST);
+            req.addReceiver(provider);
+            req.setOntology(MORSE_SERVICE_ONTOLOGY);
+            req.setConversationId(convId);
+            req.setReplyWith(convId + "-req");
+            req.setContent(plainText);
+            morseConversations.add(convId);
+            send(req);
+            morseProviders.started(provider);
+            startedAt = System.currentTimeMillis();
+            deadline = startedAt + MORSE_REPLY_TIMEOUT;
+            logColoredMessage("Requested Morse translation from " + provider.getLocalName() + "...", agentColor);
         }
-        //Fall backs in case of errors just in case, sometimes its agent itself sometimes other agents
-        AID fallbackRemote = null;
-        AID fallbackSelf = null;
-        String preferred = preferredLocalName == null ? "" : preferredLocalName.trim();
-
-        for (DFAgentDescription dfd : results) {
-            AID candidate = dfd.getName();
-            if (!preferred.isEmpty()) {
-                if (candidate.getLocalName().equalsIgnoreCase(preferred)) {
-                    return candidate;
+
+        @Override
+        public void action() {
+            ACLMessage resp = receive(template);
+            if (resp == null) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    fail("No Morse reply from " + provider.getLocalName() + " (timeout).");
+                } else {
+                    block(remaining);
                 }
-                continue;
+                return;
             }
-            if (!candidate.equals(getAID()) && fallbackRemote == null) {
-                fallbackRemote = candidate;
-            } else if (candidate.equals(getAID())) {
-                fallbackSelf = candidate;
+            if (resp.getPerformative() != ACLMessage.INFORM) {
+                fail("Morse request failed: " + resp.getContent());
+                return;
             }
+            // Collect the chunks until the one marked last (a reply without the marker is complete on its own)
+            String index = resp.getUserDefinedParameter(MORSE_CHUNK_PARAM);
+            if (index != null) {
+                int received;
+                try {
+                    received = Integer.parseInt(index);
+                } catch (NumberFormatException e) {
+                    fail("Morse reply from " + provider.getLocalName() + " has a bad chunk index: " + index);
+                    return;
+                }
+                if (received != chunks) {
+                    fail("Morse reply from " + provider.getLocalName() + " arrived out of order.");
+                    return;
+                }
+            }
+            morse.append(resp.getContent());
+            chunks++;
+            deadline = System.currentTimeMillis() + MORSE_REPLY_TIMEOUT;
+            if ("false".equals(resp.getUserDefinedParameter(MORSE_LAST_PARAM))) {
+                return;
+            }
+
+            finished = true;
+            morseConversations.remove(convId);
+            morseProviders.finished(provider, System.currentTimeMillis() - startedAt);
+            morseRequestDone();
+            String shown = previewMorse(morse);
+            logColoredMessage("Morse reply from " + provider.getLocalName() + ": " + shown, agentColor);
+            logToGui("Morse (" + provider.getLocalName() + ") " + previewMorse(plainText) + " => " + shown);
         }
 
-        if (!preferred.isEmpty()) {
-            // Preferred agent not advertising the service
-            return null;
+        private void fail(String message) {
+            finished = true;
+            morseConversations.remove(convId); // whatever the provider still sends goes to MorseReplyCleaner
+            morseProviders.failed(provider, System.currentTimeMillis() - startedAt);
+            logColoredMessage(message, Color.RED);
+            morseRequestDone();
         }
 
-        return fallbackRemote != null ? fallbackRemote : fallbackSelf;
+        @Override
+        public boolean done() {
+            return finished;
+        }
     }
-
     /**
-     * Convert readable text to Morse code
-     * Unsupported characters are replaced with "?" psq hkda why not
+     * Drops Morse replies nobody is waiting for. MessageReceiver leaves all Morse messages alone, so without this the
+     * chunks of an abandoned request would sit in the queue for good, and every receive would scan past them.
      */
-    private String translateToMorse(String text) {
-        if (text == null || text.isEmpty()) {
-            return "";
-        }
-        StringBuilder sb = new StringBuilder();
-        boolean justAddedGap = false;
-        for (char raw : text.toCharArray()) {
-            char ch = Character.toUpperCase(raw);
-            if (Character.isWhitespace(ch)) {
-                if (!justAddedGap && sb.length() > 0) {
-                    sb.append(" / ");
-                    justAddedGap = true;
+    private class MorseReplyCleaner extends CyclicBehaviour {
+        private final MessageTemplate template = MessageTemplate.and(
+            MessageTemplate.and(
+                MessageTemplate.MatchOntology(MORSE_SERVICE_ONTOLOGY),
+                MessageTemplate.not(MessageTemplate.MatchPerformative(ACLMessage.REQUEST))
+            ),
+            new MessageTemplate(new MessageTemplate.MatchExpression() {
+                @Override
+                public boolean match(ACLMessage msg) {
+                    return !morseConversations.contains(msg.getConversationId());
                 }
-                continue;
-            }
-            String morse = MORSE_MAP.get(ch);
-            if (morse == null) {
-                morse = "?";
-            }
-            if (sb.length() > 0 && !justAddedGap) {
-                sb.append(' ');
+            })
+        );
+
+        @Override
+        public void action() {
+            if (receive(template) == null) {
+                block();
             }
-            sb.append(morse);
-            justAddedGap = false;
         }
-        return sb.toString();
+    }
+
+    // Long Morse text is cut short in the log; the GUI does not need megabytes of dots and dashes
+    private static String previewMorse(CharSequence text) {
+        if (text.length() <= MORSE_LOG_PREVIEW) {
+            return text.toString();
+        }
+        return text.subSequence(0, MORSE_LOG_PREVIEW) + "... (" + text.length() + " chars)";
     }
 
     /**
@@ -1380,69 +1406,75 @@ public class SimpleAgentClass extends Agent {
                 return;
             }
 
-            String morse = translateToMorse(content);
+            if (content.length() > MORSE_CHUNK_CHARS) {
+                addBehaviour(new MorseChunkReplyBehaviour(msg));
+                return;
+            }
+
+            String morse = MorseCodec.encode(content);
             reply.setPerformative(ACLMessage.INFORM);
             reply.setContent(morse);
+            reply.addUserDefinedParameter(MORSE_CHUNK_PARAM, "0");
+            reply.addUserDefinedParameter(MORSE_LAST_PARAM, "true");
             send(reply);
 
             logColoredMessage(
-                "Provided Morse translation to " + msg.getSender().getLocalName() + ": " + morse,
+                "Provided Morse translation to " + msg.getSender().getLocalName() + ": " + previewMorse(morse),
                 new Color(30, 144, 255)
             );
         }
     }
 
-    private static java.util.Map<Character, String> buildMorseMap() {
-        java.util.Map<Character, String> map = new java.util.LinkedHashMap<>();
-        map.put('A', ".-");
-        map.put('B', "-...");
-        map.put('C', "-.-.");
-        map.put('D', "-..");
-        map.put('E', ".");
-        map.put('F', "..-.");
-        map.put('G', "--.");
-        map.put('H', "....");
-        map.put('I', "..");
-        map.put('J', ".---");
-        map.put('K', "-.-");
-        map.put('L', ".-..");
-        map.put('M', "--");
-        map.put('N', "-.");
-        map.put('O', "---");
-        map.put('P', ".--.");
-        map.put('Q', "--.-");
-        map.put('R', ".-.");
-        map.put('S', "...");
-        map.put('T', "-");
-        map.put('U', "..-");
-        map.put('V', "...-");
-        map.put('W', ".--");
-        map.put('X', "-..-");
-        map.put('Y', "-.--");
-        map.put('Z', "--..");
-        map.put('0', "-----");
-        map.put('1', ".----");
-        map.put('2', "..---");
-        map.put('3', "...--");
-        map.put('4', "....-");
-        map.put('5', ".....");
-        map.put('6', "-....");
-        map.put('7', "--...");
-        map.put('8', "---..");
-        map.put('9', "----.");
-        map.put('.', ".-.-.-");
-        map.put(',', "--..--");
-        map.put('?', "..--..");
-        map.put('!', "-.-.--");
-        map.put('-', "-....-");
-        map.put('/', "-..-.");
-        map.put('@', ".--.-.");
-        map.put('(', "-.--.");
-        map.put(')', "-.--.-");
-        map.put('&', ".-...");
-        return java.util.Collections.unmodifiableMap(map);
+    /**
+     * Answers one long Morse request, translating and sending MORSE_CHUNK_CHARS of the text per step.
+     * The encoder carries the word-gap state across chunks, so the pieces join up to the one-shot translation.
+     */
+    private class MorseChunkReplyBehaviour extends jade.core.behaviours.SimpleBehaviour {
+        private final ACLMessage request;
+        private final String text;
+        private final MorseCodec.Encoder encoder = new MorseCodec.Encoder();
+        private final StringBuilder chunk = new StringBuilder(MORSE_CHUNK_CHARS * 5);
+        private int position = 0;
+        private int chunks = 0;
+        private long sent = 0;
+
+        MorseChunkReplyBehaviour(ACLMessage request) {
+            super(SimpleAgentClass.this);
+            this.request = request;
+            this.text = request.getContent();
+        }
+
+        @Override
+        public void action() {
+            int end = Math.min(position + MORSE_CHUNK_CHARS, text.length());
+            chunk.setLength(0);
+            encoder.encode(text, position, end, chunk);
+            position = end;
+
+            ACLMessage reply = request.createReply();
+            reply.setOntology(MORSE_SERVICE_ONTOLOGY);
+            reply.setPerformative(ACLMessage.INFORM);
+            reply.setContent(chunk.toString());
+            reply.addUserDefinedParameter(MORSE_CHUNK_PARAM, String.valueOf(chunks++));
+            reply.addUserDefinedParameter(MORSE_LAST_PARAM, String.valueOf(done()));
+            send(reply);
+            sent += chunk.length();
+
+            if (done()) {
+                logColoredMessage(
+                    "Provided Morse translation to " + request.getSender().getLocalName() + ": " + text.length()
+                        + " chars in " + chunks + " chunk(s), " + sent + " chars of Morse",
+                    new Color(30, 144, 255)
+                );
+            }
+        }
+
+        @Override
+        public boolean done() {
+            return position >= text.length();
+        }
     }
-    
+
     // Generate unique, well-separated color for agent
     private Color generateUniqueColor() {
         // Use name hash mapped via golden-ratio to distribute hues uniformly around the color wheel
@@ -1459,21 +1491,4 @@ public class SimpleAgentClass extends Agent {
         }
         return c;
     }
-    
-    // Save log history before GUI closes
-    private void saveLogHistory() {
-        if (gui != null) {
-            // GUI will provide current logs
-            // We already track them in logHistory
-        }
-    }
-    
-    // Restore log history when GUI reopens
-    private void restoreLogHistory() {
-        if (gui != null && logHistory != null) {
-            for (String log : logHistory) {
-                gui.log(log);
-            }
-        }
-    }
 }
@@ -7,6 +7,10 @@ import jade.wrapper.AgentController;
 import jade.wrapper.ContainerController;
 
 public class SimpleLauncher {
+    // JADE services for every container: the defaults (mobility, event notification) plus topics, which carry chat broadcasts
+    public static final String PLATFORM_SERVICES = "jade.core.mobility.AgentMobilityService;"
+            + "jade.core.event.NotificationService;jade.core.messaging.TopicManagementService";
+
     public static void main(String[] args) {
         try {
             System.out.println("Starting Simple JADE Agent System...\n");
@@ -18,6 +22,7 @@ public class SimpleLauncher {
             mainProfile.setParameter(Profile.MAIN_HOST, "127.0.0.1");
             mainProfile.setParameter(Profile.MAIN_PORT, "1099");
             mainProfile.setParameter(Profile.GUI, "true");
+            mainProfile.setParameter(Profile.SERVICES, PLATFORM_SERVICES);
             ContainerController mainContainer = rt.createMainContainer(mainProfile);
             System.out.println("Main container created");
 
@@ -26,6 +31,7 @@ public class SimpleLauncher {
             c1Profile.setParameter(Profile.MAIN_HOST, "127.0.0.1");
             c1Profile.setParameter(Profile.MAIN_PORT, "1099");
             c1Profile.setParameter(Profile.CONTAINER_NAME, "Container-1");
+            c1Profile.setParameter(Profile.SERVICES, PLATFORM_SERVICES);
             ContainerController container1 = rt.createAgentContainer(c1Profile);
             System.out.println("Container-1 created");
 
@@ -34,6 +40,7 @@ public class SimpleLauncher {
             c2Profile.setParameter(Profile.MAIN_HOST, "127.0.0.1");
             c2Profile.setParameter(Profile.MAIN_PORT, "1099");
             c2Profile.setParameter(Profile.CONTAINER_NAME, "Container-2");
+            c2Profile.setParameter(Profile.SERVICES, PLATFORM_SERVICES);
             ContainerController container2 = rt.createAgentContainer(c2Profile);
             System.out.println("Container-2 created");
 
@@ -0,0 +1,161 @@
+package SimpleAgent.bench;
+
+import jade.core.Agent;
+import jade.core.Profile;
+import jade.core.ProfileImpl;
+import jade.core.Runtime;
+import jade.core.ServiceException;
+import jade.core.behaviours.CyclicBehaviour;
+import jade.core.messaging.TopicManagementHelper;
+import jade.lang.acl.ACLMessage;
+import jade.lang.acl.MessageTemplate;
+import jade.wrapper.ContainerController;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import SimpleAgent.SimpleAgentClass;
+import SimpleAgent.SimpleLauncher;
+
+/**
+ * BroadcastBench - Measures SimpleAgentClass broadcasts ("BROADCAST:text")
+ * to an audience of [agents] listeners spread over 10 containers.
+ *
+ * Listeners join the chat topic as SimpleAgentClass does and count what
+ * they get. Each broadcast is timed from the GUI command to the last
+ * listener receiving it, one broadcast at a time. Alongside the latency it
+ * reports how many copies were delivered, and how many bytes the
+ * broadcaster's thread allocated per broadcast, which is where building
+ * one ACLMessage per receiver shows up.
+ *
+ * Mode "topic" runs the platform with TopicManagementService, so
+ * broadcasts go to the chat topic; "direct" runs without it, so the
+ * broadcaster falls back to one message addressed to every agent it knows.
+ *
+ * Runs headless, so the agents open no Swing windows.
+ *
+ * Usage: java SimpleAgent.bench.BroadcastBench [agents] [broadcasts] [topic|direct]
+ */
+public class BroadcastBench {
+
+    private static final int CONTAINERS = 10;
+    private static final String SENDER = "sender";
+
+    private static final Semaphore arrivals = new Semaphore(0);
+    private static volatile long lastArrival;
+
+    public static class Listener extends Agent {
+        @Override
+        protected void setup() {
+            try {
+                TopicManagementHelper topics = (TopicManagementHelper) getHelper(TopicManagementHelper.SERVICE_NAME);
+                topics.register(topics.createTopic(SimpleAgentClass.CHAT_TOPIC));
+            } catch (ServiceException e) {
+                // No topic service: only direct broadcasts reach us
+            }
+            addBehaviour(new CyclicBehaviour(this) {
+                @Override
+                public void action() {
+                    ACLMessage msg = receive(MessageTemplate.MatchPerformative(ACLMessage.INFORM));
+                    if (msg == null) {
+                        block();
+                        return;
+                    }
+                    lastArrival = System.nanoTime();
+                    arrivals.release();
+                }
+            });
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int agents = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int broadcasts = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        String mode = args.length > 2 ? args[2] : "topic";
+        String services = mode.equals("topic") ? SimpleLauncher.PLATFORM_SERVICES
+                : "jade.core.mobility.AgentMobilityService;jade.core.event.NotificationService";
+
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        java.util.logging.Logger.getLogger("").setLevel(java.util.logging.Level.SEVERE);
+        System.setProperty("java.awt.headless", "true");
+        Thread.setDefaultUncaughtExceptionHandler((thread, e) -> {
+            if (!(e instanceof java.awt.HeadlessException)) {
+                e.printStackTrace();
+            }
+        });
+
+        Runtime rt = Runtime.instance();
+        rt.setCloseVM(true);
+        Profile mainProfile = new ProfileImpl();
+        mainProfile.setParameter(Profile.MAIN_HOST, "127.0.0.1");
+        mainProfile.setParameter(Profile.MAIN_PORT, "1099");
+        mainProfile.setParameter(Profile.SERVICES, services);
+        rt.createMainContainer(mainProfile);
+
+        List<ContainerController> peripherals = new ArrayList<>();
+        for (int c = 1; c <= CONTAINERS; c++) {
+            Profile p = new ProfileImpl();
+            p.setParameter(Profile.MAIN_HOST, "127.0.0.1");
+            p.setParameter(Profile.MAIN_PORT, "1099");
+            p.setParameter(Profile.CONTAINER_NAME, "Container-" + c);
+            p.setParameter(Profile.SERVICES, services);
+            peripherals.add(rt.createAgentContainer(p));
+        }
+        for (int a = 0; a < agents; a++) {
+            peripherals.get(a % CONTAINERS).acceptNewAgent("Listener-" + a, new Listener()).start();
+        }
+        SimpleAgentClass sender = new SimpleAgentClass();
+        peripherals.get(0).acceptNewAgent(SENDER, sender).start();
+
+        // Warm-up: retry until a broadcast reaches every listener
+        boolean reached = false;
+        while (!reached) {
+            sender.sendCommand("BROADCAST:warm-up");
+            reached = arrivals.tryAcquire(agents, 2, TimeUnit.SECONDS);
+            Thread.sleep(500);
+            arrivals.drainPermits();
+        }
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long senderThread = -1;
+        for (Thread t : Thread.getAllStackTraces().keySet()) {
+            if (t.getName().equals(SENDER)) {
+                senderThread = t.getId();
+            }
+        }
+        long allocatedBefore = threads.getThreadAllocatedBytes(senderThread);
+
+        long[] latencies = new long[broadcasts];
+        for (int i = 0; i < broadcasts; i++) {
+            long start = System.nanoTime();
+            sender.sendCommand("BROADCAST:" + i);
+            if (!arrivals.tryAcquire(agents, 60, TimeUnit.SECONDS)) {
+                console.println("Broadcast " + i + " reached " + arrivals.availablePermits() + " of " + agents);
+                System.exit(1);
+            }
+            latencies[i] = lastArrival - start;
+        }
+        long allocated = threads.getThreadAllocatedBytes(senderThread) - allocatedBefore;
+        Thread.sleep(500);
+        int extra = arrivals.drainPermits();
+        Arrays.sort(latencies);
+
+        console.printf(Locale.ROOT, "%s, %d listeners in %d containers, %d broadcasts%n", mode, agents, CONTAINERS,
+                broadcasts);
+        console.printf(Locale.ROOT, "  latency     p50 %.2f ms, p99 %.2f ms, max %.2f ms%n",
+                latencies[broadcasts / 2] / 1e6,
+                latencies[Math.min(broadcasts - 1, (int) Math.ceil(0.99 * broadcasts) - 1)] / 1e6,
+                latencies[broadcasts - 1] / 1e6);
+        console.printf(Locale.ROOT, "  delivered   %.1f per broadcast%n", (double) agents + (double) extra / broadcasts);
+        console.printf(Locale.ROOT, "  sender      %.1f KB allocated per broadcast%n", allocated / 1024.0 / broadcasts);
+        System.exit(0);
+    }
+}
@@ -0,0 +1,191 @@
+package SimpleAgent.bench;
+
+import javax.swing.JTextPane;
+import javax.swing.SwingUtilities;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.SimpleAttributeSet;
+import javax.swing.text.StyleConstants;
+import javax.swing.text.StyledDocument;
+import java.awt.Color;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import SimpleAgent.LogBuffer;
+import SimpleAgent.SimpleAgentClass;
+import SimpleGui.LogPane;
+
+/**
+ * GuiLogBench - An agent's log under a burst of [messages] lines, as the
+ * agent thread writes them and the Swing thread shows them.
+ *
+ * Mode "ring" is the agent's LogBuffer shown by a LogPane. Mode "legacy"
+ * is the log as it was (kept below as Legacy): every line added to an
+ * unbounded list and sent to the Swing thread on its own. A quarter of the
+ * lines are coloured, like the agent's own notices between chat messages.
+ *
+ * While the burst runs, a probe posts a task to the Swing thread every
+ * millisecond and records how long it waited: the delay a click or a
+ * repaint would see. The run ends once the last line is on screen. It
+ * reports that time, the probe delays, and how much heap the log still
+ * holds after a GC.
+ *
+ * Runs headless: the pane is never put in a window, but its document and
+ * views are updated just the same.
+ *
+ * Usage: java SimpleAgent.bench.GuiLogBench [messages] [ring|legacy]
+ */
+public class GuiLogBench {
+
+    private static final Color NOTICE = new Color(30, 144, 255);
+
+    // The log as SimpleAgentClass and SimpleGuiClass had it
+    static class Legacy {
+        final ArrayList<String> history = new ArrayList<>();
+        final JTextPane pane = new JTextPane();
+
+        void log(String message, Color color) {
+            history.add(message);
+            SwingUtilities.invokeLater(() -> {
+                try {
+                    SimpleAttributeSet attrs = new SimpleAttributeSet();
+                    StyleConstants.setForeground(attrs, color != null ? color : new Color(40, 40, 40));
+                    StyleConstants.setBold(attrs, color != null);
+                    StyledDocument doc = pane.getStyledDocument();
+                    doc.insertString(doc.getLength(), message + "\n", attrs);
+                    pane.setCaretPosition(doc.getLength());
+                } catch (BadLocationException e) {
+                    e.printStackTrace();
+                }
+            });
+        }
+    }
+
+    private static Legacy legacy;
+    private static LogBuffer buffer;
+    private static JTextPane pane;
+
+    public static void main(String[] args) throws Exception {
+        int messages = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        String mode = args.length > 1 ? args[1] : "ring";
+        System.setProperty("java.awt.headless", "true");
+
+        SwingUtilities.invokeAndWait(() -> {
+            if (mode.equals("legacy")) {
+                legacy = new Legacy();
+                pane = legacy.pane;
+            } else {
+                buffer = new LogBuffer(SimpleAgentClass.LOG_CAPACITY);
+                LogPane logPane = new LogPane();
+                logPane.attach(buffer);
+                pane = logPane;
+            }
+            pane.setSize(600, 400);
+        });
+
+        // Warm-up, then start from a clean slate
+        burst(5_000, "warm-up");
+        waitUntilShown("warm-up " + (5_000 - 1));
+        SwingUtilities.invokeAndWait(() -> {
+            if (legacy != null) {
+                legacy.history.clear();
+                pane.setText("");
+            } else {
+                buffer = new LogBuffer(SimpleAgentClass.LOG_CAPACITY);
+                ((LogPane) pane).attach(buffer);
+            }
+        });
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long heapBefore = usedAfterGc(memory);
+
+        List<Long> delays = new ArrayList<>();
+        Thread probe = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                long posted = System.nanoTime();
+                SwingUtilities.invokeLater(() -> {
+                    long delay = System.nanoTime() - posted;
+                    synchronized (delays) {
+                        delays.add(delay);
+                    }
+                });
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+        probe.start();
+
+        long start = System.nanoTime();
+        burst(messages, "Message");
+        long written = System.nanoTime() - start;
+        waitUntilShown("Message " + (messages - 1));
+        long shown = System.nanoTime() - start;
+        probe.interrupt();
+        probe.join();
+        SwingUtilities.invokeAndWait(() -> {
+        }); // the probe's last tasks
+
+        long heapAfter = usedAfterGc(memory);
+        int[] lines = new int[1];
+        SwingUtilities.invokeAndWait(() -> lines[0] = pane.getDocument().getDefaultRootElement().getElementCount() - 1);
+
+        long[] sorted;
+        synchronized (delays) {
+            sorted = delays.stream().mapToLong(Long::longValue).toArray();
+        }
+        Arrays.sort(sorted);
+        System.out.printf(Locale.ROOT, "%s, %d messages%n", mode, messages);
+        System.out.printf(Locale.ROOT, "  written in   %.0f ms, all shown after %.0f ms%n", written / 1e6, shown / 1e6);
+        System.out.printf(Locale.ROOT, "  EDT delay    p50 %.1f ms, p99 %.1f ms, max %.1f ms (%d probes)%n",
+            sorted[sorted.length / 2] / 1e6, sorted[(int) Math.ceil(0.99 * sorted.length) - 1] / 1e6,
+            sorted[sorted.length - 1] / 1e6, sorted.length);
+        System.out.printf(Locale.ROOT, "  heap held    %.1f MB after GC, %d lines in the pane%n",
+            (heapAfter - heapBefore) / (1024.0 * 1024), lines[0]);
+        System.exit(0);
+    }
+
+    // The agent's side: lines as fast as it can produce them
+    private static void burst(int count, String prefix) {
+        for (int i = 0; i < count; i++) {
+            String line = prefix + " " + i;
+            Color color = i % 4 == 0 ? NOTICE : null;
+            if (legacy != null) {
+                legacy.log(line, color);
+            } else {
+                buffer.append(line, color);
+            }
+        }
+    }
+
+    private static void waitUntilShown(String lastLine) throws Exception {
+        boolean[] done = new boolean[1];
+        while (!done[0]) {
+            SwingUtilities.invokeAndWait(() -> {
+                try {
+                    StyledDocument doc = (StyledDocument) pane.getDocument();
+                    int from = Math.max(0, doc.getLength() - lastLine.length() - 1);
+                    done[0] = doc.getText(from, doc.getLength() - from).equals(lastLine + "\n");
+                } catch (BadLocationException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            if (!done[0]) {
+                Thread.sleep(5);
+            }
+        }
+    }
+
+    private static long usedAfterGc(MemoryMXBean memory) throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
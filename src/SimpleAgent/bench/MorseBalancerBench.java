@@ -0,0 +1,189 @@
+package SimpleAgent.bench;
+
+import jade.core.AID;
+import jade.core.Agent;
+import jade.core.Profile;
+import jade.core.ProfileImpl;
+import jade.core.Runtime;
+import jade.core.behaviours.CyclicBehaviour;
+import jade.domain.DFService;
+import jade.domain.FIPAAgentManagement.DFAgentDescription;
+import jade.domain.FIPAAgentManagement.ServiceDescription;
+import jade.domain.FIPAException;
+import jade.lang.acl.ACLMessage;
+import jade.lang.acl.MessageTemplate;
+import jade.wrapper.ContainerController;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import SimpleAgent.MorseCodec;
+import SimpleAgent.SimpleAgentClass;
+
+/**
+ * MorseBalancerBench - Throughput of Morse requests from [clients]
+ * SimpleAgentClass agents to [providers] translators.
+ *
+ * The providers answer the Morse service like SimpleAgentClass does, but
+ * each request costs [service ms] of work, and the first provider is four
+ * times slower than the rest. Every client is handed [requests] Morse
+ * requests at once. The run ends when the providers have answered all of
+ * them. It reports the requests per second, how the requests were spread
+ * over the providers, and the longest queue each provider had.
+ *
+ * Clients and providers live in 5 containers. Runs headless: the agents'
+ * Swing windows are not opened.
+ *
+ * Usage: java SimpleAgent.bench.MorseBalancerBench [clients] [providers] [requests] [service ms]
+ */
+public class MorseBalancerBench {
+
+    private static final int CONTAINERS = 5;
+    private static final int SLOW_FACTOR = 4;
+
+    private static final AtomicInteger answered = new AtomicInteger();
+    private static final Set<AID> requesters = ConcurrentHashMap.newKeySet();
+
+    // Morse translator with a fixed cost per request
+    public static class Provider extends Agent {
+        final AtomicInteger served = new AtomicInteger();
+        volatile int longestQueue = 0;
+
+        @Override
+        protected void setup() {
+            long serviceMillis = (Long) getArguments()[0];
+            DFAgentDescription dfd = new DFAgentDescription();
+            dfd.setName(getAID());
+            ServiceDescription sd = new ServiceDescription();
+            sd.setType(SimpleAgentClass.MORSE_SERVICE_TYPE);
+            sd.setName(getLocalName() + "-morse");
+            sd.addOntologies(SimpleAgentClass.MORSE_SERVICE_ONTOLOGY);
+            dfd.addServices(sd);
+            try {
+                DFService.register(this, dfd);
+            } catch (FIPAException e) {
+                throw new IllegalStateException(e);
+            }
+
+            MessageTemplate template = MessageTemplate.and(
+                MessageTemplate.MatchPerformative(ACLMessage.REQUEST),
+                MessageTemplate.MatchOntology(SimpleAgentClass.MORSE_SERVICE_ONTOLOGY));
+            addBehaviour(new CyclicBehaviour(this) {
+                @Override
+                public void action() {
+                    ACLMessage msg = receive(template);
+                    if (msg == null) {
+                        block();
+                        return;
+                    }
+                    longestQueue = Math.max(longestQueue, getCurQueueSize() + 1);
+                    try {
+                        Thread.sleep(serviceMillis);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    ACLMessage reply = msg.createReply();
+                    reply.setPerformative(ACLMessage.INFORM);
+                    reply.setOntology(SimpleAgentClass.MORSE_SERVICE_ONTOLOGY);
+                    reply.setContent(MorseCodec.encode(msg.getContent()));
+                    send(reply);
+                    served.incrementAndGet();
+                    requesters.add(msg.getSender());
+                    answered.incrementAndGet();
+                }
+            });
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int providers = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int requests = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+        long serviceMillis = args.length > 3 ? Long.parseLong(args[3]) : 5;
+
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        java.util.logging.Logger.getLogger("").setLevel(java.util.logging.Level.SEVERE);
+        System.setProperty("java.awt.headless", "true");
+        Thread.setDefaultUncaughtExceptionHandler((thread, e) -> {
+            if (!(e instanceof java.awt.HeadlessException)) {
+                e.printStackTrace();
+            }
+        });
+
+        Runtime rt = Runtime.instance();
+        rt.setCloseVM(true);
+        Profile mainProfile = new ProfileImpl();
+        mainProfile.setParameter(Profile.MAIN_HOST, "127.0.0.1");
+        mainProfile.setParameter(Profile.MAIN_PORT, "1099");
+        rt.createMainContainer(mainProfile);
+
+        List<ContainerController> peripherals = new ArrayList<>();
+        for (int c = 1; c <= CONTAINERS; c++) {
+            Profile p = new ProfileImpl();
+            p.setParameter(Profile.MAIN_HOST, "127.0.0.1");
+            p.setParameter(Profile.MAIN_PORT, "1099");
+            p.setParameter(Profile.CONTAINER_NAME, "Container-" + c);
+            peripherals.add(rt.createAgentContainer(p));
+        }
+        List<Provider> translators = new ArrayList<>();
+        for (int i = 0; i < providers; i++) {
+            Provider provider = new Provider();
+            provider.setArguments(new Object[] { i == 0 ? serviceMillis * SLOW_FACTOR : serviceMillis });
+            peripherals.get(i % CONTAINERS).acceptNewAgent("Translator-" + i, provider).start();
+            translators.add(provider);
+        }
+        List<SimpleAgentClass> requesterAgents = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            SimpleAgentClass client = new SimpleAgentClass();
+            peripherals.get(i % CONTAINERS).acceptNewAgent("Client-" + i, client).start();
+            requesterAgents.add(client);
+        }
+
+        // Warm-up: retry until every client has found a provider and got an answer
+        while (requesters.size() < clients) {
+            for (SimpleAgentClass client : requesterAgents) {
+                client.sendCommand("REQUEST_MORSE:warm up");
+            }
+            Thread.sleep(1000);
+        }
+        Thread.sleep(1000);
+        answered.set(0);
+        for (Provider provider : translators) {
+            provider.served.set(0);
+            provider.longestQueue = 0;
+        }
+
+        int total = clients * requests;
+        long start = System.nanoTime();
+        for (int r = 0; r < requests; r++) {
+            for (SimpleAgentClass client : requesterAgents) {
+                client.sendCommand("REQUEST_MORSE:sos " + r);
+            }
+        }
+        long deadline = start + 120_000_000_000L;
+        while (answered.get() < total && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        long elapsed = System.nanoTime() - start;
+        if (answered.get() < total) {
+            console.println("Answered " + answered.get() + " of " + total + " requests");
+            System.exit(1);
+        }
+
+        console.printf(Locale.ROOT, "%d clients, %d providers (%d ms each, Translator-0 %d ms), %d requests%n",
+            clients, providers, serviceMillis, serviceMillis * SLOW_FACTOR, total);
+        console.printf(Locale.ROOT, "  throughput  %.0f requests/s (%.2f s)%n", total / (elapsed / 1e9), elapsed / 1e9);
+        for (Provider provider : translators) {
+            console.printf(Locale.ROOT, "  %-12s %5.1f%% of requests, longest queue %d%n", provider.getLocalName(),
+                100.0 * provider.served.get() / total, provider.longestQueue);
+        }
+        System.exit(0);
+    }
+}
@@ -0,0 +1,213 @@
+package SimpleAgent.bench;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+import SimpleAgent.MorseCodec;
+
+/**
+ * MorseCodecBench - Throughput and allocation of MorseCodec against the
+ * map-based translator SimpleAgentClass used before (kept below as Legacy),
+ * for texts of 1 KB to 10 MB.
+ *
+ * The text is seeded random words of mixed-case letters and digits with
+ * some punctuation and the odd character Morse has no code for. Each case
+ * is warmed up for half a second and then timed for at least one second;
+ * throughput is input characters per second, allocation is what the
+ * benchmark thread allocated per operation. Streaming cases read from a
+ * StringReader and write to a Writer that discards. Before timing, the
+ * results are checked against Legacy and against each other.
+ *
+ * Usage: java SimpleAgent.bench.MorseCodecBench [max size in KB]
+ */
+public class MorseCodecBench {
+
+    private static final String WORD_CHARS = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+    private static final String PUNCTUATION = ".,?!-/@()&;#";
+    private static final int[] SIZES_KB = { 1, 10, 100, 1024, 10 * 1024 };
+
+    // The translator as it was in SimpleAgentClass: boxed map lookups on an upper-cased copy
+    static class Legacy {
+        private static final Map<Character, String> MORSE_MAP = new LinkedHashMap<>();
+
+        static {
+            String[] codes = { ".-", "-...", "-.-.", "-..", ".", "..-.", "--.", "....", "..", ".---", "-.-", ".-..",
+                    "--", "-.", "---", ".--.", "--.-", ".-.", "...", "-", "..-", "...-", ".--", "-..-", "-.--", "--.." };
+            for (int i = 0; i < 26; i++) {
+                MORSE_MAP.put((char) ('A' + i), codes[i]);
+            }
+            String[] digits = { "-----", ".----", "..---", "...--", "....-", ".....", "-....", "--...", "---..",
+                    "----." };
+            for (int i = 0; i < 10; i++) {
+                MORSE_MAP.put((char) ('0' + i), digits[i]);
+            }
+            MORSE_MAP.put('.', ".-.-.-");
+            MORSE_MAP.put(',', "--..--");
+            MORSE_MAP.put('?', "..--..");
+            MORSE_MAP.put('!', "-.-.--");
+            MORSE_MAP.put('-', "-....-");
+            MORSE_MAP.put('/', "-..-.");
+            MORSE_MAP.put('@', ".--.-.");
+            MORSE_MAP.put('(', "-.--.");
+            MORSE_MAP.put(')', "-.--.-");
+            MORSE_MAP.put('&', ".-...");
+        }
+
+        static String translateToMorse(String text) {
+            if (text == null || text.isEmpty()) {
+                return "";
+            }
+            StringBuilder sb = new StringBuilder();
+            boolean justAddedGap = false;
+            for (char raw : text.toCharArray()) {
+                char ch = Character.toUpperCase(raw);
+                if (Character.isWhitespace(ch)) {
+                    if (!justAddedGap && sb.length() > 0) {
+                        sb.append(" / ");
+                        justAddedGap = true;
+                    }
+                    continue;
+                }
+                String morse = MORSE_MAP.get(ch);
+                if (morse == null) {
+                    morse = "?";
+                }
+                if (sb.length() > 0 && !justAddedGap) {
+                    sb.append(' ');
+                }
+                sb.append(morse);
+                justAddedGap = false;
+            }
+            return sb.toString();
+        }
+    }
+
+    // Counts what is written and throws it away
+    static class NullWriter extends Writer {
+        long written = 0;
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            written += len;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    interface Case {
+        Object run() throws IOException;
+    }
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) throws Exception {
+        int maxKb = args.length > 0 ? Integer.parseInt(args[0]) : 10 * 1024;
+
+        System.out.printf("%-8s %-16s %12s %14s%n", "size", "case", "MB/s", "alloc/op");
+        for (int kb : SIZES_KB) {
+            if (kb > maxKb) {
+                break;
+            }
+            int size = kb * 1024;
+            String text = randomText(size, new Random(42));
+            String morse = MorseCodec.encode(text);
+            check(text, morse);
+
+            String label = kb >= 1024 ? kb / 1024 + " MB" : kb + " KB";
+            measure(label, "legacy encode", size, () -> Legacy.translateToMorse(text));
+            measure(label, "encode", size, () -> MorseCodec.encode(text));
+            measure(label, "encode stream", size, () -> {
+                NullWriter out = new NullWriter();
+                MorseCodec.encode(new StringReader(text), out);
+                return out.written;
+            });
+            measure(label, "decode", morse.length(), () -> MorseCodec.decode(morse));
+            measure(label, "decode stream", morse.length(), () -> {
+                NullWriter out = new NullWriter();
+                MorseCodec.decode(new StringReader(morse), out);
+                return out.written;
+            });
+        }
+    }
+
+    private static String randomText(int size, Random random) {
+        StringBuilder sb = new StringBuilder(size);
+        while (sb.length() < size) {
+            int word = 1 + random.nextInt(10);
+            for (int i = 0; i < word && sb.length() < size; i++) {
+                sb.append(WORD_CHARS.charAt(random.nextInt(WORD_CHARS.length())));
+            }
+            if (sb.length() < size && random.nextInt(8) == 0) {
+                sb.append(PUNCTUATION.charAt(random.nextInt(PUNCTUATION.length())));
+            }
+            if (sb.length() < size) {
+                sb.append(random.nextInt(20) == 0 ? "  " : " ");
+            }
+        }
+        sb.setLength(size);
+        return sb.toString();
+    }
+
+    private static void check(String text, String morse) throws IOException {
+        if (!morse.equals(Legacy.translateToMorse(text))) {
+            throw new AssertionError("encode differs from the legacy translator");
+        }
+        java.io.StringWriter streamed = new java.io.StringWriter();
+        MorseCodec.encode(new StringReader(text), streamed);
+        if (!morse.equals(streamed.toString())) {
+            throw new AssertionError("streaming encode differs from encode");
+        }
+        // Decoding gives back the text upper-cased, whitespace runs as one space, unknown characters as '?'
+        String expected = text.toUpperCase(Locale.ROOT).replaceAll("\\s+", " ").replaceAll("[;#]", "?").trim();
+        String decoded = MorseCodec.decode(morse).trim();
+        if (!decoded.equals(expected)) {
+            throw new AssertionError("decode does not round-trip");
+        }
+        java.io.StringWriter streamedDecode = new java.io.StringWriter();
+        MorseCodec.decode(new StringReader(morse), streamedDecode);
+        if (!streamedDecode.toString().trim().equals(expected)) {
+            throw new AssertionError("streaming decode differs from decode");
+        }
+    }
+
+    private static void measure(String label, String name, long chars, Case c) throws IOException {
+        long warmEnd = System.nanoTime() + 500_000_000L;
+        while (System.nanoTime() < warmEnd) {
+            c.run();
+        }
+        long thread = Thread.currentThread().getId();
+        long allocStart = THREADS.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        long ops = 0;
+        long elapsed;
+        do {
+            c.run();
+            ops++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < 1_000_000_000L || ops < 3);
+        long alloc = (THREADS.getThreadAllocatedBytes(thread) - allocStart) / ops;
+
+        double mbPerSec = chars * ops / (elapsed / 1e9) / (1024 * 1024);
+        System.out.printf(Locale.ROOT, "%-8s %-16s %12.1f %14s%n", label, name, mbPerSec, bytes(alloc));
+    }
+
+    private static String bytes(long b) {
+        if (b >= 1024 * 1024) {
+            return String.format(Locale.ROOT, "%.1f MB", b / (1024.0 * 1024));
+        }
+        return String.format(Locale.ROOT, "%.1f KB", b / 1024.0);
+    }
+}
@@ -0,0 +1,145 @@
+package SimpleAgent.bench;
+
+import jade.core.Agent;
+import jade.core.Profile;
+import jade.core.ProfileImpl;
+import jade.core.Runtime;
+import jade.core.behaviours.CyclicBehaviour;
+import jade.lang.acl.ACLMessage;
+import jade.wrapper.AgentController;
+import jade.wrapper.ContainerController;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import SimpleAgent.SimpleAgentClass;
+
+/**
+ * SendLatencyBench - Measures how long SimpleAgentClass takes to deliver a
+ * chat message ("SEND_MESSAGE:target|text") on a crowded platform.
+ *
+ * Starts a main container and [containers] peripheral containers in this
+ * JVM, spreads [agents] idle agents over them, and puts the sender (a
+ * SimpleAgentClass) in the first container and the target in the last.
+ * Each send is timed from the GUI command to the target receiving the
+ * message, one at a time. The first send is retried until it gets through
+ * and is reported as the warm-up: the time before the sender can resolve
+ * names at all.
+ *
+ * Runs headless, so the agents open no Swing windows.
+ *
+ * Usage: java SimpleAgent.bench.SendLatencyBench [containers] [agents] [sends]
+ */
+public class SendLatencyBench {
+
+    private static final String TARGET = "target";
+
+    // Receives the chat messages and hands their arrival times to the benchmark
+    public static class Target extends Agent {
+        final BlockingQueue<String> arrivals = new ArrayBlockingQueue<>(16);
+        final long[] arrivedAt = new long[1];
+
+        @Override
+        protected void setup() {
+            addBehaviour(new CyclicBehaviour(this) {
+                @Override
+                public void action() {
+                    ACLMessage msg = receive();
+                    if (msg == null) {
+                        block();
+                        return;
+                    }
+                    String content = msg.getContent();
+                    arrivedAt[0] = System.nanoTime();
+                    arrivals.offer(content.substring(content.indexOf('|') + 1));
+                }
+            });
+        }
+    }
+
+    public static class Idle extends Agent {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int containers = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+        int agents = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int sends = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        java.util.logging.Logger.getLogger("").setLevel(java.util.logging.Level.SEVERE);
+        System.setProperty("java.awt.headless", "true");
+        Thread.setDefaultUncaughtExceptionHandler((thread, e) -> {
+            if (!(e instanceof java.awt.HeadlessException)) {
+                e.printStackTrace();
+            }
+        });
+
+        Runtime rt = Runtime.instance();
+        rt.setCloseVM(true);
+        Profile mainProfile = new ProfileImpl();
+        mainProfile.setParameter(Profile.MAIN_HOST, "127.0.0.1");
+        mainProfile.setParameter(Profile.MAIN_PORT, "1099");
+        rt.createMainContainer(mainProfile);
+
+        List<ContainerController> peripherals = new ArrayList<>();
+        for (int c = 1; c <= containers; c++) {
+            Profile p = new ProfileImpl();
+            p.setParameter(Profile.MAIN_HOST, "127.0.0.1");
+            p.setParameter(Profile.MAIN_PORT, "1099");
+            p.setParameter(Profile.CONTAINER_NAME, "Container-" + c);
+            peripherals.add(rt.createAgentContainer(p));
+        }
+        for (int a = 0; a < agents; a++) {
+            AgentController idle = peripherals.get(a % containers).acceptNewAgent("Idle-" + a, new Idle());
+            idle.start();
+        }
+
+        Target target = new Target();
+        peripherals.get(containers - 1).acceptNewAgent(TARGET, target).start();
+        SimpleAgentClass sender = new SimpleAgentClass();
+        peripherals.get(0).acceptNewAgent("sender", sender).start();
+
+        // Warm-up: retry until the sender resolves the target
+        long warmStart = System.nanoTime();
+        String got = null;
+        while (got == null) {
+            sender.sendCommand("SEND_MESSAGE:" + TARGET + "|warm-up");
+            got = target.arrivals.poll(500, TimeUnit.MILLISECONDS);
+        }
+        long warmUp = target.arrivedAt[0] - warmStart;
+        Thread.sleep(1000);
+        target.arrivals.clear();
+
+        long[] latencies = new long[sends];
+        for (int i = 0; i < sends; i++) {
+            long start = System.nanoTime();
+            sender.sendCommand("SEND_MESSAGE:" + TARGET + "|" + i);
+            String seq = target.arrivals.poll(60, TimeUnit.SECONDS);
+            if (!String.valueOf(i).equals(seq)) {
+                console.println("Send " + i + " lost (got " + seq + ")");
+                System.exit(1);
+            }
+            latencies[i] = target.arrivedAt[0] - start;
+        }
+        Arrays.sort(latencies);
+
+        double total = 0;
+        for (long l : latencies) {
+            total += l;
+        }
+        console.printf(Locale.ROOT, "%d containers, %d agents, %d sends%n", containers, agents, sends);
+        console.printf(Locale.ROOT, "  warm-up   %.1f ms%n", warmUp / 1e6);
+        console.printf(Locale.ROOT, "  latency   p50 %.2f ms, p99 %.2f ms, max %.2f ms, mean %.2f ms%n",
+                latencies[sends / 2] / 1e6, latencies[Math.min(sends - 1, (int) Math.ceil(0.99 * sends) - 1)] / 1e6,
+                latencies[sends - 1] / 1e6, total / sends / 1e6);
+        System.exit(0);
+    }
+}
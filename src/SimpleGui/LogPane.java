@@ -0,0 +1,146 @@
+package SimpleGui;
+
+import SimpleAgent.LogBuffer;
+
+import javax.swing.*;
+import javax.swing.text.*;
+import java.awt.*;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Text pane showing an agent's LogBuffer.
+ *
+ * New lines do not go to the Swing thread one by one: the first line after a quiet spell starts a one-frame timer,
+ * and when it fires every line written meanwhile is added as a single document edit, and the caret moves once. The pane keeps no more lines than the buffer holds, dropping the oldest.
+ * Attaching to a buffer shows the lines it already has, which is how the log survives the GUI being rebuilt.
+ */
+public class LogPane extends JTextPane {
+    private static final int FRAME_MILLIS = 16;
+    private static final Color PLAIN = new Color(40, 40, 40);
+
+    private final Timer flushTimer;
+    private final AtomicBoolean flushPending = new AtomicBoolean(false);
+    private final SimpleAttributeSet plainStyle = new SimpleAttributeSet();
+    private final Map<Color, SimpleAttributeSet> styles = new HashMap<>();
+    private LogBuffer buffer;
+    private long shown = 0; // number of the next buffer line to show
+    private int lines = 0;  // lines in the document
+
+    public LogPane() {
+        super(new LogDocument());
+        setEditable(false);
+        StyleConstants.setForeground(plainStyle, PLAIN);
+        flushTimer = new Timer(FRAME_MILLIS, e -> flush());
+        flushTimer.setRepeats(false);
+        // flushPending does the coalescing; the timer's own would drop a restart that fires while flush() still runs
+        flushTimer.setCoalesce(false);
+    }
+
+    /**
+     * Shows this buffer, starting with the lines it already holds. Swing thread only.
+     */
+    public void attach(LogBuffer logBuffer) {
+        detach();
+        buffer = logBuffer;
+        shown = 0;
+        clearLog();
+        buffer.setListener(this::scheduleFlush);
+        scheduleFlush();
+    }
+
+    public void detach() {
+        if (buffer != null) {
+            buffer.setListener(null);
+            buffer = null;
+        }
+        flushTimer.stop();
+        flushPending.set(false);
+    }
+
+    /**
+     * Empties the pane; the buffer keeps its lines.
+     */
+    public void clearLog() {
+        try {
+            getStyledDocument().remove(0, getStyledDocument().getLength());
+        } catch (BadLocationException e) {
+            e.printStackTrace();
+        }
+        lines = 0;
+    }
+
+    // Any thread: the first new line arms the timer, the rest ride along
+    private void scheduleFlush() {
+        if (flushPending.compareAndSet(false, true)) {
+            flushTimer.restart();
+        }
+    }
+
+    private void flush() {
+        flushPending.set(false);
+        if (buffer == null) {
+            return;
+        }
+        LogBuffer.Lines batch = buffer.readSince(shown);
+        shown = batch.end;
+        int count = batch.texts.length;
+        if (count == 0) {
+            return;
+        }
+        LogDocument doc = (LogDocument) getStyledDocument();
+        try {
+            // Make room first, in one removal, so the document never holds more than the buffer
+            int excess = lines + count - buffer.getCapacity();
+            if (excess > 0) {
+                doc.remove(0, doc.getDefaultRootElement().getElement(excess).getStartOffset());
+                lines -= excess;
+            }
+            AttributeSet[] attrs = new AttributeSet[count];
+            for (int i = 0; i < count; i++) {
+                attrs[i] = style(batch.colors[i]);
+            }
+            doc.appendLines(batch.texts, attrs);
+            lines += count;
+            setCaretPosition(doc.getLength());
+        } catch (BadLocationException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Styled document that appends many lines as one edit: the same paragraphs insertString would make,
+     * built in one pass and announced to the views once.
+     */
+    private static class LogDocument extends DefaultStyledDocument {
+        void appendLines(String[] texts, AttributeSet[] attrs) throws BadLocationException {
+            java.util.List<ElementSpec> specs = new java.util.ArrayList<>(texts.length * 3 + 2);
+            if (getLength() > 0) {
+                // Close the last line's paragraph, or the first new line would join it
+                specs.add(new ElementSpec(null, ElementSpec.EndTagType));
+                specs.add(new ElementSpec(null, ElementSpec.StartTagType));
+            }
+            for (int i = 0; i < texts.length; i++) {
+                char[] line = (texts[i] + "\n").toCharArray();
+                specs.add(new ElementSpec(attrs[i], ElementSpec.ContentType, line, 0, line.length));
+                specs.add(new ElementSpec(null, ElementSpec.EndTagType));
+                specs.add(new ElementSpec(null, ElementSpec.StartTagType));
+            }
+            insert(getLength(), specs.toArray(new ElementSpec[0]));
+        }
+    }
+
+    // Plain lines in dark grey, coloured ones bold
+    private SimpleAttributeSet style(Color color) {
+        if (color == null) {
+            return plainStyle;
+        }
+        return styles.computeIfAbsent(color, c -> {
+            SimpleAttributeSet attrs = new SimpleAttributeSet();
+            StyleConstants.setForeground(attrs, c);
+            StyleConstants.setBold(attrs, true);
+            return attrs;
+        });
+    }
+}
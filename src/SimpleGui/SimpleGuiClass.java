@@ -2,13 +2,11 @@ package SimpleGui;
 
 import javax.swing.*;
 import javax.swing.border.*;
-import javax.swing.text.*;
 import java.awt.*;
 
 public class SimpleGuiClass extends JFrame {
     private SimpleAgent.SimpleAgentClass agent;
-    private JTextPane logPane; // Changed from JTextArea to JTextPane for colored text
-    private StyledDocument logDoc;
+    private LogPane logPane; // Colored log, fed from the agent's LogBuffer
     private CirclePanel colorIndicator; // Panel to show agent's unique color as a circle
     // Toggle button to enable/disable the agent's DF chat service
     private JButton btnToggleChat;
@@ -141,12 +139,11 @@ public class SimpleGuiClass extends JFrame {
         logTitle.setForeground(new Color(50, 50, 100));
         logTitle.setBorder(BorderFactory.createEmptyBorder(0, 5, 10, 0));
         
-        logPane = new JTextPane();
-        logPane.setEditable(false);
+        logPane = new LogPane();
         logPane.setFont(new Font("Consolas", Font.PLAIN, 13));
         logPane.setBackground(new Color(250, 250, 255));
         logPane.setBorder(BorderFactory.createEmptyBorder(8, 8, 8, 8));
-        logDoc = logPane.getStyledDocument();
+        logPane.attach(agent.getLogBuffer()); // Shows what the agent logged before this window existed
         
         JScrollPane scrollPane = new JScrollPane(logPane);
         scrollPane.setBorder(BorderFactory.createCompoundBorder(
@@ -156,13 +153,7 @@ public class SimpleGuiClass extends JFrame {
         
         JButton btnClear = createStyledButton("Clear Log", new Color(128, 128, 128));
         btnClear.setPreferredSize(new Dimension(0, 40));
-        btnClear.addActionListener(e -> {
-            try {
-                logDoc.remove(0, logDoc.getLength());
-            } catch (BadLocationException ex) {
-                ex.printStackTrace();
-            }
-        });
+        btnClear.addActionListener(e -> logPane.clearLog());
         
         // Messaging panel - bottom of right panel
         JPanel messagingPanel = new JPanel(new GridBagLayout());
@@ -381,33 +372,21 @@ public class SimpleGuiClass extends JFrame {
         return button;
     }
     
-    // Method for agent to log messages (plain text)
+    // Method for agent to log messages (plain text); goes through the agent's log buffer
     public void log(String message) {
-        SwingUtilities.invokeLater(() -> {
-            try {
-                SimpleAttributeSet attrs = new SimpleAttributeSet();
-                StyleConstants.setForeground(attrs, new Color(40, 40, 40));
-                logDoc.insertString(logDoc.getLength(), message + "\n", attrs);
-                logPane.setCaretPosition(logDoc.getLength());
-            } catch (BadLocationException e) {
-                e.printStackTrace();
-            }
-        });
+        agent.logToGui(message);
     }
     
     // Method for agent to log colored messages
     public void logColored(String message, Color color) {
-        SwingUtilities.invokeLater(() -> {
-            try {
-                SimpleAttributeSet attrs = new SimpleAttributeSet();
-                StyleConstants.setForeground(attrs, color);
-                StyleConstants.setBold(attrs, true);
-                logDoc.insertString(logDoc.getLength(), message + "\n", attrs);
-                logPane.setCaretPosition(logDoc.getLength());
-            } catch (BadLocationException e) {
-                e.printStackTrace();
-            }
-        });
+        agent.logColoredMessage(message, color);
+    }
+
+    // Stop following the buffer; the agent keeps logging into it
+    @Override
+    public void dispose() {
+        logPane.detach();
+        super.dispose();
     }
     
     // Method to ask for input and send back to agent
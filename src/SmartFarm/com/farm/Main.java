@@ -39,6 +39,9 @@ public class Main {
     private static int numFields = 3;
     private static int numDrones = 2;
     private static int numWaterSuppliers = 2;
+    private static boolean sensorGateway = false;
+    private static boolean edgeControllers = false;
+    private static int fieldsPerGroup = 3; // fields behind one gateway or edge controller
 
     public static void main(String[] args) {
         // Parse command line arguments
@@ -53,6 +56,11 @@ public class Main {
         System.out.println("  - Fields: " + numFields);
         System.out.println("  - Drones: " + numDrones);
         System.out.println("  - Water Suppliers: " + numWaterSuppliers);
+        System.out.println("  - Sensor Gateway: " + (sensorGateway ? "on" : "off"));
+        System.out.println("  - Edge Controllers: " + (edgeControllers ? "on" : "off"));
+        if (sensorGateway || edgeControllers) {
+            System.out.println("  - Fields per Gateway/Edge: " + fieldsPerGroup);
+        }
         System.out.println();
 
         try {
@@ -191,10 +199,45 @@ public class Main {
                 int fieldId = i + 1;
                 CropType cropType = cropTypes[i % cropTypes.length];
 
+                // One gateway or edge controller per group of fields, in the
+                // container of the group's first field; the other fields of the
+                // group report to it across containers
+                int groupId = i / fieldsPerGroup + 1;
+                boolean firstOfGroup = i % fieldsPerGroup == 0;
+
+                // Edge Controller (Hybrid) - local decisions, summaries to FarmerBDI
+                String gatewayName = null;
+                String edgeName = null;
+                if (edgeControllers) {
+                    edgeName = "Edge-" + groupId;
+                    gatewayName = edgeName;
+                    if (firstOfGroup) {
+                        AgentController edge = fieldContainers[i].createNewAgent(
+                                edgeName,
+                                "com.farm.agents.EdgeControllerAgent",
+                                new Object[] { groupId });
+                        edge.start();
+                        Thread.sleep(200);
+                    }
+                }
+
+                // Sensor Gateway (Reactive) - batches the group's sensor readings
+                if (sensorGateway && !edgeControllers) {
+                    gatewayName = "Gateway-" + groupId;
+                    if (firstOfGroup) {
+                        AgentController gateway = fieldContainers[i].createNewAgent(
+                                gatewayName,
+                                "com.farm.agents.SensorGatewayAgent",
+                                new Object[] { groupId });
+                        gateway.start();
+                        Thread.sleep(200);
+                    }
+                }
+
                 // Soil Sensor Agent (Reactive) - in field container
                 System.out.println("[Main] Creating SoilSensorAgent-" + fieldId + " [REACTIVE] in Field-Container-"
                         + fieldId + "...");
-                Object[] sensorArgs = new Object[] { fieldId };
+                Object[] sensorArgs = new Object[] { fieldId, gatewayName, edgeControllers };
                 AgentController sensor = fieldContainers[i].createNewAgent(
                         "Sensor-" + fieldId,
                         "com.farm.agents.SoilSensorAgent",
@@ -205,7 +248,7 @@ public class Main {
                 // Crop Growth Agent (Hybrid) - in field container
                 System.out.println("[Main] Creating CropGrowthAgent-" + fieldId + " [HYBRID] in Field-Container-"
                         + fieldId + "...");
-                Object[] cropArgs = new Object[] { fieldId, cropType };
+                Object[] cropArgs = new Object[] { fieldId, cropType, edgeName };
                 AgentController cropGrowth = fieldContainers[i].createNewAgent(
                         "CropGrowth-" + fieldId,
                         "com.farm.agents.CropGrowthAgent",
@@ -288,6 +331,20 @@ public class Main {
                         numWaterSuppliers = Math.max(1, Math.min(4, numWaterSuppliers));
                     }
                     break;
+                case "--gateway":
+                case "-g":
+                    sensorGateway = true;
+                    break;
+                case "--edge":
+                case "-e":
+                    edgeControllers = true;
+                    break;
+                case "--group":
+                    if (i + 1 < args.length) {
+                        fieldsPerGroup = Integer.parseInt(args[++i]);
+                        fieldsPerGroup = Math.max(1, Math.min(6, fieldsPerGroup));
+                    }
+                    break;
                 case "--help":
                 case "-h":
                     printHelp();
@@ -305,6 +362,10 @@ public class Main {
         System.out.println("  -f, --fields <n>     Number of fields (1-6, default: 3)");
         System.out.println("  -d, --drones <n>     Number of drones (1-3, default: 2)");
         System.out.println("  -s, --suppliers <n>  Number of water suppliers (1-4, default: 2)");
+        System.out.println("  -g, --gateway        Batch sensor readings through one gateway per field group");
+        System.out.println("  -e, --edge           One edge controller per field group decides locally and");
+        System.out.println("                       sends summaries to FarmerBDI (replaces --gateway)");
+        System.out.println("      --group <n>      Fields per gateway/edge controller (1-6, default: 3)");
         System.out.println("  -h, --help           Show this help message");
     }
 }
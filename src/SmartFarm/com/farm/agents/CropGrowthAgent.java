@@ -10,7 +10,12 @@ import jade.domain.FIPAAgentManagement.*;
 import jade.domain.FIPAException;
 
 import com.farm.gui.WebServer;
+import com.farm.helpers.WeatherTopicPublisher;
 import com.farm.models.*;
+import com.farm.sim.SimTickerBehaviour;
+import com.farm.sim.SimWakerBehaviour;
+import com.farm.sim.SimulationClock;
+import com.farm.storage.TimeSeriesStore;
 
 /**
  * CropGrowthAgent - Hybrid agent that manages crop lifecycle for a specific
@@ -21,6 +26,8 @@ import com.farm.models.*;
  * - Respond to environmental conditions (moisture, weather)
  * - Announce when crops are ready for harvest
  * - Handle replanting after harvest
+ * - Report to FarmerBDI, or to the container's EdgeControllerAgent when one
+ * is named as third argument
  * 
  * Agent Type: HYBRID (reactive responses + proactive growth management)
  */
@@ -30,6 +37,7 @@ public class CropGrowthAgent extends Agent {
     private FieldState fieldState;
     private long growthStartTime;
     private boolean isPaused = false;
+    private AID upstream = new AID("FarmerBDI", AID.ISLOCALNAME);
 
     @Override
     protected void setup() {
@@ -39,12 +47,15 @@ public class CropGrowthAgent extends Agent {
             fieldId = (Integer) args[0];
             CropType cropType = args.length > 1 ? (CropType) args[1] : CropType.WHEAT;
             fieldState = new FieldState(fieldId, cropType);
+            if (args.length > 2 && args[2] != null) {
+                upstream = new AID((String) args[2], AID.ISLOCALNAME);
+            }
         } else {
             fieldId = 1;
             fieldState = new FieldState(fieldId, CropType.WHEAT);
         }
 
-        growthStartTime = System.currentTimeMillis();
+        growthStartTime = SimulationClock.now();
         System.out.println("[CropGrowth-" + fieldId + "] Hybrid agent starting for Field-" + fieldId);
         System.out.println("[CropGrowth-" + fieldId + "] Crop: " + fieldState.getCropType().getDisplayName());
 
@@ -57,6 +68,9 @@ public class CropGrowthAgent extends Agent {
         // Add message handler for environmental updates
         addBehaviour(new EnvironmentHandler());
 
+        // Subscribe to forecast changes for this field's region
+        subscribeToWeather();
+
         // Initial broadcast
         broadcastFieldState();
     }
@@ -85,10 +99,19 @@ public class CropGrowthAgent extends Agent {
         }
     }
 
+    private void subscribeToWeather() {
+        ACLMessage subscribe = new ACLMessage(ACLMessage.SUBSCRIBE);
+        subscribe.addReceiver(new AID("Weather", AID.ISLOCALNAME));
+        subscribe.setContent(WeatherTopicPublisher.SUBSCRIBE_PREFIX + WeatherTopicPublisher.DEFAULT_REGION
+                + ":forecast");
+        subscribe.setConversationId("weather-subscription-" + fieldId);
+        send(subscribe);
+    }
+
     /**
      * Simulates crop growth over time based on conditions.
      */
-    private class GrowthSimulation extends TickerBehaviour {
+    private class GrowthSimulation extends SimTickerBehaviour {
         public GrowthSimulation(Agent a, long period) {
             super(a, period);
         }
@@ -185,9 +208,9 @@ public class CropGrowthAgent extends Agent {
                 "INFORM", fieldState.getCropType().getDisplayName() + " reached " + newStage.getDisplayName(),
                 1);
 
-        // Notify FarmerBDI
+        // Notify FarmerBDI (or the edge controller)
         ACLMessage msg = new ACLMessage(ACLMessage.INFORM);
-        msg.addReceiver(new AID("FarmerBDI", AID.ISLOCALNAME));
+        msg.addReceiver(upstream);
         msg.setContent("CROP_STAGE:" + fieldId + ":" + newStage.name());
         send(msg);
 
@@ -202,7 +225,7 @@ public class CropGrowthAgent extends Agent {
                 fieldState.getHarvestValue());
 
         ACLMessage msg = new ACLMessage(ACLMessage.INFORM);
-        msg.addReceiver(new AID("FarmerBDI", AID.ISLOCALNAME));
+        msg.addReceiver(upstream);
         msg.addReceiver(new AID("Controller", AID.ISLOCALNAME));
         msg.setContent("HARVEST_READY:" + fieldId + ":" + fieldState.getHarvestValue());
         send(msg);
@@ -218,7 +241,7 @@ public class CropGrowthAgent extends Agent {
         System.out.println("[CropGrowth-" + fieldId + "] PEST INFESTATION DETECTED!");
 
         ACLMessage msg = new ACLMessage(ACLMessage.INFORM);
-        msg.addReceiver(new AID("FarmerBDI", AID.ISLOCALNAME));
+        msg.addReceiver(upstream);
         msg.setContent("PEST_ALERT:" + fieldId);
         send(msg);
 
@@ -267,7 +290,7 @@ public class CropGrowthAgent extends Agent {
             System.out.println("[CropGrowth-" + fieldId + "] Irrigated: +" + amount + "% moisture");
 
             // Sprinkler turns off after 3 seconds
-            addBehaviour(new WakerBehaviour(this, 3000) {
+            addBehaviour(new SimWakerBehaviour(this, 3000) {
                 @Override
                 protected void onWake() {
                     fieldState.setSprinklerOn(false);
@@ -310,7 +333,7 @@ public class CropGrowthAgent extends Agent {
             System.out.println("[CropGrowth-" + fieldId + "] Harvest complete. Preparing for replanting.");
 
             // Auto-replant after 5 seconds
-            addBehaviour(new WakerBehaviour(this, 5000) {
+            addBehaviour(new SimWakerBehaviour(this, 5000) {
                 @Override
                 protected void onWake() {
                     replant(fieldState.getCropType());
@@ -362,7 +385,7 @@ public class CropGrowthAgent extends Agent {
 
     private void replant(CropType cropType) {
         fieldState.replant(cropType);
-        growthStartTime = System.currentTimeMillis();
+        growthStartTime = SimulationClock.now();
         System.out.println("[CropGrowth-" + fieldId + "] Replanted with " + cropType.getDisplayName());
 
         WebServer.broadcastAgentInteraction(
@@ -375,6 +398,11 @@ public class CropGrowthAgent extends Agent {
     }
 
     private void broadcastFieldState() {
+        // Keep history for charting
+        TimeSeriesStore.record("field." + fieldId + ".moisture", fieldState.getMoisture());
+        TimeSeriesStore.record("field." + fieldId + ".growth", fieldState.getGrowth());
+        TimeSeriesStore.record("field." + fieldId + ".health", fieldState.getHealth());
+
         // Broadcast to GUI
         WebServer.broadcastFieldUpdate(
                 fieldState.getFieldId(),
@@ -384,9 +412,9 @@ public class CropGrowthAgent extends Agent {
                 fieldState.getStage().getDisplayName(),
                 fieldState.isSprinklerOn());
 
-        // Send update to FarmerBDI for belief update
+        // Send update to FarmerBDI (or the edge controller) for belief update
         ACLMessage update = new ACLMessage(ACLMessage.INFORM);
-        update.addReceiver(new AID("FarmerBDI", AID.ISLOCALNAME));
+        update.addReceiver(upstream);
         update.setContent("FIELD_UPDATE:id:" + fieldId +
                 ",crop:" + fieldState.getCropType().getId() +
                 ",moisture:" + fieldState.getMoisture() +
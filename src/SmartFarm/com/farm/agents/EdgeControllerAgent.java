@@ -0,0 +1,501 @@
+package com.farm.agents;
+
+import jade.core.Agent;
+import jade.core.AID;
+import jade.core.behaviours.CyclicBehaviour;
+import jade.domain.DFService;
+import jade.domain.FIPAAgentManagement.DFAgentDescription;
+import jade.domain.FIPAAgentManagement.ServiceDescription;
+import jade.domain.FIPAException;
+import jade.lang.acl.ACLMessage;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.farm.gui.WebServer;
+import com.farm.helpers.SensorBatcher;
+import com.farm.sim.SimTickerBehaviour;
+import com.farm.sim.SimulationClock;
+
+/**
+ * EdgeControllerAgent - Field-group controller between the field agents
+ * and FarmerBDI.
+ *
+ * Behavior:
+ * - Sensors (READING:id:value) and crop agents (FIELD_UPDATE, PEST_ALERT,
+ * HARVEST_READY) of the group report here instead of to FarmerBDI. Main
+ * starts one per group of fields, in the container of the group's first
+ * field
+ * - Local reactive decisions:
+ * - moisture below CRITICAL_MOISTURE: irrigate now (IRRIGATE to the crop
+ * agent, IRRIGATED to the sensor)
+ * - moisture below MOISTURE_THRESHOLD: LOW_MOISTURE to the Controller's
+ * irrigation workflow, at most once per ALERT_COOLDOWN_MS per field
+ * - pest or poor health: request an inspection from a "field-inspection" drone
+ * - Once per interval sends ONE FIELD_SUMMARY to FarmerBDI: group
+ * aggregates (including local irrigations) plus only the fields that
+ * changed (or stayed silent for MAX_SILENT_INTERVALS)
+ * - Exceptions (pest, harvest ready) are forwarded at once
+ * - Moisture readings reach the web UI as one MOISTURE_BATCH per interval
+ *
+ * FarmerBDI's message rate grows with the number of field groups, not with
+ * the number of field agents.
+ *
+ * Arguments: [0] container/field group id
+ *
+ * Agent Type: HYBRID
+ */
+public class EdgeControllerAgent extends Agent {
+
+    private static final long SUMMARY_INTERVAL = 8000; // same cadence as the sensors
+    private static final int MOISTURE_THRESHOLD = 30;
+    private static final int CRITICAL_MOISTURE = 15;
+    private static final int HEALTH_INSPECTION_THRESHOLD = 50;
+    private static final int LOCAL_IRRIGATION_AMOUNT = 30;
+    private static final int MOISTURE_DEADBAND = 2;
+    private static final int MAX_SILENT_INTERVALS = 5;
+    private static final long ALERT_COOLDOWN_MS = 30000;
+    private static final long IRRIGATION_COOLDOWN_MS = 30000;
+    private static final long INSPECTION_COOLDOWN_MS = 60000;
+    private static final long DRONE_DISCOVERY_INTERVAL_MS = 30000;
+
+    /**
+     * Latest known state of one field and what was last sent upward.
+     */
+    private static class FieldRecord {
+        final int fieldId;
+        AID cropAgent;
+        AID sensorAgent;
+        String cropId = "-";
+        int moisture = -1;
+        int growth = 0;
+        int health = 100;
+        boolean pest = false;
+
+        boolean dirty = true;
+        boolean reported = false; // sent upward at least once
+        int reportedMoisture = -1;
+        int reportedGrowth = -1;
+        int reportedHealth = -1;
+        String reportedCrop = null;
+        int silentIntervals = 0;
+
+        long lastAlertAt = Long.MIN_VALUE / 2;
+        long lastIrrigationAt = Long.MIN_VALUE / 2;
+        long lastInspectionAt = Long.MIN_VALUE / 2;
+
+        FieldRecord(int fieldId) {
+            this.fieldId = fieldId;
+        }
+    }
+
+    private final Map<Integer, FieldRecord> fields = new LinkedHashMap<>();
+    private final SensorBatcher readingBatcher = new SensorBatcher(MOISTURE_DEADBAND, MAX_SILENT_INTERVALS);
+    private final AID farmer = new AID("FarmerBDI", AID.ISLOCALNAME);
+    private final AID controller = new AID("Controller", AID.ISLOCALNAME);
+
+    private final List<AID> drones = new ArrayList<>();
+    private int nextDrone = 0;
+    private long lastDroneDiscovery = Long.MIN_VALUE / 2;
+    private int groupId = 1;
+
+    // Statistics
+    private long messagesIn = 0;
+    private long summariesSent = 0;
+    private long exceptionsSent = 0;
+    private long localIrrigations = 0;
+    private int irrigationsSinceSummary = 0;
+    private long escalatedAlerts = 0;
+    private long inspectionRequests = 0;
+
+    @Override
+    protected void setup() {
+        Object[] args = getArguments();
+        if (args != null && args.length > 0) {
+            groupId = (Integer) args[0];
+        }
+
+        System.out.println("[" + getLocalName() + "] Edge controller starting in container: " + here().getName());
+
+        registerWithDF();
+
+        addBehaviour(new FieldReportHandler());
+        addBehaviour(new SummaryEmitter(this, SUMMARY_INTERVAL));
+
+        WebServer.broadcast("AGENT_START", "{\"agent\":\"" + getLocalName()
+                + "\",\"type\":\"EdgeController\",\"agentType\":\"hybrid\",\"container\":\"" + here().getName()
+                + "\"}");
+    }
+
+    @Override
+    protected void takeDown() {
+        try {
+            DFService.deregister(this);
+        } catch (FIPAException e) {
+            // Ignore
+        }
+        System.out.println("[" + getLocalName() + "] Edge controller shutting down. " + messagesIn
+                + " local messages in, " + (summariesSent + exceptionsSent) + " sent upward.");
+        WebServer.broadcast("AGENT_STOP", "{\"agent\":\"" + getLocalName() + "\"}");
+    }
+
+    private void registerWithDF() {
+        DFAgentDescription dfd = new DFAgentDescription();
+        dfd.setName(getAID());
+
+        ServiceDescription sd = new ServiceDescription();
+        sd.setType("edge-controller");
+        sd.setName("Edge-Controller-" + groupId);
+        dfd.addServices(sd);
+
+        try {
+            DFService.register(this, dfd);
+        } catch (FIPAException e) {
+            System.err.println("[" + getLocalName() + "] Failed to register with DF: " + e.getMessage());
+        }
+    }
+
+    // ==================== LOCAL REPORTS ====================
+
+    /**
+     * Handles reports from local field agents and replies from drones.
+     */
+    private class FieldReportHandler extends CyclicBehaviour {
+        @Override
+        public void action() {
+            ACLMessage msg = receive();
+            if (msg != null) {
+                handleMessage(msg);
+            } else {
+                block();
+            }
+        }
+    }
+
+    private void handleMessage(ACLMessage msg) {
+        String content = msg.getContent();
+        if (content == null) {
+            return;
+        }
+        messagesIn++;
+
+        try {
+            if (content.startsWith("READING:")) {
+                String[] parts = content.split(":");
+                int fieldId = Integer.parseInt(parts[1]);
+                int moisture = Integer.parseInt(parts[2]);
+                FieldRecord field = field(fieldId);
+                field.sensorAgent = msg.getSender();
+                field.moisture = moisture;
+                field.dirty = true;
+                readingBatcher.record(fieldId, moisture);
+                evaluate(field);
+            } else if (content.startsWith("FIELD_UPDATE:")) {
+                applyFieldUpdate(content.substring(13), msg.getSender());
+            } else if (content.startsWith("PEST_ALERT:")) {
+                FieldRecord field = field(Integer.parseInt(content.substring(11)));
+                field.pest = true;
+                forwardException(content);
+                evaluate(field);
+            } else if (content.startsWith("HARVEST_READY:")) {
+                forwardException(content);
+            } else if (msg.getPerformative() == ACLMessage.REFUSE && content.startsWith("BUSY")) {
+                // Drone on another mission: allow the next report to retry elsewhere
+                FieldRecord field = fieldForConversation(msg.getConversationId());
+                if (field != null) {
+                    field.lastInspectionAt = Long.MIN_VALUE / 2;
+                }
+            }
+            // CROP_STAGE is covered by growth in the summary; CONFIRMs need no action
+        } catch (RuntimeException e) {
+            System.err.println("[" + getLocalName() + "] Malformed report: " + content);
+        }
+    }
+
+    /**
+     * "id:X,crop:Y,moisture:Z,growth:W,health:H" from a CropGrowthAgent.
+     */
+    private void applyFieldUpdate(String update, AID sender) {
+        String[] parts = update.split(",");
+        FieldRecord field = field(Integer.parseInt(parts[0].split(":")[1]));
+        field.cropAgent = sender;
+        for (int i = 1; i < parts.length; i++) {
+            String[] kv = parts[i].split(":");
+            switch (kv[0]) {
+                case "crop":
+                    field.cropId = kv[1];
+                    break;
+                case "moisture":
+                    field.moisture = Integer.parseInt(kv[1]);
+                    break;
+                case "growth":
+                    field.growth = Integer.parseInt(kv[1]);
+                    break;
+                case "health":
+                    field.health = Integer.parseInt(kv[1]);
+                    break;
+                default:
+                    break;
+            }
+        }
+        field.dirty = true;
+        evaluate(field);
+    }
+
+    private FieldRecord field(int fieldId) {
+        FieldRecord field = fields.get(fieldId);
+        if (field == null) {
+            field = new FieldRecord(fieldId);
+            fields.put(fieldId, field);
+        }
+        return field;
+    }
+
+    private FieldRecord fieldForConversation(String conversationId) {
+        String prefix = "edge-inspection-" + groupId + "-";
+        if (conversationId == null || !conversationId.startsWith(prefix)) {
+            return null;
+        }
+        return fields.get(Integer.parseInt(conversationId.substring(prefix.length())));
+    }
+
+    // ==================== LOCAL DECISIONS ====================
+
+    private void evaluate(FieldRecord field) {
+        long now = SimulationClock.now();
+
+        if (field.moisture >= 0 && field.moisture < CRITICAL_MOISTURE
+                && now - field.lastIrrigationAt >= IRRIGATION_COOLDOWN_MS) {
+            irrigateNow(field, now);
+        } else if (field.moisture >= 0 && field.moisture < MOISTURE_THRESHOLD
+                && now - field.lastAlertAt >= ALERT_COOLDOWN_MS) {
+            escalateLowMoisture(field, now);
+        }
+
+        if ((field.pest || field.health < HEALTH_INSPECTION_THRESHOLD)
+                && now - field.lastInspectionAt >= INSPECTION_COOLDOWN_MS) {
+            requestInspection(field, now);
+        }
+    }
+
+    /**
+     * Too dry to wait for the weather check and a water contract.
+     */
+    private void irrigateNow(FieldRecord field, long now) {
+        field.lastIrrigationAt = now;
+        field.moisture = Math.min(100, field.moisture + LOCAL_IRRIGATION_AMOUNT);
+        field.dirty = true;
+        localIrrigations++;
+        irrigationsSinceSummary++;
+
+        System.out.println("[" + getLocalName() + "] Field-" + field.fieldId + " critically dry, irrigating now");
+
+        if (field.cropAgent != null) {
+            ACLMessage irrigate = new ACLMessage(ACLMessage.REQUEST);
+            irrigate.addReceiver(field.cropAgent);
+            irrigate.setContent("IRRIGATE:" + LOCAL_IRRIGATION_AMOUNT);
+            irrigate.setConversationId("edge-irrigation-" + field.fieldId);
+            send(irrigate);
+        }
+        if (field.sensorAgent != null) {
+            ACLMessage notify = new ACLMessage(ACLMessage.INFORM);
+            notify.addReceiver(field.sensorAgent);
+            notify.setContent("IRRIGATED:" + LOCAL_IRRIGATION_AMOUNT);
+            notify.setConversationId("edge-irrigation-" + field.fieldId);
+            send(notify);
+        }
+
+        WebServer.broadcastAgentInteraction(
+                getLocalName(), "hybrid",
+                "CropGrowth-" + field.fieldId, "hybrid",
+                "REQUEST", "Local irrigation: moisture critical", 1);
+    }
+
+    /**
+     * Hand the field to the Controller's weather-aware irrigation workflow.
+     */
+    private void escalateLowMoisture(FieldRecord field, long now) {
+        field.lastAlertAt = now;
+        escalatedAlerts++;
+
+        ACLMessage request = new ACLMessage(ACLMessage.REQUEST);
+        request.addReceiver(controller);
+        request.setContent("LOW_MOISTURE:" + field.fieldId + ":" + field.moisture);
+        request.setConversationId("moisture-alert-" + System.currentTimeMillis());
+        send(request);
+
+        WebServer.broadcast("SENSOR_ALERT",
+                "{\"fieldId\":" + field.fieldId + ",\"type\":\"LOW_MOISTURE\",\"value\":" + field.moisture
+                        + ",\"message\":\"Field-" + field.fieldId + " moisture below threshold!\"}");
+    }
+
+    private void requestInspection(FieldRecord field, long now) {
+        AID drone = nextDrone(now);
+        if (drone == null) {
+            return;
+        }
+        field.lastInspectionAt = now;
+        field.pest = false; // handled; the crop agent reports a new infestation again
+        inspectionRequests++;
+
+        ACLMessage request = new ACLMessage(ACLMessage.REQUEST);
+        request.addReceiver(drone);
+        request.setContent("INSPECT_FIELD:" + field.fieldId);
+        request.setConversationId("edge-inspection-" + groupId + "-" + field.fieldId);
+        send(request);
+    }
+
+    /**
+     * Round-robin over the "field-inspection" drones, refreshed from the DF
+     * at most every DRONE_DISCOVERY_INTERVAL_MS.
+     */
+    private AID nextDrone(long now) {
+        if (now - lastDroneDiscovery >= DRONE_DISCOVERY_INTERVAL_MS) {
+            lastDroneDiscovery = now;
+            try {
+                DFAgentDescription template = new DFAgentDescription();
+                ServiceDescription sd = new ServiceDescription();
+                sd.setType("field-inspection");
+                template.addServices(sd);
+                drones.clear();
+                for (DFAgentDescription dfd : DFService.search(this, template)) {
+                    drones.add(dfd.getName());
+                }
+            } catch (FIPAException e) {
+                System.err.println("[" + getLocalName() + "] Drone DF search failed: " + e.getMessage());
+            }
+        }
+        if (drones.isEmpty()) {
+            return null;
+        }
+        nextDrone = (nextDrone + 1) % drones.size();
+        return drones.get(nextDrone);
+    }
+
+    // ==================== UPWARD TRAFFIC ====================
+
+    private void forwardException(String content) {
+        ACLMessage exception = new ACLMessage(ACLMessage.INFORM);
+        exception.addReceiver(farmer);
+        exception.setContent(content);
+        exception.setConversationId("edge-exception-" + groupId);
+        send(exception);
+        exceptionsSent++;
+    }
+
+    /**
+     * Emits one summary per interval to FarmerBDI and one moisture batch to
+     * the web UI.
+     */
+    private class SummaryEmitter extends SimTickerBehaviour {
+        public SummaryEmitter(Agent a, long period) {
+            super(a, period);
+        }
+
+        @Override
+        protected void onTick() {
+            String summary = buildSummary();
+            if (summary != null) {
+                ACLMessage update = new ACLMessage(ACLMessage.INFORM);
+                update.addReceiver(farmer);
+                update.setContent(summary);
+                update.setConversationId("edge-summary-" + groupId);
+                send(update);
+                summariesSent++;
+            }
+
+            String batch = readingBatcher.drain();
+            if (batch != null) {
+                WebServer.broadcast("MOISTURE_BATCH",
+                        SensorBatcher.toJson(getLocalName(), MOISTURE_THRESHOLD, SimulationClock.now(), batch));
+            }
+        }
+    }
+
+    /**
+     * "FIELD_SUMMARY:group:fields:avgMoisture:avgHealth:lowMoisture:irrigated;id,crop,moisture,growth,health;..."
+     *
+     * @return null when no field has been reported yet
+     */
+    private String buildSummary() {
+        if (fields.isEmpty()) {
+            return null;
+        }
+
+        int moistureTotal = 0;
+        int moistureCount = 0;
+        int healthTotal = 0;
+        int lowMoisture = 0;
+        StringBuilder changed = new StringBuilder();
+
+        for (FieldRecord field : fields.values()) {
+            healthTotal += field.health;
+            if (field.moisture >= 0) {
+                moistureTotal += field.moisture;
+                moistureCount++;
+                if (field.moisture < MOISTURE_THRESHOLD) {
+                    lowMoisture++;
+                }
+            }
+
+            if (!field.dirty) {
+                continue;
+            }
+            field.dirty = false;
+            boolean moved = !field.reported
+                    || Math.abs(field.moisture - field.reportedMoisture) >= MOISTURE_DEADBAND
+                    || field.growth != field.reportedGrowth
+                    || field.health != field.reportedHealth
+                    || !field.cropId.equals(field.reportedCrop);
+            boolean stale = ++field.silentIntervals >= MAX_SILENT_INTERVALS
+                    && field.moisture != field.reportedMoisture;
+            if (!moved && !stale) {
+                continue;
+            }
+
+            changed.append(';').append(field.fieldId).append(',').append(field.cropId)
+                    .append(',').append(field.moisture).append(',').append(field.growth)
+                    .append(',').append(field.health);
+            field.reported = true;
+            field.reportedMoisture = field.moisture;
+            field.reportedGrowth = field.growth;
+            field.reportedHealth = field.health;
+            field.reportedCrop = field.cropId;
+            field.silentIntervals = 0;
+        }
+
+        int avgMoisture = moistureCount == 0 ? 0 : moistureTotal / moistureCount;
+        String summary = "FIELD_SUMMARY:" + groupId + ":" + fields.size() + ":" + avgMoisture + ":"
+                + (healthTotal / fields.size()) + ":" + lowMoisture + ":" + irrigationsSinceSummary + changed;
+        irrigationsSinceSummary = 0;
+        return summary;
+    }
+
+    // ==================== PUBLIC METHODS ====================
+
+    public long getMessagesIn() {
+        return messagesIn;
+    }
+
+    public long getSummariesSent() {
+        return summariesSent;
+    }
+
+    public long getExceptionsSent() {
+        return exceptionsSent;
+    }
+
+    public long getLocalIrrigations() {
+        return localIrrigations;
+    }
+
+    public long getEscalatedAlerts() {
+        return escalatedAlerts;
+    }
+
+    public long getInspectionRequests() {
+        return inspectionRequests;
+    }
+}
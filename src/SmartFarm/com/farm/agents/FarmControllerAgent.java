@@ -3,7 +3,6 @@ package com.farm.agents;
 import jade.core.Agent;
 import jade.core.AID;
 import jade.core.behaviours.CyclicBehaviour;
-import jade.core.behaviours.OneShotBehaviour;
 import jade.domain.DFService;
 import jade.domain.FIPAAgentManagement.DFAgentDescription;
 import jade.domain.FIPAAgentManagement.ServiceDescription;
@@ -12,39 +11,162 @@ import jade.lang.acl.ACLMessage;
 import jade.lang.acl.MessageTemplate;
 import jade.proto.ContractNetInitiator;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.Enumeration;
-import java.util.Random;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.Vector;
 
 import com.farm.gui.WebServer;
+import com.farm.helpers.IrrigationMetrics;
+import com.farm.helpers.PriceBook;
+import com.farm.sim.SimTickerBehaviour;
+import com.farm.sim.SimulationClock;
 
 /**
  * FarmControllerAgent - A deliberative/hybrid agent that orchestrates farm
  * operations.
- * 
+ *
  * Responsibilities:
  * - Receives moisture alerts from SoilSensorAgent
- * - Checks weather forecast (mocked)
+ * - Checks the weather forecast from WeatherServiceAgent
  * - Dispatches InspectorDroneAgent for field inspection
  * - Initiates Contract Net Protocol to purchase water from suppliers
+ *
+ * Every dry field gets its own IrrigationWorkflow, keyed by field id and by
+ * conversation id, so any number of fields are handled concurrently:
+ * WEATHER_CHECK -> INSPECTION -> PURCHASE -> decision (IGNORE / IRRIGATE /
+ * FAILED). Each stage has a timeout checked by the WorkflowSupervisor; no
+ * stage ever blocks the agent thread. Alerts for a field that already has a
+ * workflow only update its moisture level.
+ *
+ * Water is bought against the cheapest cached supplier quote (PriceBook)
+ * with a single ACCEPT; a full Contract Net round only runs when the book
+ * has no valid quote or the supplier declines it, and it awards the lowest
+ * bid too. Start the agent with the argument "cnp-only" to always negotiate.
  */
 public class FarmControllerAgent extends Agent {
 
+    // Stage timeouts
+    private static final long WEATHER_TIMEOUT_MS = 3000;
+    private static final long DRONE_QUEUE_TIMEOUT_MS = 10000;
+    private static final long INSPECTION_TIMEOUT_MS = 15000;
+    private static final long PURCHASE_TIMEOUT_MS = 15000;
+    private static final long CFP_DEADLINE_MS = 10000;
+    private static final long MIN_WALL_TIMEOUT_MS = 2000;
+
+    // A subscribed forecast younger than this answers the weather check directly
+    private static final long FORECAST_MAX_AGE_MS = 30000;
+    private static final long DRONE_DISCOVERY_INTERVAL_MS = 5000;
+    private static final long SUPERVISOR_PERIOD_MS = 500;
+    private static final long STATS_INTERVAL_MS = 10000;
+    private static final long SUPPLIER_DISCOVERY_INTERVAL_MS = 30000;
+    private static final int WATER_UNITS = 100;
+
+    private enum Stage {
+        WEATHER_CHECK, AWAITING_DRONE, INSPECTION, PURCHASE
+    }
+
+    /**
+     * State of one field's irrigation conversation.
+     */
+    private static class IrrigationWorkflow {
+        final int fieldId;
+        final String conversationId;
+        final long startedAt;
+        int moistureLevel;
+        Stage stage;
+        long stageDeadline;
+        long stageWallDeadline;
+        // Deadlines of the first AWAITING_DRONE stage; refusals do not extend them
+        long droneDeadline;
+        long droneWallDeadline;
+        AID drone;
+        long purchaseStartedAt;
+        boolean finished = false;
+
+        IrrigationWorkflow(int fieldId, int moistureLevel, String conversationId, long startedAt) {
+            this.fieldId = fieldId;
+            this.moistureLevel = moistureLevel;
+            this.conversationId = conversationId;
+            this.startedAt = startedAt;
+        }
+
+        void enter(Stage stage, long timeoutMs) {
+            this.stage = stage;
+            this.stageDeadline = SimulationClock.now() + timeoutMs;
+            // Replies travel in wall time however fast the clock runs
+            this.stageWallDeadline = System.currentTimeMillis() + Math.min(timeoutMs, MIN_WALL_TIMEOUT_MS);
+        }
+
+        void awaitDrone() {
+            enter(Stage.AWAITING_DRONE, DRONE_QUEUE_TIMEOUT_MS);
+            droneDeadline = stageDeadline;
+            droneWallDeadline = stageWallDeadline;
+        }
+
+        /**
+         * Back in the drone queue after a refusal, under the original deadline.
+         */
+        void resumeAwaitingDrone() {
+            stage = Stage.AWAITING_DRONE;
+            stageDeadline = droneDeadline;
+            stageWallDeadline = droneWallDeadline;
+        }
+    }
+
+    private static final String WEATHER_CHECK_PREFIX = "weather-check-";
+    private static final String INSPECTION_PREFIX = "inspection-";
+    private static final String PURCHASE_PREFIX = "water-purchase-";
+
     private boolean isRaining = false;
-    private Random random = new Random();
-    private boolean awaitingDroneReturn = false;
-    private int pendingMoistureLevel = 0;
+    private String lastForecast = null;
+    private long lastForecastAt = 0;
+
+    private final Map<Integer, IrrigationWorkflow> workflowsByField = new LinkedHashMap<>();
+    private final Map<String, IrrigationWorkflow> workflowsByConversation = new HashMap<>();
+    private long workflowCounter = 0;
+
+    // Drone pool
+    private final List<AID> knownDrones = new ArrayList<>();
+    private final ArrayDeque<AID> idleDrones = new ArrayDeque<>();
+    private final List<AID> restingDrones = new ArrayList<>();
+    private final ArrayDeque<IrrigationWorkflow> awaitingDrone = new ArrayDeque<>();
+    private long lastDroneDiscovery = 0;
+
+    // Supplier quotes
+    private boolean usePriceBook = true;
+    private final PriceBook priceBook = new PriceBook();
+    private final Set<AID> quoteSources = new HashSet<>();
+    private long lastSupplierDiscovery = 0;
+
+    private final IrrigationMetrics metrics = new IrrigationMetrics();
 
     @Override
     protected void setup() {
         System.out.println("[FarmControllerAgent] " + getLocalName() + " starting in container: " + here().getName());
 
+        Object[] args = getArguments();
+        if (args != null && args.length > 0 && "cnp-only".equals(args[0])) {
+            usePriceBook = false;
+        }
+
         // Add behavior to listen for sensor requests
         addBehaviour(new SensorRequestHandler());
 
-        // Add behavior to handle drone confirmations
-        addBehaviour(new DroneConfirmationHandler());
+        // Add behaviors for weather and drone replies
+        addBehaviour(new WeatherHandler());
+        addBehaviour(new DroneReplyHandler());
+        addBehaviour(new QuoteHandler());
+
+        // Timeouts, drone dispatch and statistics
+        addBehaviour(new WorkflowSupervisor(this));
 
         WebServer.broadcast("AGENT_START", "{\"agent\":\"" + getLocalName()
                 + "\",\"type\":\"FarmController\",\"container\":\"" + here().getName() + "\"}");
@@ -52,10 +174,23 @@ public class FarmControllerAgent extends Agent {
 
     @Override
     protected void takeDown() {
-        System.out.println("[FarmControllerAgent] " + getLocalName() + " shutting down.");
+        System.out.println("[FarmControllerAgent] " + getLocalName() + " shutting down. Decisions: "
+                + metrics.getTotalDecisions());
         WebServer.broadcast("AGENT_STOP", "{\"agent\":\"" + getLocalName() + "\"}");
     }
 
+    /**
+     * Matches messages whose conversation id starts with the given prefix.
+     */
+    private static MessageTemplate conversationPrefix(String prefix) {
+        return new MessageTemplate((MessageTemplate.MatchExpression) msg -> msg.getConversationId() != null
+                && msg.getConversationId().startsWith(prefix));
+    }
+
+    private IrrigationWorkflow workflowFor(ACLMessage msg, String prefix) {
+        return workflowsByConversation.get(msg.getConversationId().substring(prefix.length()));
+    }
+
     /**
      * Handles incoming REQUEST messages from soil sensors.
      */
@@ -70,14 +205,28 @@ public class FarmControllerAgent extends Agent {
                 String content = msg.getContent();
 
                 if (content != null && content.startsWith("LOW_MOISTURE:")) {
-                    int moistureLevel = Integer.parseInt(content.split(":")[1]);
-                    System.out.println("[FarmControllerAgent] Received low moisture alert: " + moistureLevel + "%");
+                    // LOW_MOISTURE:fieldId:value (older sensors send LOW_MOISTURE:value)
+                    String[] parts = content.split(":");
+                    int fieldId;
+                    int moistureLevel;
+                    try {
+                        fieldId = parts.length > 2 ? Integer.parseInt(parts[1]) : 0;
+                        moistureLevel = Integer.parseInt(parts[parts.length - 1]);
+                    } catch (NumberFormatException e) {
+                        ACLMessage reply = msg.createReply();
+                        reply.setPerformative(ACLMessage.NOT_UNDERSTOOD);
+                        reply.setContent("Malformed Message");
+                        send(reply);
+                        return;
+                    }
+                    System.out.println("[FarmControllerAgent] Received low moisture alert for field " + fieldId
+                            + ": " + moistureLevel + "%");
 
                     WebServer.broadcast("CONTROLLER_EVENT",
-                            "{\"event\":\"MOISTURE_ALERT_RECEIVED\",\"moisture\":" + moistureLevel + "}");
+                            "{\"event\":\"MOISTURE_ALERT_RECEIVED\",\"fieldId\":" + fieldId + ",\"moisture\":"
+                                    + moistureLevel + "}");
 
-                    // Check weather forecast
-                    checkWeatherAndDecide(moistureLevel);
+                    startWorkflow(fieldId, moistureLevel);
                 }
             } else {
                 block();
@@ -86,80 +235,320 @@ public class FarmControllerAgent extends Agent {
     }
 
     /**
-     * Checks mocked weather forecast and decides action.
-     * 20% chance of rain prediction.
+     * Opens a workflow for the field, or refreshes the running one.
      */
-    private void checkWeatherAndDecide(int moistureLevel) {
-        // Simulate weather forecast (20% chance of rain)
-        isRaining = random.nextInt(100) < 20;
+    private void startWorkflow(int fieldId, int moistureLevel) {
+        IrrigationWorkflow existing = workflowsByField.get(fieldId);
+        if (existing != null) {
+            existing.moistureLevel = moistureLevel;
+            metrics.recordCoalescedAlert();
+            return;
+        }
 
-        System.out.println("[FarmControllerAgent] Checking weather forecast...");
-        WebServer.broadcast("WEATHER_CHECK", "{\"checking\":true}");
+        String conversationId = "irrigation-" + fieldId + "-" + (++workflowCounter);
+        IrrigationWorkflow workflow = new IrrigationWorkflow(fieldId, moistureLevel, conversationId,
+                SimulationClock.now());
+        workflowsByField.put(fieldId, workflow);
+        workflowsByConversation.put(conversationId, workflow);
 
-        // Small delay to simulate API call
-        addBehaviour(new OneShotBehaviour() {
-            @Override
-            public void action() {
-                try {
-                    Thread.sleep(500);
-                } catch (InterruptedException e) {
+        checkWeather(workflow);
+    }
+
+    /**
+     * Uses the subscribed forecast when it is recent, otherwise asks the
+     * weather service without waiting for the answer.
+     */
+    private void checkWeather(IrrigationWorkflow workflow) {
+        System.out.println("[FarmControllerAgent] Checking weather forecast for field " + workflow.fieldId + "...");
+        WebServer.broadcast("WEATHER_CHECK", "{\"checking\":true,\"fieldId\":" + workflow.fieldId + "}");
+
+        if (lastForecast != null && SimulationClock.now() - lastForecastAt < FORECAST_MAX_AGE_MS) {
+            decideOnWeather(workflow, isRaining);
+            return;
+        }
+
+        ACLMessage query = new ACLMessage(ACLMessage.QUERY_IF);
+        query.addReceiver(new AID("Weather", AID.ISLOCALNAME));
+        query.setContent("WEATHER");
+        query.setConversationId(WEATHER_CHECK_PREFIX + workflow.conversationId);
+        send(query);
+
+        workflow.enter(Stage.WEATHER_CHECK, WEATHER_TIMEOUT_MS);
+    }
+
+    /**
+     * Handles subscribed forecasts and answers to weather checks.
+     */
+    private class WeatherHandler extends CyclicBehaviour {
+
+        private final MessageTemplate forecastTemplate = MessageTemplate.and(
+                MessageTemplate.MatchPerformative(ACLMessage.INFORM),
+                MessageTemplate.MatchConversationId("weather-update"));
+        private final MessageTemplate checkTemplate = MessageTemplate.and(
+                MessageTemplate.MatchPerformative(ACLMessage.INFORM),
+                conversationPrefix(WEATHER_CHECK_PREFIX));
+
+        @Override
+        public void action() {
+            ACLMessage msg = myAgent.receive(MessageTemplate.or(forecastTemplate, checkTemplate));
+
+            if (msg != null) {
+                String content = msg.getContent();
+                if (content == null || !content.startsWith("WEATHER:")) {
+                    return;
                 }
+                updateForecast(content.substring("WEATHER:".length()));
 
-                if (isRaining) {
-                    System.out.println("[FarmControllerAgent] 🌧️ Rain predicted! Ignoring irrigation request.");
-                    WebServer.broadcast("WEATHER_RESULT",
-                            "{\"isRaining\":true,\"action\":\"IGNORE\",\"message\":\"Rain predicted - no irrigation needed\"}");
-                } else {
-                    System.out.println("[FarmControllerAgent] ☀️ No rain predicted. Initiating inspection...");
-                    WebServer.broadcast("WEATHER_RESULT",
-                            "{\"isRaining\":false,\"action\":\"INSPECT\",\"message\":\"Clear weather - initiating drone inspection\"}");
+                if (checkTemplate.match(msg)) {
+                    IrrigationWorkflow workflow = workflowFor(msg, WEATHER_CHECK_PREFIX);
+                    if (workflow != null && workflow.stage == Stage.WEATHER_CHECK) {
+                        decideOnWeather(workflow, isRaining);
+                    }
+                }
+            } else {
+                block();
+            }
+        }
+    }
+
+    private void updateForecast(String forecast) {
+        lastForecast = forecast;
+        lastForecastAt = SimulationClock.now();
+        isRaining = forecast.equalsIgnoreCase("Rain") || forecast.equalsIgnoreCase("Storm");
+    }
+
+    private void decideOnWeather(IrrigationWorkflow workflow, boolean rainExpected) {
+        if (rainExpected) {
+            System.out.println("[FarmControllerAgent] 🌧️ Rain predicted! Ignoring irrigation request for field "
+                    + workflow.fieldId + ".");
+            WebServer.broadcast("WEATHER_RESULT",
+                    "{\"fieldId\":" + workflow.fieldId
+                            + ",\"isRaining\":true,\"action\":\"IGNORE\",\"message\":\"Rain predicted - no irrigation needed\"}");
+            finishWorkflow(workflow, IrrigationMetrics.Outcome.IGNORE, "Rain predicted");
+        } else {
+            System.out.println("[FarmControllerAgent] ☀️ No rain predicted. Initiating inspection of field "
+                    + workflow.fieldId + "...");
+            WebServer.broadcast("WEATHER_RESULT",
+                    "{\"fieldId\":" + workflow.fieldId
+                            + ",\"isRaining\":false,\"action\":\"INSPECT\",\"message\":\"Clear weather - initiating drone inspection\"}");
+
+            workflow.awaitDrone();
+            awaitingDrone.addLast(workflow);
+            dispatchInspections();
+        }
+    }
+
+    /**
+     * Pairs waiting workflows with idle drones. While work waits and no drone
+     * is idle, the DF is asked again (at most every DRONE_DISCOVERY_INTERVAL_MS)
+     * so that drones started later join the pool.
+     */
+    private void dispatchInspections() {
+        if (!awaitingDrone.isEmpty() && idleDrones.isEmpty()) {
+            discoverDrones();
+
+            if (knownDrones.isEmpty()) {
+                skipInspections();
+                return;
+            }
+        }
+
+        while (!awaitingDrone.isEmpty() && !idleDrones.isEmpty()) {
+            IrrigationWorkflow workflow = awaitingDrone.pollFirst();
+            requestDroneInspection(workflow, idleDrones.pollFirst());
+        }
+    }
+
+    /**
+     * No drone on the platform: rather than wait out the drone queue
+     * timeout, every waiting workflow goes on to buy water on the sensor
+     * reading alone.
+     */
+    private void skipInspections() {
+        while (!awaitingDrone.isEmpty()) {
+            metrics.recordSkippedInspection();
+            initiateWaterPurchase(awaitingDrone.pollFirst());
+        }
+    }
+
+    private void discoverDrones() {
+        long now = SimulationClock.now();
+        if (now - lastDroneDiscovery < DRONE_DISCOVERY_INTERVAL_MS) {
+            return;
+        }
+        lastDroneDiscovery = now;
+
+        DFAgentDescription template = new DFAgentDescription();
+        ServiceDescription sd = new ServiceDescription();
+        sd.setType("field-inspection");
+        template.addServices(sd);
 
-                    pendingMoistureLevel = moistureLevel;
-                    awaitingDroneReturn = true;
-                    requestDroneInspection();
+        try {
+            int before = knownDrones.size();
+            for (DFAgentDescription result : DFService.search(this, template)) {
+                if (!knownDrones.contains(result.getName())) {
+                    knownDrones.add(result.getName());
+                    idleDrones.addLast(result.getName());
                 }
             }
-        });
+            if (knownDrones.size() != before) {
+                System.out.println("[FarmControllerAgent] Inspection drones available: " + knownDrones.size());
+            }
+        } catch (FIPAException e) {
+            System.err.println("[FarmControllerAgent] Drone DF search failed: " + e.getMessage());
+        }
     }
 
     /**
-     * Sends inspection request to InspectorDroneAgent.
+     * Sends inspection request to an InspectorDroneAgent.
      */
-    private void requestDroneInspection() {
+    private void requestDroneInspection(IrrigationWorkflow workflow, AID drone) {
         ACLMessage inspectRequest = new ACLMessage(ACLMessage.REQUEST);
-        inspectRequest.addReceiver(new AID("Drone", AID.ISLOCALNAME));
-        inspectRequest.setContent("INSPECT_FIELD");
-        inspectRequest.setConversationId("inspection-" + System.currentTimeMillis());
+        inspectRequest.addReceiver(drone);
+        inspectRequest.setContent("INSPECT_FIELD:" + workflow.fieldId);
+        inspectRequest.setConversationId(INSPECTION_PREFIX + workflow.conversationId);
 
+        workflow.drone = drone;
+        workflow.enter(Stage.INSPECTION, INSPECTION_TIMEOUT_MS);
         send(inspectRequest);
-        System.out.println("[FarmControllerAgent] Sent inspection request to Drone.");
+        System.out.println("[FarmControllerAgent] Sent inspection request for field " + workflow.fieldId + " to "
+                + drone.getLocalName() + ".");
 
         WebServer.broadcast("DRONE_REQUEST",
-                "{\"action\":\"INSPECT\",\"message\":\"Requesting drone field inspection\"}");
+                "{\"action\":\"INSPECT\",\"fieldId\":" + workflow.fieldId + ",\"drone\":\"" + drone.getLocalName()
+                        + "\",\"message\":\"Requesting drone field inspection\"}");
     }
 
     /**
-     * Handles CONFIRM messages from the drone after inspection.
+     * Handles CONFIRM / REFUSE / FAILURE messages from drones.
      */
-    private class DroneConfirmationHandler extends CyclicBehaviour {
+    private class DroneReplyHandler extends CyclicBehaviour {
+
+        private final MessageTemplate template = MessageTemplate.and(
+                conversationPrefix(INSPECTION_PREFIX),
+                MessageTemplate.or(MessageTemplate.MatchPerformative(ACLMessage.CONFIRM),
+                        MessageTemplate.or(MessageTemplate.MatchPerformative(ACLMessage.REFUSE),
+                                MessageTemplate.MatchPerformative(ACLMessage.FAILURE))));
 
         @Override
         public void action() {
-            MessageTemplate mt = MessageTemplate.MatchPerformative(ACLMessage.CONFIRM);
-            ACLMessage msg = myAgent.receive(mt);
+            ACLMessage msg = myAgent.receive(template);
 
-            if (msg != null && awaitingDroneReturn) {
-                String content = msg.getContent();
+            if (msg != null) {
+                AID drone = msg.getSender();
+                IrrigationWorkflow workflow = workflowFor(msg, INSPECTION_PREFIX);
+
+                if (msg.getPerformative() == ACLMessage.REFUSE) {
+                    // Drone busy: retry with another drone after a short rest
+                    restingDrones.add(drone);
+                    if (workflow != null && workflow.stage == Stage.INSPECTION) {
+                        workflow.resumeAwaitingDrone();
+                        awaitingDrone.addFirst(workflow);
+                    }
+                    return;
+                }
 
-                if (content != null && content.startsWith("INSPECTION_COMPLETE")) {
-                    System.out
-                            .println("[FarmControllerAgent] Drone inspection confirmed. Initiating water purchase...");
+                // The drone is free again, even if its workflow already timed out
+                releaseDrone(drone);
+
+                if (workflow != null && workflow.stage == Stage.INSPECTION) {
+                    if (msg.getPerformative() == ACLMessage.CONFIRM) {
+                        System.out.println("[FarmControllerAgent] Drone inspection of field " + workflow.fieldId
+                                + " confirmed. Initiating water purchase...");
+                        WebServer.broadcast("INSPECTION_COMPLETE",
+                                "{\"fieldId\":" + workflow.fieldId
+                                        + ",\"status\":\"complete\",\"message\":\"Field inspection completed successfully\"}");
+                    } else {
+                        // The sensor reading alone justifies irrigation
+                        metrics.recordSkippedInspection();
+                    }
+                    initiateWaterPurchase(workflow);
+                }
+                dispatchInspections();
+            } else {
+                block();
+            }
+        }
+    }
+
+    private void releaseDrone(AID drone) {
+        if (!idleDrones.contains(drone)) {
+            idleDrones.addLast(drone);
+        }
+        if (!knownDrones.contains(drone)) {
+            knownDrones.add(drone);
+        }
+    }
+
+    /**
+     * Buys water for the field: against a cached quote when the price book
+     * has one, otherwise through Contract Net.
+     */
+    private void initiateWaterPurchase(IrrigationWorkflow workflow) {
+        workflow.enter(Stage.PURCHASE, PURCHASE_TIMEOUT_MS);
+        workflow.purchaseStartedAt = SimulationClock.now();
+
+        if (usePriceBook) {
+            PriceBook.Quote quote = priceBook.reserveBest(WATER_UNITS, workflow.purchaseStartedAt);
+            if (quote != null) {
+                buyFromQuote(workflow, quote);
+                return;
+            }
+        }
+        startContractNet(workflow);
+    }
+
+    private void buyFromQuote(IrrigationWorkflow workflow, PriceBook.Quote quote) {
+        ACLMessage order = new ACLMessage(ACLMessage.ACCEPT_PROPOSAL);
+        order.addReceiver(quote.getSupplier());
+        order.setContent("BUY_QUOTE:" + quote.getQuoteId() + ":" + WATER_UNITS);
+        order.setConversationId(SupplierAgent.QUOTE_BUY_PREFIX + workflow.conversationId);
+        send(order);
+
+        System.out.println("[FarmControllerAgent] Buying water for field " + workflow.fieldId + " from "
+                + quote.getSupplier().getLocalName() + " at quoted $" + quote.getPrice());
+    }
+
+    /**
+     * Handles the quote stream and the answers to quote purchases.
+     */
+    private class QuoteHandler extends CyclicBehaviour {
+
+        private final MessageTemplate quoteTemplate = MessageTemplate.and(
+                MessageTemplate.MatchPerformative(ACLMessage.INFORM),
+                MessageTemplate.MatchConversationId(SupplierAgent.QUOTES_CONVERSATION));
+        private final MessageTemplate orderTemplate = conversationPrefix(SupplierAgent.QUOTE_BUY_PREFIX);
+
+        @Override
+        public void action() {
+            ACLMessage msg = myAgent.receive(MessageTemplate.or(quoteTemplate, orderTemplate));
 
-                    WebServer.broadcast("INSPECTION_COMPLETE",
-                            "{\"status\":\"complete\",\"message\":\"Field inspection completed successfully\"}");
+            if (msg != null) {
+                if (quoteTemplate.match(msg)) {
+                    priceBook.update(msg.getSender(), msg.getContent(), SimulationClock.now());
+                    return;
+                }
 
-                    awaitingDroneReturn = false;
-                    initiateWaterPurchase();
+                IrrigationWorkflow workflow = workflowFor(msg, SupplierAgent.QUOTE_BUY_PREFIX);
+                if (msg.getPerformative() == ACLMessage.INFORM) {
+                    if (workflow != null) {
+                        long latency = SimulationClock.now() - workflow.purchaseStartedAt;
+                        metrics.recordProcurement(true, latency);
+
+                        WebServer.broadcast("WATER_DELIVERED",
+                                "{\"fieldId\":" + workflow.fieldId + ",\"supplier\":\""
+                                        + msg.getSender().getLocalName()
+                                        + "\",\"message\":\"Water delivery complete (quoted price)!\"}");
+                        finishWorkflow(workflow, IrrigationMetrics.Outcome.IRRIGATE,
+                                "Water bought from " + msg.getSender().getLocalName() + " at quoted price");
+                    }
+                } else {
+                    // Quote no longer honored: forget it and negotiate
+                    priceBook.invalidate(msg.getSender());
+                    metrics.recordRejectedQuote();
+                    if (workflow != null && workflow.stage == Stage.PURCHASE) {
+                        startContractNet(workflow);
+                    }
                 }
             } else {
                 block();
@@ -168,23 +557,49 @@ public class FarmControllerAgent extends Agent {
     }
 
     /**
-     * Initiates Contract Net Protocol to purchase water from suppliers.
+     * Finds the water suppliers in the DF and, with the price book enabled,
+     * subscribes to the quotes of new ones.
      */
-    private void initiateWaterPurchase() {
-        System.out.println("[FarmControllerAgent] Searching for water suppliers...");
-
-        // Find all water suppliers from DF
+    private DFAgentDescription[] findSuppliers() throws FIPAException {
         DFAgentDescription template = new DFAgentDescription();
         ServiceDescription sd = new ServiceDescription();
         sd.setType("water-supplier");
         template.addServices(sd);
 
+        DFAgentDescription[] results = DFService.search(this, template);
+        lastSupplierDiscovery = SimulationClock.now();
+
+        if (usePriceBook) {
+            ACLMessage subscribe = new ACLMessage(ACLMessage.SUBSCRIBE);
+            for (DFAgentDescription supplier : results) {
+                if (quoteSources.add(supplier.getName())) {
+                    subscribe.addReceiver(supplier.getName());
+                }
+            }
+            if (subscribe.getAllReceiver().hasNext()) {
+                subscribe.setContent("WATER_QUOTES");
+                subscribe.setConversationId(SupplierAgent.QUOTES_CONVERSATION);
+                send(subscribe);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Initiates Contract Net Protocol to purchase water from suppliers.
+     */
+    private void startContractNet(IrrigationWorkflow workflow) {
+        System.out.println("[FarmControllerAgent] Searching for water suppliers...");
+
         try {
-            DFAgentDescription[] results = DFService.search(this, template);
+            // Find all water suppliers from DF
+            DFAgentDescription[] results = findSuppliers();
 
             if (results.length == 0) {
                 System.out.println("[FarmControllerAgent] No water suppliers found!");
-                WebServer.broadcast("CNP_ERROR", "{\"error\":\"No suppliers found\"}");
+                WebServer.broadcast("CNP_ERROR", "{\"fieldId\":" + workflow.fieldId
+                        + ",\"error\":\"No suppliers found\"}");
+                finishWorkflow(workflow, IrrigationMetrics.Outcome.FAILED, "No suppliers found");
                 return;
             }
 
@@ -195,31 +610,133 @@ public class FarmControllerAgent extends Agent {
             for (DFAgentDescription supplier : results) {
                 cfp.addReceiver(supplier.getName());
             }
-            cfp.setContent("WATER_NEEDED:" + pendingMoistureLevel);
-            cfp.setConversationId("water-purchase-" + System.currentTimeMillis());
-            cfp.setReplyByDate(new Date(System.currentTimeMillis() + 10000)); // 10 second deadline
+            cfp.setContent("WATER_NEEDED:" + workflow.moistureLevel);
+            cfp.setConversationId(PURCHASE_PREFIX + workflow.conversationId);
+            cfp.setReplyByDate(new Date(System.currentTimeMillis() + CFP_DEADLINE_MS));
 
             WebServer.broadcast("CNP_START",
-                    "{\"suppliers\":" + results.length + ",\"message\":\"Sending CFP to " + results.length
-                            + " suppliers\"}");
+                    "{\"fieldId\":" + workflow.fieldId + ",\"suppliers\":" + results.length
+                            + ",\"message\":\"Sending CFP to " + results.length + " suppliers\"}");
 
             // Add ContractNetInitiator behavior
-            addBehaviour(new WaterPurchaseInitiator(this, cfp, results.length));
+            addBehaviour(new WaterPurchaseInitiator(this, cfp, workflow));
 
         } catch (FIPAException e) {
             System.err.println("[FarmControllerAgent] DF search failed: " + e.getMessage());
+            finishWorkflow(workflow, IrrigationMetrics.Outcome.FAILED, "DF search failed");
         }
     }
 
+    /**
+     * Records the decision and frees the field for new alerts.
+     */
+    private void finishWorkflow(IrrigationWorkflow workflow, IrrigationMetrics.Outcome outcome, String reason) {
+        if (workflow.finished) {
+            return;
+        }
+        workflow.finished = true;
+        workflowsByField.remove(workflow.fieldId);
+        workflowsByConversation.remove(workflow.conversationId);
+        awaitingDrone.remove(workflow);
+
+        long now = SimulationClock.now();
+        long latency = now - workflow.startedAt;
+        metrics.recordDecision(outcome, latency, now);
+
+        WebServer.broadcast("IRRIGATION_DECISION",
+                "{\"fieldId\":" + workflow.fieldId + ",\"decision\":\"" + outcome + "\",\"latencyMs\":" + latency
+                        + ",\"reason\":\"" + reason + "\"}");
+    }
+
+    /**
+     * Enforces stage timeouts, returns resting drones to the pool and
+     * publishes statistics.
+     */
+    private class WorkflowSupervisor extends SimTickerBehaviour {
+
+        private long lastStats = SimulationClock.now();
+
+        WorkflowSupervisor(Agent a) {
+            super(a, SUPERVISOR_PERIOD_MS);
+        }
+
+        @Override
+        protected void onTick() {
+            long now = SimulationClock.now();
+            long wallNow = System.currentTimeMillis();
+
+            idleDrones.addAll(restingDrones);
+            restingDrones.clear();
+
+            List<IrrigationWorkflow> expired = new ArrayList<>();
+            for (IrrigationWorkflow workflow : workflowsByField.values()) {
+                if (workflow.stage != null && now > workflow.stageDeadline
+                        && wallNow > workflow.stageWallDeadline) {
+                    expired.add(workflow);
+                }
+            }
+            for (IrrigationWorkflow workflow : expired) {
+                handleTimeout(workflow);
+            }
+
+            dispatchInspections();
+
+            // Pick up new suppliers' quote streams
+            if (usePriceBook && now - lastSupplierDiscovery >= SUPPLIER_DISCOVERY_INTERVAL_MS) {
+                try {
+                    findSuppliers();
+                } catch (FIPAException e) {
+                    System.err.println("[FarmControllerAgent] Supplier DF search failed: " + e.getMessage());
+                }
+            }
+
+            if (now - lastStats >= STATS_INTERVAL_MS) {
+                lastStats = now;
+                publishStats(now);
+            }
+        }
+    }
+
+    private void handleTimeout(IrrigationWorkflow workflow) {
+        metrics.recordTimeout();
+        System.out.println("[FarmControllerAgent] ⏱️ Field " + workflow.fieldId + " timed out in " + workflow.stage);
+
+        switch (workflow.stage) {
+            case WEATHER_CHECK:
+                // No answer from the weather service: irrigate rather than let the crop dry out
+                decideOnWeather(workflow, false);
+                break;
+            case AWAITING_DRONE:
+                awaitingDrone.remove(workflow);
+                metrics.recordSkippedInspection();
+                initiateWaterPurchase(workflow);
+                break;
+            case INSPECTION:
+                // The drone rejoins the pool when it reports back
+                metrics.recordSkippedInspection();
+                initiateWaterPurchase(workflow);
+                break;
+            case PURCHASE:
+                finishWorkflow(workflow, IrrigationMetrics.Outcome.FAILED, "Purchase timed out");
+                break;
+        }
+    }
+
+    private void publishStats(long now) {
+        String stats = metrics.toJson(workflowsByField.size(), now);
+        System.out.println("[FarmControllerAgent] Stats: " + stats);
+        WebServer.broadcast("CONTROLLER_STATS", stats);
+    }
+
     /**
      * Contract Net Protocol Initiator for water purchase.
      */
     private class WaterPurchaseInitiator extends ContractNetInitiator {
 
-        private int expectedProposals;
+        private final IrrigationWorkflow workflow;
         private String bestSupplier = null;
-        private double highestBid = 0;
-        private double secondHighestBid = 0;
+        private double lowestBid = Double.MAX_VALUE;
+        private double secondLowestBid = Double.MAX_VALUE;
         private java.util.List<ProposalInfo> allProposals = new java.util.ArrayList<>();
 
         // Helper class to track proposals
@@ -233,9 +750,9 @@ public class FarmControllerAgent extends Agent {
             }
         }
 
-        public WaterPurchaseInitiator(Agent a, ACLMessage cfp, int expectedProposals) {
+        public WaterPurchaseInitiator(Agent a, ACLMessage cfp, IrrigationWorkflow workflow) {
             super(a, cfp);
-            this.expectedProposals = expectedProposals;
+            this.workflow = workflow;
         }
 
         @Override
@@ -250,15 +767,16 @@ public class FarmControllerAgent extends Agent {
             allProposals.add(new ProposalInfo(supplierName, price));
 
             WebServer.broadcast("CNP_PROPOSAL",
-                    "{\"supplier\":\"" + supplierName + "\",\"price\":" + price + "}");
+                    "{\"fieldId\":" + workflow.fieldId + ",\"supplier\":\"" + supplierName + "\",\"price\":" + price
+                            + "}");
 
-            // Track highest and second-highest bids
-            if (price > highestBid) {
-                secondHighestBid = highestBid;
-                highestBid = price;
+            // Track lowest and second-lowest bids: the same rule as the price book, cheapest wins
+            if (price < lowestBid) {
+                secondLowestBid = lowestBid;
+                lowestBid = price;
                 bestSupplier = supplierName;
-            } else if (price > secondHighestBid) {
-                secondHighestBid = price;
+            } else if (price < secondLowestBid) {
+                secondLowestBid = price;
             }
         }
 
@@ -266,19 +784,26 @@ public class FarmControllerAgent extends Agent {
         protected void handleAllResponses(Vector responses, Vector acceptances) {
             System.out.println("[FarmControllerAgent] Received all " + responses.size() + " proposals.");
 
+            if (workflow.finished) {
+                // Timed out meanwhile: release every supplier
+                rejectAll(messages(responses), messages(acceptances));
+                return;
+            }
+
             if (bestSupplier != null) {
-                // Second-price auction: winner pays second-highest bid
-                double paymentPrice = allProposals.size() > 1 ? secondHighestBid : highestBid;
+                // Second-price procurement auction: the lowest bidder wins and is paid the second-lowest bid
+                double paymentPrice = allProposals.size() > 1 ? secondLowestBid : lowestBid;
 
-                System.out.println("[FarmControllerAgent] 🏆 AUCTION RESULT:");
+                System.out.println("[FarmControllerAgent] 🏆 AUCTION RESULT (field " + workflow.fieldId + "):");
                 System.out.println("[FarmControllerAgent]   Winner: " + bestSupplier);
-                System.out.println("[FarmControllerAgent]   Winning Bid: $" + String.format("%.2f", highestBid));
+                System.out.println("[FarmControllerAgent]   Winning Bid: $" + String.format("%.2f", lowestBid));
                 System.out.println(
                         "[FarmControllerAgent]   Payment (2nd price): $" + String.format("%.2f", paymentPrice));
 
                 // Broadcast detailed auction results
                 StringBuilder allBidsJson = new StringBuilder("{\"winner\":\"" + bestSupplier + "\"");
-                allBidsJson.append(",\"winningBid\":").append(highestBid);
+                allBidsJson.append(",\"fieldId\":").append(workflow.fieldId);
+                allBidsJson.append(",\"winningBid\":").append(lowestBid);
                 allBidsJson.append(",\"payment\":").append(paymentPrice);
                 allBidsJson.append(",\"bids\":[");
 
@@ -314,16 +839,38 @@ public class FarmControllerAgent extends Agent {
                         acceptances.add(reply);
                     }
                 }
+
+                metrics.recordProcurement(false, SimulationClock.now() - workflow.purchaseStartedAt);
+                finishWorkflow(workflow, IrrigationMetrics.Outcome.IRRIGATE, "Water bought from " + bestSupplier);
+            } else {
+                finishWorkflow(workflow, IrrigationMetrics.Outcome.FAILED, "No proposals");
             }
         }
 
+        private void rejectAll(Vector<ACLMessage> responses, Vector<ACLMessage> acceptances) {
+            for (ACLMessage msg : responses) {
+                if (msg.getPerformative() == ACLMessage.PROPOSE) {
+                    ACLMessage reply = msg.createReply();
+                    reply.setPerformative(ACLMessage.REJECT_PROPOSAL);
+                    reply.setContent("REJECTED");
+                    acceptances.add(reply);
+                }
+            }
+        }
+
+        // ContractNetInitiator hands over raw Vectors; they only ever hold ACLMessages
+        @SuppressWarnings({ "rawtypes", "unchecked" })
+        private Vector<ACLMessage> messages(Vector vector) {
+            return vector;
+        }
+
         @Override
         protected void handleInform(ACLMessage inform) {
             System.out.println(
                     "[FarmControllerAgent] ✅ Water delivery confirmed from " + inform.getSender().getLocalName());
 
             WebServer.broadcast("WATER_DELIVERED",
-                    "{\"supplier\":\"" + inform.getSender().getLocalName()
+                    "{\"fieldId\":" + workflow.fieldId + ",\"supplier\":\"" + inform.getSender().getLocalName()
                             + "\",\"message\":\"Water delivery complete!\"}");
         }
 
@@ -337,4 +884,18 @@ public class FarmControllerAgent extends Agent {
             System.out.println("[FarmControllerAgent] Supplier failed: " + failure.getSender().getLocalName());
         }
     }
+
+    // ==================== PUBLIC METHODS ====================
+
+    public IrrigationMetrics getMetrics() {
+        return metrics;
+    }
+
+    public PriceBook getPriceBook() {
+        return priceBook;
+    }
+
+    public int getActiveWorkflowCount() {
+        return workflowsByField.size();
+    }
 }
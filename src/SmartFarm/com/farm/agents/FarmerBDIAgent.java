@@ -10,7 +10,11 @@ import jade.domain.FIPAAgentManagement.*;
 import jade.domain.FIPAException;
 
 import com.farm.gui.WebServer;
+import com.farm.helpers.ChangeDetector;
+import com.farm.helpers.SensorBatcher;
 import com.farm.models.*;
+import com.farm.sim.SimTickerBehaviour;
+import com.farm.sim.SimulationClock;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
@@ -27,6 +31,18 @@ import java.util.concurrent.ConcurrentHashMap;
  * - INTENTIONS: Committed plans to achieve desires (prioritized action queue)
  * 
  * This agent coordinates all farm operations based on its mental state.
+ * With edge controllers, field beliefs arrive as one FIELD_SUMMARY per
+ * container and interval plus exceptions, instead of one message per field
+ * agent.
+ *
+ * Moisture and health readings pass through a per-field ChangeDetector
+ * (EWMA + CUSUM) first: only significant changes reach the belief base, and
+ * options are regenerated for changed fields only, with a full
+ * reconsideration every RECONSIDER_CYCLES cycles. A field that was just
+ * irrigated gets no new IRRIGATE intention until its moisture belief rises
+ * or IRRIGATION_PENDING_MS passes. Argument "raw-beliefs"
+ * restores the previous behaviour (every reading is a belief update, every
+ * field is reconsidered every cycle).
  * Agent Type: BDI
  */
 public class FarmerBDIAgent extends Agent {
@@ -44,6 +60,27 @@ public class FarmerBDIAgent extends Agent {
     private List<AID> knownSuppliers = new ArrayList<>();
     private int predictedWaterNeed = 0;
     private int predictionConfidence = 0;
+    private Map<Integer, String> edgeSummaryBelief = new ConcurrentHashMap<>(); // group -> aggregates
+    private long beliefMessages = 0;
+
+    // Sensor stream filtering
+    private static final double DETECTOR_ALPHA = 0.1;
+    private static final double DETECTOR_K = 0.5; // sigmas of drift tolerated
+    private static final double DETECTOR_H = 5.0; // sigmas of accumulated drift that count as a change
+    private static final double DETECTOR_MIN_SIGMA = 2.0; // readings are whole percents
+    private static final int RECONSIDER_CYCLES = 10;
+    private static final long IRRIGATION_PENDING_MS = 60000;
+
+    private boolean rawBeliefs = false;
+    private Map<Integer, ChangeDetector> moistureDetectors = new HashMap<>();
+    private Map<Integer, ChangeDetector> healthDetectors = new HashMap<>();
+    private Set<Integer> changedFields = new HashSet<>();
+    private Map<Integer, Long> irrigationPending = new HashMap<>(); // fieldId -> requested at
+    private long reasoningCycles = 0;
+    private long samplesObserved = 0;
+    private long beliefUpdates = 0;
+    private long outliersIgnored = 0;
+    private Map<IntentionType, Long> intentionsFormed = new EnumMap<>(IntentionType.class);
 
     // ==================== DESIRES ====================
     // What the agent wants to achieve (goals)
@@ -75,6 +112,9 @@ public class FarmerBDIAgent extends Agent {
         System.out.println("[FarmerBDI] Agent starting...");
         System.out.println("[FarmerBDI] Initializing BDI mental state...");
 
+        Object[] args = getArguments();
+        rawBeliefs = args != null && args.length > 0 && "raw-beliefs".equals(args[0]);
+
         // Register with DF as farm-manager
         registerWithDF();
 
@@ -173,7 +213,7 @@ public class FarmerBDIAgent extends Agent {
      * 3. Deliberate and form intentions
      * 4. Execute intentions
      */
-    private class BDIReasoningCycle extends TickerBehaviour {
+    private class BDIReasoningCycle extends SimTickerBehaviour {
         public BDIReasoningCycle(Agent a, long period) {
             super(a, period);
         }
@@ -193,6 +233,7 @@ public class FarmerBDIAgent extends Agent {
             for (Intention intention : selectedIntentions) {
                 if (!intentionQueue.contains(intention)) {
                     intentionQueue.offer(intention);
+                    intentionsFormed.merge(intention.getType(), 1L, Long::sum);
                     System.out.println("[FarmerBDI] New intention: " + intention.getDescription());
                 }
             }
@@ -220,12 +261,16 @@ public class FarmerBDIAgent extends Agent {
      */
     private List<Intention> generateOptions() {
         List<Intention> options = new ArrayList<>();
+        boolean reconsiderAll = rawBeliefs || reasoningCycles++ % RECONSIDER_CYCLES == 0;
 
-        // Check each field belief
+        // Check each field belief that changed since the last cycle
         for (FieldState field : fieldBeliefs.values()) {
+            if (!reconsiderAll && !changedFields.contains(field.getFieldId())) {
+                continue;
+            }
 
             // Option: Irrigate if field needs water
-            if (field.needsWater() && desireHealthyCrops) {
+            if (field.needsWater() && desireHealthyCrops && !isIrrigationPending(field.getFieldId())) {
                 options.add(new Intention(
                         IntentionType.IRRIGATE,
                         "Irrigate Field-" + field.getFieldId(),
@@ -261,6 +306,8 @@ public class FarmerBDIAgent extends Agent {
             }
         }
 
+        changedFields.clear();
+
         // Option: Buy resources if budget allows and needed
         if (budgetBelief > 50 && needsResources() && desireEfficientWaterUse) {
             options.add(new Intention(
@@ -355,7 +402,7 @@ public class FarmerBDIAgent extends Agent {
     /**
      * Executes intentions from the queue.
      */
-    private class IntentionExecutor extends TickerBehaviour {
+    private class IntentionExecutor extends SimTickerBehaviour {
         public IntentionExecutor(Agent a, long period) {
             super(a, period);
         }
@@ -435,7 +482,27 @@ public class FarmerBDIAgent extends Agent {
         }
     }
 
+    /**
+     * Whether the field was irrigated recently and its moisture belief has
+     * not caught up yet.
+     */
+    private boolean isIrrigationPending(int fieldId) {
+        Long requestedAt = irrigationPending.get(fieldId);
+        if (requestedAt == null) {
+            return false;
+        }
+        if (SimulationClock.now() - requestedAt > IRRIGATION_PENDING_MS) {
+            irrigationPending.remove(fieldId);
+            return false;
+        }
+        return true;
+    }
+
     private void executeIrrigation(Intention intention) {
+        if (!rawBeliefs) {
+            irrigationPending.put(intention.getTargetFieldId(), SimulationClock.now());
+        }
+
         // Send irrigation request to controller
         ACLMessage msg = new ACLMessage(ACLMessage.REQUEST);
         msg.addReceiver(new AID("Controller", AID.ISLOCALNAME));
@@ -514,10 +581,17 @@ public class FarmerBDIAgent extends Agent {
     private void processBeliefUpdate(ACLMessage msg) {
         String content = msg.getContent();
         String sender = msg.getSender().getLocalName();
+        beliefMessages++;
 
         // Handle different message types
         if (content.startsWith("FIELD_UPDATE:")) {
             updateFieldBelief(content, sender);
+        } else if (content.startsWith("FIELD_SUMMARY:")) {
+            updateFieldBeliefsFromSummary(content.substring(14));
+        } else if (content.startsWith("PEST_ALERT:")) {
+            updatePestBelief(content.substring(11));
+        } else if (content.startsWith("SENSOR_BATCH:")) {
+            updateFieldBeliefsFromBatch(content.substring(13));
         } else if (content.startsWith("WEATHER:")) {
             weatherBelief = content.substring(8);
             System.out.println("[FarmerBDI] Belief updated: Weather = " + weatherBelief);
@@ -535,26 +609,18 @@ public class FarmerBDIAgent extends Agent {
 
     private void updateFieldBelief(String content, String sender) {
         try {
-            // DEBUG: Log the incoming message
-            System.out.println("[FarmerBDI] DEBUG: Received FIELD_UPDATE from " + sender + ": " + content);
-
             // Parse: "FIELD_UPDATE:id:X,crop:Y,moisture:Z,growth:W,health:H" (from
             // CropGrowth)
             // or: "FIELD_UPDATE:id:X,moisture:Z" (from SoilSensor)
             String[] parts = content.substring(13).split(",");
-            System.out.println("[FarmerBDI] DEBUG: Split into " + parts.length + " parts");
-            for (int i = 0; i < parts.length; i++) {
-                System.out.println("[FarmerBDI] DEBUG:   parts[" + i + "] = " + parts[i]);
-            }
-
             int fieldId = Integer.parseInt(parts[0].split(":")[1]);
 
             FieldState field = fieldBeliefs.get(fieldId);
+            boolean changed;
 
             // Determine if this is from CropGrowth (has crop field) or SoilSensor (moisture
             // only)
             boolean hasCropType = parts.length >= 5 && parts[1].startsWith("crop:");
-            System.out.println("[FarmerBDI] DEBUG: hasCropType = " + hasCropType);
 
             if (hasCropType) {
                 // Full update from CropGrowthAgent: id,crop,moisture,growth,health
@@ -565,42 +631,30 @@ public class FarmerBDIAgent extends Agent {
 
                 CropType cropType = CropType.fromId(cropId);
 
-                if (field == null) {
-                    field = new FieldState(fieldId, cropType);
-                    fieldBeliefs.put(fieldId, field);
-                } else {
-                    // Update crop type if it changed (shouldn't happen, but be safe)
-                    if (field.getCropType() != cropType) {
-                        field = new FieldState(fieldId, cropType);
-                        field.setMoisture(moisture);
-                        field.setGrowth(growth);
-                        field.setHealth(health);
-                        fieldBeliefs.put(fieldId, field);
-                    } else {
-                        field.setMoisture(moisture);
-                        field.setGrowth(growth);
-                        field.setHealth(health);
-                    }
+                // New field, or the crop type changed (shouldn't happen, but be safe)
+                changed = field == null || field.getCropType() != cropType;
+                if (changed) {
+                    field = newFieldBelief(fieldId, cropType);
                 }
+                changed |= observeMoisture(field, moisture);
+                changed |= observeGrowth(field, growth);
+                changed |= observeHealth(field, health);
             } else {
                 // Moisture-only update from SoilSensorAgent: id,moisture
                 int moisture = Integer.parseInt(parts[1].split(":")[1]);
 
-                if (field == null) {
+                changed = field == null;
+                if (changed) {
                     // Create with default WHEAT if we haven't seen this field yet
-                    field = new FieldState(fieldId, CropType.WHEAT);
-                    fieldBeliefs.put(fieldId, field);
+                    field = newFieldBelief(fieldId, CropType.WHEAT);
                 }
-                field.setMoisture(moisture);
+                changed |= observeMoisture(field, moisture);
             }
 
-            // Check if needs water
-            if (field.needsWater()) {
-                field.setNeedsInspection(true);
+            if (changed) {
+                System.out.println("[FarmerBDI] Belief updated: " + field);
             }
 
-            System.out.println("[FarmerBDI] Belief updated: " + field);
-
             // NOTE: CropGrowthAgent already broadcasts to GUI, no need to duplicate here
             // This prevents double-updates and ensures GUI gets data directly from source
 
@@ -613,6 +667,145 @@ public class FarmerBDIAgent extends Agent {
         }
     }
 
+    private FieldState newFieldBelief(int fieldId, CropType cropType) {
+        FieldState field = new FieldState(fieldId, cropType);
+        fieldBeliefs.put(fieldId, field);
+        moistureDetectors.remove(fieldId);
+        healthDetectors.remove(fieldId);
+        changedFields.add(fieldId);
+        return field;
+    }
+
+    /**
+     * Moisture reading; the belief only moves on a significant change, to
+     * the detector's estimate of the new level. Returns true if it did.
+     */
+    private boolean observeMoisture(FieldState field, int moisture) {
+        int belief = filterReading(moistureDetectors, field.getFieldId(), moisture);
+        if (belief < 0) {
+            return false;
+        }
+        if (belief > field.getMoisture()) {
+            irrigationPending.remove(field.getFieldId());
+        }
+        field.setMoisture(belief);
+        if (field.needsWater()) {
+            field.setNeedsInspection(true);
+        }
+        return true;
+    }
+
+    private boolean observeHealth(FieldState field, int health) {
+        int belief = filterReading(healthDetectors, field.getFieldId(), health);
+        if (belief < 0) {
+            return false;
+        }
+        field.setHealth(belief);
+        return true;
+    }
+
+    /**
+     * Growth only ever increases and is not noisy; it counts as a change
+     * when the crop stage moves on.
+     */
+    private boolean observeGrowth(FieldState field, int growth) {
+        CropStage before = field.getStage();
+        field.setGrowth(growth);
+        if (field.getStage() == before) {
+            return false;
+        }
+        changedFields.add(field.getFieldId());
+        return true;
+    }
+
+    /**
+     * @return the value to believe, or -1 if the reading changes nothing
+     */
+    private int filterReading(Map<Integer, ChangeDetector> detectors, int fieldId, int value) {
+        samplesObserved++;
+        int belief = value;
+        if (!rawBeliefs) {
+            ChangeDetector detector = detectors.computeIfAbsent(fieldId,
+                    id -> new ChangeDetector(DETECTOR_ALPHA, DETECTOR_K, DETECTOR_H, DETECTOR_MIN_SIGMA));
+            ChangeDetector.Signal signal = detector.update(value);
+            if (signal == ChangeDetector.Signal.OUTLIER) {
+                outliersIgnored++;
+            }
+            belief = signal == ChangeDetector.Signal.CHANGE ? (int) Math.round(detector.getLevel()) : -1;
+        }
+        if (belief >= 0) {
+            beliefUpdates++;
+            changedFields.add(fieldId);
+        }
+        return belief;
+    }
+
+    /**
+     * Batched moisture readings from a SensorGatewayAgent: "id:value,id:value".
+     */
+    private void updateFieldBeliefsFromBatch(String batch) {
+        try {
+            for (Map.Entry<Integer, Integer> reading : SensorBatcher.parse(batch).entrySet()) {
+                FieldState field = fieldBeliefs.get(reading.getKey());
+                if (field == null) {
+                    field = newFieldBelief(reading.getKey(), CropType.WHEAT);
+                }
+                observeMoisture(field, reading.getValue());
+            }
+        } catch (NumberFormatException e) {
+            System.err.println("[FarmerBDI] ERROR parsing sensor batch: " + batch);
+        }
+    }
+
+    /**
+     * Edge controller summary:
+     * "group:fields:avgMoisture:avgHealth:lowMoisture:irrigated;id,crop,moisture,growth,health;..."
+     * Only fields that changed are listed; irrigated counts the fields the
+     * edge controller watered locally since its last summary.
+     */
+    private void updateFieldBeliefsFromSummary(String summary) {
+        try {
+            String[] entries = summary.split(";");
+            String header = entries[0];
+            String[] aggregates = header.split(":");
+            edgeSummaryBelief.put(Integer.parseInt(aggregates[0]), header);
+            expensesBelief += 10 * Integer.parseInt(aggregates[5]); // Same cost estimate as a requested irrigation
+
+            for (int i = 1; i < entries.length; i++) {
+                String[] parts = entries[i].split(",");
+                int fieldId = Integer.parseInt(parts[0]);
+                int moisture = Integer.parseInt(parts[2]);
+
+                FieldState field = fieldBeliefs.get(fieldId);
+                CropType cropType = "-".equals(parts[1]) ? null : CropType.fromId(parts[1]);
+                if (field == null || (cropType != null && field.getCropType() != cropType)) {
+                    field = newFieldBelief(fieldId, cropType != null ? cropType : CropType.WHEAT);
+                }
+                if (moisture >= 0) {
+                    observeMoisture(field, moisture);
+                }
+                if (cropType != null) {
+                    observeGrowth(field, Integer.parseInt(parts[3]));
+                    observeHealth(field, Integer.parseInt(parts[4]));
+                }
+            }
+        } catch (RuntimeException e) {
+            System.err.println("[FarmerBDI] ERROR parsing field summary: " + summary);
+        }
+    }
+
+    private void updatePestBelief(String fieldIdText) {
+        try {
+            FieldState field = fieldBeliefs.get(Integer.parseInt(fieldIdText));
+            if (field != null) {
+                field.setHasPest(true);
+                changedFields.add(field.getFieldId());
+            }
+        } catch (NumberFormatException e) {
+            // Ignore
+        }
+    }
+
     private void parsePredictionUpdate(String content) {
         try {
             String[] parts = content.substring(11).split(",");
@@ -657,7 +850,9 @@ public class FarmerBDIAgent extends Agent {
                 "Avg Water: " + calculateAverageWater() + "%",
                 "Avg Health: " + calculateAverageHealth() + "%",
                 "Drones available: " + knownDrones.size(),
-                "Low moisture fields: " + countLowMoistureFields()
+                "Edge controllers: " + edgeSummaryBelief.size(),
+                "Low moisture fields: " + countLowMoistureFields(),
+                "Belief updates: " + beliefUpdates + " of " + samplesObserved + " readings"
         };
 
         // Format desires
@@ -724,6 +919,33 @@ public class FarmerBDIAgent extends Agent {
         fieldBeliefs.put(fieldId, state);
     }
 
+    /**
+     * Number of messages handled by the belief update receiver.
+     */
+    public long getBeliefMessages() {
+        return beliefMessages;
+    }
+
+    /**
+     * Moisture and health readings seen, and how many of them changed a
+     * belief.
+     */
+    public long getSamplesObserved() {
+        return samplesObserved;
+    }
+
+    public long getBeliefUpdates() {
+        return beliefUpdates;
+    }
+
+    public long getOutliersIgnored() {
+        return outliersIgnored;
+    }
+
+    public long getIntentionsFormed(IntentionType type) {
+        return intentionsFormed.getOrDefault(type, 0L);
+    }
+
     /**
      * Update budget belief.
      */
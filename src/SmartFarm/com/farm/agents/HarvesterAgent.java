@@ -11,6 +11,7 @@ import jade.domain.FIPAAgentManagement.*;
 import jade.domain.FIPAException;
 
 import com.farm.gui.WebServer;
+import com.farm.sim.SimWakerBehaviour;
 
 import java.io.Serializable;
 
@@ -199,7 +200,7 @@ public class HarvesterAgent extends Agent implements Serializable {
     /**
      * Performs the harvest operation at the field.
      */
-    private class HarvestOperation extends WakerBehaviour {
+    private class HarvestOperation extends SimWakerBehaviour {
         public HarvestOperation() {
             super(HarvesterAgent.this, 3000); // 3 second harvest time
         }
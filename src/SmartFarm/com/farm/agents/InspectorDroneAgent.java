@@ -4,26 +4,59 @@ import jade.core.Agent;
 import jade.core.AID;
 import jade.core.ContainerID;
 import jade.core.behaviours.CyclicBehaviour;
-import jade.core.behaviours.OneShotBehaviour;
 import jade.core.behaviours.WakerBehaviour;
+import jade.domain.DFService;
+import jade.domain.FIPAAgentManagement.DFAgentDescription;
+import jade.domain.FIPAAgentManagement.Property;
+import jade.domain.FIPAAgentManagement.ServiceDescription;
+import jade.domain.FIPAException;
 import jade.lang.acl.ACLMessage;
 import jade.lang.acl.MessageTemplate;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import com.farm.gui.WebServer;
+import com.farm.helpers.MobilityPlanner;
+import com.farm.helpers.MobilityPlanner.Strategy;
+import com.farm.sim.SimWakerBehaviour;
+import com.farm.sim.SimulationClock;
 
 /**
- * InspectorDroneAgent - A mobile agent that physically migrates between
- * containers.
- * 
+ * InspectorDroneAgent - A mobile agent that inspects fields either by
+ * migrating to their container or by querying their soil sensor remotely.
+ *
  * Mobility Flow:
- * 1. Receives INSPECT request from FarmControllerAgent
- * 2. Migrates from Main-Container to Field-Container using doMove()
- * 3. Performs 2-second inspection simulation
- * 4. Migrates back to Main-Container
- * 5. Sends CONFIRM to FarmControllerAgent
- * 
+ * 1. Receives INSPECT_FIELD[:fieldId] requests (FarmControllerAgent, edge
+ * controllers)
+ * 2. Looks up the field's sensor and container in the DF ("moisture-sensor")
+ * 3. Asks its MobilityPlanner, per container, whether to query the sensor
+ * remotely or to migrate there, from measured trip times, round trips and
+ * bytes moved
+ * 4. Migrate: one doMove() trip serves every queued inspection for that
+ * container; readings are taken locally plus a 2-second survey, then back
+ * home with doMove()
+ * 5. Sends CONFIRM "INSPECTION_COMPLETE:NEEDS_WATER|OK:moisture:strategy" in
+ * each request's conversation
+ *
+ * A remote query that times out falls back to migration. Registers in the
+ * DF as "field-inspection"; up to MAX_QUEUED requests wait while a trip is
+ * under way, beyond that requests are answered with REFUSE.
+ *
+ * QUERY_REF "MOBILITY_STATS" is answered with
+ * "MOBILITY_STATS:trips:remoteQueries:remoteFailures:bytesMigrated:bytesMessaged".
+ *
+ * Arguments: [0] optional strategy: "adaptive" (default), "migrate" or
+ * "remote"
+ *
  * IMPORTANT: This agent implements Serializable for mobility support.
  */
 public class InspectorDroneAgent extends Agent implements Serializable {
@@ -36,21 +69,87 @@ public class InspectorDroneAgent extends Agent implements Serializable {
     private static final int STATE_INSPECTING = 2;
     private static final int STATE_RETURNING_HOME = 3;
 
+    private static final String DEFAULT_FIELD_CONTAINER = "Field-Container";
+    private static final String QUERY_PREFIX = "drone-query-";
+    private static final int MOISTURE_THRESHOLD = 30;
+    private static final int MAX_QUEUED = 4;
+    private static final long SURVEY_MS = 2000;
+    private static final long REMOTE_TIMEOUT_MS = 2000;
+    private static final long LOCATION_REFRESH_MS = 10000;
+
+    /**
+     * One inspection request, kept as plain values so it survives migration.
+     */
+    private static class Mission implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        final String requester;
+        final String conversationId;
+        final int fieldId;
+        final long receivedAt;
+        String container = DEFAULT_FIELD_CONTAINER;
+        String sensor;
+        boolean forceMigrate = false;
+        int moisture = -1;
+        Strategy strategy;
+        long querySentAt;
+        long queryBytes;
+
+        Mission(String requester, String conversationId, int fieldId) {
+            this.requester = requester;
+            this.conversationId = conversationId;
+            this.fieldId = fieldId;
+            this.receivedAt = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Matches replies to this drone's sensor queries.
+     */
+    private static class QueryReplyMatch implements MessageTemplate.MatchExpression {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public boolean match(ACLMessage msg) {
+            return msg.getPerformative() == ACLMessage.INFORM && msg.getConversationId() != null
+                    && msg.getConversationId().startsWith(QUERY_PREFIX);
+        }
+    }
+
     private int currentState = STATE_IDLE;
     private String homeContainer;
-    private String fieldContainer = "Field-Container";
-    private transient AID controllerAID; // transient to handle serialization
+    private MobilityPlanner planner;
+
+    private final List<Mission> queued = new ArrayList<>();
+    private final List<Mission> trip = new ArrayList<>();
+    private final Map<String, Mission> pendingQueries = new HashMap<>();
+    private final Map<Integer, String[]> fieldLocations = new HashMap<>(); // fieldId -> {container, sensor}
+    private String tripContainer;
+    private long tripStartedAt;
+    private long lastLocationRefresh = 0;
+    private int querySeq = 0;
 
     @Override
     protected void setup() {
         homeContainer = here().getName();
-        controllerAID = new AID("Controller", AID.ISLOCALNAME);
 
-        System.out.println("[InspectorDroneAgent] " + getLocalName() + " initialized in container: " + homeContainer);
+        Strategy policy = Strategy.ADAPTIVE;
+        Object[] args = getArguments();
+        if (args != null && args.length > 0 && args[0] != null) {
+            policy = Strategy.valueOf(args[0].toString().toUpperCase());
+        }
+        planner = new MobilityPlanner(policy);
+
+        System.out.println("[InspectorDroneAgent] " + getLocalName() + " initialized in container: " + homeContainer
+                + " (mobility: " + policy + ")");
         System.out.println("[InspectorDroneAgent] Ready for inspection missions.");
 
+        registerWithDF();
+
         // Add behavior to listen for inspection requests
         addBehaviour(new InspectionRequestHandler());
+        addBehaviour(new SensorReplyHandler());
+        addBehaviour(new StatsQueryHandler());
 
         WebServer.broadcast("AGENT_START",
                 "{\"agent\":\"" + getLocalName() + "\",\"type\":\"InspectorDrone\",\"container\":\"" + homeContainer
@@ -59,20 +158,46 @@ public class InspectorDroneAgent extends Agent implements Serializable {
 
     @Override
     protected void takeDown() {
-        System.out.println("[InspectorDroneAgent] " + getLocalName() + " shutting down.");
+        try {
+            DFService.deregister(this);
+        } catch (FIPAException e) {
+            // Not registered
+        }
+        System.out.println("[InspectorDroneAgent] " + getLocalName() + " shutting down. " + planner.getMigrations()
+                + " trips, " + planner.getRemoteQueries() + " remote queries.");
         WebServer.broadcast("AGENT_STOP", "{\"agent\":\"" + getLocalName() + "\"}");
     }
 
+    private void registerWithDF() {
+        DFAgentDescription dfd = new DFAgentDescription();
+        dfd.setName(getAID());
+
+        ServiceDescription sd = new ServiceDescription();
+        sd.setType("field-inspection");
+        sd.setName(getLocalName() + "-Inspection");
+        dfd.addServices(sd);
+
+        try {
+            DFService.register(this, dfd);
+        } catch (FIPAException e) {
+            System.err.println("[InspectorDroneAgent] " + getLocalName() + " failed to register with DF: "
+                    + e.getMessage());
+        }
+    }
+
     /**
      * Called before the agent moves to a new container.
      */
     @Override
     protected void beforeMove() {
-        String destination = (currentState == STATE_GOING_TO_FIELD) ? fieldContainer : homeContainer;
+        String destination = (currentState == STATE_GOING_TO_FIELD) ? tripContainer : homeContainer;
         System.out.println("[InspectorDroneAgent] 🚁 Preparing to move to " + destination + "...");
 
+        planner.recordMigrationLeg(serializedSize());
+
         WebServer.broadcast("DRONE_MOVING",
-                "{\"from\":\"" + here().getName() + "\",\"to\":\"" + destination + "\",\"status\":\"departing\"}");
+                "{\"droneId\":\"" + getLocalName() + "\",\"from\":\"" + here().getName() + "\",\"to\":\""
+                        + destination + "\",\"status\":\"departing\"}");
     }
 
     /**
@@ -83,45 +208,96 @@ public class InspectorDroneAgent extends Agent implements Serializable {
         String currentContainer = here().getName();
         System.out.println("[InspectorDroneAgent] 🚁 Arrived at " + currentContainer);
 
-        // Re-initialize transient fields after deserialization
-        if (controllerAID == null) {
-            controllerAID = new AID("Controller", AID.ISLOCALNAME);
-        }
-
         WebServer.broadcast("DRONE_ARRIVED",
-                "{\"container\":\"" + currentContainer + "\",\"state\":\"" + getStateString() + "\"}");
+                "{\"droneId\":\"" + getLocalName() + "\",\"container\":\"" + currentContainer + "\",\"state\":\""
+                        + getStateString() + "\"}");
 
         if (currentState == STATE_GOING_TO_FIELD) {
             // Just arrived at field, start inspection
             currentState = STATE_INSPECTING;
             startFieldInspection();
         } else if (currentState == STATE_RETURNING_HOME) {
-            // Arrived back home, confirm to controller
+            // Arrived back home, confirm the whole batch
             currentState = STATE_IDLE;
-            confirmInspectionComplete();
+            planner.recordTrip(tripContainer, System.currentTimeMillis() - tripStartedAt);
+            for (Mission mission : trip) {
+                confirmInspectionComplete(mission);
+            }
+            trip.clear();
+            planQueued();
         }
     }
 
     /**
-     * Handles incoming inspection requests from the controller.
+     * Size of this agent's serialized state, i.e. what one migration leg
+     * carries; -1 if it cannot be measured.
+     */
+    private long serializedSize() {
+        CountingStream counter = new CountingStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(counter)) {
+            out.writeObject(this);
+        } catch (IOException e) {
+            return -1;
+        }
+        return counter.count;
+    }
+
+    private static class CountingStream extends OutputStream {
+        long count = 0;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+
+    // ==================== REQUESTS ====================
+
+    /**
+     * Handles incoming inspection requests.
      */
     private class InspectionRequestHandler extends CyclicBehaviour {
 
+        private final MessageTemplate mt = MessageTemplate.MatchPerformative(ACLMessage.REQUEST);
+
         @Override
         public void action() {
-            MessageTemplate mt = MessageTemplate.and(
-                    MessageTemplate.MatchPerformative(ACLMessage.REQUEST),
-                    MessageTemplate.MatchContent("INSPECT_FIELD"));
             ACLMessage msg = myAgent.receive(mt);
 
             if (msg != null) {
+                String content = msg.getContent();
+                if (content == null || !content.startsWith("INSPECT_FIELD")) {
+                    return;
+                }
+
+                Mission mission = new Mission(msg.getSender().getLocalName(), msg.getConversationId(),
+                        content.startsWith("INSPECT_FIELD:")
+                                ? Integer.parseInt(content.substring("INSPECT_FIELD:".length()))
+                                : 0);
+                locate(mission);
+                System.out.println("[InspectorDroneAgent] Received inspection request for field " + mission.fieldId
+                        + " from " + mission.requester);
+
                 if (currentState == STATE_IDLE) {
-                    System.out.println(
-                            "[InspectorDroneAgent] Received inspection request from " + msg.getSender().getLocalName());
-                    currentState = STATE_GOING_TO_FIELD;
-                    moveToField();
+                    queued.add(mission);
+                    planQueued();
+                } else if (currentState == STATE_GOING_TO_FIELD && mission.container.equals(tripContainer)) {
+                    // Same destination: ride along on the trip already under way
+                    mission.strategy = Strategy.MIGRATE;
+                    trip.add(mission);
+                } else if (queued.size() < MAX_QUEUED) {
+                    queued.add(mission);
                 } else {
-                    System.out.println("[InspectorDroneAgent] Already on a mission, ignoring request.");
+                    System.out.println("[InspectorDroneAgent] Queue full, refusing request.");
+                    ACLMessage refuse = msg.createReply();
+                    refuse.setPerformative(ACLMessage.REFUSE);
+                    refuse.setContent("BUSY");
+                    send(refuse);
                 }
             } else {
                 block();
@@ -130,37 +306,257 @@ public class InspectorDroneAgent extends Agent implements Serializable {
     }
 
     /**
-     * Initiates movement to Field-Container.
+     * Find the container and sensor of a field through the sensors' DF
+     * registrations, refreshed on a miss at most every LOCATION_REFRESH_MS.
+     */
+    private void locate(Mission mission) {
+        String[] location = fieldLocations.get(mission.fieldId);
+        long now = System.currentTimeMillis();
+        if (location == null && now - lastLocationRefresh >= LOCATION_REFRESH_MS) {
+            lastLocationRefresh = now;
+            try {
+                DFAgentDescription template = new DFAgentDescription();
+                ServiceDescription sd = new ServiceDescription();
+                sd.setType("moisture-sensor");
+                template.addServices(sd);
+                for (DFAgentDescription dfd : DFService.search(this, template)) {
+                    Iterator<?> services = dfd.getAllServices();
+                    while (services.hasNext()) {
+                        ServiceDescription service = (ServiceDescription) services.next();
+                        String field = property(service, "field");
+                        String container = property(service, "container");
+                        if (field != null && container != null) {
+                            fieldLocations.put(Integer.parseInt(field),
+                                    new String[] { container, dfd.getName().getLocalName() });
+                        }
+                    }
+                }
+            } catch (FIPAException e) {
+                System.err.println("[InspectorDroneAgent] Sensor DF search failed: " + e.getMessage());
+            }
+            location = fieldLocations.get(mission.fieldId);
+        }
+
+        if (location != null) {
+            mission.container = location[0];
+            mission.sensor = location[1];
+        }
+    }
+
+    private static String property(ServiceDescription service, String name) {
+        Iterator<?> properties = service.getAllProperties();
+        while (properties.hasNext()) {
+            Property property = (Property) properties.next();
+            if (name.equals(property.getName())) {
+                return String.valueOf(property.getValue());
+            }
+        }
+        return null;
+    }
+
+    // ==================== PLANNING ====================
+
+    /**
+     * Plan everything queued, per destination container: remote queries go
+     * out at once, the first container chosen for migration becomes the next
+     * trip and the rest wait for the drone to come back.
+     */
+    private void planQueued() {
+        if (currentState != STATE_IDLE || queued.isEmpty()) {
+            return;
+        }
+
+        Map<String, List<Mission>> byContainer = new LinkedHashMap<>();
+        for (Mission mission : queued) {
+            byContainer.computeIfAbsent(mission.container, c -> new ArrayList<>()).add(mission);
+        }
+        queued.clear();
+
+        for (Map.Entry<String, List<Mission>> group : byContainer.entrySet()) {
+            List<Mission> remote = new ArrayList<>();
+            List<Mission> migrate = new ArrayList<>();
+            for (Mission mission : group.getValue()) {
+                (mission.forceMigrate || mission.sensor == null ? migrate : remote).add(mission);
+            }
+            if (!remote.isEmpty() && planner.choose(group.getKey(), group.getValue().size()) == Strategy.MIGRATE) {
+                migrate.addAll(remote);
+                remote.clear();
+            }
+
+            for (Mission mission : remote) {
+                queryRemotely(mission);
+            }
+            if (!migrate.isEmpty()) {
+                if (currentState == STATE_IDLE) {
+                    trip.addAll(migrate);
+                    moveToField(group.getKey());
+                } else {
+                    queued.addAll(migrate);
+                }
+            }
+        }
+    }
+
+    /**
+     * Ask the field's sensor for its reading without leaving home.
+     */
+    private void queryRemotely(Mission mission) {
+        mission.strategy = Strategy.REMOTE;
+        String conversationId = QUERY_PREFIX + getLocalName() + "-" + (++querySeq);
+
+        ACLMessage query = new ACLMessage(ACLMessage.QUERY_IF);
+        query.addReceiver(new AID(mission.sensor, AID.ISLOCALNAME));
+        query.setContent("MOISTURE");
+        query.setConversationId(conversationId);
+        mission.querySentAt = System.currentTimeMillis();
+        mission.queryBytes = query.toString().length();
+        pendingQueries.put(conversationId, mission);
+        send(query);
+
+        // Round trips run in wall time, whatever the simulation speed
+        addBehaviour(new WakerBehaviour(this, REMOTE_TIMEOUT_MS) {
+            @Override
+            protected void onWake() {
+                Mission timedOut = pendingQueries.remove(conversationId);
+                if (timedOut == null) {
+                    return;
+                }
+                System.out.println("[InspectorDroneAgent] Remote query for field " + timedOut.fieldId
+                        + " timed out, flying there instead");
+                planner.recordRemoteFailure(timedOut.container, REMOTE_TIMEOUT_MS, timedOut.queryBytes);
+                timedOut.forceMigrate = true;
+                queued.add(timedOut);
+                planQueued();
+            }
+        });
+    }
+
+    /**
+     * Handles sensor replies, both to remote queries and to readings taken
+     * on site.
+     */
+    private class SensorReplyHandler extends CyclicBehaviour {
+
+        private final MessageTemplate mt = new MessageTemplate(new QueryReplyMatch());
+
+        @Override
+        public void action() {
+            ACLMessage msg = myAgent.receive(mt);
+            if (msg == null) {
+                block();
+                return;
+            }
+
+            Mission mission = pendingQueries.remove(msg.getConversationId());
+            if (mission == null) {
+                return; // Late reply after a timeout
+            }
+            mission.moisture = parseMoisture(msg.getContent());
+
+            if (mission.strategy == Strategy.REMOTE) {
+                planner.recordRemoteQuery(mission.container, System.currentTimeMillis() - mission.querySentAt,
+                        mission.queryBytes, msg.toString().length());
+                WebServer.broadcast("DRONE_INSPECTION_DONE",
+                        "{\"droneId\":\"" + getLocalName() + "\",\"fieldId\":" + mission.fieldId
+                                + ",\"result\":\"" + result(mission) + "\",\"message\":\"Remote reading of Field-"
+                                + mission.fieldId + ": " + mission.moisture + "% (no flight needed)\"}");
+                confirmInspectionComplete(mission);
+            }
+        }
+    }
+
+    /**
+     * Answers MOBILITY_STATS queries; the planner travels with the agent, so
+     * outsiders cannot hold on to it across migrations.
      */
-    private void moveToField() {
-        System.out.println("[InspectorDroneAgent] 🚁 Departing to Field-Container for inspection...");
+    private class StatsQueryHandler extends CyclicBehaviour {
+
+        private final MessageTemplate mt = MessageTemplate.and(
+                MessageTemplate.MatchPerformative(ACLMessage.QUERY_REF),
+                MessageTemplate.MatchContent("MOBILITY_STATS"));
+
+        @Override
+        public void action() {
+            ACLMessage msg = myAgent.receive(mt);
+            if (msg == null) {
+                block();
+                return;
+            }
+            ACLMessage reply = msg.createReply();
+            reply.setPerformative(ACLMessage.INFORM);
+            reply.setContent("MOBILITY_STATS:" + planner.getMigrations() + ":" + planner.getRemoteQueries() + ":"
+                    + planner.getRemoteFailures() + ":" + planner.getBytesMigrated() + ":"
+                    + planner.getBytesMessaged());
+            send(reply);
+        }
+    }
+
+    private static int parseMoisture(String content) {
+        // "MOISTURE:fieldId:value"
+        try {
+            String[] parts = content.split(":");
+            return Integer.parseInt(parts[parts.length - 1]);
+        } catch (RuntimeException e) {
+            return -1;
+        }
+    }
+
+    // ==================== MIGRATION ====================
+
+    /**
+     * Initiates movement to the batch's field container.
+     */
+    private void moveToField(String container) {
+        currentState = STATE_GOING_TO_FIELD;
+        tripContainer = container;
+        tripStartedAt = System.currentTimeMillis();
+        for (Mission mission : trip) {
+            mission.strategy = Strategy.MIGRATE;
+        }
+        System.out.println("[InspectorDroneAgent] 🚁 Departing to " + container + " for " + trip.size()
+                + " inspection(s)...");
 
         WebServer.broadcast("DRONE_DISPATCH",
-                "{\"destination\":\"" + fieldContainer + "\",\"mission\":\"FIELD_INSPECTION\"}");
+                "{\"droneId\":\"" + getLocalName() + "\",\"destination\":\"" + container + "\",\"fieldId\":"
+                        + trip.get(0).fieldId + ",\"batch\":" + trip.size() + ",\"mission\":\"FIELD_INSPECTION\"}");
 
         // Create ContainerID for destination and move
-        ContainerID destination = new ContainerID(fieldContainer, null);
+        ContainerID destination = new ContainerID(container, null);
         doMove(destination);
     }
 
     /**
-     * Simulates field inspection (2 second delay).
+     * Reads every sensor of the batch locally, then surveys for 2 seconds.
      */
     private void startFieldInspection() {
         System.out.println("[InspectorDroneAgent] 🔍 Starting field inspection...");
 
         WebServer.broadcast("DRONE_INSPECTING",
-                "{\"container\":\"" + here().getName()
-                        + "\",\"duration\":2000,\"message\":\"Analyzing soil conditions...\"}");
+                "{\"droneId\":\"" + getLocalName() + "\",\"container\":\"" + here().getName()
+                        + "\",\"duration\":" + SURVEY_MS + ",\"message\":\"Analyzing soil conditions...\"}");
+
+        for (Mission mission : trip) {
+            if (mission.sensor != null) {
+                String conversationId = QUERY_PREFIX + getLocalName() + "-" + (++querySeq);
+                ACLMessage query = new ACLMessage(ACLMessage.QUERY_IF);
+                query.addReceiver(new AID(mission.sensor, AID.ISLOCALNAME));
+                query.setContent("MOISTURE");
+                query.setConversationId(conversationId);
+                pendingQueries.put(conversationId, mission);
+                send(query);
+            }
+        }
 
-        // Add a WakerBehaviour for 2-second inspection delay
-        addBehaviour(new WakerBehaviour(this, 2000) {
+        addBehaviour(new SimWakerBehaviour(this, SURVEY_MS) {
             @Override
             protected void onWake() {
                 System.out.println("[InspectorDroneAgent] ✅ Inspection complete. Returning to base...");
+                pendingQueries.values().removeAll(trip);
 
                 WebServer.broadcast("DRONE_INSPECTION_DONE",
-                        "{\"result\":\"NEEDS_WATER\",\"message\":\"Field inspection complete. Soil requires irrigation.\"}");
+                        "{\"droneId\":\"" + getLocalName() + "\",\"fieldId\":" + trip.get(0).fieldId
+                                + ",\"result\":\"" + result(trip.get(0))
+                                + "\",\"message\":\"Field inspection complete (" + trip.size() + " field(s)).\"}");
 
                 currentState = STATE_RETURNING_HOME;
                 returnHome();
@@ -169,33 +565,48 @@ public class InspectorDroneAgent extends Agent implements Serializable {
     }
 
     /**
-     * Initiates movement back to Main-Container.
+     * Initiates movement back to the home container.
      */
     private void returnHome() {
         System.out.println("[InspectorDroneAgent] 🚁 Returning to " + homeContainer + "...");
 
         WebServer.broadcast("DRONE_RETURNING",
-                "{\"destination\":\"" + homeContainer + "\"}");
+                "{\"droneId\":\"" + getLocalName() + "\",\"destination\":\"" + homeContainer + "\"}");
 
         ContainerID destination = new ContainerID(homeContainer, null);
         doMove(destination);
     }
 
+    // ==================== RESULTS ====================
+
+    /**
+     * Without a reading (no sensor found) the survey alone decides, as it
+     * always did: the field needs water.
+     */
+    private static String result(Mission mission) {
+        return mission.moisture >= 0 && mission.moisture >= MOISTURE_THRESHOLD ? "OK" : "NEEDS_WATER";
+    }
+
     /**
-     * Sends confirmation to FarmControllerAgent.
+     * Sends confirmation to the requester in its conversation.
      */
-    private void confirmInspectionComplete() {
-        System.out.println("[InspectorDroneAgent] Sending inspection confirmation to Controller...");
+    private void confirmInspectionComplete(Mission mission) {
+        String result = result(mission);
+        System.out.println("[InspectorDroneAgent] Sending inspection confirmation to " + mission.requester + "...");
 
         ACLMessage confirm = new ACLMessage(ACLMessage.CONFIRM);
-        confirm.addReceiver(controllerAID);
-        confirm.setContent("INSPECTION_COMPLETE:NEEDS_WATER");
-        confirm.setConversationId("inspection-confirm-" + System.currentTimeMillis());
+        confirm.addReceiver(new AID(mission.requester, AID.ISLOCALNAME));
+        confirm.setContent("INSPECTION_COMPLETE:" + result + ":" + mission.moisture + ":" + mission.strategy);
+        confirm.setConversationId(mission.conversationId != null ? mission.conversationId
+                : "inspection-confirm-" + System.currentTimeMillis());
 
         send(confirm);
 
         WebServer.broadcast("DRONE_CONFIRMATION_SENT",
-                "{\"to\":\"Controller\",\"result\":\"NEEDS_WATER\",\"message\":\"Mission complete. Drone back at base.\"}");
+                "{\"droneId\":\"" + getLocalName() + "\",\"to\":\"" + mission.requester + "\",\"fieldId\":"
+                        + mission.fieldId + ",\"result\":\"" + result + "\",\"strategy\":\"" + mission.strategy
+                        + "\",\"latencyMs\":" + (System.currentTimeMillis() - mission.receivedAt)
+                        + ",\"virtualTime\":" + SimulationClock.now() + ",\"message\":\"Mission complete.\"}");
     }
 
     /**
@@ -9,6 +9,8 @@ import jade.domain.FIPAAgentManagement.*;
 import jade.domain.FIPAException;
 
 import com.farm.gui.WebServer;
+import com.farm.sim.SimTickerBehaviour;
+import com.farm.storage.TimeSeriesStore;
 
 import java.util.*;
 
@@ -289,7 +291,7 @@ public class PredictorAgent extends Agent {
     /**
      * Periodic prediction cycle.
      */
-    private class PredictionCycle extends TickerBehaviour {
+    private class PredictionCycle extends SimTickerBehaviour {
         public PredictionCycle(Agent a, long period) {
             super(a, period);
         }
@@ -310,6 +312,8 @@ public class PredictorAgent extends Agent {
             System.out.println("[PredictorAgent] Prediction: " + lastPrediction + "L water needed (confidence: "
                     + confidence + "%)");
 
+            TimeSeriesStore.record("prediction.water", lastPrediction);
+
             // Broadcast to GUI
             WebServer.broadcastPrediction(lastPrediction, confidence, trainingSamples);
 
@@ -0,0 +1,150 @@
+package com.farm.agents;
+
+import jade.core.Agent;
+import jade.core.AID;
+import jade.core.behaviours.CyclicBehaviour;
+import jade.domain.DFService;
+import jade.domain.FIPAAgentManagement.DFAgentDescription;
+import jade.domain.FIPAAgentManagement.ServiceDescription;
+import jade.domain.FIPAException;
+import jade.lang.acl.ACLMessage;
+import jade.lang.acl.MessageTemplate;
+
+import com.farm.gui.WebServer;
+import com.farm.helpers.SensorBatcher;
+import com.farm.sim.SimTickerBehaviour;
+import com.farm.sim.SimulationClock;
+
+/**
+ * SensorGatewayAgent - Aggregator for the soil sensors of a field group.
+ *
+ * Behavior:
+ * - Sensors of the group send their readings here (READING:id:value)
+ * instead of messaging FarmerBDI and the web UI directly
+ * - Applies a per-sensor deadband (default 2%) to drop readings that barely
+ * moved
+ * - Once per interval emits ONE batched SENSOR_BATCH message to FarmerBDI
+ * and ONE MOISTURE_BATCH broadcast to the web UI
+ * - Low-moisture alerts are not batched; sensors still send them directly
+ *
+ * Arguments: [0] container/field group id, [1] optional deadband in %
+ *
+ * Agent Type: REACTIVE
+ */
+public class SensorGatewayAgent extends Agent {
+
+    private static final long BATCH_INTERVAL = 8000; // same cadence as the sensors
+    private static final int DEFAULT_DEADBAND = 2;
+    private static final int MAX_SILENT_INTERVALS = 5;
+    private static final int MOISTURE_THRESHOLD = 30;
+
+    private SensorBatcher batcher;
+    private int groupId = 1;
+
+    @Override
+    protected void setup() {
+        Object[] args = getArguments();
+        int deadband = DEFAULT_DEADBAND;
+        if (args != null && args.length > 0) {
+            groupId = (Integer) args[0];
+            if (args.length > 1) {
+                deadband = (Integer) args[1];
+            }
+        }
+        batcher = new SensorBatcher(deadband, MAX_SILENT_INTERVALS);
+
+        System.out.println("[" + getLocalName() + "] Sensor gateway starting in container: " + here().getName());
+
+        registerWithDF();
+
+        addBehaviour(new ReadingCollector());
+        addBehaviour(new BatchEmitter(this, BATCH_INTERVAL));
+
+        WebServer.broadcast("AGENT_START", "{\"agent\":\"" + getLocalName()
+                + "\",\"type\":\"SensorGateway\",\"agentType\":\"reactive\",\"container\":\"" + here().getName()
+                + "\"}");
+    }
+
+    @Override
+    protected void takeDown() {
+        try {
+            DFService.deregister(this);
+        } catch (FIPAException e) {
+            // Ignore
+        }
+        System.out.println("[" + getLocalName() + "] Gateway shutting down. Forwarded "
+                + batcher.getReadingsForwarded() + "/" + batcher.getReadingsReceived() + " readings.");
+        WebServer.broadcast("AGENT_STOP", "{\"agent\":\"" + getLocalName() + "\"}");
+    }
+
+    private void registerWithDF() {
+        DFAgentDescription dfd = new DFAgentDescription();
+        dfd.setName(getAID());
+
+        ServiceDescription sd = new ServiceDescription();
+        sd.setType("sensor-gateway");
+        sd.setName("Sensor-Gateway-" + groupId);
+        dfd.addServices(sd);
+
+        try {
+            DFService.register(this, dfd);
+        } catch (FIPAException e) {
+            System.err.println("[" + getLocalName() + "] Failed to register with DF: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Collects READING messages from local sensors.
+     */
+    private class ReadingCollector extends CyclicBehaviour {
+        private final MessageTemplate mt = MessageTemplate.MatchPerformative(ACLMessage.INFORM);
+
+        @Override
+        public void action() {
+            ACLMessage msg = receive(mt);
+            if (msg != null) {
+                String content = msg.getContent();
+                if (content != null && content.startsWith("READING:")) {
+                    try {
+                        String[] parts = content.split(":");
+                        batcher.record(Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+                    } catch (RuntimeException e) {
+                        System.err.println("[" + getLocalName() + "] Malformed reading: " + content);
+                    }
+                }
+            } else {
+                block();
+            }
+        }
+    }
+
+    /**
+     * Emits one batched message per interval, if anything moved.
+     */
+    private class BatchEmitter extends SimTickerBehaviour {
+        public BatchEmitter(Agent a, long period) {
+            super(a, period);
+        }
+
+        @Override
+        protected void onTick() {
+            String batch = batcher.drain();
+            if (batch == null) {
+                return;
+            }
+
+            ACLMessage update = new ACLMessage(ACLMessage.INFORM);
+            update.addReceiver(new AID("FarmerBDI", AID.ISLOCALNAME));
+            update.setContent("SENSOR_BATCH:" + batch);
+            update.setConversationId("sensor-batch-" + groupId);
+            send(update);
+
+            WebServer.broadcast("MOISTURE_BATCH",
+                    SensorBatcher.toJson(getLocalName(), MOISTURE_THRESHOLD, SimulationClock.now(), batch));
+        }
+    }
+
+    public SensorBatcher getBatcher() {
+        return batcher;
+    }
+}
@@ -2,10 +2,10 @@ package com.farm.agents;
 
 import jade.core.Agent;
 import jade.core.AID;
-import jade.core.behaviours.TickerBehaviour;
 import jade.core.behaviours.CyclicBehaviour;
 import jade.domain.DFService;
 import jade.domain.FIPAAgentManagement.DFAgentDescription;
+import jade.domain.FIPAAgentManagement.Property;
 import jade.domain.FIPAAgentManagement.ServiceDescription;
 import jade.domain.FIPAException;
 import jade.lang.acl.ACLMessage;
@@ -13,6 +13,9 @@ import jade.lang.acl.ACLMessage;
 import java.util.Random;
 
 import com.farm.gui.WebServer;
+import com.farm.sim.SimTickerBehaviour;
+import com.farm.sim.SimulationClock;
+import com.farm.storage.TimeSeriesStore;
 
 /**
  * SoilSensorAgent V2 - A reactive agent that monitors soil moisture levels for
@@ -24,6 +27,11 @@ import com.farm.gui.WebServer;
  * - Sends updates to FarmerBDI for belief updates
  * - Sends alerts to Controller when moisture is critical
  * - Registers with DF as "moisture-sensor" service
+ * - Gateway mode: when a gateway name is passed as second argument, readings
+ * go to the field group's SensorGatewayAgent, which batches them; only
+ * low-moisture alerts are still sent directly
+ * - Edge mode: when the third argument is true, the second names the
+ * field group's EdgeControllerAgent, which also decides on alerts
  * 
  * Agent Type: REACTIVE
  */
@@ -34,6 +42,8 @@ public class SoilSensorAgent extends Agent {
     private Random random = new Random();
     private int lastMoistureReading = 50;
     private int fieldId = 1;
+    private AID gateway = null; // set in gateway mode
+    private boolean edgeMode = false;
 
     @Override
     protected void setup() {
@@ -41,9 +51,14 @@ public class SoilSensorAgent extends Agent {
         Object[] args = getArguments();
         if (args != null && args.length > 0) {
             fieldId = (Integer) args[0];
+            if (args.length > 1 && args[1] != null) {
+                gateway = new AID((String) args[1], AID.ISLOCALNAME);
+                edgeMode = args.length > 2 && Boolean.TRUE.equals(args[2]);
+            }
         }
 
-        System.out.println("[Sensor-" + fieldId + "] Reactive agent starting in container: " + here().getName());
+        System.out.println("[Sensor-" + fieldId + "] Reactive agent starting in container: " + here().getName()
+                + (gateway != null ? " (gateway: " + gateway.getLocalName() + ")" : ""));
 
         // Register with Directory Facilitator
         registerWithDF();
@@ -82,6 +97,9 @@ public class SoilSensorAgent extends Agent {
         ServiceDescription sd = new ServiceDescription();
         sd.setType("moisture-sensor");
         sd.setName("Soil-Moisture-Sensor-Field-" + fieldId);
+        // Where the field is, for agents deciding whether to come here
+        sd.addProperties(new Property("field", String.valueOf(fieldId)));
+        sd.addProperties(new Property("container", here().getName()));
         dfd.addServices(sd);
 
         try {
@@ -96,7 +114,7 @@ public class SoilSensorAgent extends Agent {
      * Inner class for moisture sensing behavior.
      * Runs every TICK_INTERVAL milliseconds.
      */
-    private class MoistureSensingBehaviour extends TickerBehaviour {
+    private class MoistureSensingBehaviour extends SimTickerBehaviour {
 
         public MoistureSensingBehaviour(Agent a, long period) {
             super(a, period);
@@ -111,6 +129,12 @@ public class SoilSensorAgent extends Agent {
             lastMoistureReading = Math.max(0, Math.min(100, lastMoistureReading + change));
 
             System.out.println("[Sensor-" + fieldId + "] Moisture reading: " + lastMoistureReading + "%");
+            TimeSeriesStore.record("sensor." + fieldId + ".moisture", lastMoistureReading);
+
+            if (gateway != null) {
+                reportToGateway();
+                return;
+            }
 
             // Send update to FarmerBDI for belief update
             ACLMessage update = new ACLMessage(ACLMessage.INFORM);
@@ -128,7 +152,7 @@ public class SoilSensorAgent extends Agent {
             WebServer.broadcast("MOISTURE_READING",
                     "{\"fieldId\":" + fieldId + ",\"value\":" + lastMoistureReading +
                             ",\"threshold\":" + MOISTURE_THRESHOLD +
-                            ",\"timestamp\":\"" + System.currentTimeMillis() + "\"}");
+                            ",\"timestamp\":\"" + SimulationClock.now() + "\"}");
 
             // Check if moisture is below threshold
             if (lastMoistureReading < MOISTURE_THRESHOLD) {
@@ -144,6 +168,24 @@ public class SoilSensorAgent extends Agent {
         }
     }
 
+    /**
+     * Gateway mode: one message per tick to the group's gateway. It applies
+     * the deadband and forwards the batch to FarmerBDI and the web UI.
+     */
+    private void reportToGateway() {
+        ACLMessage reading = new ACLMessage(ACLMessage.INFORM);
+        reading.addReceiver(gateway);
+        reading.setContent("READING:" + fieldId + ":" + lastMoistureReading);
+        send(reading);
+
+        // Alerts are exceptions and must not wait for the next batch;
+        // an edge controller makes that call itself
+        if (!edgeMode && lastMoistureReading < MOISTURE_THRESHOLD) {
+            System.out.println("[Sensor-" + fieldId + "] LOW MOISTURE DETECTED! Sending alert...");
+            sendLowMoistureRequest();
+        }
+    }
+
     private void sendLowMoistureRequest() {
         // Send to Controller for immediate action
         ACLMessage request = new ACLMessage(ACLMessage.REQUEST);
@@ -2,17 +2,28 @@ package com.farm.agents;
 
 import jade.core.Agent;
 import jade.core.AID;
+import jade.core.behaviours.Behaviour;
+import jade.core.behaviours.CyclicBehaviour;
 import jade.domain.DFService;
 import jade.domain.FIPAAgentManagement.DFAgentDescription;
 import jade.domain.FIPAAgentManagement.ServiceDescription;
 import jade.domain.FIPAException;
 import jade.lang.acl.ACLMessage;
 import jade.lang.acl.MessageTemplate;
-import jade.proto.ContractNetResponder;
+import jade.proto.SSContractNetResponder;
+import jade.proto.SSResponderDispatcher;
 
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Random;
+import java.util.Set;
 
 import com.farm.gui.WebServer;
+import com.farm.helpers.PriceBook;
+import com.farm.sim.SimTickerBehaviour;
+import com.farm.sim.SimulationClock;
 
 /**
  * SupplierAgent - A cognitive agent that participates in water supply
@@ -20,9 +31,12 @@ import com.farm.gui.WebServer;
  * 
  * Behavior:
  * - Registers with DF as "water-supplier"
- * - Uses ContractNetResponder to handle CFP messages
+ * - Handles every CFP in its own SSContractNetResponder, so negotiations for
+ * different fields run side by side
  * - Generates random prices ($10-$50) for water supply
  * - Responds with PROPOSE and handles ACCEPT/REJECT
+ * - Streams price/capacity quotes with a TTL to subscribed buyers and sells
+ * against them with a single ACCEPT (BUY_QUOTE:quoteId:units)
  */
 public class SupplierAgent extends Agent {
 
@@ -33,6 +47,22 @@ public class SupplierAgent extends Agent {
     private int contractsWon = 0;
     private int contractsLost = 0;
 
+    // Standing quotes
+    public static final String QUOTES_CONVERSATION = "water-quotes";
+    public static final String QUOTE_BUY_PREFIX = "water-quote-buy-";
+    private static final long QUOTE_INTERVAL_MS = 4000;
+    private static final long QUOTE_TTL_MS = 6000;
+    private static final int MAX_CAPACITY = 2000;
+    private static final int REFILL_PER_INTERVAL = 300;
+    private static final int UNITS_PER_DELIVERY = 100;
+
+    private int capacity = MAX_CAPACITY;
+    private long quoteCounter = 0;
+    private double quotePrice;
+    private final Map<Long, Double> openQuotePrices = new HashMap<>();
+    private final Map<Long, Long> openQuoteExpiry = new HashMap<>();
+    private final Set<AID> quoteSubscribers = new LinkedHashSet<>();
+
     @Override
     protected void setup() {
         System.out.println("[SupplierAgent] " + getLocalName() + " starting in container: " + here().getName());
@@ -48,7 +78,18 @@ public class SupplierAgent extends Agent {
         // Also accept CFP without protocol for flexibility
         MessageTemplate cfpTemplate = MessageTemplate.MatchPerformative(ACLMessage.CFP);
 
-        addBehaviour(new WaterSupplyResponder(this, cfpTemplate));
+        addBehaviour(new SSResponderDispatcher(this, cfpTemplate) {
+            @Override
+            protected Behaviour createResponder(ACLMessage cfp) {
+                return new WaterSupplyResponder(myAgent, cfp);
+            }
+        });
+
+        // Standing quotes for the buyers' price books
+        quotePrice = MIN_PRICE + (random.nextDouble() * (MAX_PRICE - MIN_PRICE));
+        addBehaviour(new QuoteSubscriptionHandler());
+        addBehaviour(new QuoteOrderHandler());
+        addBehaviour(new QuotePublisher(this));
 
         WebServer.broadcast("AGENT_START",
                 "{\"agent\":\"" + getLocalName() + "\",\"type\":\"Supplier\",\"container\":\"" + here().getName()
@@ -87,12 +128,14 @@ public class SupplierAgent extends Agent {
     }
 
     /**
-     * Contract Net Responder for water supply negotiations.
+     * Contract Net Responder for one water supply negotiation.
      */
-    private class WaterSupplyResponder extends ContractNetResponder {
+    private class WaterSupplyResponder extends SSContractNetResponder {
+
+        private double proposedPrice;
 
-        public WaterSupplyResponder(Agent a, MessageTemplate mt) {
-            super(a, mt);
+        public WaterSupplyResponder(Agent a, ACLMessage cfp) {
+            super(a, cfp);
         }
 
         @Override
@@ -101,19 +144,20 @@ public class SupplierAgent extends Agent {
             System.out.println("[SupplierAgent] " + getLocalName() + " received CFP: " + content);
 
             // Generate random price between MIN_PRICE and MAX_PRICE
-            lastProposedPrice = MIN_PRICE + (random.nextDouble() * (MAX_PRICE - MIN_PRICE));
-            lastProposedPrice = Math.round(lastProposedPrice * 100.0) / 100.0; // Round to 2 decimals
+            proposedPrice = MIN_PRICE + (random.nextDouble() * (MAX_PRICE - MIN_PRICE));
+            proposedPrice = Math.round(proposedPrice * 100.0) / 100.0; // Round to 2 decimals
+            lastProposedPrice = proposedPrice;
 
             System.out.println("[SupplierAgent] " + getLocalName() + " proposing price: $"
-                    + String.format("%.2f", lastProposedPrice));
+                    + String.format("%.2f", proposedPrice));
 
             // Create PROPOSE reply
             ACLMessage propose = cfp.createReply();
             propose.setPerformative(ACLMessage.PROPOSE);
-            propose.setContent("PRICE:" + lastProposedPrice);
+            propose.setContent("PRICE:" + proposedPrice);
 
             WebServer.broadcast("SUPPLIER_PROPOSAL",
-                    "{\"supplier\":\"" + getLocalName() + "\",\"price\":" + lastProposedPrice
+                    "{\"supplier\":\"" + getLocalName() + "\",\"price\":" + proposedPrice
                             + ",\"status\":\"PROPOSED\"}");
 
             return propose;
@@ -122,8 +166,9 @@ public class SupplierAgent extends Agent {
         @Override
         protected ACLMessage handleAcceptProposal(ACLMessage cfp, ACLMessage propose, ACLMessage accept) {
             System.out.println("[SupplierAgent] 🎉 " + getLocalName() + " WON the contract at $"
-                    + String.format("%.2f", lastProposedPrice));
+                    + String.format("%.2f", proposedPrice));
             contractsWon++;
+            capacity = Math.max(0, capacity - UNITS_PER_DELIVERY);
 
             // Simulate water delivery
             ACLMessage inform = accept.createReply();
@@ -131,7 +176,7 @@ public class SupplierAgent extends Agent {
             inform.setContent("DELIVERY_COMPLETE:WATER_UNITS:100");
 
             WebServer.broadcast("SUPPLIER_WON",
-                    "{\"supplier\":\"" + getLocalName() + "\",\"price\":" + lastProposedPrice + ",\"totalWins\":"
+                    "{\"supplier\":\"" + getLocalName() + "\",\"price\":" + proposedPrice + ",\"totalWins\":"
                             + contractsWon + ",\"message\":\"Contract won! Delivering water...\"}");
 
             return inform;
@@ -140,15 +185,168 @@ public class SupplierAgent extends Agent {
         @Override
         protected void handleRejectProposal(ACLMessage cfp, ACLMessage propose, ACLMessage reject) {
             System.out.println("[SupplierAgent] ❌ " + getLocalName() + " LOST the contract. Price was: $"
-                    + String.format("%.2f", lastProposedPrice));
+                    + String.format("%.2f", proposedPrice));
             contractsLost++;
 
             WebServer.broadcast("SUPPLIER_LOST",
-                    "{\"supplier\":\"" + getLocalName() + "\",\"price\":" + lastProposedPrice + ",\"totalLosses\":"
+                    "{\"supplier\":\"" + getLocalName() + "\",\"price\":" + proposedPrice + ",\"totalLosses\":"
                             + contractsLost + "}");
         }
     }
 
+    /**
+     * Adds and removes buyers of the quote stream.
+     */
+    private class QuoteSubscriptionHandler extends CyclicBehaviour {
+
+        private final MessageTemplate template = MessageTemplate.and(
+                MessageTemplate.MatchConversationId(QUOTES_CONVERSATION),
+                MessageTemplate.or(MessageTemplate.MatchPerformative(ACLMessage.SUBSCRIBE),
+                        MessageTemplate.MatchPerformative(ACLMessage.CANCEL)));
+
+        @Override
+        public void action() {
+            ACLMessage msg = myAgent.receive(template);
+
+            if (msg != null) {
+                if (msg.getPerformative() == ACLMessage.CANCEL) {
+                    quoteSubscribers.remove(msg.getSender());
+                    return;
+                }
+                if (quoteSubscribers.add(msg.getSender())) {
+                    System.out.println("[SupplierAgent] " + getLocalName() + " streaming quotes to "
+                            + msg.getSender().getLocalName());
+                }
+
+                // Current quote right away, so the buyer's book is warm
+                ACLMessage quote = msg.createReply();
+                quote.setPerformative(ACLMessage.INFORM);
+                quote.setContent(currentQuote());
+                send(quote);
+            } else {
+                block();
+            }
+        }
+    }
+
+    /**
+     * Refills capacity, moves the price and publishes a fresh quote to all
+     * subscribers in one message.
+     */
+    private class QuotePublisher extends SimTickerBehaviour {
+
+        QuotePublisher(Agent a) {
+            super(a, QUOTE_INTERVAL_MS);
+        }
+
+        @Override
+        protected void onTick() {
+            capacity = Math.min(MAX_CAPACITY, capacity + REFILL_PER_INTERVAL);
+            quotePrice = Math.max(MIN_PRICE, Math.min(MAX_PRICE, quotePrice * (0.95 + random.nextDouble() * 0.1)));
+
+            // Forget expired quotes
+            long now = SimulationClock.now();
+            Iterator<Map.Entry<Long, Long>> it = openQuoteExpiry.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Long, Long> entry = it.next();
+                if (entry.getValue() <= now) {
+                    openQuotePrices.remove(entry.getKey());
+                    it.remove();
+                }
+            }
+
+            if (quoteSubscribers.isEmpty()) {
+                return;
+            }
+            ACLMessage inform = new ACLMessage(ACLMessage.INFORM);
+            for (AID subscriber : quoteSubscribers) {
+                inform.addReceiver(subscriber);
+            }
+            inform.setConversationId(QUOTES_CONVERSATION);
+            inform.setContent(currentQuote());
+            send(inform);
+
+            WebServer.broadcast("SUPPLIER_QUOTE",
+                    "{\"supplier\":\"" + getLocalName() + "\",\"price\":" + Math.round(quotePrice * 100.0) / 100.0
+                            + ",\"capacity\":" + capacity + ",\"ttl\":" + QUOTE_TTL_MS + "}");
+        }
+    }
+
+    /**
+     * Opens a new quote at the current price and capacity.
+     */
+    private String currentQuote() {
+        double price = Math.round(quotePrice * 100.0) / 100.0;
+        long quoteId = ++quoteCounter;
+        openQuotePrices.put(quoteId, price);
+        openQuoteExpiry.put(quoteId, SimulationClock.now() + QUOTE_TTL_MS);
+        return PriceBook.formatQuote(quoteId, price, capacity, QUOTE_TTL_MS);
+    }
+
+    /**
+     * Sells against a standing quote: BUY_QUOTE:quoteId:units is answered
+     * with INFORM (delivered), FAILURE (quote expired / sold out), REFUSE
+     * (units not positive) or NOT_UNDERSTOOD (malformed).
+     */
+    private class QuoteOrderHandler extends CyclicBehaviour {
+
+        private final MessageTemplate template = MessageTemplate.and(
+                MessageTemplate.MatchPerformative(ACLMessage.ACCEPT_PROPOSAL),
+                new MessageTemplate((MessageTemplate.MatchExpression) msg -> msg.getConversationId() != null
+                        && msg.getConversationId().startsWith(QUOTE_BUY_PREFIX)));
+
+        @Override
+        public void action() {
+            ACLMessage msg = myAgent.receive(template);
+
+            if (msg != null) {
+                String[] parts = msg.getContent() != null ? msg.getContent().split(":") : new String[0];
+                ACLMessage reply = msg.createReply();
+
+                if (parts.length < 3 || !parts[0].equals("BUY_QUOTE")) {
+                    reply.setPerformative(ACLMessage.NOT_UNDERSTOOD);
+                    send(reply);
+                    return;
+                }
+                long quoteId;
+                int units;
+                try {
+                    quoteId = Long.parseLong(parts[1]);
+                    units = Integer.parseInt(parts[2]);
+                } catch (NumberFormatException e) {
+                    reply.setPerformative(ACLMessage.NOT_UNDERSTOOD);
+                    send(reply);
+                    return;
+                }
+                Long expiresAt = openQuoteExpiry.get(quoteId);
+
+                if (units <= 0) {
+                    reply.setPerformative(ACLMessage.REFUSE);
+                    reply.setContent("INVALID_UNITS");
+                } else if (expiresAt == null || expiresAt < SimulationClock.now()) {
+                    reply.setPerformative(ACLMessage.FAILURE);
+                    reply.setContent("QUOTE_EXPIRED");
+                } else if (capacity < units) {
+                    reply.setPerformative(ACLMessage.FAILURE);
+                    reply.setContent("NO_CAPACITY");
+                } else {
+                    double price = openQuotePrices.get(quoteId);
+                    capacity -= units;
+                    contractsWon++;
+                    reply.setPerformative(ACLMessage.INFORM);
+                    reply.setContent("DELIVERY_COMPLETE:WATER_UNITS:" + units);
+
+                    WebServer.broadcast("SUPPLIER_WON",
+                            "{\"supplier\":\"" + getLocalName() + "\",\"price\":" + price + ",\"totalWins\":"
+                                    + contractsWon + ",\"message\":\"Quote filled! Delivering water...\"}");
+                }
+                send(reply);
+            } else {
+                block();
+            }
+        }
+    }
+
     // Getters for statistics
     public double getLastProposedPrice() {
         return lastProposedPrice;
@@ -161,4 +359,8 @@ public class SupplierAgent extends Agent {
     public int getContractsLost() {
         return contractsLost;
     }
+
+    public int getCapacity() {
+        return capacity;
+    }
 }
@@ -10,6 +10,9 @@ import jade.domain.FIPAAgentManagement.*;
 import jade.domain.FIPAException;
 
 import com.farm.gui.WebServer;
+import com.farm.helpers.WeatherTopicPublisher;
+import com.farm.sim.SimTickerBehaviour;
+import com.farm.storage.TimeSeriesStore;
 
 import java.util.*;
 
@@ -17,6 +20,10 @@ import java.util.*;
  * WeatherServiceAgent - Reactive agent that simulates weather conditions
  * and broadcasts updates to subscribed agents using FIPA-Subscribe protocol.
  * 
+ * Updates are published per region and topic (rain, temperature, forecast)
+ * through a WeatherTopicPublisher: one multi-receiver message per topic, and
+ * only to subscribers whose deadband was exceeded since their last update.
+ * 
  * Weather States:
  * - CLEAR (0): No rain, high evaporation
  * - CLOUDY (1): Moderate conditions
@@ -57,8 +64,19 @@ public class WeatherServiceAgent extends Agent {
         }
     }
 
+    /**
+     * Current conditions of one weather region.
+     */
+    private static class RegionConditions {
+        Weather weather = Weather.CLEAR;
+        double temperature = 22.0;
+    }
+
+    private static final String[] DEFAULT_SUBSCRIBERS = { "FarmerBDI", "Controller", "Predictor" };
+
     private Weather currentWeather = Weather.CLEAR;
-    private List<AID> subscribers = new ArrayList<>();
+    private final Map<String, RegionConditions> regions = new LinkedHashMap<>();
+    private final WeatherTopicPublisher publisher = new WeatherTopicPublisher();
     private Random random = new Random();
 
     @Override
@@ -68,6 +86,15 @@ public class WeatherServiceAgent extends Agent {
         // Register with DF
         registerWithDF();
 
+        // Default region, and the core agents that always want forecast changes
+        regions.put(WeatherTopicPublisher.DEFAULT_REGION, new RegionConditions());
+        for (String name : DEFAULT_SUBSCRIBERS) {
+            publisher.subscribe(new WeatherTopicPublisher.Subscription(
+                    new AID(name, AID.ISLOCALNAME), WeatherTopicPublisher.DEFAULT_REGION,
+                    EnumSet.of(WeatherTopicPublisher.Topic.FORECAST), 0, 0),
+                    null, -1, Double.NaN);
+        }
+
         // Add weather simulation behavior
         addBehaviour(new WeatherSimulation(this, 10000)); // Update every 10 seconds
 
@@ -105,25 +132,34 @@ public class WeatherServiceAgent extends Agent {
     /**
      * Simulates weather changes over time.
      */
-    private class WeatherSimulation extends TickerBehaviour {
+    private class WeatherSimulation extends SimTickerBehaviour {
         public WeatherSimulation(Agent a, long period) {
             super(a, period);
         }
 
         @Override
         protected void onTick() {
-            // 30% chance of weather change
-            if (random.nextDouble() < 0.3) {
-                changeWeather();
+            for (Map.Entry<String, RegionConditions> entry : regions.entrySet()) {
+                RegionConditions conditions = entry.getValue();
+
+                // 30% chance of weather change
+                if (random.nextDouble() < 0.3) {
+                    Weather oldWeather = conditions.weather;
+                    conditions.weather = nextWeather(oldWeather);
+                    if (conditions.weather != oldWeather) {
+                        announceWeatherChange(entry.getKey(), oldWeather, conditions.weather);
+                    }
+                }
+                driftTemperature(conditions);
             }
+            currentWeather = regions.get(WeatherTopicPublisher.DEFAULT_REGION).weather;
 
-            // Broadcast weather to all subscribers
+            // Publish changes to subscribers
             broadcastWeather();
         }
     }
 
-    private void changeWeather() {
-        Weather oldWeather = currentWeather;
+    private Weather nextWeather(Weather currentWeather) {
 
         // Weather transition probabilities
         double rand = random.nextDouble();
@@ -169,56 +205,76 @@ public class WeatherServiceAgent extends Agent {
                     currentWeather = Weather.STORM;
                 break;
         }
+        return currentWeather;
+    }
+
+    private void announceWeatherChange(String region, Weather oldWeather, Weather newWeather) {
+        System.out.println("[WeatherService] Weather changed in " + region + ": " + oldWeather.getName() + " -> "
+                + newWeather.getName());
 
-        if (currentWeather != oldWeather) {
-            System.out.println(
-                    "[WeatherService] Weather changed: " + oldWeather.getName() + " -> " + currentWeather.getName());
+        // Log interaction
+        WebServer.broadcastAgentInteraction(
+                "Weather", "reactive",
+                "All Agents", "all",
+                "INFORM", "Weather changed to " + newWeather.getName() + " (" + region + ")", 1);
+    }
 
-            // Log interaction
-            WebServer.broadcastAgentInteraction(
-                    "Weather", "reactive",
-                    "All Agents", "all",
-                    "INFORM", "Weather changed to " + currentWeather.getName(), 1);
+    /**
+     * Temperature follows the weather: sunny skies warm up, rain and storms
+     * cool down. Rounded to 0.1 degree like a real sensor.
+     */
+    private void driftTemperature(RegionConditions conditions) {
+        double drift;
+        switch (conditions.weather) {
+            case CLEAR:
+                drift = 0.4;
+                break;
+            case RAIN:
+                drift = -0.6;
+                break;
+            case STORM:
+                drift = -1.0;
+                break;
+            default:
+                drift = 0.0;
         }
+        double temperature = conditions.temperature + drift + (random.nextDouble() - 0.5) * 0.4;
+        temperature = Math.max(5.0, Math.min(40.0, temperature));
+        conditions.temperature = Math.round(temperature * 10.0) / 10.0;
     }
 
     private void broadcastWeather() {
+        // Publish each region's changes, one multi-receiver message per topic
+        for (Map.Entry<String, RegionConditions> entry : regions.entrySet()) {
+            RegionConditions conditions = entry.getValue();
+            String seriesPrefix = "weather." + entry.getKey() + ".";
+            TimeSeriesStore.record(seriesPrefix + "temperature", conditions.temperature);
+            TimeSeriesStore.record(seriesPrefix + "rainChance", calculateRainChance(conditions.weather));
+            TimeSeriesStore.record(seriesPrefix + "code", conditions.weather.getCode());
+
+            List<ACLMessage> updates = publisher.publish(entry.getKey(), conditions.weather.getName(),
+                    calculateRainChance(conditions.weather), conditions.temperature);
+            for (ACLMessage update : updates) {
+                send(update);
+            }
+        }
+
         // Create weather update message
-        String weatherData = String.format(
-                "{\"weather\":\"%s\",\"emoji\":\"%s\",\"code\":%d,\"rainChance\":%d}",
+        RegionConditions local = regions.get(WeatherTopicPublisher.DEFAULT_REGION);
+        String weatherData = String.format(Locale.ROOT,
+                "{\"weather\":\"%s\",\"emoji\":\"%s\",\"code\":%d,\"rainChance\":%d,\"temperature\":%.1f}",
                 currentWeather.getName(),
                 currentWeather.getEmoji(),
                 currentWeather.getCode(),
-                calculateRainChance());
-
-        // Send to all subscribers
-        for (AID subscriber : subscribers) {
-            ACLMessage msg = new ACLMessage(ACLMessage.INFORM);
-            msg.addReceiver(subscriber);
-            msg.setContent("WEATHER:" + currentWeather.getName());
-            msg.setConversationId("weather-update");
-            send(msg);
-        }
-
-        // Also send to known important agents
-        sendToAgent("FarmerBDI");
-        sendToAgent("Controller");
-        sendToAgent("Predictor");
+                calculateRainChance(currentWeather),
+                local.temperature);
 
         // Broadcast to GUI
         WebServer.broadcast("WEATHER_UPDATE", weatherData);
     }
 
-    private void sendToAgent(String agentName) {
-        ACLMessage msg = new ACLMessage(ACLMessage.INFORM);
-        msg.addReceiver(new AID(agentName, AID.ISLOCALNAME));
-        msg.setContent("WEATHER:" + currentWeather.getName());
-        msg.setConversationId("weather-update");
-        send(msg);
-    }
-
-    private int calculateRainChance() {
-        switch (currentWeather) {
+    private int calculateRainChance(Weather weather) {
+        switch (weather) {
             case CLEAR:
                 return 10;
             case CLOUDY:
@@ -243,15 +299,15 @@ public class WeatherServiceAgent extends Agent {
 
             if (msg != null) {
                 AID subscriber = msg.getSender();
-                if (!subscribers.contains(subscriber)) {
-                    subscribers.add(subscriber);
-                    System.out.println("[WeatherService] New subscriber: " + subscriber.getLocalName());
+                WeatherTopicPublisher.Subscription subscription = WeatherTopicPublisher.parse(subscriber,
+                        msg.getContent());
+                RegionConditions conditions = regions.computeIfAbsent(subscription.getRegion(),
+                        r -> new RegionConditions());
 
-                    // Send current weather immediately
-                    ACLMessage reply = msg.createReply();
-                    reply.setPerformative(ACLMessage.AGREE);
-                    reply.setContent("WEATHER:" + currentWeather.getName());
-                    send(reply);
+                // The AGREE carries the forecast; rain and temperature follow on the next tick
+                if (publisher.subscribe(subscription, conditions.weather.getName(), -1, Double.NaN)) {
+                    System.out.println("[WeatherService] New subscriber: " + subscriber.getLocalName() + " ("
+                            + subscription.getRegion() + ", " + subscription.getTopics() + ")");
 
                     // Log interaction
                     WebServer.broadcastAgentInteraction(
@@ -259,7 +315,23 @@ public class WeatherServiceAgent extends Agent {
                             "Weather", "reactive",
                             "SUBSCRIBE", "Subscribed to weather updates", 1);
                 }
+
+                // Send current weather immediately
+                ACLMessage reply = msg.createReply();
+                reply.setPerformative(ACLMessage.AGREE);
+                reply.setContent("WEATHER:" + conditions.weather.getName());
+                send(reply);
             } else {
+                // Subscription cancellation
+                MessageTemplate cancelMt = MessageTemplate.MatchPerformative(ACLMessage.CANCEL);
+                ACLMessage cancelMsg = receive(cancelMt);
+                if (cancelMsg != null) {
+                    if (publisher.unsubscribe(cancelMsg.getSender()) != null) {
+                        System.out.println("[WeatherService] Unsubscribed: " + cancelMsg.getSender().getLocalName());
+                    }
+                    return;
+                }
+
                 // Also handle QUERY messages
                 MessageTemplate queryMt = MessageTemplate.MatchPerformative(ACLMessage.QUERY_IF);
                 ACLMessage queryMsg = receive(queryMt);
@@ -287,6 +359,10 @@ public class WeatherServiceAgent extends Agent {
     }
 
     public int getRainChance() {
-        return calculateRainChance();
+        return calculateRainChance(currentWeather);
+    }
+
+    public WeatherTopicPublisher getPublisher() {
+        return publisher;
     }
 }
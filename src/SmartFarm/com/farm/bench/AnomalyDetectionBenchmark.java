@@ -0,0 +1,252 @@
+package com.farm.bench;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Random;
+
+import com.farm.agents.FarmerBDIAgent;
+import com.farm.helpers.ChangeDetector;
+import com.farm.sim.SimTickerBehaviour;
+import com.farm.sim.SimulationClock;
+
+import jade.core.AID;
+import jade.core.Profile;
+import jade.core.ProfileImpl;
+import jade.core.Runtime;
+import jade.core.behaviours.CyclicBehaviour;
+import jade.lang.acl.ACLMessage;
+import jade.wrapper.AgentController;
+import jade.wrapper.ContainerController;
+
+/**
+ * AnomalyDetectionBenchmark - ChangeDetector throughput and its effect on
+ * FarmerBDI.
+ *
+ * 1. Throughput: one thread feeding many detectors, samples/s per core
+ * 2. Detection: false changes on stationary noise, delay to detect a step
+ * and a slow drift
+ * 3. FarmerBDI with raw readings versus filtered readings: a load agent
+ * plays noisy field sensors (drying by DRY_PER_READING, noise sigma NOISE)
+ * and the Controller, applying each IRRIGATE it receives. An irrigation is
+ * a repeat when the field was already irrigated less than two reading
+ * periods before (its belief could not have caught up yet), and early when
+ * the field was not actually below the crop's threshold.
+ *
+ * Usage: java com.farm.bench.AnomalyDetectionBenchmark [fields] [seconds] [speed]
+ */
+public class AnomalyDetectionBenchmark {
+
+    private static final String PORT = "1199";
+    private static final long READING_PERIOD_MS = 8000;
+    private static final double NOISE = 4.0;
+    private static final double DRY_PER_READING = 0.25;
+    private static final int WATER_THRESHOLD = 40; // wheat
+    private static final int IRRIGATION_AMOUNT = 30;
+
+    /**
+     * Plays the field sensors and the Controller.
+     */
+    public static class FieldLoadAgent extends jade.core.Agent {
+        private final Random random = new Random(7);
+        private double[] moisture;
+        private long[] lastIrrigation;
+        volatile long irrigations = 0;
+        volatile long repeats = 0;
+        volatile long early = 0;
+        volatile double moistureAtIrrigation = 0;
+
+        @Override
+        protected void setup() {
+            int fields = (Integer) getArguments()[0];
+            moisture = new double[fields];
+            lastIrrigation = new long[fields];
+            for (int i = 0; i < fields; i++) {
+                moisture[i] = 45 + random.nextInt(30);
+            }
+
+            addBehaviour(new SimTickerBehaviour(this, READING_PERIOD_MS) {
+                @Override
+                protected void onTick() {
+                    for (int i = 0; i < moisture.length; i++) {
+                        moisture[i] = Math.max(0, moisture[i] - DRY_PER_READING);
+                        long reading = Math.round(moisture[i] + random.nextGaussian() * NOISE);
+                        long health = Math.round(85 + random.nextGaussian() * NOISE);
+                        ACLMessage update = new ACLMessage(ACLMessage.INFORM);
+                        update.addReceiver(new AID("FarmerBDI", AID.ISLOCALNAME));
+                        update.setContent("FIELD_UPDATE:id:" + (i + 1) + ",crop:wheat,moisture:"
+                                + Math.max(0, Math.min(100, reading)) + ",growth:10,health:" + health);
+                        send(update);
+                    }
+                }
+            });
+            addBehaviour(new CyclicBehaviour(this) {
+                @Override
+                public void action() {
+                    ACLMessage msg = receive();
+                    if (msg == null) {
+                        block();
+                        return;
+                    }
+                    if (msg.getContent() != null && msg.getContent().startsWith("IRRIGATE:")) {
+                        int i = Integer.parseInt(msg.getContent().substring(9)) - 1;
+                        long now = SimulationClock.now();
+                        irrigations++;
+                        moistureAtIrrigation += moisture[i];
+                        if (lastIrrigation[i] > 0 && now - lastIrrigation[i] < 2 * READING_PERIOD_MS) {
+                            repeats++;
+                        }
+                        if (moisture[i] >= WATER_THRESHOLD) {
+                            early++;
+                        }
+                        lastIrrigation[i] = now;
+                        moisture[i] = Math.min(100, moisture[i] + IRRIGATION_AMOUNT);
+                    }
+                }
+            });
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int fields = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        double speed = args.length > 2 ? Double.parseDouble(args[2]) : 100;
+
+        PrintStream console = System.out;
+        console.println("============================================================");
+        console.println("       ANOMALY DETECTION BENCHMARK");
+        console.println("============================================================");
+
+        benchmarkThroughput(console);
+        benchmarkDetection(console);
+        benchmarkFarmer(console, fields, seconds, speed);
+
+        System.exit(0);
+    }
+
+    /**
+     * Same settings as FarmerBDIAgent.
+     */
+    private static ChangeDetector newDetector() {
+        return new ChangeDetector(0.1, 0.5, 5.0, 2.0);
+    }
+
+    private static void benchmarkThroughput(PrintStream console) {
+        int streams = 10_000;
+        int rounds = 2_000;
+        ChangeDetector[] detectors = new ChangeDetector[streams];
+        for (int i = 0; i < streams; i++) {
+            detectors[i] = newDetector();
+        }
+        double[] noise = new double[1 << 16];
+        Random random = new Random(1);
+        for (int i = 0; i < noise.length; i++) {
+            noise[i] = 50 + random.nextGaussian() * NOISE;
+        }
+
+        long changes = 0;
+        for (int pass = 0; pass < 2; pass++) { // warm-up, then measured
+            long start = System.nanoTime();
+            int n = 0;
+            for (int r = 0; r < rounds; r++) {
+                for (int i = 0; i < streams; i++) {
+                    if (detectors[i].update(noise[n++ & (noise.length - 1)]) == ChangeDetector.Signal.CHANGE) {
+                        changes++;
+                    }
+                }
+            }
+            double elapsed = (System.nanoTime() - start) / 1e9;
+            if (pass == 1) {
+                console.printf("Throughput: %.1f M samples/s on one core (%d streams, %d samples, %.2f s)%n",
+                        (double) streams * rounds / elapsed / 1e6, streams, (long) streams * rounds, elapsed);
+            }
+        }
+        if (changes < 0) {
+            console.println(changes); // keep the loop alive
+        }
+    }
+
+    private static void benchmarkDetection(PrintStream console) {
+        Random random = new Random(3);
+        int samples = 100_000;
+
+        ChangeDetector stationary = newDetector();
+        long falseChanges = -1; // the first reading is always a change
+        for (int i = 0; i < samples; i++) {
+            if (stationary.update(50 + random.nextGaussian() * NOISE) == ChangeDetector.Signal.CHANGE) {
+                falseChanges++;
+            }
+        }
+        console.printf("Stationary noise (sigma %.0f): %.2f false changes per 1000 readings%n", NOISE,
+                falseChanges * 1000.0 / samples);
+
+        for (double step : new double[] { 5, 10, 30 }) {
+            console.printf("Step of %+.0f: detected after %.1f readings (avg of 200)%n", -step,
+                    averageDelay(random, i -> i < 100 ? 50 : 50 - step));
+        }
+        console.printf("Drift of -%.2f per reading: level moves after %.1f readings (avg of 200)%n",
+                DRY_PER_READING, averageDelay(random, i -> i < 100 ? 50 : 50 - DRY_PER_READING * (i - 100)));
+    }
+
+    private interface Signal {
+        double at(int i);
+    }
+
+    private static double averageDelay(Random random, Signal signal) {
+        long total = 0;
+        int trials = 200;
+        for (int t = 0; t < trials; t++) {
+            ChangeDetector detector = newDetector();
+            int i = 0;
+            for (; i < 100; i++) {
+                detector.update(signal.at(i) + random.nextGaussian() * NOISE);
+            }
+            while (detector.update(signal.at(i) + random.nextGaussian() * NOISE) != ChangeDetector.Signal.CHANGE
+                    && i < 10_000) {
+                i++;
+            }
+            total += i - 100 + 1;
+        }
+        return (double) total / trials;
+    }
+
+    private static void benchmarkFarmer(PrintStream console, int fields, int seconds, double speed)
+            throws Exception {
+        console.println();
+        console.println("FarmerBDI, " + fields + " noisy fields, " + seconds + " s per mode at " + (int) speed + "x:");
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        Runtime runtime = Runtime.instance();
+        Profile profile = new ProfileImpl();
+        profile.setParameter(Profile.MAIN_HOST, "127.0.0.1");
+        profile.setParameter(Profile.MAIN_PORT, PORT);
+        profile.setParameter(Profile.GUI, "false");
+        profile.setParameter(Profile.CONTAINER_NAME, "Main-Container");
+        ContainerController container = runtime.createMainContainer(profile);
+        SimulationClock.setSpeed(speed);
+
+        console.printf("%-10s %-10s %-12s %-10s %-12s %-12s %-9s %-9s %-14s%n", "Mode", "Readings",
+                "Belief upd.", "Outliers", "Irr. intent.", "Irrigations", "Repeats", "Early", "Avg moisture");
+
+        for (String mode : new String[] { "raw-beliefs", "filtered" }) {
+            FarmerBDIAgent farmer = new FarmerBDIAgent();
+            farmer.setArguments(new Object[] { mode });
+            AgentController farmerController = container.acceptNewAgent("FarmerBDI", farmer);
+            FieldLoadAgent load = new FieldLoadAgent();
+            load.setArguments(new Object[] { fields });
+            AgentController loadController = container.acceptNewAgent("Controller", load);
+            farmerController.start();
+            loadController.start();
+
+            Thread.sleep(seconds * 1000L);
+            loadController.kill();
+            farmerController.kill();
+
+            console.printf("%-10s %-10d %-12d %-10d %-12d %-12d %-9d %-9d %-14.1f%n",
+                    mode.equals("raw-beliefs") ? "raw" : mode, farmer.getSamplesObserved(),
+                    farmer.getBeliefUpdates(), farmer.getOutliersIgnored(), farmer.getIntentionsFormed(FarmerBDIAgent.IntentionType.IRRIGATE),
+                    load.irrigations, load.repeats, load.early,
+                    load.moistureAtIrrigation / Math.max(1, load.irrigations));
+            Thread.sleep(1000);
+        }
+    }
+}
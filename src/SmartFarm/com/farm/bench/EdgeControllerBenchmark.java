@@ -0,0 +1,271 @@
+package com.farm.bench;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Random;
+
+import com.farm.agents.EdgeControllerAgent;
+import com.farm.agents.FarmerBDIAgent;
+import com.farm.sim.SimTickerBehaviour;
+import com.farm.sim.SimulationClock;
+
+import jade.core.AID;
+import jade.core.Profile;
+import jade.core.ProfileImpl;
+import jade.core.Runtime;
+import jade.core.behaviours.CyclicBehaviour;
+import jade.lang.acl.ACLMessage;
+import jade.wrapper.AgentController;
+import jade.wrapper.ContainerController;
+
+/**
+ * EdgeControllerBenchmark - Load on FarmerBDI with every field agent
+ * reporting to it directly versus one EdgeControllerAgent per container.
+ *
+ * Boots an in-process JADE platform with FarmerBDI, a sink Controller and
+ * one agent container per field group. In each container a load agent plays
+ * the container's soil sensors and crop agents, sending exactly what they
+ * send upward: one reading per sensor every SENSOR_PERIOD_MS, one
+ * FIELD_UPDATE per crop every CROP_PERIOD_MS, and low-moisture alerts
+ * (container-local sensor -> crop messages are left out).
+ *
+ * Runs on the SimulationClock at the given speed and reports FarmerBDI's
+ * message rate, CPU share of its agent thread and message queue depth.
+ *
+ * Usage: java com.farm.bench.EdgeControllerBenchmark [containers] [fields] [seconds] [speed]
+ */
+public class EdgeControllerBenchmark {
+
+    private static final String PORT = "1199";
+    private static final long SENSOR_PERIOD_MS = 8000;
+    private static final long CROP_PERIOD_MS = 6000;
+    private static final long SAMPLE_PERIOD_MS = 100;
+
+    /**
+     * FarmerBDI that remembers its agent thread, for CPU accounting.
+     */
+    public static class MeasuredFarmerBDI extends FarmerBDIAgent {
+        volatile Thread agentThread;
+
+        @Override
+        protected void setup() {
+            agentThread = Thread.currentThread();
+            super.setup();
+        }
+    }
+
+    /**
+     * Stands in for the Controller; counts and drops requests.
+     */
+    public static class SinkAgent extends jade.core.Agent {
+        volatile long received = 0;
+
+        @Override
+        protected void setup() {
+            addBehaviour(new CyclicBehaviour(this) {
+                @Override
+                public void action() {
+                    if (receive() != null) {
+                        received++;
+                    } else {
+                        block();
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Plays the sensors and crop agents of one container.
+     */
+    public static class FieldGroupLoadAgent extends jade.core.Agent {
+        private final Random random = new Random();
+        private int firstField;
+        private int[] moisture;
+        private int[] growth;
+        private AID edge;
+
+        @Override
+        protected void setup() {
+            firstField = (Integer) getArguments()[0];
+            int count = (Integer) getArguments()[1];
+            String edgeName = (String) getArguments()[2];
+            edge = edgeName == null ? null : new AID(edgeName, AID.ISLOCALNAME);
+
+            moisture = new int[count];
+            growth = new int[count];
+            for (int i = 0; i < count; i++) {
+                moisture[i] = 40 + random.nextInt(40);
+            }
+
+            addBehaviour(new SimTickerBehaviour(this, SENSOR_PERIOD_MS) {
+                @Override
+                protected void onTick() {
+                    for (int i = 0; i < moisture.length; i++) {
+                        moisture[i] = Math.max(0, Math.min(100, moisture[i] + random.nextInt(11) - 7));
+                        sendReading(firstField + i, moisture[i]);
+                    }
+                }
+            });
+            addBehaviour(new SimTickerBehaviour(this, CROP_PERIOD_MS) {
+                @Override
+                protected void onTick() {
+                    for (int i = 0; i < growth.length; i++) {
+                        growth[i] = Math.min(100, growth[i] + 2);
+                        sendFieldUpdate(firstField + i, moisture[i], growth[i]);
+                    }
+                }
+            });
+            // Local irrigation from the edge controller
+            addBehaviour(new CyclicBehaviour(this) {
+                @Override
+                public void action() {
+                    ACLMessage msg = receive();
+                    if (msg == null) {
+                        block();
+                        return;
+                    }
+                    String conversation = msg.getConversationId();
+                    if (msg.getContent() != null && msg.getContent().startsWith("IRRIGATE:")
+                            && conversation != null && conversation.startsWith("edge-irrigation-")) {
+                        int i = Integer.parseInt(conversation.substring(16)) - firstField;
+                        moisture[i] = Math.min(100, moisture[i] + Integer.parseInt(msg.getContent().substring(9)));
+                    }
+                }
+            });
+        }
+
+        private void sendReading(int fieldId, int value) {
+            if (edge != null) {
+                send(inform(edge, "READING:" + fieldId + ":" + value));
+                return;
+            }
+            send(inform(new AID("FarmerBDI", AID.ISLOCALNAME), "FIELD_UPDATE:id:" + fieldId + ",moisture:" + value));
+            if (value < 30) {
+                ACLMessage request = new ACLMessage(ACLMessage.REQUEST);
+                request.addReceiver(new AID("Controller", AID.ISLOCALNAME));
+                request.setContent("LOW_MOISTURE:" + fieldId + ":" + value);
+                send(request);
+                send(inform(new AID("FarmerBDI", AID.ISLOCALNAME), "ALERT:LOW_MOISTURE:" + fieldId + ":" + value));
+            }
+        }
+
+        private void sendFieldUpdate(int fieldId, int value, int growthValue) {
+            AID target = edge != null ? edge : new AID("FarmerBDI", AID.ISLOCALNAME);
+            send(inform(target, "FIELD_UPDATE:id:" + fieldId + ",crop:wheat,moisture:" + value
+                    + ",growth:" + growthValue + ",health:90"));
+        }
+
+        private ACLMessage inform(AID receiver, String content) {
+            ACLMessage msg = new ACLMessage(ACLMessage.INFORM);
+            msg.addReceiver(receiver);
+            msg.setContent(content);
+            return msg;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int containers = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+        int fieldsPerContainer = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        double speed = args.length > 3 ? Double.parseDouble(args[3]) : 10;
+
+        PrintStream console = System.out;
+        console.println("============================================================");
+        console.println("       EDGE CONTROLLER BENCHMARK (" + containers + " containers x " + fieldsPerContainer
+                + " fields, " + seconds + " s per mode at " + (int) speed + "x)");
+        console.println("============================================================");
+
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        Runtime runtime = Runtime.instance();
+        Profile mainProfile = new ProfileImpl();
+        mainProfile.setParameter(Profile.MAIN_HOST, "127.0.0.1");
+        mainProfile.setParameter(Profile.MAIN_PORT, PORT);
+        mainProfile.setParameter(Profile.GUI, "false");
+        mainProfile.setParameter(Profile.CONTAINER_NAME, "Main-Container");
+        ContainerController mainContainer = runtime.createMainContainer(mainProfile);
+
+        SinkAgent sink = new SinkAgent();
+        mainContainer.acceptNewAgent("Controller", sink).start();
+
+        ContainerController[] fieldContainers = new ContainerController[containers];
+        for (int c = 0; c < containers; c++) {
+            Profile fieldProfile = new ProfileImpl();
+            fieldProfile.setParameter(Profile.MAIN_HOST, "127.0.0.1");
+            fieldProfile.setParameter(Profile.MAIN_PORT, PORT);
+            fieldProfile.setParameter(Profile.CONTAINER_NAME, "Field-Container-" + (c + 1));
+            fieldContainers[c] = runtime.createAgentContainer(fieldProfile);
+        }
+
+        SimulationClock.setSpeed(speed);
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+        console.printf("%-8s %-14s %-12s %-12s %-12s %-14s %-10s%n",
+                "Mode", "BDI msgs/s", "BDI CPU %", "Queue avg", "Queue max", "Ctrl msgs/s", "Edge irr.");
+
+        for (boolean useEdge : new boolean[] { false, true }) {
+            String mode = useEdge ? "edge" : "direct";
+            MeasuredFarmerBDI farmer = new MeasuredFarmerBDI();
+            AgentController farmerController = mainContainer.acceptNewAgent("FarmerBDI", farmer);
+            farmerController.start();
+
+            AgentController[] edges = new AgentController[containers];
+            EdgeControllerAgent[] edgeAgents = new EdgeControllerAgent[containers];
+            AgentController[] loads = new AgentController[containers];
+            for (int c = 0; c < containers; c++) {
+                String edgeName = null;
+                if (useEdge) {
+                    edgeName = "Edge-" + (c + 1);
+                    edgeAgents[c] = new EdgeControllerAgent();
+                    edgeAgents[c].setArguments(new Object[] { c + 1 });
+                    edges[c] = fieldContainers[c].acceptNewAgent(edgeName, edgeAgents[c]);
+                    edges[c].start();
+                }
+                loads[c] = fieldContainers[c].createNewAgent("Load-" + mode + "-" + (c + 1),
+                        FieldGroupLoadAgent.class.getName(),
+                        new Object[] { c * fieldsPerContainer + 1, fieldsPerContainer, edgeName });
+                loads[c].start();
+            }
+            Thread.sleep(2000); // first ticks
+
+            long messagesStart = farmer.getBeliefMessages();
+            long alertsStart = sink.received;
+            long cpuStart = threads.getThreadCpuTime(farmer.agentThread.getId());
+            long wallStart = System.nanoTime();
+            long queueTotal = 0;
+            int queueMax = 0;
+            int samples = 0;
+            while (System.nanoTime() - wallStart < seconds * 1_000_000_000L) {
+                Thread.sleep(SAMPLE_PERIOD_MS);
+                int depth = farmer.getCurQueueSize();
+                queueTotal += depth;
+                queueMax = Math.max(queueMax, depth);
+                samples++;
+            }
+            double wallSeconds = (System.nanoTime() - wallStart) / 1e9;
+            long cpuNanos = threads.getThreadCpuTime(farmer.agentThread.getId()) - cpuStart;
+
+            long localIrrigations = 0;
+            for (int c = 0; c < containers; c++) {
+                loads[c].kill();
+                if (useEdge) {
+                    localIrrigations += edgeAgents[c].getLocalIrrigations();
+                    edges[c].kill();
+                }
+            }
+
+            console.printf("%-8s %-14.0f %-12.1f %-12.1f %-12d %-14.1f %-10s%n",
+                    mode, (farmer.getBeliefMessages() - messagesStart) / wallSeconds,
+                    cpuNanos / 1e7 / wallSeconds, (double) queueTotal / Math.max(1, samples), queueMax,
+                    (sink.received - alertsStart) / wallSeconds, useEdge ? String.valueOf(localIrrigations) : "-");
+
+            farmerController.kill();
+            Thread.sleep(1000);
+        }
+
+        System.exit(0);
+    }
+}
@@ -0,0 +1,131 @@
+package com.farm.bench;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+import com.farm.agents.FarmControllerAgent;
+import com.farm.helpers.IrrigationMetrics;
+
+import jade.core.AID;
+import jade.core.Profile;
+import jade.core.ProfileImpl;
+import jade.core.Runtime;
+import jade.core.behaviours.TickerBehaviour;
+import jade.lang.acl.ACLMessage;
+import jade.wrapper.AgentController;
+import jade.wrapper.ContainerController;
+
+/**
+ * IrrigationPipelineBenchmark - Decision throughput and latency of
+ * FarmControllerAgent with many dry fields at once.
+ *
+ * Boots an in-process JADE platform with the real Controller, Weather
+ * service, inspection drones (migrating to Field-Container) and water
+ * suppliers. A load agent sends LOW_MOISTURE alerts for every field once per
+ * sensor period (8 s, like SoilSensorAgent), so each field keeps coming back
+ * to the controller while its previous workflow may still be running.
+ *
+ * Agent logging is muted while the platform runs.
+ *
+ * Usage: java com.farm.bench.IrrigationPipelineBenchmark [fields] [seconds] [drones] [suppliers]
+ */
+public class IrrigationPipelineBenchmark {
+
+    private static final String PORT = "1199";
+    private static final long SENSOR_PERIOD_MS = 8000;
+    private static final long PURCHASE_GRACE_MS = 2000;
+
+    /**
+     * Sends one LOW_MOISTURE alert per field per period, spread over the
+     * period like independent sensors.
+     */
+    public static class AlertLoadAgent extends jade.core.Agent {
+        @Override
+        protected void setup() {
+            int fields = (Integer) getArguments()[0];
+            long interval = Math.max(1, SENSOR_PERIOD_MS / fields);
+
+            addBehaviour(new TickerBehaviour(this, interval) {
+                private int next = 0;
+
+                @Override
+                protected void onTick() {
+                    int fieldId = next % fields + 1;
+                    next++;
+                    ACLMessage alert = new ACLMessage(ACLMessage.REQUEST);
+                    alert.addReceiver(new AID("Controller", AID.ISLOCALNAME));
+                    alert.setContent("LOW_MOISTURE:" + fieldId + ":" + (10 + fieldId % 15));
+                    send(alert);
+                }
+            });
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int fields = args.length > 0 ? Integer.parseInt(args[0]) : 120;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 90;
+        int drones = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+        int suppliers = args.length > 3 ? Integer.parseInt(args[3]) : 3;
+
+        PrintStream console = System.out;
+        console.println("============================================================");
+        console.println("       IRRIGATION PIPELINE BENCHMARK (" + fields + " fields, " + drones + " drones, "
+                + suppliers + " suppliers, " + seconds + " s)");
+        console.println("============================================================");
+
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        Runtime runtime = Runtime.instance();
+        Profile mainProfile = new ProfileImpl();
+        mainProfile.setParameter(Profile.MAIN_HOST, "127.0.0.1");
+        mainProfile.setParameter(Profile.MAIN_PORT, PORT);
+        mainProfile.setParameter(Profile.GUI, "false");
+        mainProfile.setParameter(Profile.CONTAINER_NAME, "Main-Container");
+        ContainerController mainContainer = runtime.createMainContainer(mainProfile);
+
+        Profile fieldProfile = new ProfileImpl();
+        fieldProfile.setParameter(Profile.MAIN_HOST, "127.0.0.1");
+        fieldProfile.setParameter(Profile.MAIN_PORT, PORT);
+        fieldProfile.setParameter(Profile.CONTAINER_NAME, "Field-Container");
+        runtime.createAgentContainer(fieldProfile);
+
+        FarmControllerAgent controller = new FarmControllerAgent();
+        mainContainer.acceptNewAgent("Controller", controller).start();
+        mainContainer.createNewAgent("Weather", "com.farm.agents.WeatherServiceAgent", null).start();
+        for (int i = 1; i <= drones; i++) {
+            mainContainer.createNewAgent("Drone-" + i, "com.farm.agents.InspectorDroneAgent", null).start();
+        }
+        for (int i = 1; i <= suppliers; i++) {
+            mainContainer.createNewAgent("Supplier-" + i, "com.farm.agents.SupplierAgent",
+                    new Object[] { "water" }).start();
+        }
+        Thread.sleep(1000);
+
+        AgentController load = mainContainer.createNewAgent("Sensors", AlertLoadAgent.class.getName(),
+                new Object[] { fields });
+        load.start();
+        Thread.sleep(seconds * 1000L);
+        load.kill();
+
+        // Let running workflows finish before reading the agent's metrics
+        Thread.sleep(PURCHASE_GRACE_MS);
+        IrrigationMetrics metrics = controller.getMetrics();
+        long now = System.currentTimeMillis();
+        long alerts = (seconds * 1000L / Math.max(1, SENSOR_PERIOD_MS / fields));
+
+        console.printf("Alerts sent:            ~%d (%d coalesced into running workflows)%n",
+                alerts, metrics.getCoalescedAlerts());
+        console.printf("Decisions:              %d (irrigate %d, ignore %d, failed %d)%n",
+                metrics.getTotalDecisions(), metrics.getTotal(IrrigationMetrics.Outcome.IRRIGATE),
+                metrics.getTotal(IrrigationMetrics.Outcome.IGNORE),
+                metrics.getTotal(IrrigationMetrics.Outcome.FAILED));
+        console.printf("Decisions per minute:   %d (last minute), %.0f (run average)%n",
+                metrics.getDecisionsPerMinute(now), metrics.getTotalDecisions() * 60.0 / seconds);
+        console.printf("Decision latency:       p50 %d ms, p99 %d ms%n",
+                metrics.getLatencyPercentile(50), metrics.getLatencyPercentile(99));
+        console.printf("Inspections skipped:    %d, stage timeouts: %d, still active: %d%n",
+                metrics.getSkippedInspections(), metrics.getTimeouts(), controller.getActiveWorkflowCount());
+
+        System.exit(0);
+    }
+}
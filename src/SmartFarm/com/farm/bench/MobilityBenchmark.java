@@ -0,0 +1,228 @@
+package com.farm.bench;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import com.farm.agents.InspectorDroneAgent;
+import com.farm.agents.SoilSensorAgent;
+
+import jade.core.AID;
+import jade.core.Profile;
+import jade.core.ProfileImpl;
+import jade.core.Runtime;
+import jade.core.behaviours.CyclicBehaviour;
+import jade.lang.acl.ACLMessage;
+import jade.wrapper.AgentController;
+import jade.wrapper.ContainerController;
+
+/**
+ * MobilityBenchmark - Inspection latency and bytes moved when the drone
+ * always migrates, always queries remotely, or lets its MobilityPlanner
+ * decide.
+ *
+ * Boots an in-process JADE platform with the drone in Main-Container and
+ * one agent container per field group, each holding that group's
+ * SoilSensorAgents. A requester sends bursts of 1..MAX_BURST INSPECT_FIELD
+ * requests for fields of one random container (closed loop: the next burst
+ * leaves when the previous one is answered), so the drone sees both single
+ * inspections and batches it can serve with one trip.
+ *
+ * Reports p50/p99 latency from request to CONFIRM, bytes per inspection
+ * (serialized agent state carried by migrations, ACL text of remote
+ * queries) and the strategy mix.
+ *
+ * Usage: java com.farm.bench.MobilityBenchmark [containers] [fields] [inspections]
+ */
+public class MobilityBenchmark {
+
+    private static final String PORT = "1199";
+    private static final int MAX_BURST = 4;
+
+    /**
+     * Sends the request bursts and records latencies.
+     */
+    public static class RequesterAgent extends jade.core.Agent {
+        private final Random random = new Random(42);
+        private final Map<String, Long> sentAt = new HashMap<>();
+        final List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        final Map<String, Integer> strategies = Collections.synchronizedMap(new HashMap<>());
+        volatile int refused = 0;
+        volatile long[] stats; // trips, remote queries, failures, bytes migrated, bytes messaged
+
+        private AID drone;
+        private int containers;
+        private int fieldsPerContainer;
+        private int remaining;
+        private int outstanding = 0;
+        private int seq = 0;
+
+        @Override
+        protected void setup() {
+            drone = new AID((String) getArguments()[0], AID.ISLOCALNAME);
+            containers = (Integer) getArguments()[1];
+            fieldsPerContainer = (Integer) getArguments()[2];
+            remaining = (Integer) getArguments()[3];
+
+            addBehaviour(new CyclicBehaviour(this) {
+                @Override
+                public void action() {
+                    ACLMessage msg = receive();
+                    if (msg != null && msg.getContent() != null
+                            && msg.getContent().startsWith("MOBILITY_STATS:")) {
+                        String[] parts = msg.getContent().split(":");
+                        long[] values = new long[parts.length - 1];
+                        for (int i = 1; i < parts.length; i++) {
+                            values[i - 1] = Long.parseLong(parts[i]);
+                        }
+                        stats = values;
+                        return;
+                    }
+                    if (msg != null) {
+                        Long start = sentAt.remove(msg.getConversationId());
+                        if (start != null) {
+                            outstanding--;
+                            if (msg.getPerformative() == ACLMessage.CONFIRM) {
+                                latencies.add(System.currentTimeMillis() - start);
+                                String[] parts = msg.getContent().split(":");
+                                strategies.merge(parts[parts.length - 1], 1, Integer::sum);
+                            } else {
+                                refused++;
+                            }
+                        }
+                    }
+                    if (outstanding == 0 && remaining > 0) {
+                        sendBurst();
+                    } else if (outstanding == 0 && remaining == 0 && msg != null) {
+                        // The drone object moves between containers; ask it
+                        ACLMessage query = new ACLMessage(ACLMessage.QUERY_REF);
+                        query.addReceiver(drone);
+                        query.setContent("MOBILITY_STATS");
+                        send(query);
+                    }
+                    if (msg == null) {
+                        block();
+                    }
+                }
+            });
+        }
+
+        private void sendBurst() {
+            int container = random.nextInt(containers);
+            int burst = Math.min(remaining, 1 + random.nextInt(MAX_BURST));
+            for (int i = 0; i < burst; i++) {
+                int fieldId = container * fieldsPerContainer + 1 + random.nextInt(fieldsPerContainer);
+                ACLMessage request = new ACLMessage(ACLMessage.REQUEST);
+                request.addReceiver(drone);
+                request.setContent("INSPECT_FIELD:" + fieldId);
+                request.setConversationId("bench-inspection-" + (++seq));
+                sentAt.put(request.getConversationId(), System.currentTimeMillis());
+                send(request);
+            }
+            outstanding += burst;
+            remaining -= burst;
+        }
+    }
+
+    /**
+     * Stands in for the sensor gateway; drops readings.
+     */
+    public static class SinkAgent extends jade.core.Agent {
+        @Override
+        protected void setup() {
+            addBehaviour(new CyclicBehaviour(this) {
+                @Override
+                public void action() {
+                    if (receive() == null) {
+                        block();
+                    }
+                }
+            });
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int containers = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int fieldsPerContainer = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int inspections = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+
+        PrintStream console = System.out;
+        console.println("============================================================");
+        console.println("       MOBILITY BENCHMARK (" + containers + " containers x " + fieldsPerContainer
+                + " fields, " + inspections + " inspections per mode)");
+        console.println("============================================================");
+
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        Runtime runtime = Runtime.instance();
+        Profile mainProfile = new ProfileImpl();
+        mainProfile.setParameter(Profile.MAIN_HOST, "127.0.0.1");
+        mainProfile.setParameter(Profile.MAIN_PORT, PORT);
+        mainProfile.setParameter(Profile.GUI, "false");
+        mainProfile.setParameter(Profile.CONTAINER_NAME, "Main-Container");
+        ContainerController mainContainer = runtime.createMainContainer(mainProfile);
+        mainContainer.acceptNewAgent("Gateway", new SinkAgent()).start();
+
+        for (int c = 0; c < containers; c++) {
+            Profile fieldProfile = new ProfileImpl();
+            fieldProfile.setParameter(Profile.MAIN_HOST, "127.0.0.1");
+            fieldProfile.setParameter(Profile.MAIN_PORT, PORT);
+            fieldProfile.setParameter(Profile.CONTAINER_NAME, "Field-Container-" + (c + 1));
+            ContainerController fieldContainer = runtime.createAgentContainer(fieldProfile);
+            for (int f = 1; f <= fieldsPerContainer; f++) {
+                int fieldId = c * fieldsPerContainer + f;
+                fieldContainer.createNewAgent("Sensor-" + fieldId, SoilSensorAgent.class.getName(),
+                        new Object[] { fieldId, "Gateway", Boolean.TRUE }).start();
+            }
+        }
+        Thread.sleep(2000); // DF registrations
+
+        console.printf("%-10s %-10s %-10s %-10s %-14s %-14s %-10s %-20s%n",
+                "Mode", "p50 ms", "p99 ms", "Max ms", "Migr. B/insp", "Msg B/insp", "Refused", "Mix");
+
+        for (String mode : new String[] { "migrate", "remote", "adaptive" }) {
+            InspectorDroneAgent drone = new InspectorDroneAgent();
+            drone.setArguments(new Object[] { mode });
+            AgentController droneController = mainContainer.acceptNewAgent("Drone-" + mode, drone);
+            droneController.start();
+            Thread.sleep(500);
+
+            RequesterAgent requester = new RequesterAgent();
+            requester.setArguments(new Object[] { "Drone-" + mode, containers, fieldsPerContainer, inspections });
+            AgentController requesterController = mainContainer.acceptNewAgent("Requester-" + mode, requester);
+            requesterController.start();
+
+            while (requester.stats == null) {
+                Thread.sleep(100);
+            }
+
+            List<Long> latencies = new ArrayList<>(requester.latencies);
+            Collections.sort(latencies);
+            int answered = Math.max(1, latencies.size());
+            long[] stats = requester.stats;
+            console.printf("%-10s %-10d %-10d %-10d %-14d %-14d %-10d %-20s%n",
+                    mode, percentile(latencies, 0.50), percentile(latencies, 0.99),
+                    latencies.isEmpty() ? 0 : latencies.get(latencies.size() - 1),
+                    stats[3] / answered, stats[4] / answered,
+                    requester.refused, requester.strategies);
+
+            requesterController.kill();
+            droneController.kill();
+            Thread.sleep(500);
+        }
+
+        System.exit(0);
+    }
+
+    private static long percentile(List<Long> sorted, double p) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        return sorted.get(Math.min(sorted.size() - 1, (int) Math.ceil(p * sorted.size()) - 1));
+    }
+}
@@ -0,0 +1,152 @@
+package com.farm.bench;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+import com.farm.agents.FarmControllerAgent;
+import com.farm.helpers.IrrigationMetrics;
+
+import jade.core.AID;
+import jade.core.Profile;
+import jade.core.ProfileImpl;
+import jade.core.Runtime;
+import jade.core.behaviours.TickerBehaviour;
+import jade.lang.acl.ACLMessage;
+import jade.wrapper.AgentController;
+import jade.wrapper.ContainerController;
+
+/**
+ * ProcurementBenchmark - Water procurement latency under bursty demand, full
+ * Contract Net versus buying against cached supplier quotes.
+ *
+ * Boots an in-process JADE platform with the Weather service and water
+ * suppliers (no drones, so every workflow goes straight from the weather
+ * check to the purchase). Each phase runs its own controller, first with
+ * "cnp-only", then with the price book; a load agent sends LOW_MOISTURE
+ * alerts for a whole burst of fields at once, every BURST_INTERVAL_MS.
+ *
+ * Procurement latency runs from the start of the purchase stage to the
+ * award (CNP) or the supplier's delivery INFORM (quote).
+ *
+ * Usage: java com.farm.bench.ProcurementBenchmark [burst] [seconds] [suppliers]
+ */
+public class ProcurementBenchmark {
+
+    private static final String PORT = "1199";
+    private static final long BURST_INTERVAL_MS = 15000;
+    private static final long GRACE_MS = 3000;
+
+    /**
+     * Sends one alert for every field of the burst at once.
+     */
+    public static class BurstLoadAgent extends jade.core.Agent {
+        @Override
+        protected void setup() {
+            String controller = (String) getArguments()[0];
+            int burst = (Integer) getArguments()[1];
+
+            addBehaviour(new TickerBehaviour(this, BURST_INTERVAL_MS) {
+                @Override
+                public void onStart() {
+                    super.onStart();
+                    sendBurst();
+                }
+
+                @Override
+                protected void onTick() {
+                    sendBurst();
+                }
+
+                private void sendBurst() {
+                    for (int fieldId = 1; fieldId <= burst; fieldId++) {
+                        ACLMessage alert = new ACLMessage(ACLMessage.REQUEST);
+                        alert.addReceiver(new AID(controller, AID.ISLOCALNAME));
+                        alert.setContent("LOW_MOISTURE:" + fieldId + ":" + (10 + fieldId % 15));
+                        send(alert);
+                    }
+                }
+            });
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int burst = args.length > 0 ? Integer.parseInt(args[0]) : 30;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 60;
+        int suppliers = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+
+        PrintStream console = System.out;
+        console.println("============================================================");
+        console.println("       PROCUREMENT BENCHMARK (bursts of " + burst + " fields every "
+                + BURST_INTERVAL_MS / 1000 + " s, " + suppliers + " suppliers, " + seconds + " s per mode)");
+        console.println("============================================================");
+
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        Runtime runtime = Runtime.instance();
+        Profile mainProfile = new ProfileImpl();
+        mainProfile.setParameter(Profile.MAIN_HOST, "127.0.0.1");
+        mainProfile.setParameter(Profile.MAIN_PORT, PORT);
+        mainProfile.setParameter(Profile.GUI, "false");
+        mainProfile.setParameter(Profile.CONTAINER_NAME, "Main-Container");
+        ContainerController mainContainer = runtime.createMainContainer(mainProfile);
+
+        mainContainer.createNewAgent("Weather", "com.farm.agents.WeatherServiceAgent", null).start();
+        for (int i = 1; i <= suppliers; i++) {
+            mainContainer.createNewAgent("Supplier-" + i, "com.farm.agents.SupplierAgent",
+                    new Object[] { "water" }).start();
+        }
+        Thread.sleep(1000);
+
+        console.printf("%-12s %-10s %-10s %-10s %-12s %-12s %-10s%n",
+                "Mode", "Bought", "Quote", "CNP", "p50 (ms)", "p99 (ms)", "Msgs/buy");
+
+        for (String mode : new String[] { "cnp-only", "price-book" }) {
+            String name = "Controller-" + mode;
+            FarmControllerAgent controller = new FarmControllerAgent();
+            controller.setArguments(new Object[] { mode });
+            AgentController agent = mainContainer.acceptNewAgent(name, controller);
+            agent.start();
+            Thread.sleep(1000);
+
+            AgentController load = mainContainer.createNewAgent("Load-" + mode, BurstLoadAgent.class.getName(),
+                    new Object[] { name, burst });
+            load.start();
+            Thread.sleep(seconds * 1000L);
+            load.kill();
+            Thread.sleep(GRACE_MS);
+
+            IrrigationMetrics metrics = controller.getMetrics();
+            long quoteBuys = metrics.getQuotePurchases();
+            long cnpBuys = metrics.getContractNetPurchases();
+            long bought = quoteBuys + cnpBuys;
+
+            // CNP: CFP + PROPOSE from every supplier, ACCEPT/REJECT to every supplier, INFORM
+            // Quote: ACCEPT + INFORM
+            double messagesPerBuy = bought == 0 ? 0
+                    : (cnpBuys * (3.0 * suppliers + 1) + quoteBuys * 2.0) / bought;
+            long p50 = mergedPercentile(metrics, quoteBuys, cnpBuys, 50);
+            long p99 = mergedPercentile(metrics, quoteBuys, cnpBuys, 99);
+
+            console.printf("%-12s %-10d %-10d %-10d %-12d %-12d %-10.1f%n",
+                    mode, bought, quoteBuys, cnpBuys, p50, p99, messagesPerBuy);
+            if (quoteBuys > 0) {
+                console.printf("%-12s quote p50 %d ms / p99 %d ms, CNP fallback p50 %d ms, rejected quotes %d,"
+                        + " book hits %d / misses %d%n", "",
+                        metrics.getProcurementPercentile(true, 50), metrics.getProcurementPercentile(true, 99),
+                        metrics.getProcurementPercentile(false, 50), metrics.getRejectedQuotes(),
+                        controller.getPriceBook().getHits(), controller.getPriceBook().getMisses());
+            }
+            agent.kill();
+        }
+
+        System.exit(0);
+    }
+
+    /**
+     * The percentile of whichever path served most purchases; close enough
+     * for a summary row.
+     */
+    private static long mergedPercentile(IrrigationMetrics metrics, long quoteBuys, long cnpBuys, int p) {
+        return metrics.getProcurementPercentile(quoteBuys >= cnpBuys, p);
+    }
+}
@@ -0,0 +1,86 @@
+package com.farm.bench;
+
+import java.util.Random;
+
+import com.farm.helpers.SensorBatcher;
+
+/**
+ * SensorGatewayBenchmark - Compares direct sensor reporting with gateway
+ * batching for 1000 soil sensors.
+ *
+ * Direct mode (per sensor, per tick): 2 ACL messages leaving the container
+ * (FarmerBDI + CropGrowth) and 2 WebSocket broadcasts.
+ * Gateway mode (per container, per tick): 1 local message per sensor, then at
+ * most 1 batched ACL message and 1 broadcast for the whole container.
+ *
+ * Sensor values follow the same random walk as SoilSensorAgent.
+ *
+ * Usage: java com.farm.bench.SensorGatewayBenchmark [sensors] [ticks]
+ */
+public class SensorGatewayBenchmark {
+
+    public static void main(String[] args) {
+        int sensors = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int ticks = args.length > 1 ? Integer.parseInt(args[1]) : 450; // one hour at 8 s ticks
+
+        System.out.println("============================================================");
+        System.out.println("       SENSOR GATEWAY BENCHMARK (" + sensors + " sensors, " + ticks + " ticks)");
+        System.out.println("============================================================");
+        System.out.printf("%-10s %-14s %-14s %-14s %-14s %-12s %-10s%n",
+                "Fan-in", "Direct ACL", "Direct WS", "Gateway ACL", "Gateway WS", "Local msgs", "Reduction");
+
+        for (int fanIn : new int[] { 1, 10, 50, 100 }) {
+            run(sensors, ticks, fanIn);
+        }
+    }
+
+    private static void run(int sensorCount, int ticks, int sensorsPerContainer) {
+        Random random = new Random(7);
+        int containers = (sensorCount + sensorsPerContainer - 1) / sensorsPerContainer;
+
+        SensorBatcher[] gateways = new SensorBatcher[containers];
+        for (int c = 0; c < containers; c++) {
+            gateways[c] = new SensorBatcher(2, 5);
+        }
+
+        int[] moisture = new int[sensorCount];
+        for (int i = 0; i < sensorCount; i++) {
+            moisture[i] = 50;
+        }
+
+        long directAcl = 0;
+        long directWs = 0;
+        long gatewayAcl = 0;
+        long gatewayWs = 0;
+        long localMessages = 0;
+
+        for (int tick = 0; tick < ticks; tick++) {
+            for (int i = 0; i < sensorCount; i++) {
+                int change = random.nextInt(11) - 5 - 2;
+                moisture[i] = Math.max(0, Math.min(100, moisture[i] + change));
+                // Irrigation keeps fields out of the permanently dry state
+                if (moisture[i] < 20) {
+                    moisture[i] += 30;
+                }
+
+                directAcl += 2;
+                directWs += 2;
+
+                gateways[i / sensorsPerContainer].record(i + 1, moisture[i]);
+                localMessages++;
+            }
+
+            for (SensorBatcher gateway : gateways) {
+                if (gateway.drain() != null) {
+                    gatewayAcl++;
+                    gatewayWs++;
+                }
+            }
+        }
+
+        double reduction = (double) (directAcl + directWs) / Math.max(1, gatewayAcl + gatewayWs);
+        System.out.printf("%-10d %-14d %-14d %-14d %-14d %-12d %-10s%n",
+                sensorsPerContainer, directAcl, directWs, gatewayAcl, gatewayWs, localMessages,
+                String.format("%.1fx", reduction));
+    }
+}
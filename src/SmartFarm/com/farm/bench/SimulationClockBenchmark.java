@@ -0,0 +1,101 @@
+package com.farm.bench;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+import com.farm.models.CropType;
+import com.farm.sim.SimulationClock;
+import com.farm.storage.TimeSeries;
+import com.farm.storage.TimeSeriesStore;
+
+import jade.core.Profile;
+import jade.core.ProfileImpl;
+import jade.core.Runtime;
+import jade.wrapper.ContainerController;
+
+/**
+ * SimulationClockBenchmark - How fast a farm can be simulated on the
+ * virtual clock.
+ *
+ * Boots an in-process JADE platform with the Weather service and a soil
+ * sensor plus crop growth agent per field, then runs each requested speed
+ * for a fixed wall time and reports:
+ * - Achieved speed (virtual ms per wall ms)
+ * - Simulated days per wall minute
+ * - Sensor ticks handled versus ticks due in the simulated span (every
+ * SENSOR_PERIOD_MS per field), i.e. whether agents kept up
+ *
+ * Usage: java com.farm.bench.SimulationClockBenchmark [fields] [seconds]
+ */
+public class SimulationClockBenchmark {
+
+    private static final String PORT = "1199";
+    private static final long SENSOR_PERIOD_MS = 8000;
+    private static final double DAY_MS = 24 * 3600_000.0;
+    private static final double[] SPEEDS = { 1, 10, 100, 1000 };
+
+    public static void main(String[] args) throws Exception {
+        int fields = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        PrintStream console = System.out;
+        console.println("============================================================");
+        console.println("       SIMULATION CLOCK BENCHMARK (" + fields + " fields, " + seconds + " s per speed)");
+        console.println("============================================================");
+
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        Runtime runtime = Runtime.instance();
+        Profile mainProfile = new ProfileImpl();
+        mainProfile.setParameter(Profile.MAIN_HOST, "127.0.0.1");
+        mainProfile.setParameter(Profile.MAIN_PORT, PORT);
+        mainProfile.setParameter(Profile.GUI, "false");
+        mainProfile.setParameter(Profile.CONTAINER_NAME, "Main-Container");
+        ContainerController mainContainer = runtime.createMainContainer(mainProfile);
+
+        mainContainer.createNewAgent("Weather", "com.farm.agents.WeatherServiceAgent", null).start();
+        CropType[] cropTypes = CropType.values();
+        for (int fieldId = 1; fieldId <= fields; fieldId++) {
+            mainContainer.createNewAgent("Sensor-" + fieldId, "com.farm.agents.SoilSensorAgent",
+                    new Object[] { fieldId }).start();
+            mainContainer.createNewAgent("CropGrowth-" + fieldId, "com.farm.agents.CropGrowthAgent",
+                    new Object[] { fieldId, cropTypes[fieldId % cropTypes.length] }).start();
+        }
+        Thread.sleep(2000);
+
+        console.printf("%-10s %-12s %-16s %-14s %-14s %-10s%n",
+                "Speed", "Achieved", "Sim days/min", "Ticks done", "Ticks due", "Timers");
+
+        for (double speed : SPEEDS) {
+            SimulationClock.setSpeed(speed);
+            Thread.sleep(500);
+
+            long virtualStart = SimulationClock.now();
+            long ticksStart = sensorSamples(fields);
+            long wallStart = System.nanoTime();
+            Thread.sleep(seconds * 1000L);
+            double wallMs = (System.nanoTime() - wallStart) / 1_000_000.0;
+            long virtualMs = SimulationClock.now() - virtualStart;
+            long ticksDone = sensorSamples(fields) - ticksStart;
+
+            double achieved = virtualMs / wallMs;
+            double daysPerMinute = virtualMs / DAY_MS * (60_000.0 / wallMs);
+            long ticksDue = virtualMs / SENSOR_PERIOD_MS * fields;
+            console.printf("%-10.0f %-12.1f %-16.3f %-14d %-14d %-10d%n",
+                    speed, achieved, daysPerMinute, ticksDone, ticksDue, SimulationClock.getTimerCount());
+        }
+
+        System.exit(0);
+    }
+
+    private static long sensorSamples(int fields) {
+        long samples = 0;
+        for (int fieldId = 1; fieldId <= fields; fieldId++) {
+            TimeSeries series = TimeSeriesStore.get("sensor." + fieldId + ".moisture");
+            if (series != null) {
+                samples += series.getSampleCount();
+            }
+        }
+        return samples;
+    }
+}
@@ -0,0 +1,224 @@
+package com.farm.bench;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.farm.gui.StreamHub;
+import com.farm.gui.WebServer;
+
+/**
+ * StreamLoadTest - Load test of the /stream snapshot-plus-delta protocol.
+ *
+ * Starts the real WebServer, connects N simulated browsers with the JDK
+ * WebSocket client and drives it with sensor ticks from several threads
+ * (each tick publishes a MOISTURE_READING and an AGENT_INTERACTION, like
+ * SoilSensorAgent). Reports snapshot time on connect, end-to-end latency
+ * from broadcast() to client receipt, and server-side write volume compared
+ * with the legacy one-send-per-message-per-client fan-out.
+ *
+ * Usage: java com.farm.bench.StreamLoadTest [clients] [sensors] [tickMs] [seconds]
+ */
+public class StreamLoadTest {
+
+    private static final int PORT = 18080;
+    private static final String NANOS_MARKER = "\"sentNanos\":";
+
+    public static void main(String[] args) throws Exception {
+        int clientCount = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int sensors = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        long tickMs = args.length > 2 ? Long.parseLong(args[2]) : 1000;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 20;
+
+        System.out.println("============================================================");
+        System.out.println("       STREAM LOAD TEST (" + clientCount + " clients, " + sensors + " sensors every "
+                + tickMs + " ms, " + seconds + " s)");
+        System.out.println("============================================================");
+
+        WebServer.start(PORT);
+        StreamHub hub = WebServer.getStreamHub();
+
+        // Some state before anyone connects, so snapshots are not empty
+        for (int i = 1; i <= sensors; i++) {
+            WebServer.broadcastFieldUpdate(i, "wheat", 50, 0, "Seed", false);
+        }
+
+        HttpClient http = HttpClient.newBuilder().executor(Executors.newFixedThreadPool(8)).build();
+        List<BrowserClient> clients = new ArrayList<>();
+        CountDownLatch snapshots = new CountDownLatch(clientCount);
+        long connectStart = System.nanoTime();
+        List<CompletableFuture<WebSocket>> connecting = new ArrayList<>();
+        for (int i = 0; i < clientCount; i++) {
+            BrowserClient client = new BrowserClient(snapshots);
+            clients.add(client);
+            connecting.add(http.newWebSocketBuilder()
+                    .buildAsync(URI.create("ws://127.0.0.1:" + PORT + "/stream"), client));
+        }
+        CompletableFuture.allOf(connecting.toArray(new CompletableFuture<?>[0])).get(60, TimeUnit.SECONDS);
+        snapshots.await(60, TimeUnit.SECONDS);
+        double connectMs = (System.nanoTime() - connectStart) / 1_000_000.0;
+
+        long[] snapshotMs = new long[clientCount];
+        for (int i = 0; i < clientCount; i++) {
+            snapshotMs[i] = clients.get(i).snapshotNanos / 1_000_000;
+        }
+        Arrays.sort(snapshotMs);
+
+        // Sensor ticks from 4 "agent" threads
+        long publishedBefore = hub.getPublished();
+        long writesBefore = hub.getWrites();
+        long bytesBefore = hub.getBytesWritten();
+        AtomicLong ticks = new AtomicLong();
+        ScheduledExecutorService agents = Executors.newScheduledThreadPool(4);
+        for (int i = 1; i <= sensors; i++) {
+            final int fieldId = i;
+            agents.scheduleAtFixedRate(() -> {
+                int moisture = 30 + (int) (Math.random() * 40);
+                WebServer.broadcast("MOISTURE_READING", "{\"fieldId\":" + fieldId + ",\"value\":" + moisture
+                        + ",\"threshold\":30,\"sentNanos\":" + System.nanoTime() + "}");
+                WebServer.broadcastAgentInteraction("Sensor-" + fieldId, "reactive", "FarmerBDI", "bdi",
+                        "INFORM", "Moisture: " + moisture + "%", 1);
+                ticks.incrementAndGet();
+            }, (long) (Math.random() * tickMs), tickMs, TimeUnit.MILLISECONDS);
+        }
+
+        Thread.sleep(seconds * 1000L);
+        agents.shutdownNow();
+        Thread.sleep(500); // let the last frames drain
+
+        long published = hub.getPublished() - publishedBefore;
+        long writes = hub.getWrites() - writesBefore;
+        long bytes = hub.getBytesWritten() - bytesBefore;
+
+        long[] latencies = collectLatencies(clients);
+        long frames = 0;
+        long gaps = 0;
+        for (BrowserClient client : clients) {
+            frames += client.frames.get();
+            gaps += client.gaps.get();
+        }
+
+        System.out.printf("Connect + snapshot for all clients: %.0f ms (snapshot p50 %d ms, p99 %d ms)%n",
+                connectMs, percentile(snapshotMs, 50), percentile(snapshotMs, 99));
+        System.out.printf("Sensor ticks: %d, messages published: %d (%.0f/s)%n",
+                ticks.get(), published, published / (double) seconds);
+        System.out.printf("Frames built: %d, coalesced updates: %d, dropped events: %d%n",
+                hub.getFramesBuilt(), hub.getCoalesced(), hub.getDroppedEvents());
+        System.out.printf("Server writes: %d (legacy fan-out would be %d), %.1f MB sent%n",
+                writes, published * clientCount, bytes / 1_048_576.0);
+        System.out.printf("Frames received: %d, sequence gaps: %d, snapshots sent: %d%n",
+                frames, gaps, hub.getSnapshotsSent());
+        System.out.printf("Latency broadcast->client: p50 %.1f ms, p99 %.1f ms, max %.1f ms (%d samples)%n",
+                percentile(latencies, 50) / 1e6, percentile(latencies, 99) / 1e6,
+                latencies.length == 0 ? 0 : latencies[latencies.length - 1] / 1e6, latencies.length);
+
+        WebServer.stop();
+        System.exit(0);
+    }
+
+    private static long[] collectLatencies(List<BrowserClient> clients) {
+        int total = 0;
+        for (BrowserClient client : clients) {
+            total += client.latencyCount;
+        }
+        long[] all = new long[total];
+        int offset = 0;
+        for (BrowserClient client : clients) {
+            System.arraycopy(client.latencies, 0, all, offset, client.latencyCount);
+            offset += client.latencyCount;
+        }
+        Arrays.sort(all);
+        return all;
+    }
+
+    private static long percentile(long[] sorted, int p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) ((long) sorted.length * p / 100))];
+    }
+
+    /**
+     * A simulated browser: tracks sequence numbers and, for each frame, the
+     * latency of its newest MOISTURE_READING.
+     */
+    private static class BrowserClient implements WebSocket.Listener {
+        private final CountDownLatch snapshotLatch;
+        private final long createdNanos = System.nanoTime();
+        private final StringBuilder partial = new StringBuilder();
+        private final AtomicLong frames = new AtomicLong();
+        private final AtomicLong gaps = new AtomicLong();
+        private volatile long snapshotNanos;
+        private long lastSeq = -1;
+        private long[] latencies = new long[1024];
+        private int latencyCount = 0;
+
+        BrowserClient(CountDownLatch snapshotLatch) {
+            this.snapshotLatch = snapshotLatch;
+        }
+
+        @Override
+        public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+            partial.append(data);
+            if (last) {
+                handle(partial.toString(), System.nanoTime());
+                partial.setLength(0);
+            }
+            webSocket.request(1);
+            return null;
+        }
+
+        private void handle(String message, long receivedNanos) {
+            if (message.startsWith("{\"type\":\"SNAPSHOT\"")) {
+                lastSeq = parseSeq(message);
+                if (snapshotNanos == 0) {
+                    snapshotNanos = receivedNanos - createdNanos;
+                    snapshotLatch.countDown();
+                }
+            } else if (message.startsWith("{\"type\":\"FRAME\"")) {
+                long seq = parseSeq(message);
+                if (seq <= lastSeq) {
+                    return;
+                }
+                if (lastSeq >= 0 && seq != lastSeq + 1) {
+                    gaps.incrementAndGet();
+                }
+                lastSeq = seq;
+                frames.incrementAndGet();
+
+                int at = message.lastIndexOf(NANOS_MARKER);
+                if (at >= 0) {
+                    int start = at + NANOS_MARKER.length();
+                    int end = start;
+                    while (Character.isDigit(message.charAt(end))) {
+                        end++;
+                    }
+                    recordLatency(receivedNanos - Long.parseLong(message.substring(start, end)));
+                }
+            }
+        }
+
+        private void recordLatency(long nanos) {
+            if (latencyCount == latencies.length) {
+                latencies = Arrays.copyOf(latencies, latencyCount * 2);
+            }
+            latencies[latencyCount++] = nanos;
+        }
+
+        private static long parseSeq(String message) {
+            int start = message.indexOf("\"seq\":") + 6;
+            int end = message.indexOf(',', start);
+            return Long.parseLong(message.substring(start, end));
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.farm.bench;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import com.farm.storage.SampleBuffer;
+import com.farm.storage.TimeSeries;
+import com.farm.storage.TimeSeriesStore;
+
+/**
+ * TimeSeriesBenchmark - Bytes per sample and query latency of the embedded
+ * time-series store for one month of 1-second data.
+ *
+ * Series shapes:
+ * - moisture: integer random walk (like SoilSensorAgent)
+ * - temperature: 0.1-degree rounded drift (like WeatherServiceAgent)
+ * - noisy: full-precision random doubles (worst case for XOR compression)
+ *
+ * Timestamps get 0-3 ms of scheduling jitter. Every series is decoded once
+ * and compared with the input before timing queries.
+ *
+ * Usage: java com.farm.bench.TimeSeriesBenchmark [days]
+ */
+public class TimeSeriesBenchmark {
+
+    private static final int QUERY_RUNS = 21;
+
+    public static void main(String[] args) {
+        int days = args.length > 0 ? Integer.parseInt(args[0]) : 30;
+        int samples = days * 86_400;
+
+        System.out.println("============================================================");
+        System.out.println("       TIME-SERIES STORE BENCHMARK (" + samples + " samples, 1 s)");
+        System.out.println("============================================================");
+
+        for (String shape : new String[] { "moisture", "temperature", "noisy" }) {
+            run(shape, samples);
+        }
+    }
+
+    private static void run(String shape, int samples) {
+        Random random = new Random(1);
+        TimeSeries series = new TimeSeries(shape, TimeSeriesStore.CHUNK_CAPACITY, TimeSeriesStore.MAX_CHUNKS);
+
+        long[] timestamps = new long[samples];
+        double[] values = new double[samples];
+        long t = 1_700_000_000_000L;
+        double v = 50;
+
+        for (int i = 0; i < samples; i++) {
+            t += 1000;
+            timestamps[i] = t + random.nextInt(4);
+            switch (shape) {
+                case "moisture":
+                    if (random.nextInt(8) == 0) {
+                        v = Math.max(0, Math.min(100, v + random.nextInt(11) - 5));
+                    }
+                    values[i] = v;
+                    break;
+                case "temperature":
+                    v = Math.round((v * 10 + random.nextInt(3) - 1)) / 10.0;
+                    values[i] = v;
+                    break;
+                default:
+                    values[i] = random.nextDouble() * 100;
+            }
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < samples; i++) {
+            series.append(timestamps[i], values[i]);
+        }
+        double appendNs = (System.nanoTime() - start) / (double) samples;
+
+        // Round-trip check
+        SampleBuffer all = series.query(Long.MIN_VALUE, Long.MAX_VALUE);
+        boolean exact = all.size() == samples;
+        for (int i = 0; exact && i < samples; i++) {
+            exact = all.timestampAt(i) == timestamps[i] && all.valueAt(i) == values[i];
+        }
+
+        long last = timestamps[samples - 1];
+        double monthMs = medianQueryMs(series, timestamps[0], last, 1000);
+        double dayMs = medianQueryMs(series, last - 86_400_000L, last, 500);
+        double hourMs = medianQueryMs(series, last - 3_600_000L, last, 500);
+
+        System.out.println();
+        System.out.println("[" + shape + "] round-trip " + (exact ? "exact" : "MISMATCH"));
+        System.out.printf("  bytes/sample: %.3f (raw 16.0), total %d KB%n",
+                series.getBytesPerSample(), series.getCompressedBytes() / 1024);
+        System.out.printf("  append: %.1f ns/sample%n", appendNs);
+        System.out.printf("  query full range -> 1000 pts: %.2f ms%n", monthMs);
+        System.out.printf("  query last day   ->  500 pts: %.2f ms%n", dayMs);
+        System.out.printf("  query last hour  ->  500 pts: %.2f ms%n", hourMs);
+    }
+
+    private static double medianQueryMs(TimeSeries series, long from, long to, int points) {
+        double[] runs = new double[QUERY_RUNS];
+        for (int i = 0; i < QUERY_RUNS; i++) {
+            long start = System.nanoTime();
+            series.query(from, to, points);
+            runs[i] = (System.nanoTime() - start) / 1_000_000.0;
+        }
+        Arrays.sort(runs);
+        return runs[QUERY_RUNS / 2];
+    }
+}
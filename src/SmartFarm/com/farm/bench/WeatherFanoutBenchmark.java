@@ -0,0 +1,92 @@
+package com.farm.bench;
+
+import jade.core.AID;
+
+import java.util.EnumSet;
+import java.util.Random;
+
+import com.farm.helpers.WeatherTopicPublisher;
+import com.farm.helpers.WeatherTopicPublisher.Topic;
+
+/**
+ * WeatherFanoutBenchmark - Compares the legacy weather broadcast (one full
+ * message per subscriber per tick) with topic-based fan-out and deadband
+ * suppression.
+ *
+ * Runs without a JADE platform: messages are built exactly as the
+ * WeatherServiceAgent builds them, but counted instead of sent.
+ *
+ * Usage: java com.farm.bench.WeatherFanoutBenchmark [ticks]
+ */
+public class WeatherFanoutBenchmark {
+
+    private static final String[] FORECASTS = { "Clear", "Cloudy", "Rain", "Storm" };
+    private static final int[] RAIN_CHANCE = { 10, 40, 80, 95 };
+    private static final int REGIONS = 4;
+
+    public static void main(String[] args) {
+        int ticks = args.length > 0 ? Integer.parseInt(args[0]) : 360; // one hour at 10 s ticks
+
+        System.out.println("============================================================");
+        System.out.println("       WEATHER FAN-OUT BENCHMARK (" + ticks + " ticks, " + REGIONS + " regions)");
+        System.out.println("============================================================");
+        System.out.printf("%-12s %-14s %-14s %-14s %-12s %-12s%n",
+                "Subscribers", "Legacy msgs", "Topic msgs", "Deliveries", "Suppressed", "us/tick");
+
+        for (int subscribers : new int[] { 100, 500, 1000, 5000 }) {
+            run(subscribers, ticks);
+        }
+    }
+
+    private static void run(int subscriberCount, int ticks) {
+        Random random = new Random(42);
+        WeatherTopicPublisher publisher = new WeatherTopicPublisher();
+
+        int[] weather = new int[REGIONS];
+        double[] temperature = new double[REGIONS];
+        for (int r = 0; r < REGIONS; r++) {
+            temperature[r] = 22.0;
+        }
+
+        // Mix of field (all topics, coarse deadbands) and controller (forecast only) subscribers
+        for (int i = 0; i < subscriberCount; i++) {
+            String region = "region-" + (i % REGIONS);
+            EnumSet<Topic> topics = (i % 5 == 0)
+                    ? EnumSet.of(Topic.FORECAST)
+                    : EnumSet.allOf(Topic.class);
+            int rainDeadband = 5 + random.nextInt(11);
+            double tempDeadband = 0.5 + random.nextInt(4) * 0.5;
+            publisher.subscribe(new WeatherTopicPublisher.Subscription(
+                    new AID("Field-" + i + "@bench", AID.ISGUID), region, topics, rainDeadband, tempDeadband),
+                    null, -1, Double.NaN);
+        }
+
+        long legacyMessages = 0;
+        long elapsed = 0;
+
+        for (int tick = 0; tick < ticks; tick++) {
+            for (int r = 0; r < REGIONS; r++) {
+                if (random.nextDouble() < 0.3) {
+                    weather[r] = random.nextInt(FORECASTS.length);
+                }
+                double drift = weather[r] == 0 ? 0.4 : (weather[r] >= 2 ? -0.6 : 0.0);
+                double next = temperature[r] + drift + (random.nextDouble() - 0.5) * 0.4;
+                temperature[r] = Math.max(5.0, Math.min(40.0, next));
+                temperature[r] = Math.round(temperature[r] * 10.0) / 10.0;
+            }
+
+            long start = System.nanoTime();
+            for (int r = 0; r < REGIONS; r++) {
+                publisher.publish("region-" + r, FORECASTS[weather[r]], RAIN_CHANCE[weather[r]], temperature[r]);
+            }
+            elapsed += System.nanoTime() - start;
+
+            // Legacy: one message per subscriber plus three hardcoded agents, every tick
+            legacyMessages += subscriberCount + 3;
+        }
+
+        System.out.printf("%-12d %-14d %-14d %-14d %-12d %-12.1f%n",
+                subscriberCount, legacyMessages, publisher.getMessagesSent(), publisher.getDeliveries(),
+                publisher.getSuppressed(), elapsed / 1000.0 / ticks);
+    }
+}
@@ -0,0 +1,376 @@
+package com.farm.gui;
+
+import io.javalin.websocket.WsContext;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * StreamHub - Snapshot-plus-delta fan-out behind the /stream WebSocket.
+ *
+ * Protocol:
+ * - On connect a client receives one SNAPSHOT carrying the latest message of
+ * every known entity (fields, sensors, drones, agents, weather, BDI, ...)
+ * - Afterwards it receives one FRAME every FRAME_INTERVAL_MS with a
+ * sequence number. State messages are coalesced per entity (only the newest
+ * one per frame survives); other events (interactions, CNP steps, alerts)
+ * are kept in order. Within a frame the entity updates come first, then the
+ * events, so an event does not keep its position relative to state updates
+ * - A frame holds at most MAX_EVENTS_PER_FRAME events. When more were
+ * published, the rest are dropped and the frame skips a sequence number, so
+ * clients see a gap
+ * - A client that sees a sequence gap sends {"command":"RESYNC"} and gets a
+ * fresh snapshot
+ *
+ * Every frame is encoded once and shared by all clients. Sending is
+ * asynchronous per client with at most one write in flight; a client whose
+ * backlog exceeds MAX_PENDING_FRAMES is switched to a snapshot instead of
+ * queueing more deltas, so a slow browser never blocks agents or other
+ * clients.
+ */
+public class StreamHub {
+
+    public static final long FRAME_INTERVAL_MS = 100;
+    private static final int MAX_PENDING_FRAMES = 50;
+    private static final int MAX_EVENTS_PER_FRAME = 2000;
+
+    // State event type -> JSON field identifying the entity ("" = single entity)
+    private static final Map<String, String> ENTITY_KEYS = new HashMap<>();
+    // Event types sharing one entity (e.g. an agent is either started or stopped)
+    private static final Map<String, String> ENTITY_FAMILIES = new HashMap<>();
+
+    static {
+        ENTITY_KEYS.put("FIELD_UPDATE", "id");
+        ENTITY_KEYS.put("MOISTURE_READING", "fieldId");
+        ENTITY_KEYS.put("MOISTURE_BATCH", "gateway");
+        ENTITY_KEYS.put("DRONE_MOVE", "droneId");
+        ENTITY_KEYS.put("SUPPLIER_QUOTE", "supplier");
+        ENTITY_KEYS.put("AGENT_START", "agent");
+        ENTITY_KEYS.put("AGENT_STOP", "agent");
+        ENTITY_KEYS.put("WEATHER_UPDATE", "");
+        ENTITY_KEYS.put("PREDICTION_UPDATE", "");
+        ENTITY_KEYS.put("ECONOMY_UPDATE", "");
+        ENTITY_KEYS.put("BDI_UPDATE", "");
+        ENTITY_KEYS.put("SUPPLIER_UPDATE", "");
+        ENTITY_KEYS.put("CONTROLLER_STATS", "");
+        ENTITY_KEYS.put("SIM_CLOCK", "");
+
+        ENTITY_FAMILIES.put("AGENT_START", "AGENT");
+        ENTITY_FAMILIES.put("AGENT_STOP", "AGENT");
+    }
+
+    private final Object lock = new Object();
+    private final Map<String, String> latestByEntity = new LinkedHashMap<>();
+    private final Set<String> dirtyEntities = new LinkedHashSet<>();
+    private final List<String> pendingEvents = new ArrayList<>();
+    private boolean eventsDropped = false; // in the frame being collected
+    private long sequence = 0;
+
+    private final Set<ClientSession> clients = ConcurrentHashMap.newKeySet();
+    private final Map<WsContext, ClientSession> sessionsByContext = new ConcurrentHashMap<>();
+    private ScheduledExecutorService scheduler;
+
+    // Statistics
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong droppedEvents = new AtomicLong();
+    private final AtomicLong framesBuilt = new AtomicLong();
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong bytesWritten = new AtomicLong();
+    private final AtomicLong resyncs = new AtomicLong();
+
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "stream-hub-frames");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleAtFixedRate(this::flushFrame, FRAME_INTERVAL_MS, FRAME_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Send the last frame and stop the frame loop.
+     */
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            try {
+                scheduler.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            flushFrame();
+        }
+    }
+
+    /**
+     * Queue an already encoded message for the next frame.
+     */
+    public void publish(String eventType, String data, String encodedMessage) {
+        published.incrementAndGet();
+        String entity = entityOf(eventType, data);
+
+        synchronized (lock) {
+            if (entity != null) {
+                latestByEntity.put(entity, encodedMessage);
+                if (!dirtyEntities.add(entity)) {
+                    coalesced.incrementAndGet();
+                }
+            } else if (pendingEvents.size() < MAX_EVENTS_PER_FRAME) {
+                pendingEvents.add(encodedMessage);
+            } else {
+                eventsDropped = true;
+                droppedEvents.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Register a client: the welcome message goes first, then the snapshot.
+     * The session joins the frame fan-out before its snapshot is taken, and
+     * skips every frame not newer than that snapshot.
+     */
+    public void addClient(WsContext ctx, String welcomeMessage) {
+        ClientSession session = new ClientSession(ctx);
+        session.snapshotSequence = Long.MAX_VALUE;
+        sessionsByContext.put(ctx, session);
+        session.enqueue(welcomeMessage);
+        clients.add(session);
+        sendSnapshot(session);
+    }
+
+    public void removeClient(WsContext ctx) {
+        ClientSession session = sessionsByContext.remove(ctx);
+        if (session != null) {
+            session.closed = true;
+            clients.remove(session);
+        }
+    }
+
+    /**
+     * Client-requested resync after it noticed a sequence gap.
+     */
+    public void requestSnapshot(WsContext ctx) {
+        ClientSession session = sessionsByContext.get(ctx);
+        if (session != null) {
+            session.needsSnapshot = true;
+        }
+    }
+
+    /**
+     * Queued under the state lock so no newer frame can be queued before it.
+     */
+    private void sendSnapshot(ClientSession session) {
+        synchronized (lock) {
+            StringBuilder json = new StringBuilder(256 + latestByEntity.size() * 128);
+            json.append("{\"type\":\"SNAPSHOT\",\"seq\":").append(sequence).append(",\"messages\":[");
+            appendJoined(json, latestByEntity.values());
+            json.append("]}");
+
+            session.needsSnapshot = false;
+            session.snapshotSequence = sequence;
+            session.enqueue(json.toString());
+        }
+        resyncs.incrementAndGet();
+    }
+
+    /**
+     * Build one frame from everything published since the last one and hand
+     * it to every client. Runs on the frame thread.
+     */
+    void flushFrame() {
+        String frame;
+        long frameSequence;
+
+        synchronized (lock) {
+            if (dirtyEntities.isEmpty() && pendingEvents.isEmpty()) {
+                frame = null;
+                frameSequence = sequence;
+            } else {
+                if (eventsDropped) {
+                    // Leave a gap where the dropped events would have been
+                    sequence++;
+                    eventsDropped = false;
+                }
+                frameSequence = ++sequence;
+                List<String> messages = new ArrayList<>(dirtyEntities.size() + pendingEvents.size());
+                for (String entity : dirtyEntities) {
+                    messages.add(latestByEntity.get(entity));
+                }
+                messages.addAll(pendingEvents);
+                dirtyEntities.clear();
+                pendingEvents.clear();
+
+                StringBuilder json = new StringBuilder(64 + messages.size() * 160);
+                json.append("{\"type\":\"FRAME\",\"seq\":").append(frameSequence).append(",\"messages\":[");
+                appendJoined(json, messages);
+                json.append("]}");
+                frame = json.toString();
+                framesBuilt.incrementAndGet();
+            }
+        }
+
+        for (ClientSession session : clients) {
+            if (session.needsSnapshot) {
+                sendSnapshot(session);
+            } else if (frame != null && frameSequence > session.snapshotSequence) {
+                session.enqueue(frame);
+            }
+        }
+    }
+
+    private static void appendJoined(StringBuilder json, Collection<String> messages) {
+        boolean first = true;
+        for (String message : messages) {
+            if (!first)
+                json.append(",");
+            json.append(message);
+            first = false;
+        }
+    }
+
+    /**
+     * Entity key for state events, or null for plain events.
+     */
+    static String entityOf(String eventType, String data) {
+        String keyField = ENTITY_KEYS.get(eventType);
+        if (keyField == null) {
+            return null;
+        }
+        String family = ENTITY_FAMILIES.getOrDefault(eventType, eventType);
+        if (keyField.isEmpty()) {
+            return family;
+        }
+        return family + ":" + extractValue(data, keyField);
+    }
+
+    /**
+     * Read a top-level scalar value from a flat JSON object without parsing
+     * the whole document.
+     */
+    static String extractValue(String json, String field) {
+        String marker = "\"" + field + "\":";
+        int start = json.indexOf(marker);
+        if (start < 0) {
+            return "";
+        }
+        start += marker.length();
+        int end = start;
+        while (end < json.length() && json.charAt(end) != ',' && json.charAt(end) != '}') {
+            end++;
+        }
+        String value = json.substring(start, end).trim();
+        if (value.length() >= 2 && value.charAt(0) == '"') {
+            value = value.substring(1, value.length() - 1);
+        }
+        return value;
+    }
+
+    public int getClientCount() {
+        return clients.size();
+    }
+
+    public long getPublished() {
+        return published.get();
+    }
+
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    public long getDroppedEvents() {
+        return droppedEvents.get();
+    }
+
+    public long getFramesBuilt() {
+        return framesBuilt.get();
+    }
+
+    public long getWrites() {
+        return writes.get();
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten.get();
+    }
+
+    public long getSnapshotsSent() {
+        return resyncs.get();
+    }
+
+    /**
+     * One connected browser: a bounded queue with at most one asynchronous
+     * write in flight.
+     */
+    private class ClientSession implements WriteCallback {
+        private final WsContext ctx;
+        private final ArrayDeque<String> pending = new ArrayDeque<>();
+        private boolean writing = false;
+        volatile boolean needsSnapshot = false;
+        volatile boolean closed = false;
+        volatile long snapshotSequence = 0;
+
+        ClientSession(WsContext ctx) {
+            this.ctx = ctx;
+        }
+
+        void enqueue(String message) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                if (writing) {
+                    if (pending.size() >= MAX_PENDING_FRAMES) {
+                        // Too far behind: drop the backlog and resync from a snapshot
+                        pending.clear();
+                        needsSnapshot = true;
+                        return;
+                    }
+                    pending.add(message);
+                    return;
+                }
+                writing = true;
+            }
+            write(message);
+        }
+
+        private void write(String message) {
+            writes.incrementAndGet();
+            bytesWritten.addAndGet(message.length());
+            try {
+                ctx.session.getRemote().sendString(message, this);
+            } catch (RuntimeException e) {
+                writeFailed(e);
+            }
+        }
+
+        @Override
+        public void writeSuccess() {
+            String next;
+            synchronized (this) {
+                next = pending.poll();
+                if (next == null) {
+                    writing = false;
+                    return;
+                }
+            }
+            write(next);
+        }
+
+        @Override
+        public void writeFailed(Throwable cause) {
+            System.err.println("[WebServer] Failed to send to client, removing: " + cause.getMessage());
+            synchronized (this) {
+                closed = true;
+                pending.clear();
+            }
+            clients.remove(this);
+            sessionsByContext.remove(ctx);
+        }
+    }
+}
@@ -2,12 +2,17 @@ package com.farm.gui;
 
 import io.javalin.Javalin;
 import io.javalin.http.staticfiles.Location;
-import io.javalin.websocket.WsContext;
 
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import com.farm.sim.SimulationClock;
+import com.farm.storage.Lttb;
+import com.farm.storage.SampleBuffer;
+import com.farm.storage.TimeSeries;
+import com.farm.storage.TimeSeriesStore;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
 
 /**
  * WebServer V2 - Enhanced Javalin-based web server with advanced agent
@@ -16,7 +21,8 @@ import java.util.concurrent.ConcurrentHashMap;
  * Features:
  * - HTTP server on port 8080
  * - Static file serving from /public folder
- * - WebSocket endpoint at /stream for real-time updates
+ * - WebSocket endpoint at /stream for real-time updates (snapshot on connect,
+ * then sequence-numbered delta frames, see StreamHub)
  * - Agent interaction logging with type badges
  * - GUI command system for agent-controlled elements
  * - BDI mind viewer updates
@@ -26,18 +32,28 @@ import java.util.concurrent.ConcurrentHashMap;
 public class WebServer {
 
     private static Javalin app;
-    private static final Set<WsContext> connectedClients = ConcurrentHashMap.newKeySet();
-    private static final SimpleDateFormat dateFormat = new SimpleDateFormat("HH:mm:ss.SSS");
-    private static boolean isRunning = false;
+    private static final StreamHub hub = new StreamHub();
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss.SSS")
+            .withZone(ZoneId.systemDefault());
+    private static volatile CachedTimestamp cachedTimestamp = new CachedTimestamp(0, "");
+    private static volatile boolean isRunning = false;
 
-    // Simulation state
-    private static int simulationSpeed = 1;
-    private static boolean simulationRunning = false;
+    // Bounds of an /api/series query, so one request cannot serialize a month of raw samples
+    private static final int MIN_SERIES_POINTS = 3;
+    private static final int MAX_SERIES_POINTS = 10_000;
+    private static final long MAX_SERIES_RANGE_MS = 24 * 3600_000L;
 
     /**
      * Start the web server on port 8080.
      */
     public static void start() {
+        start(8080);
+    }
+
+    /**
+     * Start the web server on the given port.
+     */
+    public static void start(int port) {
         if (isRunning) {
             System.out.println("[WebServer] Already running!");
             return;
@@ -62,40 +78,83 @@ public class WebServer {
         // WebSocket endpoint for real-time updates
         app.ws("/stream", ws -> {
             ws.onConnect(ctx -> {
-                connectedClients.add(ctx);
-                System.out.println("[WebServer] Client connected. Total clients: " + connectedClients.size());
-
-                // Send welcome message
+                // Welcome message, then a full state snapshot, then delta frames
                 String welcomeMsg = buildJsonMessage("CONNECTION",
                         "{\"status\":\"connected\",\"message\":\"Welcome to Smart Farm V2!\",\"clients\":"
-                                + connectedClients.size() + "}");
-                ctx.send(welcomeMsg);
+                                + (hub.getClientCount() + 1) + "}");
+                hub.addClient(ctx, welcomeMsg);
+                System.out.println("[WebServer] Client connected. Total clients: " + hub.getClientCount());
             });
 
             ws.onClose(ctx -> {
-                connectedClients.remove(ctx);
-                System.out.println("[WebServer] Client disconnected. Total clients: " + connectedClients.size());
+                hub.removeClient(ctx);
+                System.out.println("[WebServer] Client disconnected. Total clients: " + hub.getClientCount());
             });
 
             ws.onMessage(ctx -> {
                 String message = ctx.message();
+                if (message.contains("RESYNC")) {
+                    hub.requestSnapshot(ctx);
+                    return;
+                }
                 System.out.println("[WebServer] Received from client: " + message);
                 handleClientMessage(message);
             });
 
             ws.onError(ctx -> {
                 System.err.println("[WebServer] WebSocket error: " + ctx.error());
-                connectedClients.remove(ctx);
+                hub.removeClient(ctx);
             });
         });
 
         // API endpoint for system info
         app.get("/api/status", ctx -> {
-            ctx.json(new SystemStatus(connectedClients.size(), isRunning));
+            ctx.json(new SystemStatus(hub.getClientCount(), isRunning));
+        });
+
+        // Historical series: /api/series?id=&from=&to=&points=
+        app.get("/api/series", ctx -> {
+            String id = ctx.queryParam("id");
+            if (id == null || id.isEmpty()) {
+                ctx.contentType("application/json").result(buildSeriesListJson());
+                return;
+            }
+
+            TimeSeries series = TimeSeriesStore.get(id);
+            if (series == null) {
+                ctx.status(404).contentType("application/json")
+                        .result("{\"error\":\"Unknown series: " + escapeJson(id) + "\"}");
+                return;
+            }
+
+            long from;
+            long to;
+            long points;
+            try {
+                to = parseLongParam(ctx.queryParam("to"), SimulationClock.now());
+                from = parseLongParam(ctx.queryParam("from"), to - 3600_000L);
+                points = parseLongParam(ctx.queryParam("points"), 500);
+            } catch (NumberFormatException e) {
+                ctx.status(400).contentType("application/json")
+                        .result("{\"error\":\"from, to and points must be integers\"}");
+                return;
+            }
+            if (points < MIN_SERIES_POINTS || points > MAX_SERIES_POINTS) {
+                ctx.status(400).contentType("application/json").result("{\"error\":\"points must be between "
+                        + MIN_SERIES_POINTS + " and " + MAX_SERIES_POINTS + "\"}");
+                return;
+            }
+            if (from > to || to - from > MAX_SERIES_RANGE_MS) {
+                ctx.status(400).contentType("application/json").result("{\"error\":\"from must not be after to, "
+                        + "and the range may span at most " + MAX_SERIES_RANGE_MS + " ms\"}");
+                return;
+            }
+            ctx.contentType("application/json").result(buildSeriesJson(series, from, to, (int) points));
         });
 
         // Start server
-        app.start(8080);
+        app.start(port);
+        hub.start();
         isRunning = true;
 
         System.out.println("============================================================");
@@ -114,21 +173,17 @@ public class WebServer {
         try {
             // Simple JSON parsing for commands
             if (message.contains("START_SIMULATION")) {
-                simulationRunning = true;
-                System.out.println("[WebServer] Simulation started");
+                SimulationClock.resume();
             } else if (message.contains("PAUSE_SIMULATION")) {
-                simulationRunning = false;
-                System.out.println("[WebServer] Simulation paused");
+                SimulationClock.pause();
+            } else if (message.contains("STEP_SIMULATION")) {
+                // {"command":"STEP_SIMULATION","ms":60000}
+                SimulationClock.step((long) parseNumberField(message, "ms", 1000));
             } else if (message.contains("SET_SPEED")) {
-                // Extract speed from message
-                if (message.contains("\"speed\":1"))
-                    simulationSpeed = 1;
-                else if (message.contains("\"speed\":2"))
-                    simulationSpeed = 2;
-                else if (message.contains("\"speed\":5"))
-                    simulationSpeed = 5;
-                System.out.println("[WebServer] Simulation speed: " + simulationSpeed + "x");
+                // {"command":"SET_SPEED","speed":100}
+                SimulationClock.setSpeed(parseNumberField(message, "speed", SimulationClock.getSpeed()));
             }
+            WebServer.broadcast("SIM_CLOCK", SimulationClock.toJson());
         } catch (Exception e) {
             System.err.println("[WebServer] Error handling client message: " + e.getMessage());
         }
@@ -141,6 +196,7 @@ public class WebServer {
         if (app != null && isRunning) {
             // Notify all clients
             broadcast("SERVER_SHUTDOWN", "{\"message\":\"Server shutting down...\"}");
+            hub.stop();
 
             app.stop();
             isRunning = false;
@@ -152,27 +208,20 @@ public class WebServer {
      * Broadcast a message to all connected WebSocket clients.
      * This is the bridge method that agents call to send events to the UI.
      * 
+     * The message is only queued here: state updates are coalesced per entity
+     * and everything goes out in the next frame, so agent threads never wait
+     * on a socket. State is kept even with no client connected so that new
+     * clients start from a complete snapshot.
+     * 
      * @param eventType Type of event (e.g., "MOISTURE_READING", "DRONE_MOVING",
      *                  "CNP_PROPOSAL")
      * @param data      JSON data string
      */
     public static void broadcast(String eventType, String data) {
-        if (!isRunning || connectedClients.isEmpty()) {
+        if (!isRunning) {
             return;
         }
-
-        String jsonMessage = buildJsonMessage(eventType, data);
-
-        // Thread-safe iteration and sending
-        connectedClients.removeIf(ctx -> {
-            try {
-                ctx.send(jsonMessage);
-                return false; // Keep this client
-            } catch (Exception e) {
-                System.err.println("[WebServer] Failed to send to client, removing: " + e.getMessage());
-                return true; // Remove this client
-            }
-        });
+        hub.publish(eventType, data, buildJsonMessage(eventType, data));
     }
 
     // ==================== NEW V2 METHODS ====================
@@ -273,14 +322,102 @@ public class WebServer {
         broadcast("SUPPLIER_UPDATE", suppliersJson);
     }
 
+    // ==================== SERIES QUERIES ====================
+
+    private static String buildSeriesListJson() {
+        StringBuilder json = new StringBuilder("{\"series\":[");
+        boolean first = true;
+        for (String id : TimeSeriesStore.getSeriesIds()) {
+            TimeSeries series = TimeSeriesStore.get(id);
+            if (!first)
+                json.append(",");
+            json.append("{\"id\":\"").append(escapeJson(id))
+                    .append("\",\"samples\":").append(series.getSampleCount())
+                    .append(",\"bytes\":").append(series.getCompressedBytes()).append("}");
+            first = false;
+        }
+        return json.append("]}").toString();
+    }
+
+    private static String buildSeriesJson(TimeSeries series, long from, long to, int points) {
+        long start = System.nanoTime();
+        SampleBuffer raw = series.query(from, to);
+        SampleBuffer sampled = Lttb.downsample(raw, points);
+        double queryMs = (System.nanoTime() - start) / 1_000_000.0;
+
+        StringBuilder json = new StringBuilder(64 + sampled.size() * 24);
+        json.append("{\"id\":\"").append(escapeJson(series.getId()))
+                .append("\",\"from\":").append(from)
+                .append(",\"to\":").append(to)
+                .append(",\"rawSamples\":").append(raw.size())
+                .append(",\"bytesPerSample\":").append(String.format(Locale.ROOT, "%.2f", series.getBytesPerSample()))
+                .append(",\"queryMs\":").append(String.format(Locale.ROOT, "%.2f", queryMs))
+                .append(",\"points\":[");
+        for (int i = 0; i < sampled.size(); i++) {
+            if (i > 0)
+                json.append(",");
+            json.append("[").append(sampled.timestampAt(i)).append(",").append(sampled.valueAt(i)).append("]");
+        }
+        return json.append("]}").toString();
+    }
+
+    private static long parseLongParam(String value, long defaultValue) {
+        return value == null || value.isEmpty() ? defaultValue : Long.parseLong(value);
+    }
+
+    /**
+     * Numeric value of "field": in a flat client command, or the default.
+     */
+    private static double parseNumberField(String message, String field, double defaultValue) {
+        int start = message.indexOf("\"" + field + "\":");
+        if (start < 0) {
+            return defaultValue;
+        }
+        start += field.length() + 3;
+        int end = start;
+        while (end < message.length() && "0123456789.-".indexOf(message.charAt(end)) >= 0) {
+            end++;
+        }
+        try {
+            return Double.parseDouble(message.substring(start, end));
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
     // ==================== UTILITY METHODS ====================
 
     /**
      * Build a JSON message with type, data, and timestamp.
      */
     private static String buildJsonMessage(String eventType, String data) {
-        String timestamp = dateFormat.format(new Date());
-        return "{\"type\":\"" + eventType + "\",\"data\":" + data + ",\"timestamp\":\"" + timestamp + "\"}";
+        return "{\"type\":\"" + eventType + "\",\"data\":" + data + ",\"timestamp\":\"" + formatTimestamp()
+                + "\"}";
+    }
+
+    /**
+     * Thread-safe "HH:mm:ss.SSS" of the current time. The formatted string is
+     * cached for the current millisecond, so bursts from many agent threads
+     * format it only once.
+     */
+    static String formatTimestamp() {
+        long now = System.currentTimeMillis();
+        CachedTimestamp cached = cachedTimestamp;
+        if (cached.millis != now) {
+            cached = new CachedTimestamp(now, TIME_FORMAT.format(Instant.ofEpochMilli(now)));
+            cachedTimestamp = cached;
+        }
+        return cached.text;
+    }
+
+    private static final class CachedTimestamp {
+        final long millis;
+        final String text;
+
+        CachedTimestamp(long millis, String text) {
+            this.millis = millis;
+            this.text = text;
+        }
     }
 
     /**
@@ -300,7 +437,14 @@ public class WebServer {
      * Get the number of connected clients.
      */
     public static int getClientCount() {
-        return connectedClients.size();
+        return hub.getClientCount();
+    }
+
+    /**
+     * Frame/fan-out statistics of the WebSocket stream.
+     */
+    public static StreamHub getStreamHub() {
+        return hub;
     }
 
     /**
@@ -311,17 +455,17 @@ public class WebServer {
     }
 
     /**
-     * Get current simulation speed multiplier.
+     * Get the requested simulation speed multiplier.
      */
-    public static int getSimulationSpeed() {
-        return simulationSpeed;
+    public static double getSimulationSpeed() {
+        return SimulationClock.getSpeed();
     }
 
     /**
-     * Check if simulation is running.
+     * Check if simulation time is running (not paused).
      */
     public static boolean isSimulationRunning() {
-        return simulationRunning;
+        return !SimulationClock.isPaused();
     }
 
     /**
@@ -336,7 +480,7 @@ public class WebServer {
         public SystemStatus(int clients, boolean running) {
             this.connectedClients = clients;
             this.serverRunning = running;
-            this.timestamp = dateFormat.format(new Date());
+            this.timestamp = formatTimestamp();
         }
     }
 }
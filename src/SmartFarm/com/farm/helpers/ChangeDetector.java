@@ -0,0 +1,128 @@
+package com.farm.helpers;
+
+/**
+ * ChangeDetector - Online change-point detection for one sensor stream in
+ * O(1) memory.
+ *
+ * Keeps:
+ * - An EWMA of the readings and of their squared deviation, i.e. the
+ * stream's noise level sigma (never below minSigma)
+ * - The last reported level, which is what consumers believe
+ * - A two-sided CUSUM of (reading - level) / sigma, with each term clipped
+ * to +-CLIP so a single outlier cannot trip it
+ *
+ * update() returns CHANGE when either CUSUM sum passes h: the stream has
+ * moved off the reported level by more than k sigma for long enough. The
+ * new level is the mean of the readings since that sum last left zero
+ * (the change point estimate), and both sums restart. A reading
+ * more than OUTLIER_Z sigma off the running mean that does not (yet) move
+ * the level is an OUTLIER; everything else is NONE. The first reading is
+ * always a CHANGE.
+ *
+ * Not thread-safe: one detector per stream, owned by one agent.
+ */
+public class ChangeDetector {
+
+    public enum Signal {
+        NONE, CHANGE, OUTLIER
+    }
+
+    private static final double CLIP = 3.0;
+    private static final double OUTLIER_Z = 4.0;
+
+    private final double alpha;
+    private final double k;
+    private final double h;
+    private final double minVariance;
+
+    private double mean;
+    private double variance;
+    private double level;
+    private double upper = 0;
+    private double lower = 0;
+    // Readings, and their total, since each sum last left zero
+    private int upperRun = 0;
+    private int lowerRun = 0;
+    private double upperTotal = 0;
+    private double lowerTotal = 0;
+    private boolean started = false;
+
+    /**
+     * @param alpha    EWMA weight of a new reading (0..1)
+     * @param k        CUSUM slack in sigmas; drifts smaller than this are noise
+     * @param h        CUSUM decision threshold in sigmas
+     * @param minSigma floor for the noise estimate, in reading units
+     */
+    public ChangeDetector(double alpha, double k, double h, double minSigma) {
+        this.alpha = alpha;
+        this.k = k;
+        this.h = h;
+        this.minVariance = minSigma * minSigma;
+    }
+
+    public Signal update(double value) {
+        if (!started) {
+            started = true;
+            mean = value;
+            variance = minVariance;
+            level = value;
+            return Signal.CHANGE;
+        }
+
+        double sigma = Math.sqrt(variance);
+        double deviation = value - mean;
+        boolean outlier = Math.abs(deviation) > OUTLIER_Z * sigma;
+
+        // Outliers do not pull the noise estimate up
+        mean += alpha * deviation;
+        if (!outlier) {
+            variance = Math.max(minVariance, (1 - alpha) * (variance + alpha * deviation * deviation));
+        }
+
+        double z = Math.max(-CLIP, Math.min(CLIP, (value - level) / sigma));
+        upper = Math.max(0, upper + z - k);
+        lower = Math.max(0, lower - z - k);
+        if (upper > 0) {
+            upperRun++;
+            upperTotal += value;
+        } else {
+            upperRun = 0;
+            upperTotal = 0;
+        }
+        if (lower > 0) {
+            lowerRun++;
+            lowerTotal += value;
+        } else {
+            lowerRun = 0;
+            lowerTotal = 0;
+        }
+
+        if (upper > h || lower > h) {
+            level = upper > h ? upperTotal / upperRun : lowerTotal / lowerRun;
+            mean = level;
+            upper = 0;
+            lower = 0;
+            upperRun = 0;
+            lowerRun = 0;
+            upperTotal = 0;
+            lowerTotal = 0;
+            return Signal.CHANGE;
+        }
+        return outlier ? Signal.OUTLIER : Signal.NONE;
+    }
+
+    /**
+     * The last reported level.
+     */
+    public double getLevel() {
+        return level;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    public double getSigma() {
+        return Math.sqrt(variance);
+    }
+}
@@ -0,0 +1,181 @@
+package com.farm.helpers;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * IrrigationMetrics - Decision throughput and latency of the irrigation
+ * pipeline in FarmControllerAgent.
+ *
+ * A decision is the end of one field's workflow: IGNORE (rain expected),
+ * IRRIGATE (water contract awarded) or FAILED (no supplier / timeout).
+ * Latency runs from the moisture alert to that decision.
+ *
+ * Procurement latency runs from the start of the purchase stage to the
+ * award, split by whether a cached supplier quote was used or a full
+ * Contract Net round was needed.
+ *
+ * Keeps:
+ * - Totals per outcome
+ * - Decision timestamps of the last minute (decisions per minute)
+ * - The most recent LATENCY_WINDOW latencies (p50 / p99)
+ *
+ * Not thread-safe: used from the controller's agent thread only.
+ */
+public class IrrigationMetrics {
+
+    public enum Outcome {
+        IGNORE, IRRIGATE, FAILED
+    }
+
+    private static final long MINUTE_MS = 60_000L;
+    private static final int LATENCY_WINDOW = 1024;
+
+    private final long[] totals = new long[Outcome.values().length];
+    private final ArrayDeque<Long> lastMinute = new ArrayDeque<>();
+    private final LatencyWindow decisionLatency = new LatencyWindow();
+    private final LatencyWindow quoteLatency = new LatencyWindow();
+    private final LatencyWindow contractNetLatency = new LatencyWindow();
+
+    private long coalescedAlerts = 0;
+    private long skippedInspections = 0;
+    private long timeouts = 0;
+    private long quotePurchases = 0;
+    private long contractNetPurchases = 0;
+    private long rejectedQuotes = 0;
+
+    /**
+     * Ring buffer of the most recent latencies.
+     */
+    private static class LatencyWindow {
+        private final long[] values = new long[LATENCY_WINDOW];
+        private int count = 0;
+        private int next = 0;
+
+        void record(long latencyMs) {
+            values[next] = latencyMs;
+            next = (next + 1) % LATENCY_WINDOW;
+            count = Math.min(count + 1, LATENCY_WINDOW);
+        }
+
+        long percentile(int percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long[] sorted = Arrays.copyOf(values, count);
+            Arrays.sort(sorted);
+            return sorted[Math.min(count - 1, count * percentile / 100)];
+        }
+    }
+
+    public void recordDecision(Outcome outcome, long latencyMs, long now) {
+        totals[outcome.ordinal()]++;
+        lastMinute.addLast(now);
+        decisionLatency.record(latencyMs);
+    }
+
+    /**
+     * @param fromQuote true if bought against a cached quote, false for a full
+     *                  Contract Net round
+     */
+    public void recordProcurement(boolean fromQuote, long latencyMs) {
+        if (fromQuote) {
+            quotePurchases++;
+            quoteLatency.record(latencyMs);
+        } else {
+            contractNetPurchases++;
+            contractNetLatency.record(latencyMs);
+        }
+    }
+
+    public void recordRejectedQuote() {
+        rejectedQuotes++;
+    }
+
+    public void recordCoalescedAlert() {
+        coalescedAlerts++;
+    }
+
+    public void recordSkippedInspection() {
+        skippedInspections++;
+    }
+
+    public void recordTimeout() {
+        timeouts++;
+    }
+
+    public int getDecisionsPerMinute(long now) {
+        while (!lastMinute.isEmpty() && lastMinute.peekFirst() <= now - MINUTE_MS) {
+            lastMinute.pollFirst();
+        }
+        return lastMinute.size();
+    }
+
+    /**
+     * @param percentile 0-100
+     * @return latency in ms over the recent window, 0 without decisions
+     */
+    public long getLatencyPercentile(int percentile) {
+        return decisionLatency.percentile(percentile);
+    }
+
+    /**
+     * @return procurement latency in ms for quote purchases (true) or
+     *         Contract Net rounds (false)
+     */
+    public long getProcurementPercentile(boolean fromQuote, int percentile) {
+        return (fromQuote ? quoteLatency : contractNetLatency).percentile(percentile);
+    }
+
+    public long getQuotePurchases() {
+        return quotePurchases;
+    }
+
+    public long getContractNetPurchases() {
+        return contractNetPurchases;
+    }
+
+    public long getRejectedQuotes() {
+        return rejectedQuotes;
+    }
+
+    public long getTotal(Outcome outcome) {
+        return totals[outcome.ordinal()];
+    }
+
+    public long getTotalDecisions() {
+        long total = 0;
+        for (long t : totals) {
+            total += t;
+        }
+        return total;
+    }
+
+    public long getCoalescedAlerts() {
+        return coalescedAlerts;
+    }
+
+    public long getSkippedInspections() {
+        return skippedInspections;
+    }
+
+    public long getTimeouts() {
+        return timeouts;
+    }
+
+    /**
+     * JSON object for the CONTROLLER_STATS dashboard event.
+     */
+    public String toJson(int activeWorkflows, long now) {
+        return String.format(Locale.ROOT,
+                "{\"active\":%d,\"decisionsPerMinute\":%d,\"latencyP50\":%d,\"latencyP99\":%d,"
+                        + "\"irrigated\":%d,\"ignored\":%d,\"failed\":%d,\"coalescedAlerts\":%d,"
+                        + "\"skippedInspections\":%d,\"timeouts\":%d,\"quotePurchases\":%d,"
+                        + "\"contractNetPurchases\":%d,\"quoteP50\":%d,\"contractNetP50\":%d}",
+                activeWorkflows, getDecisionsPerMinute(now), getLatencyPercentile(50), getLatencyPercentile(99),
+                getTotal(Outcome.IRRIGATE), getTotal(Outcome.IGNORE), getTotal(Outcome.FAILED),
+                coalescedAlerts, skippedInspections, timeouts, quotePurchases, contractNetPurchases,
+                quoteLatency.percentile(50), contractNetLatency.percentile(50));
+    }
+}
@@ -0,0 +1,202 @@
+package com.farm.helpers;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * MobilityPlanner - Chooses between migrating a mobile agent and messaging
+ * from home, per destination container, from measured costs.
+ *
+ * Measures, per container:
+ * - Migration trip time (leave home, work on site, arrive back) and the
+ * serialized agent state carried on each leg
+ * - Remote query round-trip time and message size
+ *
+ * Expected cost of one inspection in ms, for a batch of k inspections in the
+ * same container:
+ * - REMOTE: rtt + 2 x messageBytes / LINK_BYTES_PER_MS
+ * - MIGRATE: (trip + 2 x stateBytes / LINK_BYTES_PER_MS) / k (one trip,
+ * with its two legs of state, serves the whole batch)
+ *
+ * LINK_BYTES_PER_MS models a constrained field link (1 Mbit/s), so bytes
+ * matter even when containers share a host. Options without measurements
+ * start from priors, and every EXPLORE_EVERY decisions the other option is
+ * tried once so stale estimates get refreshed.
+ *
+ * Serializable: it travels with the agent. Not thread-safe: owned by one agent.
+ */
+public class MobilityPlanner implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public enum Strategy {
+        ADAPTIVE, MIGRATE, REMOTE
+    }
+
+    public static final double LINK_BYTES_PER_MS = 125.0;
+
+    private static final double ALPHA = 0.2;
+    private static final int EXPLORE_EVERY = 20;
+    private static final double PRIOR_TRIP_MS = 500;
+    private static final double PRIOR_RTT_MS = 50;
+    private static final double PRIOR_STATE_BYTES = 8192;
+    private static final double PRIOR_MESSAGE_BYTES = 300;
+
+    /**
+     * Estimates for one destination container.
+     */
+    private static class Route implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        double tripMs = -1;
+        double rttMs = -1;
+        double messageBytes = -1;
+        int decisionsSinceMigrate = 0;
+        int decisionsSinceRemote = 0;
+    }
+
+    private final Strategy policy;
+    private final Map<String, Route> routes = new HashMap<>();
+    private double stateBytes = -1;
+
+    // Statistics
+    private long migrations = 0;
+    private long remoteQueries = 0;
+    private long remoteFailures = 0;
+    private long bytesMigrated = 0;
+    private long bytesMessaged = 0;
+
+    public MobilityPlanner(Strategy policy) {
+        this.policy = policy;
+    }
+
+    /**
+     * @param batchSize inspections waiting for this container
+     * @return MIGRATE or REMOTE
+     */
+    public Strategy choose(String container, int batchSize) {
+        if (policy != Strategy.ADAPTIVE) {
+            return policy;
+        }
+        Route route = route(container);
+
+        Strategy choice;
+        if (route.decisionsSinceMigrate >= EXPLORE_EVERY) {
+            choice = Strategy.MIGRATE;
+        } else if (route.decisionsSinceRemote >= EXPLORE_EVERY) {
+            choice = Strategy.REMOTE;
+        } else {
+            choice = migrateCost(container, batchSize) < remoteCost(container) ? Strategy.MIGRATE : Strategy.REMOTE;
+        }
+
+        if (choice == Strategy.MIGRATE) {
+            route.decisionsSinceMigrate = 0;
+            route.decisionsSinceRemote++;
+        } else {
+            route.decisionsSinceRemote = 0;
+            route.decisionsSinceMigrate++;
+        }
+        return choice;
+    }
+
+    /**
+     * Expected cost in ms of one remote inspection.
+     */
+    public double remoteCost(String container) {
+        Route route = route(container);
+        double rtt = route.rttMs < 0 ? PRIOR_RTT_MS : route.rttMs;
+        double bytes = route.messageBytes < 0 ? PRIOR_MESSAGE_BYTES : route.messageBytes;
+        return rtt + 2 * bytes / LINK_BYTES_PER_MS;
+    }
+
+    /**
+     * Expected cost in ms of one inspection in a migration batch of k.
+     */
+    public double migrateCost(String container, int batchSize) {
+        Route route = route(container);
+        double trip = route.tripMs < 0 ? PRIOR_TRIP_MS : route.tripMs;
+        double bytes = stateBytes < 0 ? PRIOR_STATE_BYTES : stateBytes;
+        return (trip + 2 * bytes / LINK_BYTES_PER_MS) / Math.max(1, batchSize);
+    }
+
+    // ==================== MEASUREMENTS ====================
+
+    /**
+     * One migration leg carrying the given serialized state.
+     */
+    public void recordMigrationLeg(long bytes) {
+        if (bytes > 0) {
+            stateBytes = stateBytes < 0 ? bytes : stateBytes + ALPHA * (bytes - stateBytes);
+            bytesMigrated += bytes;
+        }
+    }
+
+    /**
+     * A complete trip: leave home, work on site, back home.
+     */
+    public void recordTrip(String container, long tripMs) {
+        Route route = route(container);
+        route.tripMs = ewma(route.tripMs, tripMs);
+        migrations++;
+    }
+
+    public void recordRemoteQuery(String container, long rttMs, long requestBytes, long replyBytes) {
+        Route route = route(container);
+        route.rttMs = ewma(route.rttMs, rttMs);
+        route.messageBytes = ewma(route.messageBytes, (requestBytes + replyBytes) / 2.0);
+        bytesMessaged += requestBytes + replyBytes;
+        remoteQueries++;
+    }
+
+    /**
+     * A remote query that timed out counts as a round trip of timeoutMs.
+     */
+    public void recordRemoteFailure(String container, long timeoutMs, long requestBytes) {
+        Route route = route(container);
+        route.rttMs = ewma(route.rttMs, timeoutMs);
+        bytesMessaged += requestBytes;
+        remoteFailures++;
+    }
+
+    private static double ewma(double current, double sample) {
+        return current < 0 ? sample : current + ALPHA * (sample - current);
+    }
+
+    private Route route(String container) {
+        Route route = routes.get(container);
+        if (route == null) {
+            route = new Route();
+            routes.put(container, route);
+        }
+        return route;
+    }
+
+    public Strategy getPolicy() {
+        return policy;
+    }
+
+    public long getMigrations() {
+        return migrations;
+    }
+
+    public long getRemoteQueries() {
+        return remoteQueries;
+    }
+
+    public long getRemoteFailures() {
+        return remoteFailures;
+    }
+
+    public long getBytesMigrated() {
+        return bytesMigrated;
+    }
+
+    public long getBytesMessaged() {
+        return bytesMessaged;
+    }
+
+    public double getStateBytes() {
+        return stateBytes;
+    }
+}
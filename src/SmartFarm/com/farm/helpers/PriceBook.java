@@ -0,0 +1,151 @@
+package com.farm.helpers;
+
+import jade.core.AID;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * PriceBook - Local cache of the water quotes suppliers stream to a buyer.
+ *
+ * Suppliers publish "QUOTE:quoteId:price:capacity:ttlMs" whenever their
+ * price or capacity changes and at least once per TTL. The buyer keeps the
+ * latest quote of each supplier and buys against the cheapest unexpired one
+ * with a single ACCEPT, falling back to a full Contract Net round when the
+ * book has nothing usable.
+ *
+ * Capacity is reserved locally on every purchase, so a burst of buyers does
+ * not oversell a quote before the supplier's next update arrives.
+ *
+ * Not thread-safe: owned by one agent.
+ */
+public class PriceBook {
+
+    public static final String QUOTE_PREFIX = "QUOTE:";
+
+    /**
+     * One supplier's standing offer.
+     */
+    public static class Quote {
+        private final AID supplier;
+        private final long quoteId;
+        private final double price;
+        private final long expiresAt;
+        private int capacity;
+
+        Quote(AID supplier, long quoteId, double price, int capacity, long expiresAt) {
+            this.supplier = supplier;
+            this.quoteId = quoteId;
+            this.price = price;
+            this.capacity = capacity;
+            this.expiresAt = expiresAt;
+        }
+
+        public AID getSupplier() {
+            return supplier;
+        }
+
+        public long getQuoteId() {
+            return quoteId;
+        }
+
+        public double getPrice() {
+            return price;
+        }
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public long getExpiresAt() {
+            return expiresAt;
+        }
+    }
+
+    private final Map<AID, Quote> quotes = new HashMap<>();
+
+    // Statistics
+    private long hits = 0;
+    private long misses = 0;
+
+    public static String formatQuote(long quoteId, double price, int capacity, long ttlMs) {
+        return QUOTE_PREFIX + quoteId + ":" + price + ":" + capacity + ":" + ttlMs;
+    }
+
+    /**
+     * Store a quote message. Older quotes (lower id) from the same supplier
+     * are ignored.
+     *
+     * @return false if the content is not a quote
+     */
+    public boolean update(AID supplier, String content, long now) {
+        if (content == null || !content.startsWith(QUOTE_PREFIX)) {
+            return false;
+        }
+        String[] parts = content.split(":");
+        if (parts.length < 5) {
+            return false;
+        }
+        try {
+            long quoteId = Long.parseLong(parts[1]);
+            double price = Double.parseDouble(parts[2]);
+            int capacity = Integer.parseInt(parts[3]);
+            long ttl = Long.parseLong(parts[4]);
+
+            Quote current = quotes.get(supplier);
+            if (current != null && current.quoteId > quoteId) {
+                return true;
+            }
+            quotes.put(supplier, new Quote(supplier, quoteId, price, capacity, now + ttl));
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Pick the cheapest unexpired quote with enough capacity and reserve the
+     * units on it.
+     *
+     * @return the quote, or null on a miss
+     */
+    public Quote reserveBest(int units, long now) {
+        Quote best = null;
+        for (Quote quote : quotes.values()) {
+            if (quote.expiresAt <= now) {
+                continue;
+            }
+            if (quote.capacity >= units && (best == null || quote.price < best.price)) {
+                best = quote;
+            }
+        }
+
+        if (best == null) {
+            misses++;
+            quotes.values().removeIf(q -> q.expiresAt <= now);
+            return null;
+        }
+        best.capacity -= units;
+        hits++;
+        return best;
+    }
+
+    /**
+     * Drop a supplier's quote, e.g. after it refused to honor it.
+     */
+    public void invalidate(AID supplier) {
+        quotes.remove(supplier);
+    }
+
+    public int size() {
+        return quotes.size();
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+}
@@ -0,0 +1,160 @@
+package com.farm.helpers;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * SensorBatcher - Collects readings from many sensors and releases them as
+ * one compact batch per interval.
+ *
+ * Each sensor has a deadband: a reading is only forwarded when it differs
+ * from the last forwarded value by at least the deadband. To keep consumers
+ * from going stale, a sensor is forwarded anyway after maxSilentIntervals
+ * batches without an update.
+ *
+ * Batch format: "fieldId:value,fieldId:value,..."
+ */
+public class SensorBatcher {
+
+    private static class SensorSlot {
+        int deadband;
+        int lastForwarded = Integer.MIN_VALUE;
+        int latest;
+        boolean dirty;
+        int silentIntervals;
+    }
+
+    private final Map<Integer, SensorSlot> sensors = new LinkedHashMap<>();
+    private final int defaultDeadband;
+    private final int maxSilentIntervals;
+
+    // Statistics
+    private long readingsReceived = 0;
+    private long readingsForwarded = 0;
+    private long batchesEmitted = 0;
+
+    public SensorBatcher(int defaultDeadband, int maxSilentIntervals) {
+        this.defaultDeadband = defaultDeadband;
+        this.maxSilentIntervals = maxSilentIntervals;
+    }
+
+    /**
+     * Override the deadband for a single sensor.
+     */
+    public void setDeadband(int sensorId, int deadband) {
+        slot(sensorId).deadband = Math.max(0, deadband);
+    }
+
+    /**
+     * Record the latest reading of a sensor. Only the newest value per
+     * interval is kept.
+     */
+    public void record(int sensorId, int value) {
+        SensorSlot slot = slot(sensorId);
+        slot.latest = value;
+        slot.dirty = true;
+        readingsReceived++;
+    }
+
+    /**
+     * Close the current interval.
+     *
+     * @return the batch content, or null if no sensor moved past its deadband
+     */
+    public String drain() {
+        StringBuilder batch = null;
+
+        for (Map.Entry<Integer, SensorSlot> entry : sensors.entrySet()) {
+            SensorSlot slot = entry.getValue();
+            if (!slot.dirty) {
+                continue;
+            }
+            slot.dirty = false;
+
+            boolean moved = slot.lastForwarded == Integer.MIN_VALUE
+                    || Math.abs(slot.latest - slot.lastForwarded) >= Math.max(1, slot.deadband);
+            boolean stale = ++slot.silentIntervals >= maxSilentIntervals && slot.latest != slot.lastForwarded;
+            if (!moved && !stale) {
+                continue;
+            }
+
+            if (batch == null) {
+                batch = new StringBuilder();
+            } else {
+                batch.append(',');
+            }
+            batch.append(entry.getKey()).append(':').append(slot.latest);
+            slot.lastForwarded = slot.latest;
+            slot.silentIntervals = 0;
+            readingsForwarded++;
+        }
+
+        if (batch == null) {
+            return null;
+        }
+        batchesEmitted++;
+        return batch.toString();
+    }
+
+    /**
+     * Parse a batch produced by drain() into sensorId -> value pairs.
+     */
+    public static Map<Integer, Integer> parse(String batch) {
+        Map<Integer, Integer> readings = new LinkedHashMap<>();
+        if (batch == null || batch.isEmpty()) {
+            return readings;
+        }
+        for (String entry : batch.split(",")) {
+            int sep = entry.indexOf(':');
+            if (sep > 0) {
+                readings.put(Integer.parseInt(entry.substring(0, sep)), Integer.parseInt(entry.substring(sep + 1)));
+            }
+        }
+        return readings;
+    }
+
+    /**
+     * JSON object for the MOISTURE_BATCH dashboard event.
+     */
+    public static String toJson(String gateway, int threshold, long timestamp, String batch) {
+        StringBuilder json = new StringBuilder("{\"gateway\":\"").append(gateway)
+                .append("\",\"threshold\":").append(threshold)
+                .append(",\"timestamp\":\"").append(timestamp)
+                .append("\",\"readings\":[");
+        boolean first = true;
+        for (Map.Entry<Integer, Integer> reading : parse(batch).entrySet()) {
+            if (!first)
+                json.append(",");
+            json.append("{\"fieldId\":").append(reading.getKey())
+                    .append(",\"value\":").append(reading.getValue()).append("}");
+            first = false;
+        }
+        return json.append("]}").toString();
+    }
+
+    private SensorSlot slot(int sensorId) {
+        SensorSlot slot = sensors.get(sensorId);
+        if (slot == null) {
+            slot = new SensorSlot();
+            slot.deadband = defaultDeadband;
+            sensors.put(sensorId, slot);
+        }
+        return slot;
+    }
+
+    public int getSensorCount() {
+        return sensors.size();
+    }
+
+    public long getReadingsReceived() {
+        return readingsReceived;
+    }
+
+    public long getReadingsForwarded() {
+        return readingsForwarded;
+    }
+
+    public long getBatchesEmitted() {
+        return batchesEmitted;
+    }
+}
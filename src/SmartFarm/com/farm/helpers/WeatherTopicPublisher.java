@@ -0,0 +1,299 @@
+package com.farm.helpers;
+
+import jade.core.AID;
+import jade.lang.acl.ACLMessage;
+
+import java.util.*;
+
+/**
+ * WeatherTopicPublisher - Topic-based fan-out for weather updates.
+ *
+ * Subscribers are indexed by region and topic (rain, temperature, forecast),
+ * so each tick produces at most one multi-receiver ACL message per region and
+ * topic. Every subscriber carries its own deadbands; a receiver is only added
+ * to a message when the value moved past its deadband since the last value
+ * delivered to it. Unchanged weather produces no messages at all.
+ *
+ * Subscription content format (SUBSCRIBE performative):
+ * WEATHER_SUB:region:topic1,topic2:rainDeadband:temperatureDeadband
+ * Every part after the prefix is optional. A plain SUBSCRIBE without this
+ * prefix subscribes to the forecast of the default region.
+ */
+public class WeatherTopicPublisher {
+
+    public static final String DEFAULT_REGION = "farm";
+    public static final String SUBSCRIBE_PREFIX = "WEATHER_SUB:";
+
+    /**
+     * Weather topics a subscriber can listen to.
+     */
+    public enum Topic {
+        RAIN("rain", "weather-rain"),
+        TEMPERATURE("temperature", "weather-temperature"),
+        FORECAST("forecast", "weather-update");
+
+        private final String id;
+        private final String conversationId;
+
+        Topic(String id, String conversationId) {
+            this.id = id;
+            this.conversationId = conversationId;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getConversationId() {
+            return conversationId;
+        }
+
+        public static Topic fromId(String id) {
+            for (Topic topic : values()) {
+                if (topic.id.equalsIgnoreCase(id.trim())) {
+                    return topic;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * A single subscriber with its region, topics, deadbands and the last
+     * values it was sent.
+     */
+    public static class Subscription {
+        private final AID subscriber;
+        private final String region;
+        private final EnumSet<Topic> topics;
+        private final int rainDeadband; // percentage points
+        private final double temperatureDeadband; // degrees Celsius
+
+        private String lastForecast = null;
+        private int lastRainChance = -1;
+        private double lastTemperature = Double.NaN;
+
+        public Subscription(AID subscriber, String region, EnumSet<Topic> topics,
+                int rainDeadband, double temperatureDeadband) {
+            this.subscriber = subscriber;
+            this.region = region;
+            this.topics = topics;
+            this.rainDeadband = Math.max(0, rainDeadband);
+            this.temperatureDeadband = Math.max(0, temperatureDeadband);
+        }
+
+        public AID getSubscriber() {
+            return subscriber;
+        }
+
+        public String getRegion() {
+            return region;
+        }
+
+        public EnumSet<Topic> getTopics() {
+            return topics;
+        }
+
+        /**
+         * True when the new value for the topic is outside this subscriber's
+         * deadband. A deadband of 0 still requires the value to change.
+         */
+        boolean accepts(Topic topic, String forecast, int rainChance, double temperature) {
+            switch (topic) {
+                case FORECAST:
+                    return !forecast.equals(lastForecast);
+                case RAIN:
+                    if (lastRainChance < 0)
+                        return true;
+                    int rainDelta = Math.abs(rainChance - lastRainChance);
+                    return rainDelta > 0 && rainDelta >= rainDeadband;
+                case TEMPERATURE:
+                    if (Double.isNaN(lastTemperature))
+                        return true;
+                    double tempDelta = Math.abs(temperature - lastTemperature);
+                    return tempDelta > 0 && tempDelta >= temperatureDeadband;
+                default:
+                    return false;
+            }
+        }
+
+        void markDelivered(Topic topic, String forecast, int rainChance, double temperature) {
+            switch (topic) {
+                case FORECAST:
+                    lastForecast = forecast;
+                    break;
+                case RAIN:
+                    lastRainChance = rainChance;
+                    break;
+                case TEMPERATURE:
+                    lastTemperature = temperature;
+                    break;
+            }
+        }
+    }
+
+    // region -> topic -> subscribers
+    private final Map<String, EnumMap<Topic, Set<AID>>> topicIndex = new HashMap<>();
+    private final Map<AID, Subscription> subscriptions = new HashMap<>();
+
+    // Statistics
+    private long messagesSent = 0;
+    private long deliveries = 0;
+    private long suppressed = 0;
+
+    /**
+     * Parse a SUBSCRIBE content string into a subscription.
+     */
+    public static Subscription parse(AID sender, String content) {
+        String region = DEFAULT_REGION;
+        EnumSet<Topic> topics = EnumSet.of(Topic.FORECAST);
+        int rainDeadband = 0;
+        double temperatureDeadband = 0;
+
+        if (content != null && content.startsWith(SUBSCRIBE_PREFIX)) {
+            String[] parts = content.substring(SUBSCRIBE_PREFIX.length()).split(":");
+            try {
+                if (parts.length > 0 && !parts[0].isEmpty()) {
+                    region = parts[0];
+                }
+                if (parts.length > 1 && !parts[1].isEmpty()) {
+                    EnumSet<Topic> parsed = EnumSet.noneOf(Topic.class);
+                    for (String id : parts[1].split(",")) {
+                        Topic topic = Topic.fromId(id);
+                        if (topic != null) {
+                            parsed.add(topic);
+                        }
+                    }
+                    if (!parsed.isEmpty()) {
+                        topics = parsed;
+                    }
+                }
+                if (parts.length > 2 && !parts[2].isEmpty()) {
+                    rainDeadband = Integer.parseInt(parts[2]);
+                }
+                if (parts.length > 3 && !parts[3].isEmpty()) {
+                    temperatureDeadband = Double.parseDouble(parts[3]);
+                }
+            } catch (NumberFormatException e) {
+                // Keep defaults for malformed deadbands
+            }
+        }
+
+        return new Subscription(sender, region, topics, rainDeadband, temperatureDeadband);
+    }
+
+    /**
+     * Add or replace a subscription. The subscriber is considered up to date
+     * with the given current values, which are sent in the AGREE reply.
+     *
+     * @return true if this is a new subscriber
+     */
+    public boolean subscribe(Subscription subscription, String forecast, int rainChance, double temperature) {
+        boolean isNew = unsubscribe(subscription.getSubscriber()) == null;
+
+        subscriptions.put(subscription.getSubscriber(), subscription);
+        EnumMap<Topic, Set<AID>> byTopic = topicIndex.computeIfAbsent(
+                subscription.getRegion(), r -> new EnumMap<>(Topic.class));
+        for (Topic topic : subscription.getTopics()) {
+            byTopic.computeIfAbsent(topic, t -> new LinkedHashSet<>()).add(subscription.getSubscriber());
+            subscription.markDelivered(topic, forecast, rainChance, temperature);
+        }
+        return isNew;
+    }
+
+    /**
+     * Remove a subscriber from every topic it listens to.
+     *
+     * @return the removed subscription, or null if it was not subscribed
+     */
+    public Subscription unsubscribe(AID subscriber) {
+        Subscription removed = subscriptions.remove(subscriber);
+        if (removed != null) {
+            EnumMap<Topic, Set<AID>> byTopic = topicIndex.get(removed.getRegion());
+            if (byTopic != null) {
+                for (Set<AID> set : byTopic.values()) {
+                    set.remove(subscriber);
+                }
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Build the messages for one region's update. At most one message is
+     * created per topic, addressed to every subscriber outside its deadband.
+     */
+    public List<ACLMessage> publish(String region, String forecast, int rainChance, double temperature) {
+        List<ACLMessage> messages = new ArrayList<>(Topic.values().length);
+        EnumMap<Topic, Set<AID>> byTopic = topicIndex.get(region);
+        if (byTopic == null) {
+            return messages;
+        }
+
+        for (Map.Entry<Topic, Set<AID>> entry : byTopic.entrySet()) {
+            Topic topic = entry.getKey();
+            ACLMessage msg = null;
+
+            for (AID subscriber : entry.getValue()) {
+                Subscription sub = subscriptions.get(subscriber);
+                if (!sub.accepts(topic, forecast, rainChance, temperature)) {
+                    suppressed++;
+                    continue;
+                }
+                if (msg == null) {
+                    msg = new ACLMessage(ACLMessage.INFORM);
+                    msg.setContent(formatContent(topic, forecast, rainChance, temperature));
+                    msg.setConversationId(topic.getConversationId());
+                }
+                msg.addReceiver(subscriber);
+                sub.markDelivered(topic, forecast, rainChance, temperature);
+                deliveries++;
+            }
+
+            if (msg != null) {
+                messages.add(msg);
+                messagesSent++;
+            }
+        }
+        return messages;
+    }
+
+    /**
+     * Content for a topic message. Forecast keeps the historic "WEATHER:Name"
+     * format understood by FarmerBDI and CropGrowth agents.
+     */
+    public static String formatContent(Topic topic, String forecast, int rainChance, double temperature) {
+        switch (topic) {
+            case RAIN:
+                return "RAIN_CHANCE:" + rainChance;
+            case TEMPERATURE:
+                return "TEMPERATURE:" + String.format(Locale.ROOT, "%.1f", temperature);
+            default:
+                return "WEATHER:" + forecast;
+        }
+    }
+
+    public Set<String> getRegions() {
+        return topicIndex.keySet();
+    }
+
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    public boolean isSubscribed(AID subscriber) {
+        return subscriptions.containsKey(subscriber);
+    }
+
+    public long getMessagesSent() {
+        return messagesSent;
+    }
+
+    public long getDeliveries() {
+        return deliveries;
+    }
+
+    public long getSuppressed() {
+        return suppressed;
+    }
+}
@@ -2,6 +2,8 @@ package com.farm.models;
 
 import java.io.Serializable;
 
+import com.farm.sim.SimulationClock;
+
 /**
  * FieldState - Represents the current state of a farm field.
  * This is a serializable data class that can be passed between agents.
@@ -30,7 +32,7 @@ public class FieldState implements Serializable {
         this.sprinklerOn = false;
         this.needsInspection = false;
         this.hasPest = false;
-        this.lastUpdateTime = System.currentTimeMillis();
+        this.lastUpdateTime = SimulationClock.now();
     }
 
     // Getters
@@ -109,7 +111,7 @@ public class FieldState implements Serializable {
     }
 
     public void updateTimestamp() {
-        this.lastUpdateTime = System.currentTimeMillis();
+        this.lastUpdateTime = SimulationClock.now();
     }
 
     // Logic methods
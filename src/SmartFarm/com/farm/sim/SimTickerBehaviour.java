@@ -0,0 +1,88 @@
+package com.farm.sim;
+
+import jade.core.Agent;
+import jade.core.behaviours.SimpleBehaviour;
+
+/**
+ * SimTickerBehaviour - TickerBehaviour running on SimulationClock time.
+ *
+ * Same contract as JADE's TickerBehaviour: onTick() is first called one
+ * period after the behaviour starts, then every period. Ticks that fall due
+ * together (after a step() or while the agent was busy) are all executed,
+ * one per scheduling round, so no simulated tick is skipped.
+ */
+public abstract class SimTickerBehaviour extends SimpleBehaviour {
+
+    private static final long serialVersionUID = 1L;
+
+    private long period;
+    private long nextTick = -1;
+    private int tickCount = 0;
+    private boolean finished = false;
+
+    public SimTickerBehaviour(Agent a, long period) {
+        super(a);
+        if (period <= 0) {
+            throw new IllegalArgumentException("Period must be greater than 0");
+        }
+        this.period = period;
+    }
+
+    @Override
+    public void action() {
+        long now = SimulationClock.now();
+        if (nextTick < 0) {
+            nextTick = now + period;
+            SimulationClock.schedule(this, myAgent, nextTick);
+        }
+
+        if (now >= nextTick) {
+            tickCount++;
+            onTick();
+            nextTick += period;
+            if (!finished) {
+                SimulationClock.schedule(this, myAgent, nextTick);
+            }
+        } else {
+            block(SimulationClock.wallDelayUntil(nextTick));
+        }
+    }
+
+    protected abstract void onTick();
+
+    @Override
+    public boolean done() {
+        return finished;
+    }
+
+    @Override
+    public int onEnd() {
+        SimulationClock.cancel(this);
+        return super.onEnd();
+    }
+
+    /**
+     * Restart with a new period, counted from now.
+     */
+    public void reset(long period) {
+        this.period = period;
+        this.nextTick = -1;
+        this.tickCount = 0;
+        this.finished = false;
+        super.reset();
+    }
+
+    public void stop() {
+        finished = true;
+        SimulationClock.cancel(this);
+        restart();
+    }
+
+    public long getPeriod() {
+        return period;
+    }
+
+    public int getTickCount() {
+        return tickCount;
+    }
+}
@@ -0,0 +1,59 @@
+package com.farm.sim;
+
+import jade.core.Agent;
+import jade.core.behaviours.SimpleBehaviour;
+
+/**
+ * SimWakerBehaviour - WakerBehaviour running on SimulationClock time.
+ *
+ * onWake() is called once, timeout virtual milliseconds after the behaviour
+ * starts.
+ */
+public abstract class SimWakerBehaviour extends SimpleBehaviour {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long timeout;
+    private long wakeupTime = -1;
+    private boolean finished = false;
+
+    public SimWakerBehaviour(Agent a, long timeout) {
+        super(a);
+        this.timeout = timeout;
+    }
+
+    @Override
+    public void action() {
+        long now = SimulationClock.now();
+        if (wakeupTime < 0) {
+            wakeupTime = now + timeout;
+            SimulationClock.schedule(this, myAgent, wakeupTime);
+        }
+
+        if (now >= wakeupTime) {
+            finished = true;
+            onWake();
+        } else {
+            block(SimulationClock.wallDelayUntil(wakeupTime));
+        }
+    }
+
+    protected abstract void onWake();
+
+    @Override
+    public boolean done() {
+        return finished;
+    }
+
+    @Override
+    public int onEnd() {
+        SimulationClock.cancel(this);
+        return super.onEnd();
+    }
+
+    public void stop() {
+        finished = true;
+        SimulationClock.cancel(this);
+        restart();
+    }
+}
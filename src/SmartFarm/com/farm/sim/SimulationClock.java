@@ -0,0 +1,250 @@
+package com.farm.sim;
+
+import jade.core.Agent;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.farm.gui.WebServer;
+
+/**
+ * SimulationClock - Shared virtual time for all SmartFarm agents.
+ *
+ * Virtual time starts at the wall-clock time of first use and advances at
+ * speed x wall time (1x - 1000x). Every ticker, waker and timeout schedules
+ * against it through SimTickerBehaviour / SimWakerBehaviour, and every data
+ * timestamp comes from now().
+ *
+ * Features:
+ * - pause() / resume() freeze and continue virtual time
+ * - step(ms) advances a paused clock by a fixed amount; due timers then fire
+ * in order
+ * - Back-pressure: virtual time never runs more than LAG_WALL_MS (scaled by
+ * the speed) past the oldest timer that is due but not yet handled. When
+ * agents cannot keep up, the clock slows down instead of piling up work, so
+ * the achieved speed settles at what the CPU can sustain
+ * - Achieved speed (virtual ms per wall ms over the last second) is
+ * published to the GUI as SIM_CLOCK once per second
+ *
+ * A timer whose agent has died, or that stays overdue for STALL_WALL_MS of
+ * wall time (e.g. its agent is migrating or blocked), no longer holds the
+ * clock back.
+ */
+public class SimulationClock {
+
+    public static final double MIN_SPEED = 1;
+    public static final double MAX_SPEED = 1000;
+
+    private static final long DRIVER_PERIOD_MS = 5;
+    private static final long LAG_WALL_MS = 200;
+    private static final long STALL_WALL_MS = 2000;
+    private static final long REPORT_INTERVAL_MS = 1000;
+    private static final long MAX_BLOCK_MS = 100;
+
+    /**
+     * Deadline of one registered timer.
+     */
+    private static class TimerEntry {
+        final Agent owner;
+        volatile long deadline;
+        long overdueSinceWall = -1;
+
+        TimerEntry(Agent owner, long deadline) {
+            this.owner = owner;
+            this.deadline = deadline;
+        }
+    }
+
+    private static final Map<Object, TimerEntry> timers = new ConcurrentHashMap<>();
+    private static final Object lock = new Object();
+
+    private static volatile long virtualNow = System.currentTimeMillis();
+    private static volatile double speed = 1;
+    private static volatile boolean paused = false;
+    private static volatile double achievedSpeed = 1;
+    private static double carry = 0;
+    private static volatile Thread driver;
+
+    private SimulationClock() {
+    }
+
+    /**
+     * Current virtual time in epoch milliseconds.
+     */
+    public static long now() {
+        ensureStarted();
+        return virtualNow;
+    }
+
+    public static double getSpeed() {
+        return speed;
+    }
+
+    /**
+     * Requested speed, clamped to MIN_SPEED - MAX_SPEED.
+     */
+    public static void setSpeed(double requested) {
+        speed = Math.max(MIN_SPEED, Math.min(MAX_SPEED, requested));
+        System.out.println("[SimulationClock] Speed set to " + speed + "x");
+    }
+
+    /**
+     * Virtual ms actually advanced per wall ms over the last second.
+     */
+    public static double getAchievedSpeed() {
+        return achievedSpeed;
+    }
+
+    public static boolean isPaused() {
+        return paused;
+    }
+
+    public static void pause() {
+        paused = true;
+        System.out.println("[SimulationClock] Paused at " + virtualNow);
+    }
+
+    public static void resume() {
+        paused = false;
+        System.out.println("[SimulationClock] Resumed");
+    }
+
+    /**
+     * Advance virtual time by a fixed amount, typically while paused.
+     */
+    public static void step(long virtualMs) {
+        ensureStarted();
+        synchronized (lock) {
+            virtualNow += Math.max(0, virtualMs);
+        }
+    }
+
+    // ==================== TIMER REGISTRY ====================
+
+    /**
+     * Register or move the deadline of a timer.
+     */
+    static void schedule(Object timer, Agent owner, long deadline) {
+        ensureStarted();
+        TimerEntry entry = timers.get(timer);
+        if (entry == null) {
+            timers.put(timer, new TimerEntry(owner, deadline));
+        } else {
+            entry.deadline = deadline;
+            entry.overdueSinceWall = -1;
+        }
+    }
+
+    static void cancel(Object timer) {
+        timers.remove(timer);
+    }
+
+    /**
+     * Wall-clock time to block until the given virtual time. Bounded by
+     * MAX_BLOCK_MS so speed changes, steps and resumes are picked up quickly.
+     */
+    static long wallDelayUntil(long virtualDeadline) {
+        if (paused) {
+            return MAX_BLOCK_MS;
+        }
+        long virtualDelay = virtualDeadline - virtualNow;
+        long wall = (long) Math.ceil(virtualDelay / speed);
+        return Math.max(1, Math.min(MAX_BLOCK_MS, wall));
+    }
+
+    public static int getTimerCount() {
+        return timers.size();
+    }
+
+    // ==================== DRIVER ====================
+
+    private static void ensureStarted() {
+        if (driver != null) {
+            return;
+        }
+        synchronized (SimulationClock.class) {
+            if (driver == null) {
+                Thread thread = new Thread(SimulationClock::drive, "simulation-clock");
+                thread.setDaemon(true);
+                thread.start();
+                driver = thread;
+            }
+        }
+    }
+
+    private static void drive() {
+        long lastWall = System.nanoTime();
+        long windowStartWall = lastWall;
+        long windowStartVirtual = virtualNow;
+
+        while (true) {
+            try {
+                Thread.sleep(DRIVER_PERIOD_MS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            long wall = System.nanoTime();
+            double elapsedMs = (wall - lastWall) / 1_000_000.0;
+            lastWall = wall;
+
+            if (!paused) {
+                advance(elapsedMs, wall / 1_000_000);
+            }
+
+            if (wall - windowStartWall >= REPORT_INTERVAL_MS * 1_000_000) {
+                double windowMs = (wall - windowStartWall) / 1_000_000.0;
+                achievedSpeed = (virtualNow - windowStartVirtual) / windowMs;
+                windowStartWall = wall;
+                windowStartVirtual = virtualNow;
+                WebServer.broadcast("SIM_CLOCK", toJson());
+            }
+        }
+    }
+
+    private static void advance(double elapsedMs, long wallMs) {
+        synchronized (lock) {
+            double exact = speed * elapsedMs + carry;
+            long step = (long) exact;
+            carry = exact - step;
+            long target = virtualNow + step;
+
+            long laggard = oldestPendingDeadline(wallMs);
+            long cap = laggard == Long.MAX_VALUE ? Long.MAX_VALUE : laggard + (long) (speed * LAG_WALL_MS);
+            if (target > cap) {
+                target = Math.max(virtualNow, cap);
+                carry = 0;
+            }
+            virtualNow = target;
+        }
+    }
+
+    /**
+     * Oldest deadline among timers that are still live, or Long.MAX_VALUE.
+     */
+    private static long oldestPendingDeadline(long wallMs) {
+        long oldest = Long.MAX_VALUE;
+        for (Map.Entry<Object, TimerEntry> e : timers.entrySet()) {
+            TimerEntry entry = e.getValue();
+            if (entry.owner != null && entry.owner.getState() == Agent.AP_DELETED) {
+                timers.remove(e.getKey());
+                continue;
+            }
+            if (entry.deadline <= virtualNow) {
+                if (entry.overdueSinceWall < 0) {
+                    entry.overdueSinceWall = wallMs;
+                } else if (wallMs - entry.overdueSinceWall > STALL_WALL_MS) {
+                    continue; // stalled: stop holding the clock back
+                }
+            }
+            oldest = Math.min(oldest, entry.deadline);
+        }
+        return oldest;
+    }
+
+    public static String toJson() {
+        return String.format(Locale.ROOT,
+                "{\"virtualTime\":%d,\"speed\":%.1f,\"achievedSpeed\":%.1f,\"paused\":%b,\"timers\":%d}",
+                virtualNow, speed, achievedSpeed, paused, timers.size());
+    }
+}
@@ -0,0 +1,106 @@
+package com.farm.storage;
+
+import java.util.Arrays;
+
+/**
+ * BitBuffer - Growable MSB-first bit stream backed by a long array.
+ *
+ * Used by GorillaChunk to pack timestamps and values at bit granularity.
+ * Writing appends at the end; reading uses a separate Reader cursor so a
+ * sealed buffer can be decoded by several threads at once.
+ */
+class BitBuffer {
+
+    private long[] words;
+    private long size = 0; // bits written
+
+    BitBuffer(int initialWords) {
+        words = new long[Math.max(1, initialWords)];
+    }
+
+    private static long mask(int bits) {
+        return bits == 64 ? -1L : (1L << bits) - 1;
+    }
+
+    void writeBit(boolean bit) {
+        writeBits(bit ? 1 : 0, 1);
+    }
+
+    /**
+     * Append the lowest {@code bits} bits of value (1-64).
+     */
+    void writeBits(long value, int bits) {
+        if (bits == 0) {
+            return;
+        }
+        ensureCapacity(size + bits);
+
+        int index = (int) (size >>> 6);
+        int free = 64 - (int) (size & 63);
+        long v = value & mask(bits);
+
+        if (bits <= free) {
+            words[index] |= v << (free - bits);
+        } else {
+            int spill = bits - free;
+            words[index] |= v >>> spill;
+            words[index + 1] |= v << (64 - spill);
+        }
+        size += bits;
+    }
+
+    private void ensureCapacity(long bits) {
+        int needed = (int) ((bits + 63) >>> 6);
+        if (needed > words.length) {
+            words = Arrays.copyOf(words, Math.max(needed, words.length * 2));
+        }
+    }
+
+    /**
+     * Drop unused capacity once no more bits will be written.
+     */
+    void trim() {
+        int used = (int) ((size + 63) >>> 6);
+        if (used < words.length) {
+            words = Arrays.copyOf(words, Math.max(1, used));
+        }
+    }
+
+    long sizeInBits() {
+        return size;
+    }
+
+    int sizeInBytes() {
+        return (int) ((size + 7) >>> 3);
+    }
+
+    Reader reader() {
+        return new Reader();
+    }
+
+    /**
+     * Sequential reader over the bits written so far.
+     */
+    class Reader {
+        private long position = 0;
+
+        boolean readBit() {
+            return readBits(1) != 0;
+        }
+
+        long readBits(int bits) {
+            int index = (int) (position >>> 6);
+            int free = 64 - (int) (position & 63);
+            long result;
+
+            if (bits <= free) {
+                result = (words[index] >>> (free - bits)) & mask(bits);
+            } else {
+                int spill = bits - free;
+                result = ((words[index] & mask(free)) << spill) | (words[index + 1] >>> (64 - spill));
+            }
+            position += bits;
+            return result;
+        }
+    }
+}
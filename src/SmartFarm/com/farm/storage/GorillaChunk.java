@@ -0,0 +1,207 @@
+package com.farm.storage;
+
+/**
+ * GorillaChunk - Fixed-capacity block of compressed samples.
+ *
+ * Encoding follows Facebook's Gorilla paper:
+ * - Timestamps: first one raw (64 bits), then delta-of-delta with variable
+ * length buckets ('0', '10'+7, '110'+9, '1110'+12, '11110'+32, '11111'+64)
+ * - Values: first one raw, then XOR with the previous value; identical
+ * values cost one bit, otherwise the meaningful bits are stored reusing the
+ * previous leading/trailing zero window when possible
+ *
+ * Timestamps must be non-decreasing. A full chunk is sealed and becomes
+ * immutable, so it can be decoded without locking.
+ */
+class GorillaChunk {
+
+    private final int capacity;
+    private final BitBuffer bits;
+
+    private int count = 0;
+    private long firstTimestamp;
+    private long lastTimestamp;
+    private boolean sealed = false;
+
+    // Encoder state
+    private long prevDelta = 0;
+    private long prevValueBits;
+    private int prevLeading = -1;
+    private int prevTrailing = 0;
+
+    GorillaChunk(int capacity) {
+        this.capacity = capacity;
+        // ~2 bytes per sample is typical for sensor data
+        this.bits = new BitBuffer(capacity / 4 + 4);
+    }
+
+    /**
+     * @return false if the chunk is full or sealed
+     */
+    boolean append(long timestamp, double value) {
+        if (sealed || count >= capacity) {
+            return false;
+        }
+        long valueBits = Double.doubleToRawLongBits(value);
+
+        if (count == 0) {
+            firstTimestamp = timestamp;
+            bits.writeBits(timestamp, 64);
+            bits.writeBits(valueBits, 64);
+        } else {
+            long delta = timestamp - lastTimestamp;
+            writeDeltaOfDelta(delta - prevDelta);
+            prevDelta = delta;
+            writeValue(valueBits ^ prevValueBits);
+        }
+
+        lastTimestamp = timestamp;
+        prevValueBits = valueBits;
+        count++;
+        return true;
+    }
+
+    private void writeDeltaOfDelta(long dod) {
+        if (dod == 0) {
+            bits.writeBit(false);
+        } else if (dod >= -63 && dod <= 64) {
+            bits.writeBits(0b10, 2);
+            bits.writeBits(dod, 7);
+        } else if (dod >= -255 && dod <= 256) {
+            bits.writeBits(0b110, 3);
+            bits.writeBits(dod, 9);
+        } else if (dod >= -2047 && dod <= 2048) {
+            bits.writeBits(0b1110, 4);
+            bits.writeBits(dod, 12);
+        } else if (dod >= Integer.MIN_VALUE && dod <= Integer.MAX_VALUE) {
+            bits.writeBits(0b11110, 5);
+            bits.writeBits(dod, 32);
+        } else {
+            bits.writeBits(0b11111, 5);
+            bits.writeBits(dod, 64);
+        }
+    }
+
+    private void writeValue(long xor) {
+        if (xor == 0) {
+            bits.writeBit(false);
+            return;
+        }
+        bits.writeBit(true);
+
+        int leading = Math.min(31, Long.numberOfLeadingZeros(xor));
+        int trailing = Long.numberOfTrailingZeros(xor);
+
+        if (prevLeading >= 0 && leading >= prevLeading && trailing >= prevTrailing) {
+            // Fits in the previous window
+            bits.writeBit(false);
+            bits.writeBits(xor >>> prevTrailing, 64 - prevLeading - prevTrailing);
+        } else {
+            int significant = 64 - leading - trailing;
+            bits.writeBit(true);
+            bits.writeBits(leading, 5);
+            bits.writeBits(significant - 1, 6);
+            bits.writeBits(xor >>> trailing, significant);
+            prevLeading = leading;
+            prevTrailing = trailing;
+        }
+    }
+
+    void seal() {
+        sealed = true;
+        bits.trim();
+    }
+
+    boolean isFull() {
+        return count >= capacity;
+    }
+
+    boolean isEmpty() {
+        return count == 0;
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    long getFirstTimestamp() {
+        return firstTimestamp;
+    }
+
+    long getLastTimestamp() {
+        return lastTimestamp;
+    }
+
+    int getCompressedBytes() {
+        return bits.sizeInBytes();
+    }
+
+    /**
+     * Decode every sample with from <= timestamp <= to into the buffer.
+     */
+    void decode(long from, long to, SampleBuffer out) {
+        if (count == 0 || lastTimestamp < from || firstTimestamp > to) {
+            return;
+        }
+
+        BitBuffer.Reader in = bits.reader();
+        long timestamp = in.readBits(64);
+        long valueBits = in.readBits(64);
+        long delta = 0;
+        int leading = 0;
+        int trailing = 0;
+
+        if (timestamp >= from) {
+            out.add(timestamp, Double.longBitsToDouble(valueBits));
+        }
+
+        for (int i = 1; i < count; i++) {
+            delta += readDeltaOfDelta(in);
+            timestamp += delta;
+
+            if (in.readBit()) {
+                if (in.readBit()) {
+                    leading = (int) in.readBits(5);
+                    int significant = (int) in.readBits(6) + 1;
+                    trailing = 64 - leading - significant;
+                }
+                long xor = in.readBits(64 - leading - trailing) << trailing;
+                valueBits ^= xor;
+            }
+
+            if (timestamp > to) {
+                return;
+            }
+            if (timestamp >= from) {
+                out.add(timestamp, Double.longBitsToDouble(valueBits));
+            }
+        }
+    }
+
+    private static long readDeltaOfDelta(BitBuffer.Reader in) {
+        if (!in.readBit()) {
+            return 0;
+        }
+        if (!in.readBit()) {
+            return signed(in.readBits(7), 7);
+        }
+        if (!in.readBit()) {
+            return signed(in.readBits(9), 9);
+        }
+        if (!in.readBit()) {
+            return signed(in.readBits(12), 12);
+        }
+        if (!in.readBit()) {
+            return (int) in.readBits(32);
+        }
+        return in.readBits(64);
+    }
+
+    /**
+     * Undo the two's complement truncation used for the small dod buckets,
+     * whose ranges are [-(2^(n-1) - 1), 2^(n-1)].
+     */
+    private static long signed(long raw, int bits) {
+        return raw > (1L << (bits - 1)) ? raw - (1L << bits) : raw;
+    }
+}
@@ -0,0 +1,71 @@
+package com.farm.storage;
+
+/**
+ * Lttb - Largest-Triangle-Three-Buckets downsampling (Steinarsson, 2013).
+ *
+ * Reduces a series to a fixed number of points while keeping its visual
+ * shape: the first and last samples are kept, and every bucket in between
+ * contributes the sample forming the largest triangle with the previously
+ * selected point and the average of the next bucket.
+ */
+public final class Lttb {
+
+    private Lttb() {
+    }
+
+    /**
+     * @param threshold number of points wanted; values below 3 or at least
+     *                  the input size return the input unchanged
+     */
+    public static SampleBuffer downsample(SampleBuffer data, int threshold) {
+        int n = data.size();
+        if (threshold < 3 || threshold >= n) {
+            return data;
+        }
+
+        SampleBuffer sampled = new SampleBuffer(threshold);
+        long origin = data.timestampAt(0);
+        double every = (double) (n - 2) / (threshold - 2);
+
+        int a = 0;
+        sampled.add(data.timestampAt(0), data.valueAt(0));
+
+        for (int i = 0; i < threshold - 2; i++) {
+            // Average of the next bucket
+            int avgStart = (int) Math.floor((i + 1) * every) + 1;
+            int avgEnd = Math.min((int) Math.floor((i + 2) * every) + 1, n);
+            double avgX = 0;
+            double avgY = 0;
+            for (int j = avgStart; j < avgEnd; j++) {
+                avgX += data.timestampAt(j) - origin;
+                avgY += data.valueAt(j);
+            }
+            int avgLength = Math.max(1, avgEnd - avgStart);
+            avgX /= avgLength;
+            avgY /= avgLength;
+
+            // Point of the current bucket forming the largest triangle
+            int rangeStart = (int) Math.floor(i * every) + 1;
+            int rangeEnd = (int) Math.floor((i + 1) * every) + 1;
+            double ax = data.timestampAt(a) - origin;
+            double ay = data.valueAt(a);
+
+            double maxArea = -1;
+            int maxIndex = rangeStart;
+            for (int j = rangeStart; j < rangeEnd; j++) {
+                double area = Math.abs((ax - avgX) * (data.valueAt(j) - ay)
+                        - (ax - (data.timestampAt(j) - origin)) * (avgY - ay));
+                if (area > maxArea) {
+                    maxArea = area;
+                    maxIndex = j;
+                }
+            }
+
+            sampled.add(data.timestampAt(maxIndex), data.valueAt(maxIndex));
+            a = maxIndex;
+        }
+
+        sampled.add(data.timestampAt(n - 1), data.valueAt(n - 1));
+        return sampled;
+    }
+}
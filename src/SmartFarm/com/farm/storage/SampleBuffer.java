@@ -0,0 +1,43 @@
+package com.farm.storage;
+
+import java.util.Arrays;
+
+/**
+ * SampleBuffer - Growable pair of primitive arrays holding (timestamp, value)
+ * samples, so range queries don't box millions of points.
+ */
+public class SampleBuffer {
+
+    private long[] timestamps;
+    private double[] values;
+    private int size = 0;
+
+    public SampleBuffer(int initialCapacity) {
+        int capacity = Math.max(16, initialCapacity);
+        timestamps = new long[capacity];
+        values = new double[capacity];
+    }
+
+    public void add(long timestamp, double value) {
+        if (size == timestamps.length) {
+            int capacity = size * 2;
+            timestamps = Arrays.copyOf(timestamps, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        timestamps[size] = timestamp;
+        values[size] = value;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long timestampAt(int index) {
+        return timestamps[index];
+    }
+
+    public double valueAt(int index) {
+        return values[index];
+    }
+}
@@ -0,0 +1,129 @@
+package com.farm.storage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * TimeSeries - Append-only series of compressed GorillaChunks.
+ *
+ * Appends go to the open chunk; a full chunk is sealed and never modified
+ * again. Range queries locate overlapping chunks by binary search on their
+ * start time and decode sealed chunks outside the lock. Samples older than
+ * the last appended timestamp are rejected. When maxChunks is reached the
+ * oldest chunk is dropped.
+ */
+public class TimeSeries {
+
+    private final String id;
+    private final int chunkCapacity;
+    private final int maxChunks;
+
+    private final List<GorillaChunk> sealedChunks = new ArrayList<>();
+    private GorillaChunk openChunk;
+    private long lastTimestamp = Long.MIN_VALUE;
+    private long sampleCount = 0;
+    private long sealedBytes = 0;
+
+    public TimeSeries(String id, int chunkCapacity, int maxChunks) {
+        this.id = id;
+        this.chunkCapacity = chunkCapacity;
+        this.maxChunks = maxChunks;
+        this.openChunk = new GorillaChunk(chunkCapacity);
+    }
+
+    /**
+     * @return false if the timestamp is older than the last sample
+     */
+    public synchronized boolean append(long timestamp, double value) {
+        if (timestamp < lastTimestamp) {
+            return false;
+        }
+
+        if (!openChunk.append(timestamp, value)) {
+            openChunk.seal();
+            sealedChunks.add(openChunk);
+            sealedBytes += openChunk.getCompressedBytes();
+            if (sealedChunks.size() > maxChunks) {
+                GorillaChunk evicted = sealedChunks.remove(0);
+                sealedBytes -= evicted.getCompressedBytes();
+                sampleCount -= evicted.getCount();
+            }
+            openChunk = new GorillaChunk(chunkCapacity);
+            openChunk.append(timestamp, value);
+        }
+
+        lastTimestamp = timestamp;
+        sampleCount++;
+        return true;
+    }
+
+    /**
+     * All samples with from <= timestamp <= to, in time order.
+     */
+    public SampleBuffer query(long from, long to) {
+        List<GorillaChunk> overlapping = new ArrayList<>();
+        SampleBuffer openSamples = new SampleBuffer(0);
+
+        synchronized (this) {
+            for (int i = firstChunkEndingAfter(from); i < sealedChunks.size(); i++) {
+                GorillaChunk chunk = sealedChunks.get(i);
+                if (chunk.getFirstTimestamp() > to) {
+                    break;
+                }
+                overlapping.add(chunk);
+            }
+            openChunk.decode(from, to, openSamples);
+        }
+
+        int estimate = overlapping.size() * chunkCapacity + openSamples.size();
+        SampleBuffer result = new SampleBuffer(estimate);
+        for (GorillaChunk chunk : overlapping) {
+            chunk.decode(from, to, result);
+        }
+        for (int i = 0; i < openSamples.size(); i++) {
+            result.add(openSamples.timestampAt(i), openSamples.valueAt(i));
+        }
+        return result;
+    }
+
+    /**
+     * Range query downsampled to at most {@code points} samples with LTTB.
+     */
+    public SampleBuffer query(long from, long to, int points) {
+        return Lttb.downsample(query(from, to), points);
+    }
+
+    private int firstChunkEndingAfter(long from) {
+        int low = 0;
+        int high = sealedChunks.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sealedChunks.get(mid).getLastTimestamp() < from) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public synchronized long getSampleCount() {
+        return sampleCount;
+    }
+
+    public synchronized long getCompressedBytes() {
+        return sealedBytes + openChunk.getCompressedBytes();
+    }
+
+    public synchronized long getLastTimestamp() {
+        return lastTimestamp;
+    }
+
+    public synchronized double getBytesPerSample() {
+        return sampleCount == 0 ? 0 : (double) getCompressedBytes() / sampleCount;
+    }
+}
@@ -0,0 +1,62 @@
+package com.farm.storage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.farm.sim.SimulationClock;
+
+/**
+ * TimeSeriesStore - Embedded in-memory history for sensor, weather, growth
+ * and prediction series.
+ *
+ * Agents record values with {@link #record(String, double)}; the web server
+ * answers /api/series range queries from it. Series ids are dotted paths
+ * such as "sensor.1.moisture", "field.2.growth" or "weather.temperature".
+ *
+ * Defaults: 1024 samples per chunk and 4096 chunks per series, i.e. about
+ * 48 days of 1-second data per series before the oldest chunk is dropped.
+ */
+public class TimeSeriesStore {
+
+    public static final int CHUNK_CAPACITY = 1024;
+    public static final int MAX_CHUNKS = 4096;
+
+    private static final ConcurrentHashMap<String, TimeSeries> series = new ConcurrentHashMap<>();
+
+    private TimeSeriesStore() {
+    }
+
+    /**
+     * Record a value at the current simulation time.
+     */
+    public static void record(String id, double value) {
+        append(id, SimulationClock.now(), value);
+    }
+
+    public static boolean append(String id, long timestamp, double value) {
+        return getOrCreate(id).append(timestamp, value);
+    }
+
+    public static TimeSeries getOrCreate(String id) {
+        return series.computeIfAbsent(id, key -> new TimeSeries(key, CHUNK_CAPACITY, MAX_CHUNKS));
+    }
+
+    /**
+     * @return the series, or null if nothing was ever recorded under this id
+     */
+    public static TimeSeries get(String id) {
+        return series.get(id);
+    }
+
+    public static List<String> getSeriesIds() {
+        List<String> ids = new ArrayList<>(series.keySet());
+        Collections.sort(ids);
+        return ids;
+    }
+
+    public static void clear() {
+        series.clear();
+    }
+}
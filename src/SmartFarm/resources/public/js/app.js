@@ -29,6 +29,11 @@ const state = {
         value: null,
         confidence: 0,
         samples: 0
+    },
+    clock: {         // Populated by SIM_CLOCK from backend
+        speed: 1,
+        achievedSpeed: 1,
+        paused: false
     }
 };
 
@@ -39,6 +44,7 @@ const state = {
 let ws = null;
 let reconnectAttempts = 0;
 const MAX_RECONNECT_ATTEMPTS = 10;
+let lastSeq = 0; // sequence number of the last applied SNAPSHOT/FRAME
 
 function connect() {
     const wsUrl = `ws://${window.location.hostname}:8080/stream`;
@@ -75,13 +81,36 @@ function connect() {
     ws.onmessage = (event) => {
         try {
             const message = JSON.parse(event.data);
-            handleBackendMessage(message);
+            handleStreamMessage(message);
         } catch (e) {
             console.error('[WebSocket] Parse error:', e);
         }
     };
 }
 
+/**
+ * The server sends a SNAPSHOT on connect, then sequence-numbered FRAMEs,
+ * each carrying a batch of regular messages.
+ */
+function handleStreamMessage(message) {
+    if (message.type === 'SNAPSHOT') {
+        lastSeq = message.seq;
+        message.messages.forEach(handleBackendMessage);
+    } else if (message.type === 'FRAME') {
+        if (message.seq <= lastSeq) {
+            return; // already covered by the snapshot
+        }
+        if (message.seq !== lastSeq + 1) {
+            console.warn(`[WebSocket] Sequence gap (${lastSeq} -> ${message.seq}), requesting snapshot`);
+            ws.send(JSON.stringify({ command: 'RESYNC' }));
+        }
+        lastSeq = message.seq;
+        message.messages.forEach(handleBackendMessage);
+    } else {
+        handleBackendMessage(message);
+    }
+}
+
 function updateConnectionStatus(connected) {
     const statusEl = document.getElementById('connectionStatus');
     if (connected) {
@@ -118,6 +147,10 @@ function handleBackendMessage(message) {
             handleMoistureReading(data);
             break;
 
+        case 'MOISTURE_BATCH':
+            handleMoistureBatch(data);
+            break;
+
         // Drone events
         case 'DRONE_DISPATCH':
         case 'DRONE_MOVING':
@@ -196,6 +229,11 @@ function handleBackendMessage(message) {
             handleSensorAlert(data, timestamp);
             break;
 
+        // Simulation clock
+        case 'SIM_CLOCK':
+            handleSimClock(data);
+            break;
+
         default:
             console.log('[Backend] Unknown event:', type, data);
     }
@@ -224,6 +262,19 @@ function handleMoistureReading(data) {
     }
 }
 
+function handleMoistureBatch(data) {
+    let changed = false;
+    (data.readings || []).forEach(({ fieldId, value }) => {
+        if (state.fields[fieldId]) {
+            state.fields[fieldId].moisture = value;
+            changed = true;
+        }
+    });
+    if (changed) {
+        renderFields();
+    }
+}
+
 function renderFields() {
     const container = document.getElementById('fieldsContainer');
     const fieldIds = Object.keys(state.fields).sort((a, b) => a - b);
@@ -609,6 +660,46 @@ function handleSensorAlert(data, timestamp) {
     addLog('droneLog', 'alert', `⚠️ Sensor alert: Field ${data.fieldId} - ${data.message || 'low moisture'}`, timestamp);
 }
 
+// ============================================================
+//                    SIMULATION CLOCK
+// ============================================================
+
+function handleSimClock(data) {
+    state.clock = data;
+
+    const pauseBtn = document.getElementById('simPauseBtn');
+    if (pauseBtn) pauseBtn.textContent = data.paused ? 'Resume' : 'Pause';
+
+    const speedSelect = document.getElementById('simSpeed');
+    if (speedSelect && document.activeElement !== speedSelect) {
+        speedSelect.value = String(Math.round(data.speed));
+    }
+
+    const achieved = document.getElementById('simAchieved');
+    if (achieved) {
+        achieved.textContent = data.paused ? 'paused' : `${data.achievedSpeed.toFixed(1)}x`;
+        achieved.title = new Date(data.virtualTime).toLocaleString();
+    }
+}
+
+function sendCommand(command) {
+    if (ws && ws.readyState === WebSocket.OPEN) {
+        ws.send(JSON.stringify(command));
+    }
+}
+
+function toggleSimulation() {
+    sendCommand({ command: state.clock.paused ? 'START_SIMULATION' : 'PAUSE_SIMULATION' });
+}
+
+function setSimulationSpeed(speed) {
+    sendCommand({ command: 'SET_SPEED', speed: Number(speed) });
+}
+
+function stepSimulation(ms) {
+    sendCommand({ command: 'STEP_SIMULATION', ms: ms });
+}
+
 // ============================================================
 //                    LOG SYSTEM
 // ============================================================
@@ -0,0 +1,245 @@
+package com.smartfarm;
+
+import jade.core.ContainerID;
+import jade.core.Profile;
+import jade.core.ProfileImpl;
+import jade.core.Runtime;
+import jade.wrapper.AgentContainer;
+import jade.wrapper.AgentController;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * FieldContainerPool - Places field agents into a pool of shared JADE
+ * containers instead of one container per field.
+ *
+ * - Up to fieldsPerContainer fields share a container; a new container
+ * ("Field-Pool-N") is only created when every existing one is full
+ * - Placement policy: FILL_FIRST packs the oldest container with room,
+ * LEAST_LOADED picks the container with the fewest fields
+ * - Field agents report activity (messages handled) with recordActivity();
+ * rebalance() moves the busiest field out of a hot container (heat above
+ * HOT_FACTOR x the average) into the coolest container with room, or into
+ * a new container when all are full
+ *
+ * fieldsPerContainer = 1 gives the previous one-container-per-field layout.
+ * Thread-safe: fields are bought from agent threads, activity is recorded
+ * from every field agent.
+ */
+public class FieldContainerPool {
+
+    public enum Placement {
+        FILL_FIRST, LEAST_LOADED
+    }
+
+    private static final double HOT_FACTOR = 1.5;
+
+    private static class PooledContainer {
+        final String name;
+        final AgentContainer container;
+        final List<String> fields = new ArrayList<>();
+
+        PooledContainer(String name, AgentContainer container) {
+            this.name = name;
+            this.container = container;
+        }
+    }
+
+    private final String mainHost;
+    private final int fieldsPerContainer;
+    private final Placement placement;
+    private final List<PooledContainer> containers = new ArrayList<>();
+    private final Map<String, PooledContainer> fieldLocations = new HashMap<>();
+    private final Map<String, AgentController> fieldControllers = new HashMap<>();
+    private final Map<String, LongAdder> activity = new ConcurrentHashMap<>();
+    private int migrations = 0;
+
+    public FieldContainerPool(String mainHost, int fieldsPerContainer, Placement placement) {
+        this.mainHost = mainHost;
+        this.fieldsPerContainer = Math.max(1, fieldsPerContainer);
+        this.placement = placement;
+    }
+
+    /**
+     * Create and start a field agent in the container chosen by the
+     * placement policy.
+     */
+    public synchronized AgentController placeField(String agentName, String className, Object[] args)
+            throws Exception {
+        PooledContainer target = choose();
+        if (target == null) {
+            target = newContainer();
+        }
+
+        AgentController agent = target.container.createNewAgent(agentName, className, args);
+        agent.start();
+        target.fields.add(agentName);
+        fieldLocations.put(agentName, target);
+        fieldControllers.put(agentName, agent);
+        activity.put(agentName, new LongAdder());
+        return agent;
+    }
+
+    private PooledContainer newContainer() {
+        String name = "Field-Pool-" + (containers.size() + 1);
+        Profile profile = new ProfileImpl();
+        profile.setParameter(Profile.MAIN_HOST, mainHost);
+        profile.setParameter(Profile.CONTAINER_NAME, name);
+        profile.setParameter(Profile.SERVICES, Main.PLATFORM_SERVICES);
+        PooledContainer container = new PooledContainer(name, Runtime.instance().createAgentContainer(profile));
+        containers.add(container);
+        System.out.println("[FieldPool] " + name + " created (" + containers.size() + " containers)");
+        return container;
+    }
+
+    private PooledContainer choose() {
+        PooledContainer best = null;
+        for (PooledContainer candidate : containers) {
+            if (candidate.fields.size() >= fieldsPerContainer) {
+                continue;
+            }
+            if (placement == Placement.FILL_FIRST) {
+                return candidate;
+            }
+            if (best == null || candidate.fields.size() < best.fields.size()) {
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    // ==================== REBALANCING ====================
+
+    /**
+     * Called by field agents for every message they handle.
+     */
+    public void recordActivity(String fieldName) {
+        LongAdder counter = activity.get(fieldName);
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+
+    /**
+     * Move the busiest field of the hottest container to the coolest
+     * container with room (a new one if all are full), if that lowers the
+     * peak; activity since the previous call is the heat. Returns the
+     * number of fields moved (0 or 1).
+     */
+    public synchronized int rebalance() {
+        Map<String, Long> fieldHeat = new HashMap<>();
+        for (Map.Entry<String, LongAdder> entry : activity.entrySet()) {
+            fieldHeat.put(entry.getKey(), entry.getValue().sumThenReset());
+        }
+        if (containers.isEmpty()) {
+            return 0;
+        }
+
+        PooledContainer hottest = null;
+        long hottestHeat = -1;
+        long total = 0;
+        Map<PooledContainer, Long> heat = new HashMap<>();
+        for (PooledContainer container : containers) {
+            long sum = 0;
+            for (String field : container.fields) {
+                sum += fieldHeat.getOrDefault(field, 0L);
+            }
+            heat.put(container, sum);
+            total += sum;
+            if (sum > hottestHeat) {
+                hottest = container;
+                hottestHeat = sum;
+            }
+        }
+        double average = (double) total / containers.size();
+        if (hottest.fields.size() < 2 || hottestHeat <= HOT_FACTOR * average) {
+            return 0;
+        }
+
+        String busiest = null;
+        for (String field : hottest.fields) {
+            if (busiest == null || fieldHeat.getOrDefault(field, 0L) > fieldHeat.getOrDefault(busiest, 0L)) {
+                busiest = field;
+            }
+        }
+        long moving = fieldHeat.getOrDefault(busiest, 0L);
+
+        PooledContainer coolest = null;
+        for (PooledContainer candidate : containers) {
+            if (candidate != hottest && candidate.fields.size() < fieldsPerContainer
+                    && (coolest == null || heat.get(candidate) < heat.get(coolest))) {
+                coolest = candidate;
+            }
+        }
+        long coolestHeat = coolest != null ? heat.get(coolest) : 0;
+        if (coolestHeat + moving >= hottestHeat) {
+            return 0;
+        }
+
+        try {
+            if (coolest == null) {
+                coolest = newContainer();
+            }
+            fieldControllers.get(busiest).move(new ContainerID(coolest.name, null));
+        } catch (Exception e) {
+            System.err.println("[FieldPool] Failed to move " + busiest + ": " + e.getMessage());
+            return 0;
+        }
+        hottest.fields.remove(busiest);
+        coolest.fields.add(busiest);
+        fieldLocations.put(busiest, coolest);
+        migrations++;
+        System.out.println("[FieldPool] " + busiest + " moved " + hottest.name + " -> " + coolest.name
+                + " (heat " + hottestHeat + " vs avg " + (long) average + ")");
+        return 1;
+    }
+
+    /**
+     * Kill every pooled container and the fields in it.
+     */
+    public synchronized void shutdown() {
+        for (PooledContainer container : containers) {
+            try {
+                container.container.kill();
+            } catch (Exception e) {
+                System.err.println("[FieldPool] Failed to kill " + container.name + ": " + e.getMessage());
+            }
+        }
+        containers.clear();
+        fieldLocations.clear();
+        fieldControllers.clear();
+        activity.clear();
+    }
+
+    // ==================== GETTERS ====================
+
+    public synchronized int getContainerCount() {
+        return containers.size();
+    }
+
+    public synchronized int getFieldCount() {
+        return fieldLocations.size();
+    }
+
+    public synchronized String getContainerOf(String fieldName) {
+        PooledContainer container = fieldLocations.get(fieldName);
+        return container != null ? container.name : null;
+    }
+
+    public synchronized int getMigrations() {
+        return migrations;
+    }
+
+    public int getFieldsPerContainer() {
+        return fieldsPerContainer;
+    }
+
+    public Placement getPlacement() {
+        return placement;
+    }
+}
@@ -0,0 +1,139 @@
+package com.smartfarm;
+
+import jade.core.AID;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * FieldRegistry - Every running field agent, indexed by weather region.
+ *
+ * Fields are laid out on the farm map row by row, fieldsPerRow to a row,
+ * in field id order. The map is cut into square regions of regionSize x
+ * regionSize fields; a field's region follows from its id, so it stays
+ * the same when the field moves between containers.
+ *
+ * FieldAgent joins in setup(), and also subscribes to its region's JADE
+ * topic (topicName()), and leaves in takeDown(). The WeatherAgent sends
+ * each region's update once, to the topic, and drains the fields that
+ * joined since its last tick. Thread-safe.
+ */
+public class FieldRegistry {
+
+    /**
+     * A field that joined, and the region it landed in.
+     */
+    public static class Joined {
+        public final int region;
+        public final AID field;
+
+        Joined(int region, AID field) {
+            this.region = region;
+            this.field = field;
+        }
+    }
+
+    private final int fieldsPerRow;
+    private final int regionSize;
+    private final int regionColumns;
+    private final Map<Integer, Set<AID>> regions = new ConcurrentHashMap<>();
+    private final Map<AID, Integer> fieldRegions = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Joined> joined = new ConcurrentLinkedQueue<>();
+
+    public FieldRegistry(int fieldsPerRow, int regionSize) {
+        this.fieldsPerRow = Math.max(1, fieldsPerRow);
+        this.regionSize = Math.max(1, regionSize);
+        this.regionColumns = (this.fieldsPerRow + this.regionSize - 1) / this.regionSize;
+    }
+
+    // ==================== MEMBERSHIP ====================
+
+    public int register(int fieldId, AID field) {
+        int region = regionOf(fieldId);
+        regions.computeIfAbsent(region, r -> ConcurrentHashMap.newKeySet()).add(field);
+        fieldRegions.put(field, region);
+        joined.add(new Joined(region, field));
+        return region;
+    }
+
+    public void unregister(AID field) {
+        Integer region = fieldRegions.remove(field);
+        if (region != null) {
+            Set<AID> members = regions.get(region);
+            if (members != null) {
+                members.remove(field);
+            }
+        }
+    }
+
+    /**
+     * Fields that joined since the previous call.
+     */
+    public List<Joined> drainJoined() {
+        List<Joined> drained = new ArrayList<>();
+        Joined next;
+        while ((next = joined.poll()) != null) {
+            drained.add(next);
+        }
+        return drained;
+    }
+
+    // ==================== GRID ====================
+
+    public static String topicName(int region) {
+        return "weather-region-" + region;
+    }
+
+    public int regionOf(int fieldId) {
+        int index = Math.max(0, fieldId - 1);
+        int x = index % fieldsPerRow;
+        int y = index / fieldsPerRow;
+        return (y / regionSize) * regionColumns + x / regionSize;
+    }
+
+    /**
+     * The regions left, right, above and below; -1 past the left or right
+     * edge, and possibly negative or empty above and below.
+     */
+    public int[] neighboursOf(int region) {
+        int column = region % regionColumns;
+        return new int[] {
+                column > 0 ? region - 1 : -1,
+                column < regionColumns - 1 ? region + 1 : -1,
+                region - regionColumns,
+                region + regionColumns };
+    }
+
+    /**
+     * Regions that have (or had) fields in them.
+     */
+    public Collection<Integer> getRegions() {
+        return Collections.unmodifiableSet(regions.keySet());
+    }
+
+    /**
+     * Live view of the fields in a region.
+     */
+    public Collection<AID> getMembers(int region) {
+        Set<AID> members = regions.get(region);
+        return members != null ? Collections.unmodifiableSet(members) : Collections.emptySet();
+    }
+
+    public int getFieldCount() {
+        return fieldRegions.size();
+    }
+
+    public int getRegionSize() {
+        return regionSize;
+    }
+
+    public int getFieldsPerRow() {
+        return fieldsPerRow;
+    }
+}
@@ -0,0 +1,199 @@
+package com.smartfarm;
+
+import jade.wrapper.AgentController;
+import com.smartfarm.agents.DispatcherAgent;
+import com.smartfarm.agents.FarmManagerAgent;
+import com.smartfarm.agents.PlannerAgent;
+import com.smartfarm.agents.WeatherAgent;
+import com.smartfarm.models.FieldType;
+import com.smartfarm.models.Ledger;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * HeadlessRun - Drives a farm started by Main in headless mode: buys fields
+ * on a script, lets the simulation run, and reports what it got done.
+ *
+ * The script is a comma-separated list of "<sim second>:<field type>" with
+ * an optional "x<count>", e.g. "0:CORNx20,60:WHEATx20": twenty corn fields
+ * at the start and twenty wheat fields a minute in. Purchases go to the
+ * FarmManager as the GUI sends them, and are paid for like any other, so
+ * farm.money should cover them.
+ *
+ * The report is one JSON object. Times are simulated milliseconds unless
+ * the name says wall. clockLag is how many weather ticks happened against
+ * how many the clock called for: near 1 the agents kept up, well below 1
+ * the CPU could not, and the speedup is too high for this many fields.
+ */
+public class HeadlessRun {
+
+    private static final int O2A_QUEUE = 10; // FarmManager's O2A queue size
+
+    private static class Purchase {
+        final long at;
+        final FieldType type;
+        final int count;
+
+        Purchase(long at, FieldType type, int count) {
+            this.at = at;
+            this.type = type;
+            this.count = count;
+        }
+    }
+
+    private final SimClock clock;
+    private final Ledger ledger;
+    private final FieldContainerPool fieldPool;
+    private final AgentController managerController;
+    private final FarmManagerAgent manager;
+    private final DispatcherAgent dispatcher;
+    private final WeatherAgent weather;
+    private final PlannerAgent planner;
+
+    private final LongAdder ledgerEvents = new LongAdder();
+    private final LongAdder waterUsed = new LongAdder();
+    private final LongAdder cropsHarvested = new LongAdder();
+    private long requested = 0;
+    private long simMillis;
+    private long wallNanos;
+    private long weatherTicks;
+
+    public HeadlessRun(SimClock clock, Ledger ledger, FieldContainerPool fieldPool, AgentController managerController,
+            FarmManagerAgent manager, DispatcherAgent dispatcher, WeatherAgent weather, PlannerAgent planner) {
+        this.clock = clock;
+        this.ledger = ledger;
+        this.fieldPool = fieldPool;
+        this.managerController = managerController;
+        this.manager = manager;
+        this.dispatcher = dispatcher;
+        this.weather = weather;
+        this.planner = planner;
+    }
+
+    /**
+     * Parse "<sim second>:<type>[x<count>],...", in time order.
+     */
+    static List<Purchase> parseScript(String script) {
+        List<Purchase> purchases = new ArrayList<>();
+        for (String entry : script.split(",")) {
+            entry = entry.trim();
+            if (entry.isEmpty()) {
+                continue;
+            }
+            String[] parts = entry.split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Bad script entry: " + entry);
+            }
+            String type = parts[1];
+            int count = 1;
+            int times = type.lastIndexOf('x');
+            if (times > 0) {
+                count = Integer.parseInt(type.substring(times + 1));
+                type = type.substring(0, times);
+            }
+            purchases.add(new Purchase((long) (Double.parseDouble(parts[0]) * 1000),
+                    FieldType.valueOf(type.toUpperCase()), count));
+        }
+        purchases.sort((a, b) -> Long.compare(a.at, b.at));
+        return purchases;
+    }
+
+    /**
+     * Top the money up to money, play the script, and run until
+     * durationMillis of simulated time have passed.
+     */
+    public void run(String script, long durationMillis, long money) throws Exception {
+        List<Purchase> purchases = parseScript(script);
+        long topUp = money - ledger.get(Ledger.Item.MONEY);
+        if (topUp > 0) {
+            ledger.credit(Ledger.Item.MONEY, topUp);
+        }
+        ledger.addListener((item, delta, balance) -> {
+            ledgerEvents.increment();
+            if (item == Ledger.Item.WATER && delta < 0) {
+                waterUsed.add(-delta);
+            } else if (item == Ledger.Item.CROPS && delta > 0) {
+                cropsHarvested.add(delta);
+            }
+        });
+
+        long start = clock.now();
+        long wallStart = System.nanoTime();
+        long ticksBefore = weather.getTicks();
+        for (Purchase purchase : purchases) {
+            sleepUntil(start + purchase.at);
+            for (int i = 0; i < purchase.count; i++) {
+                // JADE drops the oldest command when the O2A queue is full
+                while (requested - manager.getCommandsReceived() >= O2A_QUEUE) {
+                    Thread.sleep(1);
+                }
+                managerController.putO2AObject("BUY_FIELD:" + purchase.type.name(), AgentController.ASYNC);
+                requested++;
+            }
+        }
+        sleepUntil(start + durationMillis);
+
+        simMillis = clock.now() - start;
+        wallNanos = System.nanoTime() - wallStart;
+        weatherTicks = weather.getTicks() - ticksBefore;
+    }
+
+    private void sleepUntil(long simTime) throws InterruptedException {
+        long wait = simTime - clock.now();
+        if (wait > 0) {
+            clock.sleep(wait);
+        }
+    }
+
+    // ==================== REPORT ====================
+
+    public void report(PrintStream out) {
+        double wallSeconds = wallNanos / 1e9;
+        double simMinutes = simMillis / 60000.0;
+        long expectedTicks = simMillis / 4000; // WeatherAgent's default period
+
+        StringBuilder json = new StringBuilder("{");
+        json.append(String.format(Locale.ROOT, "\"simSeconds\":%.1f,\"wallSeconds\":%.2f,\"speedup\":%s,",
+                simMillis / 1000.0, wallSeconds, clock.getSpeedup()));
+        json.append(String.format(Locale.ROOT, "\"clockLag\":%.2f,",
+                expectedTicks > 0 ? (double) weatherTicks / expectedTicks : 1.0));
+        json.append(String.format("\"fields\":{\"requested\":%d,\"bought\":%d,\"refused\":%d,\"timeouts\":%d,"
+                + "\"total\":%d,\"containers\":%d},", requested, manager.getPurchased(), manager.getRefused(),
+                manager.getTimeouts(), fieldPool.getFieldCount(), fieldPool.getContainerCount()));
+
+        long jobs = 0;
+        json.append("\"jobs\":{");
+        for (DispatcherAgent.JobType type : DispatcherAgent.JobType.values()) {
+            List<Long> waits = dispatcher.getWaitTimes(type);
+            Collections.sort(waits);
+            long assigned = dispatcher.getAssigned(type);
+            jobs += assigned;
+            json.append(String.format("\"%s\":{\"assigned\":%d,\"queued\":%d,\"waitP50\":%d,\"waitP99\":%d,"
+                    + "\"waitMax\":%d},", type, assigned, dispatcher.getQueued(type), percentile(waits, 0.50),
+                    percentile(waits, 0.99), waits.isEmpty() ? 0 : waits.get(waits.size() - 1)));
+        }
+        json.append(String.format("\"requests\":%d,\"duplicates\":%d,\"failures\":%d},", dispatcher.getRequests(),
+                dispatcher.getDuplicates(), dispatcher.getFailures()));
+
+        json.append(String.format(Locale.ROOT, "\"throughput\":{\"jobsPerSimMinute\":%.1f,\"jobsPerWallSecond\":%.1f,"
+                + "\"ledgerEventsPerWallSecond\":%.1f},", jobs / simMinutes, jobs / wallSeconds,
+                ledgerEvents.sum() / wallSeconds));
+        json.append(String.format("\"ledger\":{\"waterUsed\":%d,\"cropsHarvested\":%d,\"money\":%d},",
+                waterUsed.sum(), cropsHarvested.sum(), ledger.get(Ledger.Item.MONEY)));
+        json.append(String.format("\"plannerOrders\":%d", planner.getOrders()));
+        json.append("}");
+        out.println(json);
+    }
+
+    private static long percentile(List<Long> sorted, double p) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        return sorted.get(Math.min(sorted.size() - 1, (int) Math.ceil(p * sorted.size()) - 1));
+    }
+}
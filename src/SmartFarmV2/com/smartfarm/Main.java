@@ -1,59 +1,112 @@
 package com.smartfarm;
 
+import jade.core.Agent;
 import jade.core.Profile;
 import jade.core.ProfileImpl;
 import jade.core.Runtime;
 import jade.wrapper.AgentContainer;
 import jade.wrapper.AgentController;
+import jade.wrapper.StaleProxyException;
+import com.smartfarm.agents.DispatcherAgent;
+import com.smartfarm.agents.FarmManagerAgent;
+import com.smartfarm.agents.PlannerAgent;
+import com.smartfarm.agents.WeatherAgent;
+import com.smartfarm.models.Ledger;
 import com.smartfarm.web.WebServer;
 
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Random;
+
 /**
  * SmartFarm V2 - Main Entry Point
  * 
  * Phase 1.2: Container Architecture
  * Phase 1.3: Field Agents
+ *
+ * Headless mode (-Dfarm.headless=true) runs without the web server or
+ * console output, on a SimClock running farm.speedup times faster than the
+ * wall clock (default 100), with seeded random numbers (farm.seed, default
+ * 42). It buys the fields in farm.script, runs farm.duration simulated
+ * seconds and prints the results as JSON; see HeadlessRun.
  */
 public class Main {
 
+    /**
+     * JADE services for every container: the defaults (mobility, event
+     * notification) plus topics, which carry the regional weather.
+     */
+    public static final String PLATFORM_SERVICES = "jade.core.mobility.AgentMobilityService;"
+            + "jade.core.event.NotificationService;jade.core.messaging.TopicManagementService";
+
     private static WebServer webServer;
+    private static Ledger ledger;
     private static AgentContainer mainContainer;
     private static AgentContainer baseContainer;
-    private static AgentContainer[] fieldContainers;
+    private static FieldContainerPool fieldPool;
+    private static FieldRegistry fieldRegistry;
+    private static SimClock clock = SimClock.REAL;
+    private static Long seed; // null: unseeded
 
     // ==================== NEW: Dynamic Helper ====================
     public static void createFieldAgent(int id, com.smartfarm.models.CropType type) {
         try {
-            Runtime runtime = Runtime.instance();
-            
-            // Create Container
-            Profile fieldProfile = new ProfileImpl();
-            fieldProfile.setParameter(Profile.MAIN_HOST, "localhost");
-            fieldProfile.setParameter(Profile.CONTAINER_NAME, "Field-Container-" + id);
-            AgentContainer container = runtime.createAgentContainer(fieldProfile);
-            
-            // Expand array (simple resize for demo)
-            AgentContainer[] newArray = new AgentContainer[fieldContainers.length + 1];
-            System.arraycopy(fieldContainers, 0, newArray, 0, fieldContainers.length);
-            newArray[fieldContainers.length] = container;
-            fieldContainers = newArray;
+            long start = System.nanoTime();
 
-            // Create Agent
+            // Place into a pooled container (a new one only when all are full)
             Object[] fieldArgs = new Object[] { id, type.name(), webServer };
-            AgentController fieldAgent = container.createNewAgent(
-                    "Field-" + id,
-                    "com.smartfarm.agents.FieldAgent",
-                    fieldArgs);
-            fieldAgent.start();
-            System.out.println("[Main] Dynamic Field-" + id + " deployed successfully!");
+            fieldPool.placeField("Field-" + id, "com.smartfarm.agents.FieldAgent", fieldArgs);
+            System.out.println("[Main] Dynamic Field-" + id + " deployed to " + fieldPool.getContainerOf("Field-" + id)
+                    + " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
 
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
+    /**
+     * Set up the field container pool; main() reads it from the
+     * farm.fieldsPerContainer and farm.placement system properties.
+     */
+    public static FieldContainerPool configureFieldPool(String mainHost, int fieldsPerContainer,
+            FieldContainerPool.Placement placement) {
+        fieldPool = new FieldContainerPool(mainHost, fieldsPerContainer, placement);
+        return fieldPool;
+    }
+
+    /**
+     * Set up the field registry (weather regions); main() reads it from the
+     * farm.fieldsPerRow and farm.regionSize system properties.
+     */
+    public static FieldRegistry configureFieldRegistry(int fieldsPerRow, int regionSize) {
+        fieldRegistry = new FieldRegistry(fieldsPerRow, regionSize);
+        return fieldRegistry;
+    }
+
+    /**
+     * Create and start an agent, keeping the instance.
+     */
+    private static AgentController startAgent(AgentContainer container, String name, Agent agent, Object[] args)
+            throws StaleProxyException {
+        agent.setArguments(args);
+        AgentController controller = container.acceptNewAgent(name, agent);
+        controller.start();
+        return controller;
+    }
+
     public static AgentController farmManager;
 
     public static void main(String[] args) {
+        boolean headless = Boolean.getBoolean("farm.headless");
+        PrintStream console = System.out;
+        if (headless) {
+            clock = new SimClock(Double.parseDouble(System.getProperty("farm.speedup", "100")));
+            seed = Long.getLong("farm.seed", 42);
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        } else if (System.getProperty("farm.seed") != null) {
+            seed = Long.getLong("farm.seed");
+        }
+
         System.out.println("============================================================");
         System.out.println("           SMARTFARM V2 - MULTI-AGENT SIMULATION");
         System.out.println("============================================================");
@@ -61,14 +114,19 @@ public class Main {
 
         try {
             // Step 1: Start WebServer
-            System.out.println("[Main] Step 1: Starting WebServer on port 8080...");
-            webServer = new WebServer();
-            webServer.start(8080);
-            System.out.println("[Main] WebServer started successfully!");
-
-            // Initialize Inventory with WebServer
-            com.smartfarm.models.Inventory.setWebServer(webServer);
-            System.out.println("[Main] Inventory system initialized.");
+            if (headless) {
+                System.out.println("[Main] Step 1: Headless, no WebServer.");
+            } else {
+                System.out.println("[Main] Step 1: Starting WebServer on port 8080...");
+                webServer = new WebServer();
+                webServer.start(8080);
+                System.out.println("[Main] WebServer started successfully!");
+            }
+
+            // Shared farm ledger (resources and money)
+            ledger = new Ledger(webServer);
+            ledger.setLogging(!headless);
+            System.out.println("[Main] Ledger initialized.");
             System.out.println();
 
             // Step 2: Initialize JADE Runtime
@@ -79,6 +137,7 @@ public class Main {
             System.out.println("[Main] Step 3: Creating Main-Container...");
             Profile mainProfile = new ProfileImpl();
             mainProfile.setParameter(Profile.MAIN_HOST, "localhost");
+            mainProfile.setParameter(Profile.SERVICES, PLATFORM_SERVICES);
             
             // CHECK GUI FLAG
             String guiProp = System.getProperty("jade.gui", "false");
@@ -104,43 +163,58 @@ public class Main {
             Profile baseProfile = new ProfileImpl();
             baseProfile.setParameter(Profile.MAIN_HOST, "localhost");
             baseProfile.setParameter(Profile.CONTAINER_NAME, "Base-Container");
+            baseProfile.setParameter(Profile.SERVICES, PLATFORM_SERVICES);
             baseContainer = runtime.createAgentContainer(baseProfile);
             System.out.println("[Main] Base-Container created.");
             
+            // Dispatcher: work queue that drones and irrigators pull jobs from
+            System.out.println("[Main] Creating Dispatcher...");
+            DispatcherAgent dispatcher = new DispatcherAgent();
+            startAgent(mainContainer, DispatcherAgent.NAME, dispatcher, new Object[] { webServer });
+
             // NEW: Market Agent
             System.out.println("[Main] Creating Market Agent...");
-            AgentController market = mainContainer.createNewAgent("Market", "com.smartfarm.agents.MarketAgent", new Object[]{webServer});
+            AgentController market = mainContainer.createNewAgent("Market", "com.smartfarm.agents.MarketAgent", new Object[]{webServer, ledger});
             market.start();
             
             // NEW: Farm Manager (with O2A enabled)
             System.out.println("[Main] Creating Farm Manager...");
-            farmManager = mainContainer.createNewAgent("FarmManager", "com.smartfarm.agents.FarmManagerAgent", new Object[]{webServer, 2});
-            farmManager.start();
-
-            // Step 5: Create Field-Containers
-            System.out.println("[Main] Step 5: Creating Field-Containers...");
-            int numFields = 2; // Start with 2 fields
-            fieldContainers = new AgentContainer[numFields];
-
-            for (int i = 1; i <= numFields; i++) {
-                Profile fieldProfile = new ProfileImpl();
-                fieldProfile.setParameter(Profile.MAIN_HOST, "localhost");
-                fieldProfile.setParameter(Profile.CONTAINER_NAME, "Field-Container-" + i);
-                fieldContainers[i - 1] = runtime.createAgentContainer(fieldProfile);
-                System.out.println("[Main] Field-Container-" + i + " created.");
-            }
-
-            // Step 6: Create Field Agents (one per field container)
+            FarmManagerAgent manager = new FarmManagerAgent();
+            farmManager = startAgent(mainContainer, "FarmManager", manager, new Object[] { webServer, 2 });
+
+            // Step 5: Create the field container pool
+            System.out.println("[Main] Step 5: Creating field container pool...");
+            int fieldsPerContainer = Integer.getInteger("farm.fieldsPerContainer", 50);
+            FieldContainerPool.Placement placement = FieldContainerPool.Placement.valueOf(
+                    System.getProperty("farm.placement", "FILL_FIRST").toUpperCase().replace('-', '_'));
+            configureFieldPool("localhost", fieldsPerContainer, placement);
+            System.out.println("[Main] Field pool: " + fieldsPerContainer + " fields per container, " + placement);
+
+            // Rebalance hot containers every 30 seconds
+            java.util.concurrent.ScheduledExecutorService rebalancer = java.util.concurrent.Executors
+                    .newSingleThreadScheduledExecutor(r -> {
+                        Thread thread = new Thread(r, "FieldPool-Rebalancer");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            long rebalancePeriod = clock.toReal(30000);
+            rebalancer.scheduleAtFixedRate(fieldPool::rebalance, rebalancePeriod, rebalancePeriod,
+                    java.util.concurrent.TimeUnit.MILLISECONDS);
+
+            // Field registry: fields join it, Weather reads it by region
+            int fieldsPerRow = Integer.getInteger("farm.fieldsPerRow", 20);
+            int regionSize = Integer.getInteger("farm.regionSize", 5);
+            configureFieldRegistry(fieldsPerRow, regionSize);
+            System.out.println("[Main] Field registry: " + fieldsPerRow + " fields per row, regions of "
+                    + regionSize + "x" + regionSize);
+
+            // Step 6: Create Field Agents (placed by the pool)
             System.out.println("[Main] Step 6: Creating Field Agents...");
+            int numFields = 2; // Start with 2 fields
             String[] cropTypes = { "CORN", "WHEAT" };
 
             for (int i = 1; i <= numFields; i++) {
-                Object[] fieldArgs = new Object[] { i, cropTypes[i - 1], webServer };
-                AgentController fieldAgent = fieldContainers[i - 1].createNewAgent(
-                        "Field-" + i,
-                        "com.smartfarm.agents.FieldAgent",
-                        fieldArgs);
-                fieldAgent.start();
+                createFieldAgent(i, com.smartfarm.models.CropType.valueOf(cropTypes[i - 1]));
                 System.out.println("[Main] Field-" + i + " agent started (" + cropTypes[i - 1] + ")");
             }
 
@@ -159,7 +233,7 @@ public class Main {
             }
 
             // Create Irrigator agent
-            Object[] irrigatorArgs = new Object[] { "Irrigator", webServer };
+            Object[] irrigatorArgs = new Object[] { "Irrigator", webServer, ledger };
             AgentController irrigator = baseContainer.createNewAgent(
                     "Irrigator",
                     "com.smartfarm.agents.IrrigatorAgent",
@@ -168,7 +242,7 @@ public class Main {
             System.out.println("[Main] Irrigator started");
 
             // Create Harvester agent
-            Object[] harvesterArgs = new Object[] { "Harvester", webServer };
+            Object[] harvesterArgs = new Object[] { "Harvester", webServer, ledger };
             AgentController harvester = baseContainer.createNewAgent(
                     "Harvester",
                     "com.smartfarm.agents.HarvesterAgent",
@@ -177,7 +251,7 @@ public class Main {
             System.out.println("[Main] Harvester started");
 
             // Create Sprayer agent
-            Object[] sprayerArgs = new Object[] { "Sprayer", webServer };
+            Object[] sprayerArgs = new Object[] { "Sprayer", webServer, ledger };
             AgentController sprayer = baseContainer.createNewAgent(
                     "Sprayer",
                     "com.smartfarm.agents.SprayerAgent",
@@ -187,19 +261,15 @@ public class Main {
 
             // Step 8: Create Weather Agent in Main-Container
             System.out.println("[Main] Step 8: Creating Weather Agent...");
-            Object[] weatherArgs = new Object[] { webServer };
-            AgentController weather = mainContainer.createNewAgent(
-                    "Weather",
-                    "com.smartfarm.agents.WeatherAgent",
-                    weatherArgs);
-            weather.start();
+            WeatherAgent weather = new WeatherAgent();
+            startAgent(mainContainer, "Weather", weather, new Object[] { webServer });
             System.out.println("[Main] Weather agent started");
 
             // Step 9: Create Supplier and Client Agents
             System.out.println("[Main] Step 9: Creating Market Agents...");
 
             // Water Supplier
-            Object[] waterSupArgs = new Object[] { "WaterSupplier", "water", webServer };
+            Object[] waterSupArgs = new Object[] { "WaterSupplier", "water", webServer, ledger };
             AgentController waterSup = mainContainer.createNewAgent(
                     "WaterSupplier",
                     "com.smartfarm.agents.SupplierAgent",
@@ -208,7 +278,7 @@ public class Main {
             System.out.println("[Main] WaterSupplier started");
 
             // Fungicide Supplier
-            Object[] fungSupArgs = new Object[] { "FungicideSupplier", "fungicide", webServer };
+            Object[] fungSupArgs = new Object[] { "FungicideSupplier", "fungicide", webServer, ledger };
             AgentController fungSup = mainContainer.createNewAgent(
                     "FungicideSupplier",
                     "com.smartfarm.agents.SupplierAgent",
@@ -227,12 +297,8 @@ public class Main {
 
             // Step 10: Create BDI Planner Agent
             System.out.println("[Main] Step 10: Creating BDI Planner...");
-            Object[] plannerArgs = new Object[] { webServer };
-            AgentController planner = mainContainer.createNewAgent(
-                    "Planner",
-                    "com.smartfarm.agents.PlannerAgent",
-                    plannerArgs);
-            planner.start();
+            PlannerAgent planner = new PlannerAgent();
+            startAgent(mainContainer, "Planner", planner, new Object[] { webServer, ledger });
             System.out.println("[Main] BDI Planner started");
 
             System.out.println();
@@ -242,9 +308,7 @@ public class Main {
             System.out.println("  Containers:");
             System.out.println("    Main-Container      (Platform Admin)");
             System.out.println("    Base-Container      (Agent Home)");
-            for (int i = 1; i <= numFields; i++) {
-                System.out.println("    Field-Container-" + i + "   (Field-" + i + ")");
-            }
+            System.out.println("    Field-Pool-1..N     (" + fieldsPerContainer + " fields each)");
             System.out.println();
             System.out.println("  Market Agents:");
             System.out.println("    Market              (Economy Manager)");
@@ -255,6 +319,15 @@ public class Main {
             System.out.println("  Dashboard: http://localhost:8080");
             System.out.println("============================================================");
 
+            if (headless) {
+                HeadlessRun run = new HeadlessRun(clock, ledger, fieldPool, farmManager, manager, dispatcher,
+                        weather, planner);
+                run.run(System.getProperty("farm.script", ""), Long.getLong("farm.duration", 600) * 1000,
+                        Long.getLong("farm.money", ledger.get(Ledger.Item.MONEY)));
+                run.report(console);
+                System.exit(0);
+            }
+
             // Register shutdown hook
             java.lang.Runtime.getRuntime().addShutdownHook(new Thread(() -> {
                 System.out.println("\n[Main] Shutting down...");
@@ -266,17 +339,48 @@ public class Main {
         } catch (Exception e) {
             System.err.println("[Main] Error: " + e.getMessage());
             e.printStackTrace();
+            if (headless) {
+                System.exit(1);
+            }
         }
     }
 
+    /**
+     * The simulation's clock; wall-clock time unless headless.
+     */
+    public static SimClock getClock() {
+        return clock;
+    }
+
+    /**
+     * A random number source for one agent. With farm.seed set (always in
+     * headless runs) it is seeded from the seed and the owner's name, so
+     * every agent draws the same numbers from run to run.
+     */
+    public static Random newRandom(String owner) {
+        return seed != null ? new Random(seed * 31 + owner.hashCode()) : new Random();
+    }
+
     public static WebServer getWebServer() {
         return webServer;
     }
 
+    public static Ledger getLedger() {
+        return ledger;
+    }
+
     public static AgentContainer getMainContainer() {
         return mainContainer;
     }
 
+    public static FieldContainerPool getFieldPool() {
+        return fieldPool;
+    }
+
+    public static FieldRegistry getFieldRegistry() {
+        return fieldRegistry;
+    }
+
     public static AgentContainer getBaseContainer() {
         return baseContainer;
     }
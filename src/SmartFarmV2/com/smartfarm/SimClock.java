@@ -0,0 +1,55 @@
+package com.smartfarm;
+
+/**
+ * SimClock - Simulated time for the farm.
+ *
+ * Tick periods, travel times and timestamps in the agents are simulated
+ * milliseconds; the clock turns them into real ones. At speedup 1 (REAL,
+ * the default) simulated time is wall-clock time. The headless mode runs
+ * faster: at 100x a field's 2 s tick takes 20 ms. A period never gets
+ * shorter than 1 ms (JADE's tickers need one), so at high speedups the CPU,
+ * not the clock, sets the pace.
+ *
+ * Agents read the clock with Main.getClock().
+ */
+public class SimClock {
+
+    public static final SimClock REAL = new SimClock(1);
+
+    private final double speedup;
+    private final long startMillis = System.currentTimeMillis();
+    private final long startNanos = System.nanoTime();
+
+    public SimClock(double speedup) {
+        if (speedup <= 0) {
+            throw new IllegalArgumentException("Speedup must be positive: " + speedup);
+        }
+        this.speedup = speedup;
+    }
+
+    /**
+     * Simulated time in milliseconds, starting from the wall-clock time the
+     * clock was made.
+     */
+    public long now() {
+        return startMillis + (long) ((System.nanoTime() - startNanos) / 1e6 * speedup);
+    }
+
+    /**
+     * Real milliseconds for a simulated period or delay, at least 1.
+     */
+    public long toReal(long simMillis) {
+        return Math.max(1, Math.round(simMillis / speedup));
+    }
+
+    /**
+     * Sleep the calling thread for a simulated duration.
+     */
+    public void sleep(long simMillis) throws InterruptedException {
+        Thread.sleep(toReal(simMillis));
+    }
+
+    public double getSpeedup() {
+        return speedup;
+    }
+}
@@ -2,25 +2,26 @@ package com.smartfarm.agents;
 
 import com.smartfarm.web.WebServer;
 import jade.core.Agent;
-import jade.core.behaviours.TickerBehaviour;
 import jade.core.AID;
 import jade.lang.acl.ACLMessage;
 import jade.lang.acl.MessageTemplate;
 
 /**
  * ClientAgent - Buys crops from the farm.
- * Periodically checks if farm has crops to sell and purchases them.
+ * Keeps a standing bid for crops in the Market's order book, and places
+ * the next one when it fills. The order book is the only way crops are
+ * sold: harvested crops go straight into the farm's sell order there.
  */
 public class ClientAgent extends Agent {
 
     private String clientId;
     private WebServer webServer;
 
-    // Buying prices
-    private static final int CORN_PRICE = 15;
-    private static final int WHEAT_PRICE = 12;
-    private static final int TOMATO_PRICE = 20;
+    // Bid price per crop
     private static final int DEFAULT_PRICE = 10;
+    private static final int BID_QUANTITY = 10;
+
+    private long nextRef = 1;
 
     @Override
     protected void setup() {
@@ -34,102 +35,53 @@ public class ClientAgent extends Agent {
 
         System.out.println("[" + clientId + "] Client started. Ready to buy crops!");
 
-        // Handle SELL requests
-        addBehaviour(new SellHandler());
-
-        // Periodically try to buy crops automatically
-        addBehaviour(new TickerBehaviour(this, 15000) { // Every 15 seconds
-            @Override
-            protected void onTick() {
-                autoBuyCrops();
-            }
-        });
+        // Trade through the Market's order book
+        addBehaviour(new MarketHandler());
+        placeBid();
 
         broadcastState();
     }
 
-    /**
-     * Auto-buy crops if available
-     */
-    private void autoBuyCrops() {
-        int availableCrops = com.smartfarm.models.Inventory.getStoredCrops();
-
-        if (availableCrops >= 10) {
-            // Buy 10 crops at a time
-            int quantity = Math.min(10, availableCrops);
-            int payment = quantity * DEFAULT_PRICE;
-
-            if (com.smartfarm.models.Inventory.sellCrops(quantity)) {
-                com.smartfarm.models.Inventory.addMoney(payment);
-                System.out.println("[" + clientId + "] BOUGHT " + quantity + " crops for $" + payment);
-                broadcastLog(clientId + " purchased " + quantity + " crops (+$" + payment + ")");
-            }
-        }
+    private void placeBid() {
+        ACLMessage order = new ACLMessage(ACLMessage.REQUEST);
+        order.addReceiver(new AID("Market", AID.ISLOCALNAME));
+        order.setContent("ORDERS\nNEW bid-" + (nextRef++) + " BUY CROPS " + BID_QUANTITY + " " + DEFAULT_PRICE);
+        send(order);
     }
 
     /**
-     * Handle sell requests from farm
+     * ACKS and FILLS from the Market
      */
-    private class SellHandler extends jade.core.behaviours.CyclicBehaviour {
+    private class MarketHandler extends jade.core.behaviours.CyclicBehaviour {
         @Override
         public void action() {
-            MessageTemplate mt = MessageTemplate.MatchPerformative(ACLMessage.PROPOSE);
+            MessageTemplate mt = MessageTemplate.and(MessageTemplate.MatchPerformative(ACLMessage.INFORM),
+                    MessageTemplate.MatchSender(new AID("Market", AID.ISLOCALNAME)));
             ACLMessage msg = myAgent.receive(mt);
-
-            if (msg != null) {
-                String content = msg.getContent();
-                // Format: SELL:CORN:10 or SELL:WHEAT:5
-                if (content.startsWith("SELL:")) {
-                    String[] parts = content.substring(5).split(":");
-                    String cropType = parts[0];
-                    int quantity = parts.length > 1 ? Integer.parseInt(parts[1]) : 1;
-
-                    processSale(cropType, quantity, msg.getSender());
-                }
-            } else {
+            if (msg == null) {
                 block();
+                return;
+            }
+            String content = msg.getContent();
+            if (content == null) {
+                return;
             }
-        }
-    }
-
-    private void processSale(String cropType, int quantity, AID seller) {
-        int pricePerUnit;
-
-        switch (cropType.toUpperCase()) {
-            case "CORN":
-                pricePerUnit = CORN_PRICE;
-                break;
-            case "WHEAT":
-                pricePerUnit = WHEAT_PRICE;
-                break;
-            case "TOMATO":
-                pricePerUnit = TOMATO_PRICE;
-                break;
-            default:
-                pricePerUnit = DEFAULT_PRICE;
-        }
-
-        int payment = quantity * pricePerUnit;
-
-        // Always buy if crops available
-        if (com.smartfarm.models.Inventory.sellCrops(quantity)) {
-            com.smartfarm.models.Inventory.addMoney(payment);
-
-            System.out.println("[" + clientId + "] BOUGHT " + quantity + " " + cropType + " for $" + payment);
-            broadcastLog(clientId + " bought " + quantity + " " + cropType + " (+$" + payment + ")");
-
-            // Confirm purchase
-            ACLMessage confirm = new ACLMessage(ACLMessage.ACCEPT_PROPOSAL);
-            confirm.addReceiver(seller);
-            confirm.setContent("SOLD:" + cropType + ":" + quantity + ":" + payment);
-            send(confirm);
-        } else {
-            System.out.println("[" + clientId + "] Cannot buy - no crops in inventory!");
 
-            ACLMessage reject = new ACLMessage(ACLMessage.REJECT_PROPOSAL);
-            reject.addReceiver(seller);
-            reject.setContent("NO_CROPS");
-            send(reject);
+            for (String line : content.split("\n")) {
+                String[] parts = line.split(" ");
+                if (parts[0].equals("REJECT")) {
+                    System.out.println("[" + clientId + "] Bid rejected: " + line);
+                } else if (parts[0].equals("FILL") && parts.length == 7) {
+                    // FILL <orderId> <ITEM> <side> <quantity> <price> <remaining>
+                    long quantity = Long.parseLong(parts[4]);
+                    long price = Long.parseLong(parts[5]);
+                    System.out.println("[" + clientId + "] BOUGHT " + quantity + " crops for $" + quantity * price);
+                    broadcastLog(clientId + " purchased " + quantity + " crops (+$" + quantity * price + ")");
+                    if (parts[6].equals("0")) {
+                        placeBid();
+                    }
+                }
+            }
         }
     }
 
@@ -139,7 +91,7 @@ public class ClientAgent extends Agent {
         String json = String.format(
                 "{\"id\":\"%s\",\"type\":\"client\",\"buying\":true}",
                 clientId);
-        webServer.broadcast("CLIENT_UPDATE", json);
+        webServer.publish("client/" + clientId, "CLIENT_UPDATE", json);
     }
 
     private void broadcastLog(String message) {
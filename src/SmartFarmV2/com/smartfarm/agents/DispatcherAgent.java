@@ -0,0 +1,344 @@
+package com.smartfarm.agents;
+
+import jade.core.AID;
+import jade.core.Agent;
+import jade.core.behaviours.CyclicBehaviour;
+import jade.core.behaviours.TickerBehaviour;
+import jade.lang.acl.ACLMessage;
+import com.smartfarm.Main;
+import com.smartfarm.web.WebServer;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * DispatcherAgent - Owns the work queue of irrigation and scan jobs.
+ *
+ * - Fields send REQUEST "WATER:Field-N:<moisture>" or
+ * "SCAN:Field-N:<SYMPTOMS|ROUTINE>"; nothing is ever dropped
+ * - One job per field and type: a repeated request only raises the
+ * priority of the queued job, and is ignored while the job is running
+ * - Urgent jobs (moisture below URGENT_MOISTURE, symptoms) go first, then
+ * oldest first
+ * - Workers pull: an idle worker sends REQUEST "READY:<WATER|SCAN>" and
+ * gets the next job, or is parked until one arrives. Any number of drones
+ * and irrigators can join this way.
+ * - A job is a REQUEST "WATER:Field-N" / "SCAN:Field-N" with reply-to set
+ * to the field and conversation id "job-<seq>"; the worker answers with
+ * INFORM "JOB_DONE" or "JOB_FAILED" on that conversation (a failed job is
+ * queued again)
+ * - A running job is leased to its worker for JOB_LEASE_MILLIS of simulated
+ * time; a worker that died or hung loses the job to the queue when the
+ * lease runs out, and a late answer is ignored
+ * - Malformed messages get NOT_UNDERSTOOD
+ *
+ * Records how long the last WAIT_WINDOW jobs of each type waited and how
+ * long each worker was busy.
+ */
+public class DispatcherAgent extends Agent {
+
+    public static final String NAME = "Dispatcher";
+
+    public enum JobType {
+        WATER, SCAN
+    }
+
+    public static final int URGENT_MOISTURE = 15;
+    public static final long JOB_LEASE_MILLIS = 60_000;
+    public static final int WAIT_WINDOW = 10_000;
+
+    private static class Job implements Comparable<Job> {
+        final long seq;
+        final JobType type;
+        final String field;
+        final long enqueuedAt;
+        boolean urgent;
+        AID worker;
+        long startedAt;
+        long leaseUntil;
+
+        Job(long seq, JobType type, String field, boolean urgent) {
+            this.seq = seq;
+            this.type = type;
+            this.field = field;
+            this.urgent = urgent;
+            this.enqueuedAt = Main.getClock().now();
+        }
+
+        @Override
+        public int compareTo(Job other) {
+            if (urgent != other.urgent) {
+                return urgent ? -1 : 1;
+            }
+            return Long.compare(seq, other.seq);
+        }
+    }
+
+    private WebServer webServer;
+    private long nextSeq = 1;
+    private final Map<JobType, PriorityQueue<Job>> queues = new EnumMap<>(JobType.class);
+    private final Map<JobType, Set<AID>> idleWorkers = new EnumMap<>(JobType.class);
+    private final Map<String, Job> jobsByField = new HashMap<>(); // queued or running, key type:field
+    private final Map<Long, Job> running = new HashMap<>();
+
+    /**
+     * Wait times of the most recent jobs, and how many jobs were assigned in
+     * all.
+     */
+    private static class WaitWindow {
+        private final ArrayDeque<Long> recent = new ArrayDeque<>();
+        private long assigned = 0;
+
+        synchronized void add(long millis) {
+            if (recent.size() == WAIT_WINDOW) {
+                recent.removeFirst();
+            }
+            recent.addLast(millis);
+            assigned++;
+        }
+
+        synchronized List<Long> snapshot() {
+            return new ArrayList<>(recent);
+        }
+
+        synchronized long getAssigned() {
+            return assigned;
+        }
+    }
+
+    // Statistics, read by the benchmark
+    private final Map<JobType, WaitWindow> waitTimes = new EnumMap<>(JobType.class);
+    private final Map<String, Long> busyMillis = Collections.synchronizedMap(new HashMap<>());
+    private volatile long requests = 0;
+    private volatile long duplicates = 0;
+    private volatile long failures = 0;
+    private volatile long expiredLeases = 0;
+    private final long startedAt = Main.getClock().now();
+
+    @Override
+    protected void setup() {
+        Object[] args = getArguments();
+        if (args != null && args.length >= 1) {
+            webServer = (WebServer) args[0];
+        }
+        for (JobType type : JobType.values()) {
+            queues.put(type, new PriorityQueue<>());
+            idleWorkers.put(type, new LinkedHashSet<>());
+            waitTimes.put(type, new WaitWindow());
+        }
+
+        System.out.println("[Dispatcher] Agent started.");
+        addBehaviour(new MessageHandler());
+        addBehaviour(new TickerBehaviour(this, Main.getClock().toReal(JOB_LEASE_MILLIS / 10)) {
+            @Override
+            protected void onTick() {
+                expireLeases();
+            }
+        });
+    }
+
+    private class MessageHandler extends CyclicBehaviour {
+        @Override
+        public void action() {
+            ACLMessage msg = myAgent.receive();
+            if (msg == null) {
+                block();
+                return;
+            }
+            String content = msg.getContent();
+            if (content == null) {
+                return;
+            }
+
+            // One bad message must not take the queue down with it
+            try {
+                if (msg.getPerformative() == ACLMessage.REQUEST && content.startsWith("READY:")) {
+                    JobType type = JobType.valueOf(content.substring(6));
+                    idleWorkers.get(type).add(msg.getSender());
+                    assign(type);
+
+                } else if (msg.getPerformative() == ACLMessage.REQUEST) {
+                    handleRequest(content, msg.getSender());
+
+                } else if (msg.getPerformative() == ACLMessage.INFORM && msg.getConversationId() != null
+                        && msg.getConversationId().startsWith("job-")) {
+                    handleResult(Long.parseLong(msg.getConversationId().substring(4)), content, msg.getSender());
+                }
+            } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                System.err.println("[Dispatcher] Malformed message from " + msg.getSender().getLocalName() + ": "
+                        + content);
+                ACLMessage reply = msg.createReply();
+                reply.setPerformative(ACLMessage.NOT_UNDERSTOOD);
+                reply.setContent("Malformed Message");
+                send(reply);
+            }
+        }
+    }
+
+    /**
+     * WATER:Field-N:moisture or SCAN:Field-N:SYMPTOMS|ROUTINE
+     */
+    private void handleRequest(String content, AID field) {
+        String[] parts = content.split(":");
+        JobType type = JobType.valueOf(parts[0]);
+        boolean urgent = parts.length > 2 && (type == JobType.WATER
+                ? Integer.parseInt(parts[2]) < URGENT_MOISTURE
+                : parts[2].equals("SYMPTOMS"));
+        requests++;
+
+        String key = type + ":" + field.getLocalName();
+        Job existing = jobsByField.get(key);
+        if (existing != null) {
+            duplicates++;
+            if (existing.worker == null && urgent && !existing.urgent) {
+                queues.get(type).remove(existing);
+                existing.urgent = true;
+                queues.get(type).add(existing);
+            }
+            return;
+        }
+
+        Job job = new Job(nextSeq++, type, field.getLocalName(), urgent);
+        jobsByField.put(key, job);
+        queues.get(type).add(job);
+        assign(type);
+    }
+
+    private void handleResult(long seq, String content, AID worker) {
+        Job job = running.get(seq);
+        if (job == null || !job.worker.equals(worker)) {
+            return; // late answer from a worker whose lease ran out
+        }
+        running.remove(seq);
+        long now = Main.getClock().now();
+        busyMillis.merge(job.worker.getLocalName(), now - job.startedAt, Long::sum);
+
+        if (content.equals("JOB_FAILED")) {
+            failures++;
+            requeue(job);
+        } else {
+            jobsByField.remove(job.type + ":" + job.field);
+        }
+    }
+
+    /**
+     * Back in the queue, keeping its place
+     */
+    private void requeue(Job job) {
+        job.worker = null;
+        broadcastLog("Dispatcher: " + job.type.name().toLowerCase() + " job for " + job.field + " requeued");
+        queues.get(job.type).add(job);
+        assign(job.type);
+    }
+
+    /**
+     * Take back running jobs whose worker has not answered within the lease
+     */
+    private void expireLeases() {
+        long now = Main.getClock().now();
+        List<Job> expired = new ArrayList<>();
+        for (Job job : running.values()) {
+            if (now > job.leaseUntil) {
+                expired.add(job);
+            }
+        }
+        for (Job job : expired) {
+            running.remove(job.seq);
+            expiredLeases++;
+            System.out.println("[Dispatcher] " + job.worker.getLocalName() + " did not finish job-" + job.seq
+                    + " in time");
+            requeue(job);
+        }
+    }
+
+    /**
+     * Hand queued jobs to parked workers
+     */
+    private void assign(JobType type) {
+        PriorityQueue<Job> queue = queues.get(type);
+        Set<AID> idle = idleWorkers.get(type);
+        while (!queue.isEmpty() && !idle.isEmpty()) {
+            AID worker = idle.iterator().next();
+            idle.remove(worker);
+            Job job = queue.poll();
+
+            long now = Main.getClock().now();
+            job.worker = worker;
+            job.startedAt = now;
+            job.leaseUntil = now + JOB_LEASE_MILLIS;
+            running.put(job.seq, job);
+            waitTimes.get(type).add(now - job.enqueuedAt);
+
+            ACLMessage msg = new ACLMessage(ACLMessage.REQUEST);
+            msg.addReceiver(worker);
+            msg.addReplyTo(new AID(job.field, AID.ISLOCALNAME));
+            msg.setConversationId("job-" + job.seq);
+            msg.setContent(type + ":" + job.field);
+            send(msg);
+        }
+    }
+
+    private void broadcastLog(String message) {
+        if (webServer == null)
+            return;
+        webServer.broadcast("LOG", "{\"message\":\"" + message + "\"}");
+    }
+
+    // ==================== STATISTICS ====================
+
+    /**
+     * Milliseconds each of the last WAIT_WINDOW assigned jobs of this type
+     * waited in the queue.
+     */
+    public List<Long> getWaitTimes(JobType type) {
+        return waitTimes.get(type).snapshot();
+    }
+
+    /**
+     * Jobs of this type handed to workers since the start.
+     */
+    public long getAssigned(JobType type) {
+        return waitTimes.get(type).getAssigned();
+    }
+
+    /**
+     * Milliseconds each worker spent on jobs.
+     */
+    public Map<String, Long> getBusyMillis() {
+        synchronized (busyMillis) {
+            return new HashMap<>(busyMillis);
+        }
+    }
+
+    public int getQueued(JobType type) {
+        return queues.get(type).size();
+    }
+
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    public long getRequests() {
+        return requests;
+    }
+
+    public long getDuplicates() {
+        return duplicates;
+    }
+
+    public long getFailures() {
+        return failures;
+    }
+
+    public long getExpiredLeases() {
+        return expiredLeases;
+    }
+}
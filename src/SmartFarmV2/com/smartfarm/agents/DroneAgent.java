@@ -6,13 +6,16 @@ import jade.core.behaviours.CyclicBehaviour;
 import jade.core.behaviours.TickerBehaviour;
 import jade.lang.acl.ACLMessage;
 import jade.lang.acl.MessageTemplate;
+import com.smartfarm.Main;
 import com.smartfarm.web.WebServer;
 
+import java.util.Random;
+
 /**
  * DroneAgent - Intelligent mobile agent that scans fields for diseases.
  * 
  * FIXED: Now acts as AI diagnostic agent
- * - Receives SCAN request from Field
+ * - Pulls SCAN jobs from the Dispatcher whenever idle and charged enough
  * - Uses AI to diagnose disease type
  * - Sends SCAN_DONE to Field
  * - Sends TREAT request to Sprayer (if disease found)
@@ -27,6 +30,8 @@ public class DroneAgent extends Agent {
     private String currentLocation = "Base-Container";
     private String status = "Idle";
     private boolean isBusy = false;
+    private boolean jobPending = false; // READY sent, waiting for a job
+    private Random random;
 
     // Battery costs
     private static final int MOVE_COST = 5;
@@ -47,10 +52,12 @@ public class DroneAgent extends Agent {
         System.out.println("[" + droneId + "] Mobile agent started.");
         System.out.println("[" + droneId + "] Battery: " + battery + "%, Location: " + currentLocation);
 
-        addBehaviour(new BatteryBehaviour(this, 3000));
+        random = Main.newRandom(getLocalName());
+        addBehaviour(new BatteryBehaviour(this, Main.getClock().toReal(3000)));
         addBehaviour(new MessageHandler());
 
         broadcastState();
+        requestJob();
     }
 
     @Override
@@ -76,6 +83,7 @@ public class DroneAgent extends Agent {
             }
 
             broadcastState();
+            requestJob();
         }
     }
 
@@ -91,7 +99,10 @@ public class DroneAgent extends Agent {
 
                 if (content.startsWith("SCAN:")) {
                     String fieldId = content.substring(5); // "Field-1"
-                    handleScanRequest(fieldId, msg.getSender());
+                    AID requester = msg.getAllReplyTo().hasNext() ? (AID) msg.getAllReplyTo().next()
+                            : msg.getSender();
+                    jobPending = false;
+                    handleScanRequest(fieldId, requester, msg.getConversationId());
                 }
             } else {
                 block();
@@ -99,14 +110,16 @@ public class DroneAgent extends Agent {
         }
     }
 
-    private void handleScanRequest(String fieldId, AID requester) {
+    private void handleScanRequest(String fieldId, AID requester, String jobId) {
         if (isBusy) {
-            System.out.println("[" + droneId + "] Busy, cannot accept scan request.");
+            System.out.println("[" + droneId + "] Busy, handing back scan request.");
+            reportJob(jobId, false);
             return;
         }
 
         if (battery < MOVE_COST + SCAN_COST + MOVE_COST) {
             System.out.println("[" + droneId + "] Not enough battery for mission.");
+            reportJob(jobId, false);
             return;
         }
 
@@ -125,19 +138,21 @@ public class DroneAgent extends Agent {
         addBehaviour(new jade.core.behaviours.OneShotBehaviour() {
             @Override
             public void action() {
+                boolean scanned = false;
                 try {
                     // Step 1: Move to field
                     moveToContainer(fieldContainer);
-                    Thread.sleep(2000);
+                    Main.getClock().sleep(2000);
 
                     // Step 2: AI Scan and diagnose
                     String detectedDisease = performAIScan(targetField, fieldAgent);
-                    Thread.sleep(1500);
+                    Main.getClock().sleep(1500);
+                    scanned = true;
 
                 } catch (Exception e) {
                     System.err.println("[" + droneId + "] Error during mission: " + e.getMessage());
                     e.printStackTrace();
-                    broadcastLog(droneId + " error: " + e.getMessage());
+                    broadcastLog(WebServer.Level.ERROR, droneId + " error: " + e.getMessage());
                 } finally {
                     // Step 3: Return to base (ALWAYS)
                     returnToBase();
@@ -147,6 +162,8 @@ public class DroneAgent extends Agent {
                     status = "Idle";
                     broadcastState();
                     System.out.println("[" + droneId + "] Mission complete/aborted. Status: Idle");
+                    reportJob(jobId, scanned);
+                    requestJob();
                 }
             }
         });
@@ -181,9 +198,9 @@ public class DroneAgent extends Agent {
 
         // AI DIAGNOSIS: 60% chance disease, 40% chance healthy
         String detectedDisease;
-        if (Math.random() < 0.6) {
+        if (random.nextDouble() < 0.6) {
             String[] diseases = { "FUNGAL_BLIGHT", "ROOT_ROT", "APHIDS" };
-            detectedDisease = diseases[(int) (Math.random() * diseases.length)];
+            detectedDisease = diseases[(int) (random.nextDouble() * diseases.length)];
         } else {
             detectedDisease = "NONE";
         }
@@ -214,6 +231,34 @@ public class DroneAgent extends Agent {
         return detectedDisease;
     }
 
+    /**
+     * Tell the Dispatcher this drone can take a job
+     */
+    private void requestJob() {
+        if (isBusy || jobPending || battery < MOVE_COST + SCAN_COST + MOVE_COST) {
+            return;
+        }
+        jobPending = true;
+        ACLMessage ready = new ACLMessage(ACLMessage.REQUEST);
+        ready.addReceiver(new AID(DispatcherAgent.NAME, AID.ISLOCALNAME));
+        ready.setContent("READY:SCAN");
+        send(ready);
+    }
+
+    /**
+     * Report a Dispatcher job (jobId null: direct request, nothing to report)
+     */
+    private void reportJob(String jobId, boolean done) {
+        if (jobId == null) {
+            return;
+        }
+        ACLMessage result = new ACLMessage(ACLMessage.INFORM);
+        result.addReceiver(new AID(DispatcherAgent.NAME, AID.ISLOCALNAME));
+        result.setConversationId(jobId);
+        result.setContent(done ? "JOB_DONE" : "JOB_FAILED");
+        send(result);
+    }
+
     private void returnToBase() {
         if (!currentLocation.equals("Base-Container")) {
             moveToContainer("Base-Container");
@@ -227,7 +272,7 @@ public class DroneAgent extends Agent {
         String json = String.format(
                 "{\"id\":\"%s\",\"type\":\"drone\",\"battery\":%d,\"location\":\"%s\",\"status\":\"%s\",\"busy\":%b}",
                 droneId, battery, currentLocation, status, isBusy);
-        webServer.broadcast("AGENT_UPDATE", json);
+        webServer.publish("agent/" + droneId, "AGENT_UPDATE", json);
     }
 
     private void broadcastMove(String from, String to) {
@@ -236,7 +281,7 @@ public class DroneAgent extends Agent {
         String json = String.format(
                 "{\"agent\":\"%s\",\"from\":\"%s\",\"to\":\"%s\"}",
                 droneId, from, to);
-        webServer.broadcast("AGENT_MOVE", json);
+        webServer.publish("agent/" + droneId, "AGENT_MOVE", json);
     }
 
     private void broadcastLog(String message) {
@@ -244,4 +289,10 @@ public class DroneAgent extends Agent {
             return;
         webServer.broadcast("LOG", "{\"message\":\"" + message + "\"}");
     }
+
+    private void broadcastLog(WebServer.Level level, String message) {
+        if (webServer == null)
+            return;
+        webServer.log(level, message);
+    }
 }
@@ -7,16 +7,31 @@ import jade.lang.acl.ACLMessage;
 import jade.lang.acl.MessageTemplate;
 import com.smartfarm.web.WebServer;
 import com.smartfarm.Main;
+import com.smartfarm.comms.AsyncRequester;
 import com.smartfarm.models.FieldType;
 
 /**
  * FarmManagerAgent - "God agent" for the user.
  * Interacts with Market to buy land and spawns new field agents via Main.
+ * Purchases go through an AsyncRequester, so the agent never waits on the
+ * Market and GUI commands are picked up while a purchase is in flight.
+ *
+ * Args: {webServer, [initial field count], ["blocking"]}; "blocking" keeps
+ * the old wait-for-the-Market flow for comparison.
  */
 public class FarmManagerAgent extends Agent {
 
     private WebServer webServer;
     private int fieldCount = 2; // Initial fields
+    private static final long MARKET_TIMEOUT_MS = 5000;
+    private AsyncRequester requester;
+    private boolean blocking = false;
+
+    // Statistics, read by the benchmark
+    private volatile long commandsReceived = 0;
+    private volatile long purchased = 0;
+    private volatile long refused = 0;
+    private volatile long timeouts = 0;
 
     @Override
     protected void setup() {
@@ -29,9 +44,14 @@ public class FarmManagerAgent extends Agent {
             if (args.length > 1) {
                 fieldCount = (Integer) args[1];
             }
+            if (args.length > 2) {
+                blocking = "blocking".equals(args[2]);
+            }
         }
 
         System.out.println("[FarmManager] Manager Active. Monitoring GUI commands.");
+        requester = new AsyncRequester(this);
+        addBehaviour(requester);
         addBehaviour(new GuiCommandHandler());
     }
 
@@ -67,36 +87,78 @@ public class FarmManagerAgent extends Agent {
     private class GuiCommandHandler extends CyclicBehaviour {
         @Override
         public void action() {
-            // Check O2A object queue
-            Object obj = myAgent.getO2AObject();
-            if (obj != null && obj instanceof String) {
+            // Drain the whole O2A queue: it only holds 10 commands, and JADE
+            // drops the oldest one when a command arrives on a full queue
+            Object obj;
+            boolean any = false;
+            while ((obj = myAgent.getO2AObject()) != null) {
+                any = true;
+                if (!(obj instanceof String)) {
+                    continue;
+                }
                 String cmd = (String) obj;
+                commandsReceived++;
                 System.out.println("[FarmManager] Received GUI Command: " + cmd);
-                
+
                 if (cmd.startsWith("BUY_FIELD:")) {
-                   purchaseField(cmd.substring(10));
+                    if (blocking) {
+                        purchaseFieldBlocking(cmd.substring(10));
+                    } else {
+                        purchaseField(cmd.substring(10));
+                    }
                 }
-            } else {
+            }
+            if (!any) {
                 block();
             }
         }
     }
-    
-    private void purchaseField(String typeStr) {
-        // 1. Ask Market
+
+    private ACLMessage buyRequest(String typeStr) {
         ACLMessage request = new ACLMessage(ACLMessage.REQUEST);
         request.addReceiver(new AID("Market", AID.ISLOCALNAME));
         request.setContent("BUY_FIELD:" + typeStr);
-        send(request);
-        
-        // 2. Wait for Reply (Blocking for simplicity in this flow, or use FSM in production)
-        ACLMessage reply = blockingReceive(MessageTemplate.MatchSender(new AID("Market", AID.ISLOCALNAME)));
-        
-        if (reply != null && reply.getPerformative() == ACLMessage.CONFIRM) {
-            // Approved! Create Field.
+        return request;
+    }
+
+    /**
+     * Ask the Market and create the field when it confirms. Returns at
+     * once; the answer is handled by the requester behaviour, so GUI
+     * commands keep being read while the Market thinks.
+     */
+    private void purchaseField(String typeStr) {
+        requester.request(buyRequest(typeStr), MARKET_TIMEOUT_MS).whenComplete((reply, error) -> {
+            if (error != null) {
+                timeouts++;
+                System.out.println("[FarmManager] Purchase failed: Timeout");
+            } else if (reply.getPerformative() == ACLMessage.CONFIRM) {
+                purchased++;
+                createField(typeStr);
+            } else {
+                refused++;
+                System.out.println("[FarmManager] Purchase failed: " + reply.getContent());
+            }
+        });
+    }
+
+    /**
+     * The old flow: wait for the Market's answer, with the agent frozen
+     * meanwhile. Only used to compare against, see GuiCommandBenchmark.
+     */
+    private void purchaseFieldBlocking(String typeStr) {
+        send(buyRequest(typeStr));
+        ACLMessage reply = blockingReceive(MessageTemplate.MatchSender(new AID("Market", AID.ISLOCALNAME)),
+                MARKET_TIMEOUT_MS);
+
+        if (reply == null) {
+            timeouts++;
+            System.out.println("[FarmManager] Purchase failed: Timeout");
+        } else if (reply.getPerformative() == ACLMessage.CONFIRM) {
+            purchased++;
             createField(typeStr);
         } else {
-            System.out.println("[FarmManager] Purchase failed: " + (reply != null ? reply.getContent() : "Timeout"));
+            refused++;
+            System.out.println("[FarmManager] Purchase failed: " + reply.getContent());
         }
     }
     
@@ -115,4 +177,22 @@ public class FarmManagerAgent extends Agent {
             e.printStackTrace();
         }
     }
+
+    // ==================== STATISTICS ====================
+
+    public long getCommandsReceived() {
+        return commandsReceived;
+    }
+
+    public long getPurchased() {
+        return purchased;
+    }
+
+    public long getRefused() {
+        return refused;
+    }
+
+    public long getTimeouts() {
+        return timeouts;
+    }
 }
@@ -2,13 +2,20 @@ package com.smartfarm.agents;
 
 import jade.core.Agent;
 import jade.core.AID;
+import jade.core.ServiceException;
 import jade.core.behaviours.CyclicBehaviour;
 import jade.core.behaviours.TickerBehaviour;
+import jade.core.messaging.TopicManagementHelper;
 import jade.lang.acl.ACLMessage;
 import jade.lang.acl.MessageTemplate;
+import com.smartfarm.FieldContainerPool;
+import com.smartfarm.FieldRegistry;
+import com.smartfarm.Main;
 import com.smartfarm.models.CropType;
 import com.smartfarm.web.WebServer;
 
+import java.util.Random;
+
 /**
  * FieldAgent - Reactive agent representing a single field.
  * 
@@ -16,12 +23,16 @@ import com.smartfarm.web.WebServer;
  * - Field detects symptoms (not disease type)
  * - Field requests Drone scan
  * - Drone diagnoses and alerts Sprayer
+ *
+ * Water and scan requests go to the Dispatcher, which queues them until a
+ * worker is free, so a field asks once and waits (a water request is
+ * repeated once, to raise its priority, if moisture becomes urgent).
  */
 public class FieldAgent extends Agent {
 
     private int fieldId;
     private CropType cropType;
-    private WebServer webServer;
+    private transient WebServer webServer; // not serializable; re-read after a move
 
     // Field state
     private int moisture = 80;
@@ -41,11 +52,12 @@ public class FieldAgent extends Agent {
     private boolean waterRequested = false;
     private boolean harvestRequested = false;
     private boolean scanRequested = false;
+    private boolean waterEscalated = false;
 
-    // Cooldown timers to prevent spam
-    private int waterRequestCooldown = 0; // Ticks to wait before re-requesting water
     private int symptomImmunity = 0; // Ticks of immunity after scan
 
+    private Random random;
+
     @Override
     protected void setup() {
         Object[] args = getArguments();
@@ -61,14 +73,40 @@ public class FieldAgent extends Agent {
         System.out.println("[Field-" + fieldId + "] Agent started.");
         System.out.println("[Field-" + fieldId + "] Crop: " + cropType.getEmoji() + " " + cropType.getDisplayName());
 
-        addBehaviour(new FieldTickBehaviour(this, 2000));
+        random = Main.newRandom(getLocalName());
+        addBehaviour(new FieldTickBehaviour(this, Main.getClock().toReal(2000)));
         addBehaviour(new ResponseHandler());
 
+        // Join the registry and the region's weather topic
+        FieldRegistry registry = Main.getFieldRegistry();
+        if (registry != null) {
+            int region = registry.register(fieldId, getAID());
+            try {
+                TopicManagementHelper topics = (TopicManagementHelper) getHelper(TopicManagementHelper.SERVICE_NAME);
+                topics.register(topics.createTopic(FieldRegistry.topicName(region)));
+            } catch (ServiceException e) {
+                System.err.println("[Field-" + fieldId + "] No weather topic: " + e.getMessage());
+            }
+        }
+
         broadcastState();
     }
 
+    /**
+     * Rebalanced into another pooled container.
+     */
+    @Override
+    protected void afterMove() {
+        webServer = Main.getWebServer();
+        System.out.println("[Field-" + fieldId + "] Now running in " + here().getName());
+    }
+
     @Override
     protected void takeDown() {
+        FieldRegistry registry = Main.getFieldRegistry();
+        if (registry != null) {
+            registry.unregister(getAID());
+        }
         System.out.println("[Field-" + fieldId + "] Agent terminated.");
     }
 
@@ -115,30 +153,30 @@ public class FieldAgent extends Agent {
             }
 
             // Decrease cooldown timers
-            if (waterRequestCooldown > 0)
-                waterRequestCooldown--;
             if (symptomImmunity > 0)
                 symptomImmunity--;
 
             // FIXED: Random symptoms (3%), but only if not immune
-            if (!hasSymptoms && confirmedDisease == null && symptomImmunity == 0 && Math.random() < 0.03) {
+            if (!hasSymptoms && confirmedDisease == null && symptomImmunity == 0 && random.nextDouble() < 0.03) {
                 hasSymptoms = true;
                 health -= 5;
                 System.out.println("[Field-" + fieldId + "] SYMPTOMS detected! Requesting drone scan...");
                 broadcastLog("Field-" + fieldId + ": Symptoms detected! Requesting scan...");
-                requestDroneScan();
+                requestDroneScan(true);
             }
 
-            // Request water if low (with cooldown to prevent spam)
-            if (moisture < 25 && !waterRequested && waterRequestCooldown == 0) {
+            // Request water if low; the Dispatcher keeps it until an irrigator is free
+            if (moisture < 25 && !waterRequested) {
+                requestWater();
+            } else if (waterRequested && !waterEscalated && moisture < DispatcherAgent.URGENT_MOISTURE) {
+                waterEscalated = true;
                 requestWater();
-                waterRequestCooldown = 5; // Wait 5 ticks before re-requesting
             }
 
             // FIXED: Request scan if scanLevel low
             if (scanLevel < 30 && !scanRequested && !hasSymptoms) {
                 System.out.println("[Field-" + fieldId + "] Scan level low, requesting drone...");
-                requestDroneScan();
+                requestDroneScan(false);
             }
 
             broadcastState();
@@ -160,11 +198,16 @@ public class FieldAgent extends Agent {
 
             if (msg != null) {
                 String content = msg.getContent();
+                FieldContainerPool pool = Main.getFieldPool();
+                if (pool != null) {
+                    pool.recordActivity(getLocalName());
+                }
 
                 if (content.startsWith("WATER_DONE:")) {
                     int amount = Integer.parseInt(content.substring(11));
                     moisture = Math.min(100, moisture + amount);
                     waterRequested = false;
+                    waterEscalated = false;
                     System.out.println("[Field-" + fieldId + "] Watered +" + amount + "%, now " + moisture + "%");
                     broadcastLog("Field-" + fieldId + " watered! (" + moisture + "%)");
                     broadcastState();
@@ -232,13 +275,13 @@ public class FieldAgent extends Agent {
     }
 
     /**
-     * Request water from Irrigator
+     * Request water from an irrigator, through the Dispatcher
      */
     private void requestWater() {
         waterRequested = true;
         ACLMessage request = new ACLMessage(ACLMessage.REQUEST);
-        request.addReceiver(new AID("Irrigator", AID.ISLOCALNAME));
-        request.setContent("WATER:Field-" + fieldId);
+        request.addReceiver(new AID(DispatcherAgent.NAME, AID.ISLOCALNAME));
+        request.setContent("WATER:Field-" + fieldId + ":" + moisture);
         send(request);
         System.out.println("[Field-" + fieldId + "] Requesting water...");
         broadcastLog("Field-" + fieldId + " requesting water (" + moisture + "%)");
@@ -258,14 +301,14 @@ public class FieldAgent extends Agent {
     }
 
     /**
-     * FIXED: Request scan from Drone (NOT treatment from Sprayer)
+     * FIXED: Request scan from a Drone, through the Dispatcher (NOT
+     * treatment from Sprayer)
      */
-    private void requestDroneScan() {
+    private void requestDroneScan(boolean symptoms) {
         scanRequested = true;
         ACLMessage request = new ACLMessage(ACLMessage.REQUEST);
-        // Try Drone-1 first
-        request.addReceiver(new AID("Drone-1", AID.ISLOCALNAME));
-        request.setContent("SCAN:Field-" + fieldId);
+        request.addReceiver(new AID(DispatcherAgent.NAME, AID.ISLOCALNAME));
+        request.setContent("SCAN:Field-" + fieldId + ":" + (symptoms ? "SYMPTOMS" : "ROUTINE"));
         send(request);
         System.out.println("[Field-" + fieldId + "] Requesting drone scan...");
         broadcastLog("Field-" + fieldId + " requesting drone scan");
@@ -286,7 +329,7 @@ public class FieldAgent extends Agent {
                 fieldId, cropType.getDisplayName(), cropType.getEmoji(),
                 moisture, health, growth, scanLevel,
                 diseaseJson, isPlanted);
-        webServer.broadcast("FIELD_UPDATE", json);
+        webServer.publish("field/" + fieldId, "FIELD_UPDATE", json);
     }
 
     private void broadcastLog(String message) {
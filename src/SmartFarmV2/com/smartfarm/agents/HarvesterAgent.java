@@ -6,7 +6,9 @@ import jade.core.behaviours.CyclicBehaviour;
 import jade.core.behaviours.TickerBehaviour;
 import jade.lang.acl.ACLMessage;
 import jade.lang.acl.MessageTemplate;
+import com.smartfarm.Main;
 import com.smartfarm.web.WebServer;
+import com.smartfarm.models.Ledger;
 
 /**
  * HarvesterAgent - Mobile worker that harvests fields at 100% growth.
@@ -15,6 +17,7 @@ public class HarvesterAgent extends Agent {
 
     private String agentId;
     private WebServer webServer;
+    private Ledger ledger;
 
     private int battery = 100;
     private String currentLocation = "Base-Container";
@@ -31,6 +34,9 @@ public class HarvesterAgent extends Agent {
         if (args != null && args.length >= 2) {
             agentId = (String) args[0];
             webServer = (WebServer) args[1];
+            if (args.length > 2) {
+                ledger = (Ledger) args[2];
+            }
         } else {
             agentId = "Harvester";
         }
@@ -91,10 +97,10 @@ public class HarvesterAgent extends Agent {
             public void action() {
                 try {
                     moveToContainer(fieldContainer);
-                    Thread.sleep(1500);
+                    Main.getClock().sleep(1500);
 
                     performHarvest(fieldId, requester);
-                    Thread.sleep(1500);
+                    Main.getClock().sleep(1500);
 
                     moveToContainer("Base-Container");
 
@@ -122,7 +128,7 @@ public class HarvesterAgent extends Agent {
         System.out.println("[" + agentId + "] Harvesting " + fieldId + "...");
 
         // FIXED: Add crops to inventory
-        com.smartfarm.models.Inventory.addCrops(10);
+        ledger.credit(Ledger.Item.CROPS, 10);
         broadcastLog(agentId + " harvested " + fieldId + "! (+10 crops)");
 
         ACLMessage msg = new ACLMessage(ACLMessage.INFORM);
@@ -138,13 +144,13 @@ public class HarvesterAgent extends Agent {
         String json = String.format(
                 "{\"id\":\"%s\",\"type\":\"harvester\",\"battery\":%d,\"location\":\"%s\",\"status\":\"%s\",\"busy\":%b}",
                 agentId, battery, currentLocation, status, isBusy);
-        webServer.broadcast("AGENT_UPDATE", json);
+        webServer.publish("agent/" + agentId, "AGENT_UPDATE", json);
     }
 
     private void broadcastMove(String from, String to) {
         if (webServer == null)
             return;
-        webServer.broadcast("AGENT_MOVE",
+        webServer.publish("agent/" + agentId, "AGENT_MOVE",
                 String.format("{\"agent\":\"%s\",\"from\":\"%s\",\"to\":\"%s\"}", agentId, from, to));
     }
 
@@ -6,27 +6,31 @@ import jade.core.behaviours.CyclicBehaviour;
 import jade.core.behaviours.TickerBehaviour;
 import jade.lang.acl.ACLMessage;
 import jade.lang.acl.MessageTemplate;
+import com.smartfarm.Main;
 import com.smartfarm.web.WebServer;
+import com.smartfarm.models.Ledger;
 
 /**
  * IrrigatorAgent - Mobile worker that waters fields when they need it.
  * 
  * Features:
  * - Battery system (0-100%)
- * - Listens for WATER_REQUEST messages from fields
- * - Moves to field, waters, returns to base
+ * - Pulls WATER jobs from the Dispatcher whenever idle and charged enough
+ * - Moves to field, waters, returns to base, reports the job done
  * - Charges when idle at base
  */
 public class IrrigatorAgent extends Agent {
 
     private String agentId;
     private WebServer webServer;
+    private Ledger ledger;
 
     // State
     private int battery = 100;
     private String currentLocation = "Base-Container";
     private String status = "Idle";
     private boolean isBusy = false;
+    private boolean jobPending = false; // READY sent, waiting for a job
 
     // Costs
     private static final int MOVE_COST = 5;
@@ -40,6 +44,9 @@ public class IrrigatorAgent extends Agent {
         if (args != null && args.length >= 2) {
             agentId = (String) args[0];
             webServer = (WebServer) args[1];
+            if (args.length > 2) {
+                ledger = (Ledger) args[2];
+            }
         } else {
             agentId = "Irrigator";
         }
@@ -47,10 +54,11 @@ public class IrrigatorAgent extends Agent {
         System.out.println("[" + agentId + "] Worker agent started.");
 
         // Add behaviors
-        addBehaviour(new BatteryBehaviour(this, 3000));
+        addBehaviour(new BatteryBehaviour(this, Main.getClock().toReal(3000)));
         addBehaviour(new WaterRequestHandler());
 
         broadcastState();
+        requestJob();
     }
 
     @Override
@@ -78,11 +86,12 @@ public class IrrigatorAgent extends Agent {
             }
 
             broadcastState();
+            requestJob();
         }
     }
 
     /**
-     * Listen for water requests from fields
+     * Listen for water jobs (from the Dispatcher, or directly from a field)
      */
     private class WaterRequestHandler extends CyclicBehaviour {
         @Override
@@ -94,7 +103,10 @@ public class IrrigatorAgent extends Agent {
                 String content = msg.getContent();
                 if (content.startsWith("WATER:")) {
                     String fieldId = content.substring(6);
-                    handleWaterRequest(fieldId, msg.getSender());
+                    AID requester = msg.getAllReplyTo().hasNext() ? (AID) msg.getAllReplyTo().next()
+                            : msg.getSender();
+                    jobPending = false;
+                    handleWaterRequest(fieldId, requester, msg.getConversationId());
                 }
             } else {
                 block();
@@ -105,21 +117,24 @@ public class IrrigatorAgent extends Agent {
     /**
      * Handle water request from a field
      */
-    private void handleWaterRequest(String fieldId, AID requester) {
+    private void handleWaterRequest(String fieldId, AID requester, String jobId) {
         if (isBusy) {
-            System.out.println("[" + agentId + "] Busy, ignoring water request from " + fieldId);
+            System.out.println("[" + agentId + "] Busy, handing back water request from " + fieldId);
+            reportJob(jobId, false);
             return;
         }
 
         if (battery < MOVE_COST + WATER_COST + MOVE_COST) {
             System.out.println("[" + agentId + "] Not enough battery for watering mission.");
+            reportJob(jobId, false);
             return;
         }
 
         // FIXED: Check water availability BEFORE moving
-        if (com.smartfarm.models.Inventory.getWater() < 50) {
+        if (ledger.get(Ledger.Item.WATER) < 50) {
             System.out.println("[" + agentId + "] No water available in warehouse!");
-            broadcastLog(agentId + ": No water in warehouse!");
+            broadcastLog(WebServer.Level.WARN, agentId + ": No water in warehouse!");
+            reportJob(jobId, false); // asks again on the next battery tick
             return;
         }
 
@@ -135,19 +150,20 @@ public class IrrigatorAgent extends Agent {
         addBehaviour(new jade.core.behaviours.OneShotBehaviour() {
             @Override
             public void action() {
+                boolean watered = false;
                 try {
                     // Move to field
                     moveToContainer(fieldContainer);
-                    Thread.sleep(1500);
+                    Main.getClock().sleep(1500);
 
                     // Water the field
-                    performWatering(fieldId, requester);
-                    Thread.sleep(1000);
+                    watered = performWatering(fieldId, requester);
+                    Main.getClock().sleep(1000);
 
                 } catch (Exception e) {
                     System.err.println("[" + agentId + "] Error during watering: " + e.getMessage());
                     e.printStackTrace();
-                    broadcastLog(agentId + " error: " + e.getMessage());
+                    broadcastLog(WebServer.Level.ERROR, agentId + " error: " + e.getMessage());
                 } finally {
                     // Return to base (ALWAYS)
                     returnToBase();
@@ -157,6 +173,10 @@ public class IrrigatorAgent extends Agent {
                     status = "Idle";
                     broadcastState();
                     System.out.println("[" + agentId + "] Watering mission ended. Status: Idle");
+                    reportJob(jobId, watered);
+                    if (watered) {
+                        requestJob();
+                    }
                 }
             }
         });
@@ -176,12 +196,12 @@ public class IrrigatorAgent extends Agent {
         broadcastState();
     }
 
-    private void performWatering(String fieldId, AID fieldAgent) {
+    private boolean performWatering(String fieldId, AID fieldAgent) {
         // FIXED: Consume water from inventory
-        if (!com.smartfarm.models.Inventory.useWater(50)) {
+        if (!ledger.debit(Ledger.Item.WATER, 50)) {
             System.out.println("[" + agentId + "] Cannot water - no water in warehouse!");
-            broadcastLog(agentId + ": No water available!");
-            return;
+            broadcastLog(WebServer.Level.WARN, agentId + ": No water available!");
+            return false;
         }
 
         battery -= WATER_COST;
@@ -197,6 +217,35 @@ public class IrrigatorAgent extends Agent {
         send(waterMsg);
 
         broadcastState();
+        return true;
+    }
+
+    /**
+     * Tell the Dispatcher this irrigator can take a job
+     */
+    private void requestJob() {
+        if (isBusy || jobPending || battery < MOVE_COST + WATER_COST + MOVE_COST) {
+            return;
+        }
+        jobPending = true;
+        ACLMessage ready = new ACLMessage(ACLMessage.REQUEST);
+        ready.addReceiver(new AID(DispatcherAgent.NAME, AID.ISLOCALNAME));
+        ready.setContent("READY:WATER");
+        send(ready);
+    }
+
+    /**
+     * Report a Dispatcher job (jobId null: direct request, nothing to report)
+     */
+    private void reportJob(String jobId, boolean done) {
+        if (jobId == null) {
+            return;
+        }
+        ACLMessage result = new ACLMessage(ACLMessage.INFORM);
+        result.addReceiver(new AID(DispatcherAgent.NAME, AID.ISLOCALNAME));
+        result.setConversationId(jobId);
+        result.setContent(done ? "JOB_DONE" : "JOB_FAILED");
+        send(result);
     }
 
     private void returnToBase() {
@@ -212,14 +261,14 @@ public class IrrigatorAgent extends Agent {
         String json = String.format(
                 "{\"id\":\"%s\",\"type\":\"irrigator\",\"battery\":%d,\"location\":\"%s\",\"status\":\"%s\",\"busy\":%b}",
                 agentId, battery, currentLocation, status, isBusy);
-        webServer.broadcast("AGENT_UPDATE", json);
+        webServer.publish("agent/" + agentId, "AGENT_UPDATE", json);
     }
 
     private void broadcastMove(String from, String to) {
         if (webServer == null)
             return;
         String json = String.format("{\"agent\":\"%s\",\"from\":\"%s\",\"to\":\"%s\"}", agentId, from, to);
-        webServer.broadcast("AGENT_MOVE", json);
+        webServer.publish("agent/" + agentId, "AGENT_MOVE", json);
     }
 
     private void broadcastLog(String message) {
@@ -227,4 +276,10 @@ public class IrrigatorAgent extends Agent {
             return;
         webServer.broadcast("LOG", "{\"message\":\"" + message + "\"}");
     }
+
+    private void broadcastLog(WebServer.Level level, String message) {
+        if (webServer == null)
+            return;
+        webServer.log(level, message);
+    }
 }
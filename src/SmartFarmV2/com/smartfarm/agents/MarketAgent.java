@@ -2,60 +2,203 @@ package com.smartfarm.agents;
 
 import jade.core.Agent;
 import jade.core.behaviours.CyclicBehaviour;
+import jade.core.behaviours.WakerBehaviour;
 import jade.lang.acl.ACLMessage;
 import jade.lang.acl.MessageTemplate;
-import com.smartfarm.models.Inventory;
+import com.smartfarm.Main;
 import com.smartfarm.models.MarketItem;
 import com.smartfarm.models.FieldType;
+import com.smartfarm.models.Ledger;
+import com.smartfarm.market.Exchange;
+import com.smartfarm.market.Order;
 import com.smartfarm.web.WebServer;
+import jade.core.AID;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * MarketAgent - Manage purchases and economy.
  * Validates funds and authorizes upgrades/expansions.
+ *
+ * Also takes batch supply orders, REQUEST
+ * "BUY_SUPPLIES:WATER=200;FUNGICIDE=10": the whole batch is paid up front
+ * (CONFIRM "ORDERED", or REFUSE "INSUFFICIENT_FUNDS"), and delivered into
+ * the ledger after the lead time, with an INFORM "DELIVERED:<batch>" to
+ * the buyer.
+ *
+ * And runs an Exchange: a price-time priority order book for each ledger
+ * item except money. Any agent can trade with REQUEST "ORDERS\n<lines>"
+ * (see Exchange for the lines); the answer is one INFORM "ACKS\n..." per
+ * batch, and trades are reported with INFORM "FILLS\n...", one message per
+ * owner for all the requests handled in a round. The farm's own crops are
+ * offered as they are harvested: a ledger listener moves them out of the
+ * warehouse into a sell order at FARM_CROP_ASK, and the money comes in as
+ * they sell.
+ *
+ * Args: {webServer, ledger, [supply lead time ms]}
  */
 public class MarketAgent extends Agent {
 
+    public static final long DEFAULT_LEAD_TIME_MS = 3000;
+    public static final String FARM_ACCOUNT = "Farm";
+    public static final long FARM_CROP_ASK = 10;
+    private static final int MAX_BATCH = 100; // requests per round
+
     private WebServer webServer;
+    private Ledger ledger;
+    private long leadTimeMs = DEFAULT_LEAD_TIME_MS;
+    private Exchange exchange;
+    private Ledger.Listener harvestListener;
 
     @Override
     protected void setup() {
         Object[] args = getArguments();
         if (args != null && args.length > 0) {
             webServer = (WebServer) args[0];
+            if (args.length > 1) {
+                ledger = (Ledger) args[1];
+            }
+            if (args.length > 2) {
+                leadTimeMs = ((Number) args[2]).longValue();
+            }
+        }
+
+        List<String> items = new ArrayList<>();
+        for (Ledger.Item item : Ledger.Item.values()) {
+            if (item != Ledger.Item.MONEY) {
+                items.add(item.name());
+            }
         }
+        exchange = new Exchange(items, this::settle);
 
         System.out.println("[Market] Agent started. Ready for business!");
         addBehaviour(new MarketServer());
+
+        if (ledger != null) {
+            setEnabledO2ACommunication(true, 0);
+            addBehaviour(new FarmDesk());
+            harvestListener = (item, delta, balance) -> {
+                if (item == Ledger.Item.CROPS && delta > 0) {
+                    try {
+                        putO2AObject(delta, false);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            };
+            ledger.addListener(harvestListener);
+        }
+    }
+
+    @Override
+    protected void takeDown() {
+        if (harvestListener != null) {
+            ledger.removeListener(harvestListener);
+        }
     }
 
     private class MarketServer extends CyclicBehaviour {
         @Override
         public void action() {
-            // Listen for PURCHASE requests
+            // Listen for PURCHASE requests and order batches
             MessageTemplate mt = MessageTemplate.MatchPerformative(ACLMessage.REQUEST);
-            ACLMessage msg = myAgent.receive(mt);
+            ACLMessage msg;
+            int handled = 0;
 
-            if (msg != null) {
+            while (handled < MAX_BATCH && (msg = myAgent.receive(mt)) != null) {
+                handled++;
                 String content = msg.getContent();
+                if (content == null) {
+                    continue;
+                }
 
-                if (content.startsWith("BUY_FIELD:")) {
+                if (content.startsWith("ORDERS")) {
+                    ACLMessage acks = msg.createReply();
+                    acks.setPerformative(ACLMessage.INFORM);
+                    acks.setContent("ACKS\n" + exchange.handle(msg.getSender().getLocalName(), content));
+                    send(acks);
+                } else if (content.startsWith("BUY_FIELD:")) {
                     handleFieldPurchase(msg, content);
+                } else if (content.startsWith("BUY_SUPPLIES:")) {
+                    handleSupplyOrder(msg, content);
                 } else if (content.startsWith("BUY_ITEM:")) {
                     handleItemPurchase(msg, content);
                 } else {
                     reply(msg, ACLMessage.NOT_UNDERSTOOD, "Unknown Request");
                 }
+            }
+
+            if (handled == 0) {
+                block();
+            } else {
+                sendFills();
+            }
+        }
+    }
+
+    /**
+     * Puts freshly harvested crops up for sale.
+     */
+    private class FarmDesk extends CyclicBehaviour {
+        @Override
+        public void action() {
+            Object obj;
+            boolean any = false;
+            while ((obj = myAgent.getO2AObject()) != null) {
+                any = true;
+                long quantity = (Long) obj;
+                if (ledger.debit(Ledger.Item.CROPS, quantity)) {
+                    exchange.submit(FARM_ACCOUNT, Ledger.Item.CROPS.name(), Order.Side.SELL, FARM_CROP_ASK, quantity);
+                }
+            }
+            if (any) {
+                sendFills();
             } else {
                 block();
             }
         }
     }
 
+    /**
+     * The farm's side of a trade goes through the ledger; the crops are
+     * already out of the warehouse.
+     */
+    private void settle(String item, Order taker, Order maker, long price, long quantity) {
+        for (Order order : new Order[] { taker, maker }) {
+            if (order.getOwner().equals(FARM_ACCOUNT) && order.getSide() == Order.Side.SELL) {
+                ledger.credit(Ledger.Item.MONEY, price * quantity);
+                System.out.println("[Market] Farm sold " + quantity + " " + item.toLowerCase() + " @ $" + price);
+            }
+        }
+    }
+
+    private void sendFills() {
+        for (Map.Entry<String, String> entry : exchange.drainFills().entrySet()) {
+            if (entry.getKey().equals(FARM_ACCOUNT)) {
+                continue;
+            }
+            ACLMessage notice = new ACLMessage(ACLMessage.INFORM);
+            notice.addReceiver(new AID(entry.getKey(), AID.ISLOCALNAME));
+            notice.setContent("FILLS\n" + entry.getValue());
+            send(notice);
+        }
+    }
+
+    /**
+     * For statistics after a run; the books belong to the agent's thread.
+     */
+    public Exchange getExchange() {
+        return exchange;
+    }
+
     private void handleFieldPurchase(ACLMessage msg, String content) {
         String typeStr = content.substring(10);
         try {
             FieldType type = FieldType.valueOf(typeStr);
-            if (Inventory.spendMoney(type.getCost())) {
+            if (ledger.debit(Ledger.Item.MONEY, type.getCost())) {
                 System.out.println("[Market] Field Sold: " + type.getDisplayName() + " to " + msg.getSender().getLocalName());
                 reply(msg, ACLMessage.CONFIRM, "APPROVED");
             } else {
@@ -71,7 +214,7 @@ public class MarketAgent extends Agent {
         String itemStr = content.substring(9);
         try {
             MarketItem item = MarketItem.valueOf(itemStr);
-            if (Inventory.spendMoney(item.getPrice())) {
+            if (ledger.debit(Ledger.Item.MONEY, item.getPrice())) {
                 System.out.println("[Market] Upgrade Sold: " + item.getName());
                 // In a real expanded scenario, we would trigger the upgrade effect here or notify agents.
                 // For now, we just validate the transaction.
@@ -84,6 +227,64 @@ public class MarketAgent extends Agent {
         }
     }
 
+    /**
+     * Supply prices, as the suppliers charge them: water comes in tanks of
+     * 50 units for $5, fungicide is $20 and a seed pack $10 apiece.
+     */
+    public static long supplyCost(Ledger.Item item, long quantity) {
+        switch (item) {
+            case WATER:
+                return (quantity + 49) / 50 * 5;
+            case FUNGICIDE:
+                return quantity * 20;
+            case SEEDS:
+                return quantity * 10;
+            default:
+                throw new IllegalArgumentException("Not a supply: " + item);
+        }
+    }
+
+    private void handleSupplyOrder(ACLMessage msg, String content) {
+        Map<Ledger.Item, Long> batch = new EnumMap<>(Ledger.Item.class);
+        long cost = 0;
+        try {
+            for (String line : content.substring(13).split(";")) {
+                String[] parts = line.split("=");
+                Ledger.Item item = Ledger.Item.valueOf(parts[0]);
+                long quantity = Long.parseLong(parts[1]);
+                if (quantity <= 0) {
+                    continue;
+                }
+                batch.merge(item, quantity, Long::sum);
+                cost += supplyCost(item, quantity);
+            }
+        } catch (RuntimeException e) {
+            reply(msg, ACLMessage.NOT_UNDERSTOOD, "Invalid Supply Order");
+            return;
+        }
+
+        if (!ledger.debit(Ledger.Item.MONEY, cost)) {
+            reply(msg, ACLMessage.REFUSE, "INSUFFICIENT_FUNDS");
+            return;
+        }
+        System.out.println("[Market] Supplies ordered for $" + cost + ": " + batch);
+        reply(msg, ACLMessage.CONFIRM, "ORDERED");
+
+        String delivered = content.substring(13);
+        ACLMessage notice = msg.createReply();
+        notice.setPerformative(ACLMessage.INFORM);
+        notice.setContent("DELIVERED:" + delivered);
+        addBehaviour(new WakerBehaviour(this, Main.getClock().toReal(leadTimeMs)) {
+            @Override
+            protected void onWake() {
+                for (Map.Entry<Ledger.Item, Long> entry : batch.entrySet()) {
+                    ledger.credit(entry.getKey(), entry.getValue());
+                }
+                send(notice);
+            }
+        });
+    }
+
     private void reply(ACLMessage msg, int performative, String content) {
         ACLMessage reply = msg.createReply();
         reply.setPerformative(performative);
@@ -1,29 +1,59 @@
 package com.smartfarm.agents;
 
+import com.smartfarm.Main;
+import com.smartfarm.comms.AsyncRequester;
 import com.smartfarm.web.WebServer;
-import com.smartfarm.models.Inventory;
+import com.smartfarm.models.Ledger;
 import jade.core.Agent;
+import jade.core.behaviours.CyclicBehaviour;
 import jade.core.behaviours.TickerBehaviour;
 import jade.core.AID;
 import jade.lang.acl.ACLMessage;
+import jade.lang.acl.MessageTemplate;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * PlannerAgent - BDI-style intelligent planner for farm resources.
  * 
- * Beliefs: Current inventory levels
- * Desires: Keep resources above thresholds
- * Intentions: Buy supplies when needed
+ * Beliefs: Current inventory levels and a consumption forecast per supply
+ * Desires: Never run out, without sitting on stock
+ * Intentions: Order supplies from the Market, in batches
+ *
+ * Driven by ledger events rather than polling: every committed change is
+ * handed to the agent over O2A. Consumption (debits) feeds a Holt forecast
+ * per supply, i.e. smoothed units per second plus trend, with the spread
+ * of its errors. From that and the Market's lead time (measured on each
+ * delivery) the planner keeps an (s, S) policy: once stock plus what is on
+ * order falls to s = demand over the lead time + safety stock, it orders
+ * up to S = s + COVER_SECONDS of demand. Other supplies below half-way
+ * to their own S ride along in the same order.
+ *
+ * An order stays on order until the Market delivers it or refuses it. A
+ * timeout says nothing about which happened, so it releases nothing: the
+ * late answer, or the delivery, settles the order by its reply-with.
+ *
+ * Args: {webServer, ledger, ["polling"]}; "polling" keeps the old planner
+ * (5 s ticker, fixed quantities, bought straight into the ledger) to
+ * compare against, see PlannerBenchmark.
  */
 public class PlannerAgent extends Agent {
 
     private WebServer webServer;
+    private Ledger ledger;
+    private boolean polling = false;
 
-    // Thresholds for auto-ordering
+    // Thresholds for auto-ordering; also the least reorder point s
     private static final int WATER_THRESHOLD = 50;
     private static final int FUNGICIDE_THRESHOLD = 5;
     private static final int SEEDS_THRESHOLD = 3;
 
-    // Order quantities
+    // Order quantities; also the least S - s
     private static final int WATER_ORDER_QTY = 100;
     private static final int FUNGICIDE_ORDER_QTY = 10;
     private static final int SEEDS_ORDER_QTY = 5;
@@ -33,25 +63,409 @@ public class PlannerAgent extends Agent {
     private static final int FUNGICIDE_PRICE = 20;
     private static final int SEEDS_PRICE = 10;
 
+    // Forecasting and (s, S) policy
+    private static final long BUCKET_MS = 1000;
+    private static final double ALPHA = 0.3; // level
+    private static final double BETA = 0.1; // trend
+    private static final double SAFETY_Z = 2.0;
+    private static final double COVER_SECONDS = 30;
+    private static final long ORDER_TIMEOUT_MS = 5000;
+
+    private static final Ledger.Item[] SUPPLIES = { Ledger.Item.WATER, Ledger.Item.FUNGICIDE, Ledger.Item.SEEDS };
+
+    /**
+     * A committed ledger change, handed over by the ledger's publisher.
+     */
+    private static class LedgerEvent {
+        final Ledger.Item item;
+        final long delta;
+        final long balance;
+        final long at;
+
+        LedgerEvent(Ledger.Item item, long delta, long balance) {
+            this.item = item;
+            this.delta = delta;
+            this.balance = balance;
+            this.at = Main.getClock().now();
+        }
+    }
+
+    /**
+     * Holt's linear smoothing of units consumed per BUCKET_MS.
+     */
+    private static class Forecast {
+        private double level;
+        private double trend;
+        private double variance;
+        private boolean started = false;
+        private long bucketStart;
+        private long bucketSum = 0;
+
+        Forecast(long now) {
+            bucketStart = now;
+        }
+
+        void record(long now, long units) {
+            roll(now);
+            bucketSum += units;
+        }
+
+        /**
+         * Close the buckets that ended before now, quiet ones as zero.
+         */
+        void roll(long now) {
+            long ended = (now - bucketStart) / BUCKET_MS;
+            if (ended > 600) {
+                // Long quiet spell: the trend is meaningless by now
+                update(bucketSum);
+                level = 0;
+                trend = 0;
+                bucketSum = 0;
+                bucketStart = now;
+                return;
+            }
+            for (long i = 0; i < ended; i++) {
+                update(bucketSum);
+                bucketSum = 0;
+                bucketStart += BUCKET_MS;
+            }
+        }
+
+        private void update(double x) {
+            if (!started) {
+                level = x;
+                started = true;
+                return;
+            }
+            double error = x - (level + trend);
+            variance = (1 - ALPHA) * variance + ALPHA * error * error;
+            double previous = level;
+            level = ALPHA * x + (1 - ALPHA) * (level + trend);
+            trend = BETA * (level - previous) + (1 - BETA) * trend;
+        }
+
+        double rate() {
+            return Math.max(0, level + trend);
+        }
+
+        double stdDev() {
+            return Math.sqrt(variance);
+        }
+    }
+
+    private AsyncRequester requester;
+    private final Map<Ledger.Item, Forecast> forecasts = new EnumMap<>(Ledger.Item.class);
+    private final Map<Ledger.Item, Long> onOrder = new EnumMap<>(Ledger.Item.class);
+    private final Map<String, Map<Ledger.Item, Long>> outstanding = new HashMap<>(); // by reply-with
+    private final Map<String, Long> orderedAt = new HashMap<>(); // by reply-with
+    private final Set<String> unanswered = new HashSet<>(); // timed out, answer may still come
+    private long money;
+    private double leadTimeMs = MarketAgent.DEFAULT_LEAD_TIME_MS;
+    private boolean orderInFlight = false;
+    private boolean fundsWarned = false;
+    private Ledger.Listener listener;
+
+    // Statistics, read by the benchmark
+    private volatile long orders = 0;
+    private volatile long events = 0;
+
     @Override
     protected void setup() {
         Object[] args = getArguments();
         if (args != null && args.length >= 1) {
             webServer = (WebServer) args[0];
+            if (args.length > 1) {
+                ledger = (Ledger) args[1];
+            }
+            if (args.length > 2) {
+                polling = "polling".equals(args[2]);
+            }
         }
 
         System.out.println("[Planner] BDI Planner started. Monitoring inventory...");
         broadcastLog("BDI Planner activated - auto-ordering enabled");
 
-        // Main planning loop - check inventory every 5 seconds
-        addBehaviour(new TickerBehaviour(this, 5000) {
-            @Override
-            protected void onTick() {
-                checkAndPlanOrders();
+        if (polling) {
+            // Main planning loop - check inventory every 5 seconds
+            addBehaviour(new TickerBehaviour(this, Main.getClock().toReal(5000)) {
+                @Override
+                protected void onTick() {
+                    checkAndPlanOrders();
+                }
+            });
+            return;
+        }
+
+        long now = Main.getClock().now();
+        for (Ledger.Item item : SUPPLIES) {
+            forecasts.put(item, new Forecast(now));
+            onOrder.put(item, 0L);
+        }
+        money = ledger.get(Ledger.Item.MONEY);
+
+        setEnabledO2ACommunication(true, 0);
+        requester = new AsyncRequester(this);
+        addBehaviour(requester);
+        addBehaviour(new LedgerEventHandler());
+        addBehaviour(new DeliveryHandler());
+        addBehaviour(new LateReplyHandler());
+
+        listener = (item, delta, balance) -> {
+            if (item != Ledger.Item.CROPS) {
+                try {
+                    putO2AObject(new LedgerEvent(item, delta, balance), false);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        ledger.addListener(listener);
+        plan();
+    }
+
+    // ==================== EVENT-DRIVEN PLANNING ====================
+
+    private class LedgerEventHandler extends CyclicBehaviour {
+        @Override
+        public void action() {
+            Object obj;
+            boolean any = false;
+            while ((obj = myAgent.getO2AObject()) != null) {
+                any = true;
+                events++;
+                LedgerEvent event = (LedgerEvent) obj;
+                if (event.item == Ledger.Item.MONEY) {
+                    money = event.balance;
+                    if (event.delta > 0) {
+                        fundsWarned = false;
+                    }
+                    continue;
+                }
+                if (event.delta < 0) {
+                    forecasts.get(event.item).record(event.at, -event.delta);
+                }
+            }
+            if (any) {
+                plan();
+            } else {
+                block();
             }
+        }
+    }
+
+    /**
+     * INFORM "DELIVERED:WATER=200;FUNGICIDE=10" from the Market.
+     */
+    private class DeliveryHandler extends CyclicBehaviour {
+        @Override
+        public void action() {
+            ACLMessage msg = myAgent.receive(MessageTemplate.and(
+                    MessageTemplate.MatchPerformative(ACLMessage.INFORM),
+                    MessageTemplate.MatchSender(new AID("Market", AID.ISLOCALNAME))));
+            if (msg == null) {
+                block();
+                return;
+            }
+            if (msg.getContent() == null || !msg.getContent().startsWith("DELIVERED:")) {
+                return;
+            }
+            String id = msg.getInReplyTo();
+            unanswered.remove(id);
+            Long sent = orderedAt.remove(id);
+            if (sent != null) {
+                leadTimeMs = 0.7 * leadTimeMs + 0.3 * (Main.getClock().now() - sent);
+            }
+            // Only what this order put on order comes off it, once
+            release(id);
+            plan();
+        }
+    }
+
+    /**
+     * The Market's answer to an order whose request timed out: a CONFIRM
+     * starts the lead time, anything else releases the batch.
+     */
+    private class LateReplyHandler extends CyclicBehaviour {
+        private final MessageTemplate template = new MessageTemplate(msg ->
+                msg.getPerformative() != ACLMessage.INFORM
+                        && msg.getInReplyTo() != null && unanswered.contains(msg.getInReplyTo()));
+
+        @Override
+        public void action() {
+            ACLMessage msg = myAgent.receive(template);
+            if (msg == null) {
+                block();
+                return;
+            }
+            String id = msg.getInReplyTo();
+            unanswered.remove(id);
+            if (msg.getPerformative() == ACLMessage.CONFIRM) {
+                System.out.println("[Planner] Late confirmation for " + id);
+                orderedAt.put(id, Main.getClock().now());
+                return;
+            }
+            System.out.println("[Planner] Order failed: " + msg.getContent());
+            release(id);
+            plan();
+        }
+    }
+
+    /**
+     * Reorder point s: expected demand over the lead time plus safety stock.
+     */
+    private double reorderPoint(Ledger.Item item) {
+        Forecast forecast = forecasts.get(item);
+        forecast.roll(Main.getClock().now());
+        double leadBuckets = leadTimeMs / BUCKET_MS;
+        double s = forecast.rate() * leadBuckets + SAFETY_Z * forecast.stdDev() * Math.sqrt(leadBuckets);
+        return Math.max(s, threshold(item));
+    }
+
+    /**
+     * Order-up-to level S.
+     */
+    private double orderUpTo(Ledger.Item item, double reorderPoint) {
+        double cover = forecasts.get(item).rate() * COVER_SECONDS * 1000 / BUCKET_MS;
+        return reorderPoint + Math.max(cover, orderQuantity(item));
+    }
+
+    private void plan() {
+        if (orderInFlight) {
+            return;
+        }
+
+        Map<Ledger.Item, Double> reorderPoints = new EnumMap<>(Ledger.Item.class);
+        boolean due = false;
+        for (Ledger.Item item : SUPPLIES) {
+            double s = reorderPoint(item);
+            reorderPoints.put(item, s);
+            due |= position(item) <= s;
+        }
+        if (!due) {
+            return;
+        }
+
+        // Joint order: whatever is due, plus whatever would be due soon
+        Map<Ledger.Item, Long> batch = new EnumMap<>(Ledger.Item.class);
+        long cost = 0;
+        for (Ledger.Item item : SUPPLIES) {
+            double s = reorderPoints.get(item);
+            double upTo = orderUpTo(item, s);
+            long position = position(item);
+            if (position <= s + (upTo - s) / 2) {
+                long quantity = (long) Math.ceil(upTo - position);
+                if (item == Ledger.Item.WATER) {
+                    quantity = (quantity + 49) / 50 * 50; // whole tanks
+                }
+                batch.put(item, quantity);
+                cost += MarketAgent.supplyCost(item, quantity);
+            }
+        }
+
+        if (cost > money) {
+            if (!fundsWarned) {
+                fundsWarned = true;
+                System.out.println("[Planner] Need supplies but insufficient funds ($" + money + " < $" + cost + ")");
+            }
+            return;
+        }
+        placeOrder(batch, cost);
+    }
+
+    private void placeOrder(Map<Ledger.Item, Long> batch, long cost) {
+        StringBuilder content = new StringBuilder();
+        for (Map.Entry<Ledger.Item, Long> entry : batch.entrySet()) {
+            if (content.length() > 0) {
+                content.append(';');
+            }
+            content.append(entry.getKey().name()).append('=').append(entry.getValue());
+            onOrder.merge(entry.getKey(), entry.getValue(), Long::sum);
+        }
+
+        System.out.println("[Planner] AUTO-ORDER: " + content + " for $" + cost);
+        broadcastLog("Planner: Ordering " + content + " ($" + cost + ")");
+
+        ACLMessage request = new ACLMessage(ACLMessage.REQUEST);
+        request.addReceiver(new AID("Market", AID.ISLOCALNAME));
+        request.setContent("BUY_SUPPLIES:" + content);
+        orderInFlight = true;
+        orders++;
+        CompletableFuture<ACLMessage> answer = requester.request(request, ORDER_TIMEOUT_MS);
+        outstanding.put(request.getReplyWith(), batch);
+        answer.whenComplete((reply, error) -> {
+            orderInFlight = false;
+            String id = request.getReplyWith();
+            if (error != null) {
+                // The Market may have taken (and charged) the order; keep it on order until we hear
+                System.out.println("[Planner] No answer to " + id + " yet, keeping it on order");
+                if (outstanding.containsKey(id)) {
+                    unanswered.add(id);
+                }
+                return;
+            }
+            if (reply.getPerformative() == ACLMessage.CONFIRM) {
+                orderedAt.put(id, Main.getClock().now());
+                return;
+            }
+            System.out.println("[Planner] Order failed: " + reply.getContent());
+            release(id);
         });
     }
 
+    /**
+     * Take a settled order off order.
+     */
+    private void release(String id) {
+        Map<Ledger.Item, Long> batch = outstanding.remove(id);
+        if (batch == null) {
+            return;
+        }
+        for (Map.Entry<Ledger.Item, Long> entry : batch.entrySet()) {
+            onOrder.merge(entry.getKey(), -entry.getValue(), Long::sum);
+        }
+    }
+
+    /**
+     * Stock plus what is on order. Stock is read from the ledger rather
+     * than from the events, which may lag behind a delivery the Market has
+     * already reported.
+     */
+    private long position(Ledger.Item item) {
+        return ledger.get(item) + onOrder.get(item);
+    }
+
+    private static int threshold(Ledger.Item item) {
+        switch (item) {
+            case WATER:
+                return WATER_THRESHOLD;
+            case FUNGICIDE:
+                return FUNGICIDE_THRESHOLD;
+            default:
+                return SEEDS_THRESHOLD;
+        }
+    }
+
+    private static int orderQuantity(Ledger.Item item) {
+        switch (item) {
+            case WATER:
+                return WATER_ORDER_QTY;
+            case FUNGICIDE:
+                return FUNGICIDE_ORDER_QTY;
+            default:
+                return SEEDS_ORDER_QTY;
+        }
+    }
+
+    public long getOrders() {
+        return orders;
+    }
+
+    public long getEvents() {
+        return events;
+    }
+
+    // ==================== POLLING (OLD) ====================
+
     /**
      * BDI Planning Loop:
      * 1. Update Beliefs (read inventory)
@@ -59,10 +473,10 @@ public class PlannerAgent extends Agent {
      * 3. Execute Intentions (order supplies)
      */
     private void checkAndPlanOrders() {
-        int water = Inventory.getWater();
-        int fungicide = Inventory.getFungicide();
-        int seeds = Inventory.getSeeds();
-        int money = Inventory.getMoney();
+        long water = ledger.get(Ledger.Item.WATER);
+        long fungicide = ledger.get(Ledger.Item.FUNGICIDE);
+        long seeds = ledger.get(Ledger.Item.SEEDS);
+        long money = ledger.get(Ledger.Item.MONEY);
 
         // === WATER CHECK ===
         if (water < WATER_THRESHOLD) {
@@ -96,32 +510,32 @@ public class PlannerAgent extends Agent {
     }
 
     private void orderWater(int quantity, int cost) {
+        orders++;
         System.out.println("[Planner] AUTO-ORDER: " + quantity + " water for $" + cost);
         broadcastLog("Planner: Ordering " + quantity + " water ($" + cost + ")");
 
         // Directly process (since suppliers are offering)
-        if (Inventory.spendMoney(cost)) {
-            Inventory.addWater(quantity);
+        if (ledger.exchange(Ledger.Item.MONEY, cost, Ledger.Item.WATER, quantity)) {
             System.out.println("[Planner] Water delivered: +" + quantity);
         }
     }
 
     private void orderFungicide(int quantity, int cost) {
+        orders++;
         System.out.println("[Planner] AUTO-ORDER: " + quantity + " fungicide for $" + cost);
         broadcastLog("Planner: Ordering " + quantity + " fungicide ($" + cost + ")");
 
-        if (Inventory.spendMoney(cost)) {
-            Inventory.addFungicide(quantity);
+        if (ledger.exchange(Ledger.Item.MONEY, cost, Ledger.Item.FUNGICIDE, quantity)) {
             System.out.println("[Planner] Fungicide delivered: +" + quantity);
         }
     }
 
     private void orderSeeds(int quantity, int cost) {
+        orders++;
         System.out.println("[Planner] AUTO-ORDER: " + quantity + " seeds for $" + cost);
         broadcastLog("Planner: Ordering " + quantity + " seeds ($" + cost + ")");
 
-        if (Inventory.spendMoney(cost)) {
-            Inventory.addSeeds(quantity);
+        if (ledger.exchange(Ledger.Item.MONEY, cost, Ledger.Item.SEEDS, quantity)) {
             System.out.println("[Planner] Seeds delivered: +" + quantity);
         }
     }
@@ -134,6 +548,9 @@ public class PlannerAgent extends Agent {
 
     @Override
     protected void takeDown() {
+        if (listener != null) {
+            ledger.removeListener(listener);
+        }
         System.out.println("[Planner] BDI Planner terminated.");
     }
 }
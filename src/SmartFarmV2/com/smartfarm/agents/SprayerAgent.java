@@ -6,7 +6,9 @@ import jade.core.behaviours.CyclicBehaviour;
 import jade.core.behaviours.TickerBehaviour;
 import jade.lang.acl.ACLMessage;
 import jade.lang.acl.MessageTemplate;
+import com.smartfarm.Main;
 import com.smartfarm.web.WebServer;
+import com.smartfarm.models.Ledger;
 
 /**
  * SprayerAgent - Mobile worker that treats diseased fields.
@@ -15,6 +17,7 @@ public class SprayerAgent extends Agent {
 
     private String agentId;
     private WebServer webServer;
+    private Ledger ledger;
 
     private int battery = 100;
     private String currentLocation = "Base-Container";
@@ -31,6 +34,9 @@ public class SprayerAgent extends Agent {
         if (args != null && args.length >= 2) {
             agentId = (String) args[0];
             webServer = (WebServer) args[1];
+            if (args.length > 2) {
+                ledger = (Ledger) args[2];
+            }
         } else {
             agentId = "Sprayer";
         }
@@ -93,15 +99,15 @@ public class SprayerAgent extends Agent {
             public void action() {
                 try {
                     moveToContainer(fieldContainer);
-                    Thread.sleep(1500);
+                    Main.getClock().sleep(1500);
 
                     performTreatment(fieldId, disease, requester);
-                    Thread.sleep(1000);
+                    Main.getClock().sleep(1000);
 
                 } catch (Exception e) {
                     System.err.println("[" + agentId + "] Error during treatment: " + e.getMessage());
                     e.printStackTrace();
-                    broadcastLog(agentId + " error: " + e.getMessage());
+                    broadcastLog(WebServer.Level.ERROR, agentId + " error: " + e.getMessage());
                 } finally {
                     moveToContainer("Base-Container");
 
@@ -124,9 +130,9 @@ public class SprayerAgent extends Agent {
 
     private void performTreatment(String fieldId, String disease, AID requester) {
         // FIXED: Consume fungicide from inventory
-        if (!com.smartfarm.models.Inventory.useFungicide()) {
+        if (!ledger.debit(Ledger.Item.FUNGICIDE, 1)) {
             System.out.println("[" + agentId + "] Cannot treat - no fungicide!");
-            broadcastLog(agentId + ": No fungicide available!");
+            broadcastLog(WebServer.Level.WARN, agentId + ": No fungicide available!");
             return;
         }
 
@@ -150,13 +156,13 @@ public class SprayerAgent extends Agent {
         String json = String.format(
                 "{\"id\":\"%s\",\"type\":\"sprayer\",\"battery\":%d,\"location\":\"%s\",\"status\":\"%s\",\"busy\":%b}",
                 agentId, battery, currentLocation, status, isBusy);
-        webServer.broadcast("AGENT_UPDATE", json);
+        webServer.publish("agent/" + agentId, "AGENT_UPDATE", json);
     }
 
     private void broadcastMove(String from, String to) {
         if (webServer == null)
             return;
-        webServer.broadcast("AGENT_MOVE",
+        webServer.publish("agent/" + agentId, "AGENT_MOVE",
                 String.format("{\"agent\":\"%s\",\"from\":\"%s\",\"to\":\"%s\"}", agentId, from, to));
     }
 
@@ -165,4 +171,10 @@ public class SprayerAgent extends Agent {
             return;
         webServer.broadcast("LOG", "{\"message\":\"" + msg + "\"}");
     }
+
+    private void broadcastLog(WebServer.Level level, String message) {
+        if (webServer == null)
+            return;
+        webServer.log(level, message);
+    }
 }
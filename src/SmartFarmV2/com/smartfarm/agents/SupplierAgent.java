@@ -1,6 +1,8 @@
 package com.smartfarm.agents;
 
+import com.smartfarm.Main;
 import com.smartfarm.web.WebServer;
+import com.smartfarm.models.Ledger;
 import jade.core.Agent;
 import jade.core.behaviours.TickerBehaviour;
 import jade.core.AID;
@@ -16,6 +18,7 @@ public class SupplierAgent extends Agent {
     private String supplierId;
     private String supplierType; // "water", "fungicide", "seeds"
     private WebServer webServer;
+    private Ledger ledger;
 
     // Prices
     private int pricePerUnit;
@@ -27,6 +30,9 @@ public class SupplierAgent extends Agent {
             supplierId = (String) args[0];
             supplierType = (String) args[1];
             webServer = (WebServer) args[2];
+            if (args.length > 3) {
+                ledger = (Ledger) args[3];
+            }
         } else {
             supplierId = getLocalName();
             supplierType = "water";
@@ -54,7 +60,7 @@ public class SupplierAgent extends Agent {
         addBehaviour(new PurchaseHandler());
 
         // Periodically broadcast available stock
-        addBehaviour(new TickerBehaviour(this, 10000) { // Every 10 seconds
+        addBehaviour(new TickerBehaviour(this, Main.getClock().toReal(10000)) { // Every 10 seconds
             @Override
             protected void onTick() {
                 broadcastOffer();
@@ -94,23 +100,9 @@ public class SupplierAgent extends Agent {
     private void processPurchase(int quantity, AID buyer) {
         int cost = quantity * pricePerUnit;
 
-        // Check if farm has enough money
-        if (com.smartfarm.models.Inventory.getMoney() >= cost) {
-            // Deduct money
-            com.smartfarm.models.Inventory.spendMoney(cost);
-
-            // Add resources
-            switch (supplierType.toLowerCase()) {
-                case "water":
-                    com.smartfarm.models.Inventory.addWater(quantity);
-                    break;
-                case "fungicide":
-                    com.smartfarm.models.Inventory.addFungicide(quantity);
-                    break;
-                case "seeds":
-                    com.smartfarm.models.Inventory.addSeeds(quantity);
-                    break;
-            }
+        // Deduct money and add resources in one step, if the farm can pay
+        Ledger.Item item = Ledger.Item.valueOf(supplierType.toUpperCase());
+        if (ledger.exchange(Ledger.Item.MONEY, cost, item, quantity)) {
 
             System.out.println("[" + supplierId + "] SOLD " + quantity + " " + supplierType + " for $" + cost);
             broadcastLog(supplierId + " delivered " + quantity + " " + supplierType + " ($" + cost + ")");
@@ -122,7 +114,7 @@ public class SupplierAgent extends Agent {
             send(confirm);
         } else {
             System.out.println("[" + supplierId + "] Sale failed - farm has no money!");
-            broadcastLog(supplierId + ": Sale failed - insufficient funds!");
+            broadcastLog(WebServer.Level.WARN, supplierId + ": Sale failed - insufficient funds!");
 
             // Reject
             ACLMessage reject = new ACLMessage(ACLMessage.REFUSE);
@@ -143,7 +135,7 @@ public class SupplierAgent extends Agent {
         String json = String.format(
                 "{\"id\":\"%s\",\"type\":\"supplier\",\"supplierType\":\"%s\",\"price\":%d}",
                 supplierId, supplierType, pricePerUnit);
-        webServer.broadcast("SUPPLIER_UPDATE", json);
+        webServer.publish("supplier/" + supplierId, "SUPPLIER_UPDATE", json);
     }
 
     private void broadcastLog(String message) {
@@ -152,6 +144,12 @@ public class SupplierAgent extends Agent {
         webServer.broadcast("LOG", "{\"message\":\"" + message + "\"}");
     }
 
+    private void broadcastLog(WebServer.Level level, String message) {
+        if (webServer == null)
+            return;
+        webServer.log(level, message);
+    }
+
     @Override
     protected void takeDown() {
         System.out.println("[" + supplierId + "] Supplier terminated.");
@@ -3,9 +3,21 @@ package com.smartfarm.agents;
 import jade.core.Agent;
 import jade.core.AID;
 import jade.core.behaviours.TickerBehaviour;
+import jade.core.messaging.TopicUtility;
 import jade.lang.acl.ACLMessage;
+import com.smartfarm.FieldRegistry;
+import com.smartfarm.Main;
 import com.smartfarm.web.WebServer;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
 /**
  * WeatherAgent - Controls weather conditions for the entire farm.
  * 
@@ -15,10 +27,29 @@ import com.smartfarm.web.WebServer;
  * - CLOUDY: Reduced water loss
  * - RAINY: Fields gain moisture
  * - STORM: Fields gain moisture, chance of disease
+ *
+ * Every region of the FieldRegistry grid has its own weather; a change
+ * often follows a neighbouring region (fronts drift across the farm).
+ * Each region update is one ACL message to the region's topic, which the
+ * TopicManagementService hands to every field subscribed to it, so weather
+ * traffic grows with regions, not fields. (A message listing all fields as
+ * receivers is copied, receiver list included, to each of them when they
+ * live in other containers.) Fields that joined since the last tick get
+ * their region's evaporation rate directly. The GUI shows the weather of
+ * Field-1's region.
+ *
+ * Arguments: webServer, [tick period ms], ["per-field"] (one message per
+ * field, for comparison)
  */
 public class WeatherAgent extends Agent {
 
+    private static final int HOME_REGION_FIELD = 1;
+    private static final double FRONT_PROBABILITY = 0.5;
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
     private WebServer webServer;
+    private long tickPeriod = 4000;
+    private boolean perField = false;
 
     // Weather states
     private enum Weather {
@@ -56,22 +87,46 @@ public class WeatherAgent extends Agent {
         }
     }
 
+    private static class RegionWeather {
+        final AID topic;
+        Weather weather = Weather.SUNNY;
+        int duration = 0;
+
+        RegionWeather(AID topic) {
+            this.topic = topic;
+        }
+    }
+
+    private final Map<Integer, RegionWeather> regionWeather = new HashMap<>();
     private Weather currentWeather = Weather.SUNNY;
-    private int weatherDuration = 0;
+    private Random random;
     private int day = 1;
     private int hour = 6; // Start at 6 AM
 
+    // Traffic counters (CPU time of the weather thread)
+    private volatile long messagesSent = 0;
+    private volatile long receiversAddressed = 0;
+    private volatile long ticks = 0;
+    private volatile long sendNanos = 0;
+
     @Override
     protected void setup() {
         Object[] args = getArguments();
         if (args != null && args.length >= 1) {
             webServer = (WebServer) args[0];
         }
+        if (args != null && args.length >= 2) {
+            tickPeriod = ((Number) args[1]).longValue();
+        }
+        if (args != null && args.length >= 3) {
+            perField = "per-field".equals(args[2]);
+        }
 
         System.out.println("[Weather] Agent started. Current: " + currentWeather.name);
 
         // Weather tick every 4 seconds (simulates 1 hour)
-        addBehaviour(new WeatherBehaviour(this, 4000));
+        random = Main.newRandom(getLocalName());
+        addBehaviour(new WeatherBehaviour(this, Main.getClock().toReal(tickPeriod)));
 
         broadcastWeather();
         broadcastTime();
@@ -95,17 +150,12 @@ public class WeatherAgent extends Agent {
                 broadcastLog("🌅 Day " + day + " begins!");
             }
 
-            // Update weather duration
-            weatherDuration--;
-
-            // Weather change?
-            if (weatherDuration <= 0) {
-                changeWeather();
-            }
-
-            // Send weather effects to fields
-            if (currentWeather.getMoistureBonus() > 0) {
-                sendMoistureBonus();
+            FieldRegistry registry = Main.getFieldRegistry();
+            if (registry != null) {
+                long start = THREADS.getCurrentThreadCpuTime();
+                updateRegions(registry);
+                sendNanos += THREADS.getCurrentThreadCpuTime() - start;
+                ticks++;
             }
 
             broadcastTime();
@@ -113,67 +163,126 @@ public class WeatherAgent extends Agent {
     }
 
     /**
-     * Change to a new weather condition
+     * Advance every region's weather and send its effects to its fields
      */
-    private void changeWeather() {
-        Weather[] weathers = Weather.values();
-
-        // Weighted random: more sunny, less storms
-        double rand = Math.random();
-        if (rand < 0.35) {
-            currentWeather = Weather.SUNNY;
-        } else if (rand < 0.60) {
-            currentWeather = Weather.CLOUDY;
-        } else if (rand < 0.85) {
-            currentWeather = Weather.RAINY;
-        } else {
-            currentWeather = Weather.STORM;
-        }
+    private void updateRegions(FieldRegistry registry) {
+        welcomeNewFields(registry);
 
-        // Random duration: 3-8 hours
-        weatherDuration = 3 + (int) (Math.random() * 5);
+        int homeRegion = registry.regionOf(HOME_REGION_FIELD);
+        for (int region : registry.getRegions()) {
+            Collection<AID> fields = registry.getMembers(region);
+            RegionWeather state = regionWeather.computeIfAbsent(region,
+                    r -> new RegionWeather(TopicUtility.createTopic(FieldRegistry.topicName(r))));
 
-        System.out.println("[Weather] Changed to: " + currentWeather.icon + " " + currentWeather.name + " (duration: "
-                + weatherDuration + "h)");
-        broadcastLog("Weather: " + currentWeather.icon + " " + currentWeather.name);
-        broadcastWeather();
+            // Weather change?
+            state.duration--;
+            if (state.duration <= 0) {
+                changeWeather(registry, region, state);
+                sendToRegion(state, fields, "WEATHER_EVAP:" + state.weather.getEvaporationRate());
+            }
 
-        // FIXED: Send evaporation rate to all fields
-        sendEvaporationRate();
+            // Send weather effects to fields
+            if (state.weather.getMoistureBonus() > 0) {
+                sendToRegion(state, fields, "WEATHER_MOISTURE:" + state.weather.getMoistureBonus());
+                if (region == homeRegion && state.weather == Weather.RAINY) {
+                    broadcastLog("🌧️ Rain watering fields (+5%)");
+                } else if (region == homeRegion && state.weather == Weather.STORM) {
+                    broadcastLog("⛈️ Storm flooding fields (+10%)");
+                }
+            }
+        }
     }
 
     /**
-     * FIXED: Send evaporation rate to fields
+     * Fields bought since the last tick start with their region's
+     * evaporation rate; new regions get theirs from changeWeather()
      */
-    private void sendEvaporationRate() {
-        for (int i = 1; i <= 2; i++) {
+    private void welcomeNewFields(FieldRegistry registry) {
+        Map<Integer, List<AID>> byRegion = new HashMap<>();
+        for (FieldRegistry.Joined joined : registry.drainJoined()) {
+            if (regionWeather.containsKey(joined.region)) {
+                byRegion.computeIfAbsent(joined.region, r -> new ArrayList<>()).add(joined.field);
+            }
+        }
+        for (Map.Entry<Integer, List<AID>> entry : byRegion.entrySet()) {
             ACLMessage msg = new ACLMessage(ACLMessage.INFORM);
-            msg.addReceiver(new AID("Field-" + i, AID.ISLOCALNAME));
-            msg.setContent("WEATHER_EVAP:" + currentWeather.getEvaporationRate());
+            for (AID field : entry.getValue()) {
+                msg.addReceiver(field);
+                receiversAddressed++;
+            }
+            msg.setContent("WEATHER_EVAP:" + regionWeather.get(entry.getKey()).weather.getEvaporationRate());
             send(msg);
+            messagesSent++;
         }
-        System.out.println("[Weather] Evaporation rate: " + currentWeather.getEvaporationRate() + "x");
     }
 
     /**
-     * Send moisture bonus to fields during rain/storm
+     * Change a region to a new weather condition
      */
-    private void sendMoistureBonus() {
-        // Send to Field-1 and Field-2
-        for (int i = 1; i <= 2; i++) {
-            ACLMessage msg = new ACLMessage(ACLMessage.INFORM);
-            msg.addReceiver(new AID("Field-" + i, AID.ISLOCALNAME));
-            msg.setContent("WEATHER_MOISTURE:" + currentWeather.getMoistureBonus());
-            send(msg);
+    private void changeWeather(FieldRegistry registry, int region, RegionWeather state) {
+        // A front from a neighbouring region, or weighted random: more sunny, less storms
+        List<Weather> fronts = new ArrayList<>();
+        for (int neighbour : registry.neighboursOf(region)) {
+            RegionWeather other = regionWeather.get(neighbour);
+            if (other != null) {
+                fronts.add(other.weather);
+            }
+        }
+        if (!fronts.isEmpty() && random.nextDouble() < FRONT_PROBABILITY) {
+            state.weather = fronts.get((int) (random.nextDouble() * fronts.size()));
+        } else {
+            double rand = random.nextDouble();
+            if (rand < 0.35) {
+                state.weather = Weather.SUNNY;
+            } else if (rand < 0.60) {
+                state.weather = Weather.CLOUDY;
+            } else if (rand < 0.85) {
+                state.weather = Weather.RAINY;
+            } else {
+                state.weather = Weather.STORM;
+            }
         }
 
-        if (currentWeather == Weather.RAINY) {
-            broadcastLog("🌧️ Rain watering fields (+5%)");
-        } else if (currentWeather == Weather.STORM) {
-            broadcastLog("⛈️ Storm flooding fields (+10%)");
+        // Random duration: 3-8 hours
+        state.duration = 3 + (int) (random.nextDouble() * 5);
+
+        if (region == registry.regionOf(HOME_REGION_FIELD)) { // shown on the GUI
+            currentWeather = state.weather;
+            System.out.println("[Weather] Changed to: " + currentWeather.icon + " " + currentWeather.name
+                    + " (duration: " + state.duration + "h)");
+            System.out.println("[Weather] Evaporation rate: " + currentWeather.getEvaporationRate() + "x");
+            broadcastLog("Weather: " + currentWeather.icon + " " + currentWeather.name);
+            broadcastWeather();
         }
     }
 
+    /**
+     * One message to the region's topic (or one per field in per-field
+     * mode)
+     */
+    private void sendToRegion(RegionWeather state, Collection<AID> fields, String content) {
+        if (fields.isEmpty()) {
+            return;
+        }
+        if (perField) {
+            for (AID field : fields) {
+                ACLMessage msg = new ACLMessage(ACLMessage.INFORM);
+                msg.addReceiver(field);
+                msg.setContent(content);
+                send(msg);
+                messagesSent++;
+                receiversAddressed++;
+            }
+            return;
+        }
+        ACLMessage msg = new ACLMessage(ACLMessage.INFORM);
+        msg.addReceiver(state.topic);
+        msg.setContent(content);
+        send(msg);
+        messagesSent++;
+        receiversAddressed += fields.size();
+    }
+
     /**
      * Broadcast current weather to GUI
      */
@@ -216,4 +325,20 @@ public class WeatherAgent extends Agent {
     public double getEvaporationRate() {
         return currentWeather.getEvaporationRate();
     }
+
+    public long getMessagesSent() {
+        return messagesSent;
+    }
+
+    public long getReceiversAddressed() {
+        return receiversAddressed;
+    }
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    public long getSendNanos() {
+        return sendNanos;
+    }
 }
@@ -0,0 +1,158 @@
+package com.smartfarm.bench;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.smartfarm.web.WebServer;
+
+/**
+ * DashboardStreamRecorder - Records what a dashboard receives from a busy
+ * farm, for replaying against the front-end (see tools/dashboard-replay.js).
+ *
+ * Runs a simulated farm on a virtual clock, publishing through WebServer in
+ * the same formats as the agents: every field reports every 2 s (FieldAgent's
+ * tick), spread over the period; mobile agents report every second and move
+ * to another field every few seconds, with a log line and an inventory
+ * update; the time ticks every second and the weather every 30 s. One
+ * session subscribes as main.js does, and each message it gets is written
+ * as "<ms>\t<json>".
+ *
+ * Usage: java com.smartfarm.bench.DashboardStreamRecorder [fields] [seconds]
+ * [out file]
+ */
+public class DashboardStreamRecorder {
+
+    private static final int FIELD_PERIOD_MS = 2000;
+    private static final int STEP_MS = 10;
+    private static final String[] AGENT_TYPES = { "drone", "irrigator", "sprayer", "harvester" };
+    private static final int[] AGENT_COUNTS = { 5, 10, 3, 2 };
+
+    private static long now = 0;
+
+    public static void main(String[] args) throws IOException {
+        int fields = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 60;
+        String out = args.length > 2 ? args[2] : "dashboard-stream.txt";
+
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        Random random = new Random(42);
+        WebServer server = new WebServer();
+        long[] written = new long[1];
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(Paths.get(out), StandardCharsets.UTF_8))) {
+            WebServer.Session session = server.connect(message -> {
+                writer.print(now);
+                writer.print('\t');
+                writer.println(message);
+                written[0]++;
+            });
+            session.handle("{\"type\":\"SUBSCRIBE\",\"topics\":"
+                    + "[\"field/*\",\"agent/*\",\"inventory\",\"weather\",\"time\",\"log\"]}");
+
+            // Field state, and which fields report in each step of the period
+            int[] moisture = new int[fields + 1];
+            int[] growth = new int[fields + 1];
+            int[] health = new int[fields + 1];
+            boolean[] symptoms = new boolean[fields + 1];
+            List<List<Integer>> slots = new ArrayList<>();
+            for (int s = 0; s < FIELD_PERIOD_MS / STEP_MS; s++) {
+                slots.add(new ArrayList<>());
+            }
+            for (int id = 1; id <= fields; id++) {
+                moisture[id] = 40 + random.nextInt(60);
+                growth[id] = random.nextInt(100);
+                health[id] = 100;
+                slots.get((int) ((long) (id - 1) * slots.size() / fields)).add(id);
+            }
+
+            // Mobile agents
+            List<String> agentIds = new ArrayList<>();
+            List<String> agentTypes = new ArrayList<>();
+            for (int t = 0; t < AGENT_TYPES.length; t++) {
+                for (int n = 1; n <= AGENT_COUNTS[t]; n++) {
+                    String type = AGENT_TYPES[t];
+                    agentIds.add(Character.toUpperCase(type.charAt(0)) + type.substring(1) + "-" + n);
+                    agentTypes.add(type);
+                }
+            }
+            String[] location = new String[agentIds.size()];
+            int[] battery = new int[agentIds.size()];
+            for (int a = 0; a < location.length; a++) {
+                location[a] = "Base-Container";
+                battery[a] = 100;
+            }
+            int water = 5000;
+            int money = 100000;
+            int hour = 6;
+            int day = 1;
+
+            for (now = 0; now < seconds * 1000L; now += STEP_MS) {
+                for (int id : slots.get((int) (now % FIELD_PERIOD_MS / STEP_MS))) {
+                    moisture[id] = Math.max(0, moisture[id] - 1 - random.nextInt(2));
+                    growth[id] = growth[id] >= 100 ? 0 : growth[id] + 1;
+                    if (random.nextInt(500) == 0) {
+                        symptoms[id] = !symptoms[id];
+                    }
+                    health[id] = symptoms[id] ? Math.max(0, health[id] - 2) : Math.min(100, health[id] + 1);
+                    server.publish("field/" + id, "FIELD_UPDATE", String.format(
+                            "{\"id\":%d,\"crop\":\"%s\",\"cropIcon\":\"%s\",\"moisture\":%d,\"health\":%d,\"growth\":%d,\"scanLevel\":%d,\"disease\":%s,\"planted\":%b}",
+                            id, id % 2 == 0 ? "Wheat" : "Corn", id % 2 == 0 ? "🌾" : "🌽", moisture[id], health[id],
+                            growth[id], 50, symptoms[id] ? "\"SYMPTOMS\"" : "null", true));
+                }
+
+                if (now % 1000 == 0) {
+                    for (int a = 0; a < location.length; a++) {
+                        String id = agentIds.get(a);
+                        battery[a] = battery[a] <= 5 ? 100 : battery[a] - 1;
+                        if (random.nextInt(5) == 0) {
+                            int field = 1 + random.nextInt(fields);
+                            String to = "Field-Container-" + field;
+                            server.publish("agent/" + id, "AGENT_MOVE", String.format(
+                                    "{\"agent\":\"%s\",\"from\":\"%s\",\"to\":\"%s\"}", id, location[a], to));
+                            location[a] = to;
+                            if (agentTypes.get(a).equals("irrigator")) {
+                                moisture[field] = Math.min(100, moisture[field] + 50);
+                                water = water <= 50 ? 5000 : water - 50;
+                                server.broadcast("LOG", "{\"message\":\"" + id + " watering Field-" + field
+                                        + " (+50%)\"}");
+                                server.broadcast("INVENTORY_UPDATE", String.format(
+                                        "{\"water\":%d,\"fungicide\":%d,\"seeds\":%d,\"crops\":%d,\"money\":%d}",
+                                        water, 20, 10, 0, money));
+                            }
+                        }
+                        server.publish("agent/" + id, "AGENT_UPDATE", String.format(
+                                "{\"id\":\"%s\",\"type\":\"%s\",\"battery\":%d,\"location\":\"%s\",\"status\":\"%s\",\"busy\":%b}",
+                                id, agentTypes.get(a), battery[a], location[a],
+                                location[a].startsWith("Field") ? "Working" : "Idle", location[a].startsWith("Field")));
+                    }
+                    if (random.nextInt(10) == 0) {
+                        server.log(WebServer.Level.WARN, "Field-" + (1 + random.nextInt(fields)) + " moisture low!");
+                    }
+
+                    hour = (hour + 1) % 24;
+                    if (hour == 0) {
+                        day++;
+                    }
+                    server.broadcast("TIME_UPDATE", String.format("{\"day\":%d,\"hour\":%d,\"display\":\"%s\"}",
+                            day, hour, String.format("Day %d - %02d:00", day, hour)));
+                }
+                if (now % 30000 == 0) {
+                    server.broadcast("WEATHER_UPDATE", String.format("{\"icon\":\"%s\",\"name\":\"%s\",\"evaporation\":%.1f}",
+                            "☀️", "Sunny", 1.5));
+                }
+            }
+            session.close();
+        }
+
+        console.printf("Recorded %d messages over %d s for %d fields to %s%n", written[0], seconds, fields, out);
+    }
+}
@@ -0,0 +1,161 @@
+package com.smartfarm.bench;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import com.smartfarm.Main;
+import com.smartfarm.FieldContainerPool;
+import com.smartfarm.agents.DispatcherAgent;
+import com.smartfarm.agents.DispatcherAgent.JobType;
+import com.smartfarm.models.CropType;
+import com.smartfarm.models.Ledger;
+
+import jade.core.Profile;
+import jade.core.ProfileImpl;
+import jade.core.Runtime;
+import jade.wrapper.ContainerController;
+
+/**
+ * DispatcherBenchmark - Job wait times and worker utilisation with the
+ * Dispatcher's work queue.
+ *
+ * Boots an in-process JADE platform (default port, so stop the farm first)
+ * without the WebServer: the Dispatcher, drones and irrigators (half each)
+ * in Base-Container, and real FieldAgents bought through
+ * Main.createFieldAgent. The ledger starts with plenty of water so that
+ * only worker capacity limits irrigation. After the run, prints a
+ * histogram of how long jobs waited for a worker (per job type), and of
+ * worker utilisation (share of the run spent on jobs).
+ *
+ * Usage: java com.smartfarm.bench.DispatcherBenchmark [workers] [fields] [seconds]
+ */
+public class DispatcherBenchmark {
+
+    private static final long[] WAIT_BUCKETS_MS = { 100, 1000, 5000, 10_000, 30_000, 60_000, 120_000 };
+
+    public static void main(String[] args) throws Exception {
+        int workers = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        int fields = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 180;
+
+        PrintStream console = System.out;
+        console.println("============================================================");
+        console.println("       DISPATCHER BENCHMARK (" + workers + " workers, " + fields + " fields, " + seconds
+                + " s)");
+        console.println("============================================================");
+
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        Runtime runtime = Runtime.instance();
+        Profile profile = new ProfileImpl();
+        profile.setParameter(Profile.MAIN_HOST, "localhost");
+        profile.setParameter(Profile.GUI, "false");
+        profile.setParameter(Profile.SERVICES, Main.PLATFORM_SERVICES);
+        profile.setParameter(Profile.CONTAINER_NAME, "Main-Container");
+        ContainerController mainContainer = runtime.createMainContainer(profile);
+
+        Profile baseProfile = new ProfileImpl();
+        baseProfile.setParameter(Profile.MAIN_HOST, "localhost");
+        baseProfile.setParameter(Profile.SERVICES, Main.PLATFORM_SERVICES);
+        baseProfile.setParameter(Profile.CONTAINER_NAME, "Base-Container");
+        ContainerController baseContainer = runtime.createAgentContainer(baseProfile);
+
+        Ledger ledger = new Ledger(null);
+        ledger.setLogging(false);
+        ledger.credit(Ledger.Item.WATER, 10_000_000);
+
+        DispatcherAgent dispatcher = new DispatcherAgent();
+        dispatcher.setArguments(new Object[] { null });
+        mainContainer.acceptNewAgent(DispatcherAgent.NAME, dispatcher).start();
+
+        int drones = workers / 2;
+        for (int i = 1; i <= drones; i++) {
+            baseContainer.createNewAgent("Drone-" + i, "com.smartfarm.agents.DroneAgent",
+                    new Object[] { "Drone-" + i, null }).start();
+        }
+        for (int i = 1; i <= workers - drones; i++) {
+            baseContainer.createNewAgent("Irrigator-" + i, "com.smartfarm.agents.IrrigatorAgent",
+                    new Object[] { "Irrigator-" + i, null, ledger }).start();
+        }
+
+        Main.configureFieldPool("localhost", 50, FieldContainerPool.Placement.FILL_FIRST);
+        long start = System.currentTimeMillis();
+        for (int i = 1; i <= fields; i++) {
+            Main.createFieldAgent(i, i % 2 == 0 ? CropType.WHEAT : CropType.CORN);
+        }
+
+        Thread.sleep(seconds * 1000L);
+        long elapsed = System.currentTimeMillis() - start;
+
+        console.printf("Requests: %d (%d duplicates merged), handed back by workers: %d, leases expired: %d%n",
+                dispatcher.getRequests(), dispatcher.getDuplicates(), dispatcher.getFailures(),
+                dispatcher.getExpiredLeases());
+        for (JobType type : JobType.values()) {
+            List<Long> waits = dispatcher.getWaitTimes(type);
+            Collections.sort(waits);
+            console.println();
+            console.printf("%s jobs: %d assigned, %d still queued, wait p50 %.1f s, p99 %.1f s, max %.1f s%n",
+                    type, dispatcher.getAssigned(type), dispatcher.getQueued(type), percentile(waits, 0.50) / 1000.0,
+                    percentile(waits, 0.99) / 1000.0, waits.isEmpty() ? 0 : waits.get(waits.size() - 1) / 1000.0);
+            printWaitHistogram(console, waits);
+        }
+
+        console.println();
+        console.println("Worker utilisation (time on jobs / " + elapsed / 1000 + " s):");
+        Map<String, Long> busy = dispatcher.getBusyMillis();
+        int[] buckets = new int[10];
+        List<String> names = new ArrayList<>(busy.keySet());
+        Collections.sort(names);
+        for (String name : names) {
+            double share = Math.min(1.0, (double) busy.get(name) / elapsed);
+            buckets[Math.min(9, (int) (share * 10))]++;
+            console.printf("  %-12s %5.1f%%%n", name, share * 100);
+        }
+        for (int b = 0; b < buckets.length; b++) {
+            console.printf("  %3d-%3d%%  %-3d %s%n", b * 10, b * 10 + 10, buckets[b], bar(buckets[b], workers));
+        }
+
+        System.exit(0);
+    }
+
+    private static void printWaitHistogram(PrintStream console, List<Long> waits) {
+        int[] counts = new int[WAIT_BUCKETS_MS.length + 1];
+        for (long wait : waits) {
+            int b = 0;
+            while (b < WAIT_BUCKETS_MS.length && wait >= WAIT_BUCKETS_MS[b]) {
+                b++;
+            }
+            counts[b]++;
+        }
+        for (int b = 0; b < counts.length; b++) {
+            String label = b == 0 ? "< " + format(WAIT_BUCKETS_MS[0])
+                    : b == WAIT_BUCKETS_MS.length ? ">= " + format(WAIT_BUCKETS_MS[b - 1])
+                            : format(WAIT_BUCKETS_MS[b - 1]) + "-" + format(WAIT_BUCKETS_MS[b]);
+            console.printf("  %-12s %-5d %s%n", label, counts[b], bar(counts[b], waits.size()));
+        }
+    }
+
+    private static String format(long ms) {
+        return ms < 1000 ? ms + "ms" : ms / 1000 + "s";
+    }
+
+    private static String bar(int count, int total) {
+        int width = total == 0 ? 0 : (int) Math.round(40.0 * count / total);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < width; i++) {
+            sb.append('#');
+        }
+        return sb.toString();
+    }
+
+    private static long percentile(List<Long> sorted, double p) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        return sorted.get(Math.min(sorted.size() - 1, (int) Math.ceil(p * sorted.size()) - 1));
+    }
+}
@@ -0,0 +1,193 @@
+package com.smartfarm.bench;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.smartfarm.FieldContainerPool;
+import com.smartfarm.FieldContainerPool.Placement;
+import com.smartfarm.Main;
+import com.smartfarm.models.CropType;
+
+import jade.core.AID;
+import jade.core.Profile;
+import jade.core.ProfileImpl;
+import jade.core.Runtime;
+import jade.core.behaviours.CyclicBehaviour;
+import jade.lang.acl.ACLMessage;
+import jade.wrapper.AgentController;
+import jade.wrapper.ContainerController;
+
+/**
+ * FieldPoolBenchmark - Cost of buying fields with one container per field
+ * (the previous layout) versus the pooled FILL_FIRST and LEAST_LOADED
+ * placements.
+ *
+ * Boots an in-process JADE platform (default port, so stop the farm first)
+ * without the WebServer, then for each layout buys fields one after another
+ * through Main.createFieldAgent and reports purchase latency, containers,
+ * and heap and threads added per field (heap measured after GC, with the
+ * fields running).
+ *
+ * Then shows rebalancing on the pooled layout: a few fields of the first
+ * container get flooded with messages for several rounds, and rebalance()
+ * runs after each round.
+ *
+ * Usage: java com.smartfarm.bench.FieldPoolBenchmark [fields] [per-field fields] [fields per container]
+ */
+public class FieldPoolBenchmark {
+
+    private static final int HOT_FIELDS = 10;
+    private static final int MESSAGES_PER_HOT_FIELD = 100;
+    private static final int REBALANCE_ROUNDS = 5;
+
+    /**
+     * Sends MESSAGES_PER_HOT_FIELD INFORMs to each field name it is handed
+     * through O2A.
+     */
+    public static class HeatAgent extends jade.core.Agent {
+        @Override
+        protected void setup() {
+            setEnabledO2ACommunication(true, 0);
+            addBehaviour(new CyclicBehaviour(this) {
+                @Override
+                @SuppressWarnings("unchecked")
+                public void action() {
+                    Object request = getO2AObject();
+                    if (request == null) {
+                        block();
+                        return;
+                    }
+                    for (String field : (List<String>) request) {
+                        for (int i = 0; i < MESSAGES_PER_HOT_FIELD; i++) {
+                            ACLMessage msg = new ACLMessage(ACLMessage.INFORM);
+                            msg.addReceiver(new AID(field, AID.ISLOCALNAME));
+                            msg.setContent("PING");
+                            send(msg);
+                        }
+                    }
+                }
+            });
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int fields = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int perFieldFields = args.length > 1 ? Integer.parseInt(args[1]) : fields;
+        int fieldsPerContainer = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+
+        PrintStream console = System.out;
+        console.println("============================================================");
+        console.println("       FIELD POOL BENCHMARK");
+        console.println("============================================================");
+
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        Runtime runtime = Runtime.instance();
+        Profile profile = new ProfileImpl();
+        profile.setParameter(Profile.MAIN_HOST, "localhost");
+        profile.setParameter(Profile.GUI, "false");
+        profile.setParameter(Profile.SERVICES, Main.PLATFORM_SERVICES);
+        profile.setParameter(Profile.CONTAINER_NAME, "Main-Container");
+        ContainerController mainContainer = runtime.createMainContainer(profile);
+        AgentController heat = mainContainer.acceptNewAgent("Heat", new HeatAgent());
+        heat.start();
+
+        console.printf("%-14s %-8s %-12s %-10s %-10s %-10s %-12s %-12s %-10s%n", "Layout", "Fields",
+                "Containers", "p50 ms", "p99 ms", "Avg ms", "Total s", "Heap KB/fld", "Thr/fld");
+
+        Object[][] layouts = {
+                { "per-field", perFieldFields, 1, Placement.FILL_FIRST },
+                { "fill-first", fields, fieldsPerContainer, Placement.FILL_FIRST },
+                { "least-loaded", fields, fieldsPerContainer, Placement.LEAST_LOADED } };
+        for (int l = 0; l < layouts.length; l++) {
+            String layout = (String) layouts[l][0];
+            int count = (Integer) layouts[l][1];
+            FieldContainerPool pool = Main.configureFieldPool("localhost", (Integer) layouts[l][2],
+                    (Placement) layouts[l][3]);
+            int base = (l + 1) * 10_000;
+
+            long heapBefore = usedHeap();
+            int threadsBefore = ManagementFactory.getThreadMXBean().getThreadCount();
+            List<Long> latencies = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int i = 1; i <= count; i++) {
+                long t0 = System.nanoTime();
+                Main.createFieldAgent(base + i, i % 2 == 0 ? CropType.WHEAT : CropType.CORN);
+                latencies.add(System.nanoTime() - t0);
+            }
+            double total = (System.nanoTime() - start) / 1e9;
+            Thread.sleep(2000);
+            long heapPerField = (usedHeap() - heapBefore) / count;
+            double threadsPerField = (double) (ManagementFactory.getThreadMXBean().getThreadCount()
+                    - threadsBefore) / count;
+
+            Collections.sort(latencies);
+            long sum = 0;
+            for (long latency : latencies) {
+                sum += latency;
+            }
+            console.printf("%-14s %-8d %-12d %-10.2f %-10.2f %-10.2f %-12.2f %-12d %-10.2f%n", layout, count,
+                    pool.getContainerCount(), percentile(latencies, 0.50) / 1e6,
+                    percentile(latencies, 0.99) / 1e6, sum / 1e6 / count, total, heapPerField / 1024,
+                    threadsPerField);
+
+            if (layout.equals("fill-first")) {
+                rebalance(console, pool, heat, base);
+            }
+            pool.shutdown();
+            Thread.sleep(2000);
+        }
+
+        System.exit(0);
+    }
+
+    private static void rebalance(PrintStream console, FieldContainerPool pool, AgentController heat, int base)
+            throws Exception {
+        List<String> hot = new ArrayList<>();
+        for (int i = 1; i <= HOT_FIELDS; i++) {
+            hot.add("Field-" + (base + i));
+        }
+        String home = pool.getContainerOf(hot.get(0));
+        console.println();
+        console.println("Rebalancing: " + HOT_FIELDS + " fields of " + home + " get " + MESSAGES_PER_HOT_FIELD
+                + " messages per round");
+        pool.rebalance(); // drop the activity of the purchase phase
+        for (int round = 1; round <= REBALANCE_ROUNDS; round++) {
+            heat.putO2AObject(hot, AgentController.ASYNC);
+            Thread.sleep(2000);
+            long start = System.nanoTime();
+            int moved = pool.rebalance();
+            long elapsed = System.nanoTime() - start;
+            int stillHome = 0;
+            for (String field : hot) {
+                if (home.equals(pool.getContainerOf(field))) {
+                    stillHome++;
+                }
+            }
+            console.printf("  round %d: moved %d (%.1f ms), %d of %d hot fields left in %s, %d containers%n",
+                    round, moved, elapsed / 1e6, stillHome, HOT_FIELDS, home, pool.getContainerCount());
+        }
+        console.println("  migrations: " + pool.getMigrations());
+        console.println();
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(200);
+        }
+        java.lang.Runtime jvm = java.lang.Runtime.getRuntime();
+        return jvm.totalMemory() - jvm.freeMemory();
+    }
+
+    private static long percentile(List<Long> sorted, double p) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        return sorted.get(Math.min(sorted.size() - 1, (int) Math.ceil(p * sorted.size()) - 1));
+    }
+}
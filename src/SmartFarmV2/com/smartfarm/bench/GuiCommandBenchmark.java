@@ -0,0 +1,143 @@
+package com.smartfarm.bench;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+import com.smartfarm.FieldContainerPool;
+import com.smartfarm.Main;
+import com.smartfarm.agents.FarmManagerAgent;
+
+import jade.core.Agent;
+import jade.core.Profile;
+import jade.core.ProfileImpl;
+import jade.core.Runtime;
+import jade.core.behaviours.CyclicBehaviour;
+import jade.core.behaviours.WakerBehaviour;
+import jade.lang.acl.ACLMessage;
+import jade.lang.acl.MessageTemplate;
+import jade.wrapper.AgentController;
+import jade.wrapper.ContainerController;
+
+/**
+ * GuiCommandBenchmark - How many BUY_FIELD commands from the GUI survive a
+ * burst of clicks, with the FarmManager waiting on the Market (blocking)
+ * versus asking it through its AsyncRequester.
+ *
+ * Boots an in-process JADE platform (default port, so stop the farm first)
+ * without the WebServer. A stand-in Market approves every purchase after
+ * a fixed delay, standing for a busy or remote Market; fields are real
+ * FieldAgents created through Main.createFieldAgent. Each burst puts its
+ * commands on the FarmManager's O2A queue the way the WebServer does, one
+ * every few milliseconds (a player clicking fast, or a script), and waits
+ * until the manager is done with them. Commands that never reach the
+ * manager were dropped by JADE on the full queue.
+ *
+ * Usage: java com.smartfarm.bench.GuiCommandBenchmark [bursts] [commands per burst] [market delay ms] [ms between commands]
+ */
+public class GuiCommandBenchmark {
+
+    /**
+     * Approves every BUY_FIELD after the given delay, without holding up
+     * other requests.
+     */
+    public static class SlowMarket extends Agent {
+        @Override
+        protected void setup() {
+            long delay = (Long) getArguments()[0];
+            addBehaviour(new CyclicBehaviour(this) {
+                @Override
+                public void action() {
+                    ACLMessage msg = myAgent.receive(MessageTemplate.MatchPerformative(ACLMessage.REQUEST));
+                    if (msg == null) {
+                        block();
+                        return;
+                    }
+                    ACLMessage reply = msg.createReply();
+                    reply.setPerformative(ACLMessage.CONFIRM);
+                    reply.setContent("APPROVED");
+                    myAgent.addBehaviour(new WakerBehaviour(myAgent, Math.max(1, delay)) {
+                        @Override
+                        protected void onWake() {
+                            myAgent.send(reply);
+                        }
+                    });
+                }
+            });
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int bursts = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        int burstSize = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        long marketDelay = args.length > 2 ? Long.parseLong(args[2]) : 20;
+        long pace = args.length > 3 ? Long.parseLong(args[3]) : 2;
+
+        PrintStream console = System.out;
+        console.println("============================================================");
+        console.println("       GUI COMMAND BENCHMARK (" + bursts + " bursts of " + burstSize + ", market delay "
+                + marketDelay + " ms, a command every " + pace + " ms)");
+        console.println("============================================================");
+
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        Runtime runtime = Runtime.instance();
+        Profile profile = new ProfileImpl();
+        profile.setParameter(Profile.MAIN_HOST, "localhost");
+        profile.setParameter(Profile.GUI, "false");
+        profile.setParameter(Profile.SERVICES, Main.PLATFORM_SERVICES);
+        profile.setParameter(Profile.CONTAINER_NAME, "Main-Container");
+        ContainerController mainContainer = runtime.createMainContainer(profile);
+        Main.configureFieldPool("localhost", 50, FieldContainerPool.Placement.FILL_FIRST);
+
+        mainContainer.createNewAgent("Market", SlowMarket.class.getName(), new Object[] { marketDelay }).start();
+
+        console.printf("%-10s %-8s %-8s %-10s %-8s %-10s %-12s%n", "Mode", "Sent", "Read", "Dropped", "Fields",
+                "Seconds", "Fields/s");
+
+        int firstId = 0;
+        for (String mode : new String[] { "blocking", "async" }) {
+            FarmManagerAgent manager = new FarmManagerAgent();
+            manager.setArguments(new Object[] { null, firstId, mode });
+            AgentController controller = mainContainer.acceptNewAgent("FarmManager-" + mode, manager);
+            controller.start();
+            firstId += bursts * burstSize;
+
+            long sent = 0;
+            long start = System.currentTimeMillis();
+            for (int b = 0; b < bursts; b++) {
+                for (int i = 0; i < burstSize; i++) {
+                    controller.putO2AObject("BUY_FIELD:" + (i % 2 == 0 ? "WHEAT" : "CORN"), AgentController.ASYNC);
+                    sent++;
+                    Thread.sleep(pace);
+                }
+                awaitIdle(manager);
+            }
+            double seconds = (System.currentTimeMillis() - start) / 1000.0;
+
+            long read = manager.getCommandsReceived();
+            console.printf("%-10s %-8d %-8d %-10s %-8d %-10.1f %-12.1f%n", mode, sent, read,
+                    (sent - read) + String.format(" (%.0f%%)", 100.0 * (sent - read) / sent), manager.getPurchased(),
+                    seconds, manager.getPurchased() / seconds);
+            controller.kill();
+        }
+
+        System.exit(0);
+    }
+
+    /**
+     * Wait until every command the manager read has been answered and no
+     * more are coming in.
+     */
+    private static void awaitIdle(FarmManagerAgent manager) throws InterruptedException {
+        long lastRead = -1;
+        while (true) {
+            Thread.sleep(200);
+            long read = manager.getCommandsReceived();
+            long answered = manager.getPurchased() + manager.getRefused() + manager.getTimeouts();
+            if (read == lastRead && answered == read) {
+                return;
+            }
+            lastRead = read;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.smartfarm.bench;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.smartfarm.models.Ledger;
+import com.smartfarm.web.WebServer;
+
+/**
+ * LedgerBenchmark - Throughput of the farm's shared balances under
+ * contention: the previous all-static synchronized Inventory (reproduced
+ * below, logging and broadcasting inside its lock) versus Ledger.
+ *
+ * Every thread runs the same mix the agents produce: irrigators using
+ * water, suppliers and the planner buying water, the client buying crops,
+ * harvesters storing crops. Log output goes to a null stream in both cases;
+ * the WebServer is not started, so a broadcast only formats its JSON.
+ *
+ * Usage: java com.smartfarm.bench.LedgerBenchmark [seconds per run]
+ */
+public class LedgerBenchmark {
+
+    private interface Balances {
+        void useWater();
+
+        void buyWater();
+
+        void sellCrops();
+
+        void storeCrops();
+    }
+
+    /**
+     * The previous Inventory: one global lock held while printing and
+     * broadcasting.
+     */
+    private static class SynchronizedInventory implements Balances {
+        private final WebServer webServer;
+        private int water = 100;
+        private int crops = 0;
+        private int money = 1000;
+
+        SynchronizedInventory(WebServer webServer) {
+            this.webServer = webServer;
+        }
+
+        @Override
+        public synchronized void useWater() {
+            if (water >= 1) {
+                water -= 1;
+                System.out.println("[Inventory] Water used: -1 (remaining: " + water + ")");
+                broadcastState();
+            }
+        }
+
+        @Override
+        public synchronized void buyWater() {
+            if (money >= 5) {
+                money -= 5;
+                System.out.println("[Inventory] Money spent: -$5 (remaining: $" + money + ")");
+                broadcastState();
+                water += 10;
+                System.out.println("[Inventory] Water added: +10 (total: " + water + ")");
+                broadcastState();
+            }
+        }
+
+        @Override
+        public synchronized void sellCrops() {
+            if (crops >= 1) {
+                crops -= 1;
+                System.out.println("[Inventory] Crops sold: -1 (remaining: " + crops + ")");
+                broadcastState();
+                money += 10;
+                System.out.println("[Inventory] Money received: +$10 (total: $" + money + ")");
+                broadcastState();
+            }
+        }
+
+        @Override
+        public synchronized void storeCrops() {
+            crops += 1;
+            System.out.println("[Inventory] Crops added: +1 (total: " + crops + ")");
+            broadcastState();
+        }
+
+        private void broadcastState() {
+            webServer.broadcast("INVENTORY_UPDATE", String.format(
+                    "{\"water\":%d,\"fungicide\":%d,\"seeds\":%d,\"crops\":%d,\"money\":%d}",
+                    water, 20, 10, crops, money));
+        }
+    }
+
+    private static class LedgerBalances implements Balances {
+        private final Ledger ledger;
+
+        LedgerBalances(Ledger ledger) {
+            this.ledger = ledger;
+        }
+
+        @Override
+        public void useWater() {
+            ledger.debit(Ledger.Item.WATER, 1);
+        }
+
+        @Override
+        public void buyWater() {
+            ledger.exchange(Ledger.Item.MONEY, 5, Ledger.Item.WATER, 10);
+        }
+
+        @Override
+        public void sellCrops() {
+            ledger.exchange(Ledger.Item.CROPS, 1, Ledger.Item.MONEY, 10);
+        }
+
+        @Override
+        public void storeCrops() {
+            ledger.credit(Ledger.Item.CROPS, 1);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+
+        PrintStream console = System.out;
+        console.println("============================================================");
+        console.println("       LEDGER CONTENTION BENCHMARK (" + seconds + " s per run, "
+                + java.lang.Runtime.getRuntime().availableProcessors() + " CPUs)");
+        console.println("============================================================");
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        WebServer webServer = new WebServer(); // not started: no clients
+        console.printf("%-10s %-22s %-22s %-10s%n", "Threads", "Inventory ops/s", "Ledger ops/s", "Speedup");
+        for (int threads : new int[] { 1, 2, 4, 8, 16 }) {
+            double locked = run(new SynchronizedInventory(webServer), threads, seconds);
+            double ledger = run(new LedgerBalances(new Ledger(webServer)), threads, seconds);
+            console.printf("%-10d %-22.0f %-22.0f %-10.1f%n", threads, locked, ledger, ledger / locked);
+        }
+        System.exit(0);
+    }
+
+    private static double run(Balances balances, int threads, int seconds) throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        LongAdder operations = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long done = 0;
+                while (running.get()) {
+                    int pick = random.nextInt(10);
+                    if (pick < 4) {
+                        balances.useWater();
+                    } else if (pick < 6) {
+                        balances.buyWater();
+                    } else if (pick < 8) {
+                        balances.sellCrops();
+                    } else {
+                        balances.storeCrops();
+                    }
+                    done++;
+                }
+                operations.add(done);
+            });
+            workers[t].start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        Thread.sleep(seconds * 1000L);
+        running.set(false);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return operations.sum() / ((System.nanoTime() - begin) / 1e9);
+    }
+}
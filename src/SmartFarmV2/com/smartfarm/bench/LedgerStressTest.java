@@ -0,0 +1,151 @@
+package com.smartfarm.bench;
+
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.smartfarm.models.Ledger;
+import com.smartfarm.models.Ledger.Item;
+
+/**
+ * LedgerStressTest - Checks that Ledger loses no updates under contention.
+ *
+ * Worker threads hammer one Ledger with random debits, credits and
+ * exchanges, and keep their own tally of every change the ledger reported
+ * as committed. At the end, for every item, the final balance must equal
+ * its initial balance plus the sum of all committed changes. A watcher
+ * thread checks meanwhile that no balance is ever seen below zero, and a
+ * listener that every event's balance is the previous one plus its delta,
+ * i.e. that events arrive in commit order with the committed balance.
+ *
+ * Exits with status 1 on any violation.
+ *
+ * Usage: java com.smartfarm.bench.LedgerStressTest [threads] [operations per thread]
+ */
+public class LedgerStressTest {
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int operations = args.length > 1 ? Integer.parseInt(args[1]) : 500_000;
+
+        Ledger ledger = new Ledger(null);
+        ledger.setLogging(false);
+        Item[] items = Item.values();
+        long[] initial = new long[items.length];
+        for (Item item : items) {
+            initial[item.ordinal()] = ledger.get(item);
+        }
+
+        long[] heard = initial.clone(); // publisher thread only
+        AtomicLong outOfOrder = new AtomicLong();
+        ledger.addListener((item, delta, balance) -> {
+            if (heard[item.ordinal()] + delta != balance) {
+                outOfOrder.incrementAndGet();
+            }
+            heard[item.ordinal()] = balance;
+        });
+
+        long[][] tallies = new long[threads][items.length];
+        long[] refused = new long[threads];
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            long[] tally = tallies[t];
+            int id = t;
+            workers[t] = new Thread(() -> {
+                Random random = new Random(id);
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < operations; i++) {
+                    Item a = items[random.nextInt(items.length)];
+                    Item b = items[random.nextInt(items.length)];
+                    long amountA = 1 + random.nextInt(20);
+                    long amountB = 1 + random.nextInt(20);
+                    switch (random.nextInt(3)) {
+                        case 0:
+                            if (ledger.debit(a, amountA)) {
+                                tally[a.ordinal()] -= amountA;
+                            } else {
+                                refused[id]++;
+                            }
+                            break;
+                        case 1:
+                            ledger.credit(a, amountA);
+                            tally[a.ordinal()] += amountA;
+                            break;
+                        default:
+                            if (ledger.exchange(a, amountA, b, amountB)) {
+                                tally[a.ordinal()] -= amountA;
+                                tally[b.ordinal()] += amountB;
+                            } else {
+                                refused[id]++;
+                            }
+                    }
+                }
+            });
+            workers[t].start();
+        }
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong negativeSeen = new AtomicLong();
+        Thread watcher = new Thread(() -> {
+            while (running.get()) {
+                for (Item item : items) {
+                    if (ledger.get(item) < 0) {
+                        negativeSeen.incrementAndGet();
+                    }
+                }
+            }
+        });
+        watcher.start();
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        double elapsed = (System.nanoTime() - begin) / 1e9;
+        running.set(false);
+        watcher.join();
+
+        // A last no-op change queued behind all the others: once it is heard,
+        // so is everything before it
+        CountDownLatch drained = new CountDownLatch(1);
+        ledger.addListener((item, delta, balance) -> {
+            if (item == Item.CROPS && delta == 0) {
+                drained.countDown();
+            }
+        });
+        ledger.credit(Item.CROPS, 0);
+        drained.await();
+
+        boolean ok = negativeSeen.get() == 0 && outOfOrder.get() == 0;
+        long totalRefused = 0;
+        for (long r : refused) {
+            totalRefused += r;
+        }
+        System.out.println("============================================================");
+        System.out.printf("LEDGER STRESS TEST: %d threads x %d operations in %.2f s (%d refused)%n",
+                threads, operations, elapsed, totalRefused);
+        System.out.println("============================================================");
+        for (Item item : items) {
+            long expected = initial[item.ordinal()];
+            for (long[] tally : tallies) {
+                expected += tally[item.ordinal()];
+            }
+            long actual = ledger.get(item);
+            boolean match = expected == actual && heard[item.ordinal()] == actual;
+            ok &= match;
+            System.out.printf("%-10s expected %-12d actual %-12d heard %-12d %s%n", item.getDisplayName(), expected,
+                    actual, heard[item.ordinal()], match ? "OK" : "LOST UPDATES");
+        }
+        System.out.println("Negative balances observed: " + negativeSeen.get());
+        System.out.println("Events out of commit order: " + outOfOrder.get());
+        System.out.println(ok ? "PASS" : "FAIL");
+        System.exit(ok ? 0 : 1);
+    }
+}
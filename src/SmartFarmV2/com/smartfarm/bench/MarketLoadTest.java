@@ -0,0 +1,197 @@
+package com.smartfarm.bench;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import com.smartfarm.Main;
+import com.smartfarm.agents.MarketAgent;
+import com.smartfarm.market.OrderBook;
+import com.smartfarm.models.Ledger;
+
+import jade.core.AID;
+import jade.core.Agent;
+import jade.core.Profile;
+import jade.core.ProfileImpl;
+import jade.core.Runtime;
+import jade.core.behaviours.CyclicBehaviour;
+import jade.lang.acl.ACLMessage;
+import jade.lang.acl.MessageTemplate;
+import jade.wrapper.ContainerController;
+
+/**
+ * MarketLoadTest - Many trading agents hammering the Market's order books
+ * over ACL.
+ *
+ * Boots an in-process JADE platform (default port, so stop the farm first)
+ * with the MarketAgent in Main-Container and the traders in
+ * Trader-Container. Each trader keeps one ORDERS batch in flight: it sends
+ * a batch of limit and market orders (and cancels of its own resting
+ * orders) on crops and water, waits for the ACKS and sends the next one.
+ * Reports orders per second through the Market, trades, fill notices
+ * received, and the round trip from batch to ACKS.
+ *
+ * Usage: java com.smartfarm.bench.MarketLoadTest [traders] [orders per batch] [seconds]
+ */
+public class MarketLoadTest {
+
+    public static class Trader extends Agent {
+        private final Random random = new Random();
+        private final List<Long> roundTrips = Collections.synchronizedList(new ArrayList<>());
+        private final List<String> resting = new ArrayList<>(); // "ITEM id"
+        private int batchSize;
+        private long sentAt;
+        private long ref = 0;
+        volatile long orders = 0;
+        volatile long fills = 0;
+        volatile boolean running = true;
+
+        @Override
+        protected void setup() {
+            batchSize = (Integer) getArguments()[0];
+            addBehaviour(new CyclicBehaviour(this) {
+                @Override
+                public void action() {
+                    ACLMessage msg = myAgent.receive(MessageTemplate.MatchPerformative(ACLMessage.INFORM));
+                    if (msg == null) {
+                        block();
+                        return;
+                    }
+                    String content = msg.getContent();
+                    if (content.startsWith("ACKS")) {
+                        roundTrips.add(System.nanoTime() - sentAt);
+                        for (String line : content.split("\n")) {
+                            String[] parts = line.split(" ");
+                            if (parts[0].equals("ACK") && parts[5].equals("RESTING")) {
+                                resting.add(parts[1].substring(0, parts[1].indexOf('-')) + " " + parts[2]);
+                            }
+                        }
+                        if (running) {
+                            sendBatch();
+                        }
+                    } else if (content.startsWith("FILLS")) {
+                        fills += content.split("\n").length - 1;
+                    }
+                }
+            });
+            sendBatch();
+        }
+
+        private void sendBatch() {
+            StringBuilder batch = new StringBuilder("ORDERS\n");
+            for (int i = 0; i < batchSize; i++) {
+                int kind = random.nextInt(100);
+                if (kind < 20 && !resting.isEmpty()) {
+                    String order = resting.remove(random.nextInt(resting.size()));
+                    batch.append("CANCEL x").append(ref++).append(' ').append(order).append('\n');
+                    continue;
+                }
+                String item = random.nextBoolean() ? "CROPS" : "WATER";
+                boolean buy = random.nextBoolean();
+                String price = kind < 30 ? "MKT"
+                        : String.valueOf(buy ? 101 - random.nextInt(4) : 99 + random.nextInt(4));
+                batch.append("NEW ").append(item).append('-').append(ref++).append(buy ? " BUY " : " SELL ")
+                        .append(item).append(' ').append(1 + random.nextInt(20)).append(' ').append(price)
+                        .append('\n');
+            }
+            orders += batchSize;
+            ACLMessage msg = new ACLMessage(ACLMessage.REQUEST);
+            msg.addReceiver(new AID("Market", AID.ISLOCALNAME));
+            msg.setContent(batch.toString());
+            sentAt = System.nanoTime();
+            send(msg);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int traders = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int batchSize = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+
+        PrintStream console = System.out;
+        console.println("============================================================");
+        console.println("       MARKET LOAD TEST (" + traders + " traders, batches of " + batchSize + ", " + seconds
+                + " s)");
+        console.println("============================================================");
+
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        Runtime runtime = Runtime.instance();
+        Profile profile = new ProfileImpl();
+        profile.setParameter(Profile.MAIN_HOST, "localhost");
+        profile.setParameter(Profile.GUI, "false");
+        profile.setParameter(Profile.SERVICES, Main.PLATFORM_SERVICES);
+        profile.setParameter(Profile.CONTAINER_NAME, "Main-Container");
+        ContainerController mainContainer = runtime.createMainContainer(profile);
+
+        Profile traderProfile = new ProfileImpl();
+        traderProfile.setParameter(Profile.MAIN_HOST, "localhost");
+        traderProfile.setParameter(Profile.SERVICES, Main.PLATFORM_SERVICES);
+        traderProfile.setParameter(Profile.CONTAINER_NAME, "Trader-Container");
+        ContainerController traderContainer = runtime.createAgentContainer(traderProfile);
+
+        Ledger ledger = new Ledger(null);
+        ledger.setLogging(false);
+        MarketAgent market = new MarketAgent();
+        market.setArguments(new Object[] { null, ledger });
+        mainContainer.acceptNewAgent("Market", market).start();
+
+        List<Trader> all = new ArrayList<>();
+        for (int i = 1; i <= traders; i++) {
+            Trader trader = new Trader();
+            trader.setArguments(new Object[] { batchSize });
+            traderContainer.acceptNewAgent("Trader-" + i, trader).start();
+            all.add(trader);
+        }
+
+        Thread.sleep(5000); // warm up
+        long orders0 = 0;
+        long fills0 = 0;
+        for (Trader trader : all) {
+            orders0 += trader.orders;
+            fills0 += trader.fills;
+            trader.roundTrips.clear();
+        }
+        long start = System.currentTimeMillis();
+        Thread.sleep(seconds * 1000L);
+        double elapsed = (System.currentTimeMillis() - start) / 1000.0;
+
+        long orders = -orders0;
+        long fills = -fills0;
+        List<Long> roundTrips = new ArrayList<>();
+        for (Trader trader : all) {
+            trader.running = false;
+            orders += trader.orders;
+            fills += trader.fills;
+            roundTrips.addAll(trader.roundTrips);
+        }
+        Collections.sort(roundTrips);
+
+        console.printf("Orders through the Market: %,.0f /s (%,d batches/s)%n", orders / elapsed,
+                Math.round(roundTrips.size() / elapsed));
+        console.printf("Fill notices received:     %,.0f /s%n", fills / elapsed);
+        console.printf("Batch round trip:          p50 %.2f ms, p99 %.2f ms, max %.2f ms%n",
+                percentile(roundTrips, 0.50) / 1e6, percentile(roundTrips, 0.99) / 1e6,
+                roundTrips.isEmpty() ? 0 : roundTrips.get(roundTrips.size() - 1) / 1e6);
+        Thread.sleep(500);
+        for (OrderBook book : market.getExchange().getBooks()) {
+            if (book.getTrades() > 0) {
+                console.printf("  %-6s trades %,d, volume %,d, last $%d, bid $%d / ask $%d, resting %,d%n",
+                        book.getItem(), book.getTrades(), book.getVolume(), book.getLastPrice(), book.getBestBid(),
+                        book.getBestAsk(), book.getRestingCount());
+            }
+        }
+
+        System.exit(0);
+    }
+
+    private static long percentile(List<Long> sorted, double p) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        return sorted.get(Math.min(sorted.size() - 1, (int) Math.ceil(p * sorted.size()) - 1));
+    }
+}
@@ -0,0 +1,152 @@
+package com.smartfarm.bench;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import com.smartfarm.market.Exchange;
+import com.smartfarm.market.Order;
+import com.smartfarm.market.OrderBook;
+
+/**
+ * OrderBookBenchmark - In-process matching throughput of the Market's order
+ * books.
+ *
+ * Replays a fixed random order flow (limit orders around a drifting price,
+ * some market orders, cancels of resting orders) against a fresh book per
+ * round: straight into OrderBook, and through Exchange.handle() in batches
+ * of text lines as the Market agent gets them. A few warm-up rounds come
+ * first; then reports orders and trades per second, and the latency of
+ * every 64th order in the direct runs.
+ *
+ * Usage: java com.smartfarm.bench.OrderBookBenchmark [orders] [rounds] [batch size]
+ */
+public class OrderBookBenchmark {
+
+    private static final int WARMUP_ROUNDS = 5;
+
+    // An instruction of the flow: side < 0 cancels order id target. Orders
+    // are numbered from 1 in the order they are placed, as the Exchange does.
+    private static class Step {
+        int side;
+        long price;
+        long quantity;
+        long target;
+    }
+
+    public static void main(String[] args) {
+        int orders = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int batchSize = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+
+        System.out.println("============================================================");
+        System.out.println("       ORDER BOOK BENCHMARK (" + orders + " instructions, batches of " + batchSize + ")");
+        System.out.println("============================================================");
+
+        Step[] flow = generate(orders, new Random(42));
+
+        long[] trades = new long[1];
+        for (int r = 0; r < WARMUP_ROUNDS; r++) {
+            runDirect(flow, trades, null);
+            runExchange(flow, batchSize);
+        }
+
+        for (int r = 1; r <= rounds; r++) {
+            trades[0] = 0;
+            List<Long> latencies = new ArrayList<>();
+            long start = System.nanoTime();
+            runDirect(flow, trades, latencies);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            Collections.sort(latencies);
+            System.out.printf("Round %d  direct:   %,10.0f orders/s  %,10.0f trades/s  p50 %d ns  p99 %d ns  p99.9 %d ns%n",
+                    r, orders / seconds, trades[0] / seconds, percentile(latencies, 0.50),
+                    percentile(latencies, 0.99), percentile(latencies, 0.999));
+
+            start = System.nanoTime();
+            long exchangeTrades = runExchange(flow, batchSize);
+            seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("Round %d  exchange: %,10.0f orders/s  %,10.0f trades/s%n", r, orders / seconds,
+                    exchangeTrades / seconds);
+        }
+    }
+
+    private static Step[] generate(int count, Random random) {
+        Step[] flow = new Step[count];
+        long mid = 100;
+        long placed = 0;
+        for (int i = 0; i < count; i++) {
+            Step step = new Step();
+            if (i % 1000 == 0) {
+                mid = Math.max(20, mid + random.nextInt(5) - 2);
+            }
+            int kind = random.nextInt(100);
+            if (kind < 25 && placed > 0) {
+                step.side = -1;
+                step.target = 1 + (long) (random.nextDouble() * placed);
+            } else {
+                placed++;
+                step.side = random.nextInt(2);
+                step.quantity = 1 + random.nextInt(20);
+                if (kind < 35) {
+                    step.price = Order.MARKET;
+                } else {
+                    // Buyers bid a little under the mid, sellers ask a little over, with overlap
+                    long offset = Math.round(Math.abs(random.nextGaussian()) * 3);
+                    step.price = step.side == 0 ? mid + 1 - offset : mid - 1 + offset;
+                }
+            }
+            flow[i] = step;
+        }
+        return flow;
+    }
+
+    private static void runDirect(Step[] flow, long[] trades, List<Long> latencies) {
+        OrderBook book = new OrderBook("CROPS", (taker, maker, price, quantity) -> trades[0]++);
+        long nextId = 1;
+        for (int i = 0; i < flow.length; i++) {
+            Step step = flow[i];
+            long start = latencies != null && (i & 63) == 0 ? System.nanoTime() : 0;
+            if (step.side < 0) {
+                book.cancel(step.target);
+            } else {
+                book.submit(new Order(nextId++, "Trader", step.side == 0 ? Order.Side.BUY : Order.Side.SELL,
+                        step.price, step.quantity));
+            }
+            if (start != 0) {
+                latencies.add(System.nanoTime() - start);
+            }
+        }
+    }
+
+    private static long runExchange(Step[] flow, int batchSize) {
+        Exchange exchange = new Exchange(Arrays.asList("CROPS"), null);
+        StringBuilder batch = new StringBuilder("ORDERS\n");
+        int inBatch = 0;
+        for (int i = 0; i < flow.length; i++) {
+            Step step = flow[i];
+            if (step.side < 0) {
+                batch.append("CANCEL c").append(i).append(" CROPS ").append(step.target).append('\n');
+            } else {
+                batch.append("NEW o").append(i).append(step.side == 0 ? " BUY CROPS " : " SELL CROPS ")
+                        .append(step.quantity).append(' ')
+                        .append(step.price == Order.MARKET ? "MKT" : String.valueOf(step.price)).append('\n');
+            }
+            if (++inBatch == batchSize || i == flow.length - 1) {
+                exchange.handle("Trader", batch.toString());
+                exchange.drainFills();
+                batch.setLength(7);
+                inBatch = 0;
+            }
+        }
+        return exchange.getBook("CROPS").getTrades();
+    }
+
+    private static long percentile(List<Long> sorted, double p) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        return sorted.get(Math.min(sorted.size() - 1, (int) Math.ceil(p * sorted.size()) - 1));
+    }
+}
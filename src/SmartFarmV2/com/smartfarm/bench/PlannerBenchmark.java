@@ -0,0 +1,133 @@
+package com.smartfarm.bench;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+import com.smartfarm.Main;
+import com.smartfarm.agents.MarketAgent;
+import com.smartfarm.agents.PlannerAgent;
+import com.smartfarm.models.Ledger;
+
+import jade.core.Profile;
+import jade.core.ProfileImpl;
+import jade.core.Runtime;
+import jade.wrapper.AgentController;
+import jade.wrapper.ContainerController;
+
+/**
+ * PlannerBenchmark - Stockouts and spending with the old polling planner
+ * versus the event-driven (s, S) planner, under changing consumption.
+ *
+ * Boots an in-process JADE platform (default port, so stop the farm first)
+ * with a Market and a Planner on a fresh ledger per mode. A simulated farm
+ * draws water in irrigator-sized loads of 50 and fungicide one unit at a
+ * time, at rates that change every phase (quiet, busy, quiet, drought,
+ * idle); the draws are the same in both modes. A draw that finds too little
+ * in the warehouse fails, as it would stall an irrigator or sprayer.
+ *
+ * The polling planner buys straight into the ledger, so its deliveries are
+ * instant; the event-driven one waits the Market's lead time.
+ *
+ * Usage: java com.smartfarm.bench.PlannerBenchmark [seconds per phase] [lead time ms]
+ */
+public class PlannerBenchmark {
+
+    private static final long TICK_MS = 50;
+    private static final long WATER_DRAW = 50;
+
+    // Draws per second in each phase
+    private static final double[] WATER_RATES = { 0.4, 2.0, 0.8, 4.0, 0.2 };
+    private static final double[] FUNGICIDE_RATES = { 0.5, 1.0, 0.5, 2.0, 0.2 };
+
+    public static void main(String[] args) throws Exception {
+        int phaseSeconds = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        long leadTime = args.length > 1 ? Long.parseLong(args[1]) : MarketAgent.DEFAULT_LEAD_TIME_MS;
+
+        PrintStream console = System.out;
+        console.println("============================================================");
+        console.println("       PLANNER BENCHMARK (" + WATER_RATES.length + " phases of " + phaseSeconds
+                + " s, lead time " + leadTime + " ms)");
+        console.println("============================================================");
+
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        Runtime runtime = Runtime.instance();
+        Profile profile = new ProfileImpl();
+        profile.setParameter(Profile.MAIN_HOST, "localhost");
+        profile.setParameter(Profile.GUI, "false");
+        profile.setParameter(Profile.SERVICES, Main.PLATFORM_SERVICES);
+        profile.setParameter(Profile.CONTAINER_NAME, "Main-Container");
+        ContainerController mainContainer = runtime.createMainContainer(profile);
+
+        console.printf("%-8s %-7s %-14s %-14s %-12s %-12s %-10s %-10s %s%n", "Mode", "Orders", "Water failed",
+                "Water out (s)", "Fung failed", "Fung out (s)", "Spent $", "Avg water", "Bought (water/fung)");
+
+        for (String mode : new String[] { "polling", "events" }) {
+            Ledger ledger = new Ledger(null);
+            ledger.setLogging(false);
+            long startMoney = 1_000_000;
+            ledger.credit(Ledger.Item.MONEY, startMoney - ledger.get(Ledger.Item.MONEY));
+            long[] bought = new long[Ledger.Item.values().length];
+            ledger.addListener((item, delta, balance) -> {
+                if (delta > 0) {
+                    bought[item.ordinal()] += delta;
+                }
+            });
+
+            AgentController market = mainContainer.createNewAgent("Market", MarketAgent.class.getName(),
+                    new Object[] { null, ledger, leadTime });
+            market.start();
+            PlannerAgent planner = new PlannerAgent();
+            planner.setArguments(new Object[] { null, ledger, mode });
+            AgentController controller = mainContainer.acceptNewAgent("Planner-" + mode, planner);
+            controller.start();
+            Thread.sleep(1000);
+
+            Ledger.Item[] items = { Ledger.Item.WATER, Ledger.Item.FUNGICIDE };
+            double[][] rates = { WATER_RATES, FUNGICIDE_RATES };
+            long[] amounts = { WATER_DRAW, 1 };
+            double[] due = new double[items.length];
+            long[] failed = new long[items.length];
+            long[] outMillis = new long[items.length];
+            long waterSum = 0;
+            long samples = 0;
+
+            long phaseTicks = phaseSeconds * 1000L / TICK_MS;
+            long next = System.currentTimeMillis();
+            for (int phase = 0; phase < WATER_RATES.length; phase++) {
+                for (long t = 0; t < phaseTicks; t++) {
+                    for (int i = 0; i < items.length; i++) {
+                        due[i] += rates[i][phase] * TICK_MS / 1000.0;
+                        while (due[i] >= 1) {
+                            due[i] -= 1;
+                            if (!ledger.debit(items[i], amounts[i])) {
+                                failed[i]++;
+                            }
+                        }
+                        if (ledger.get(items[i]) < amounts[i]) {
+                            outMillis[i] += TICK_MS;
+                        }
+                    }
+                    waterSum += ledger.get(Ledger.Item.WATER);
+                    samples++;
+
+                    next += TICK_MS;
+                    long sleep = next - System.currentTimeMillis();
+                    if (sleep > 0) {
+                        Thread.sleep(sleep);
+                    }
+                }
+            }
+
+            console.printf("%-8s %-7d %-14d %-14.1f %-12d %-12.1f %-10d %-10d %d/%d%n", mode, planner.getOrders(),
+                    failed[0], outMillis[0] / 1000.0, failed[1], outMillis[1] / 1000.0,
+                    startMoney - ledger.get(Ledger.Item.MONEY), waterSum / samples, bought[Ledger.Item.WATER.ordinal()],
+                    bought[Ledger.Item.FUNGICIDE.ordinal()]);
+            controller.kill();
+            market.kill();
+            Thread.sleep(1000);
+        }
+
+        System.exit(0);
+    }
+}
@@ -0,0 +1,94 @@
+package com.smartfarm.bench;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+import com.smartfarm.FieldContainerPool;
+import com.smartfarm.FieldRegistry;
+import com.smartfarm.Main;
+import com.smartfarm.agents.WeatherAgent;
+import com.smartfarm.models.CropType;
+
+import jade.core.Profile;
+import jade.core.ProfileImpl;
+import jade.core.Runtime;
+import jade.wrapper.AgentController;
+import jade.wrapper.ContainerController;
+
+/**
+ * WeatherGridBenchmark - Weather traffic as the farm grows, with one
+ * topic message per region (the grid) versus one message per field.
+ *
+ * Boots an in-process JADE platform (default port, so stop the farm first)
+ * without the WebServer, buys fields in steps through Main.createFieldAgent
+ * (pooled containers, registry with the default 20 fields per row and 5x5
+ * regions, each field subscribed to its region's topic), and after each
+ * step runs a WeatherAgent in each mode with a fast tick. Reports per tick: ACL messages sent, receivers addressed
+ * (every field that got an update) and time spent sending, plus the
+ * fields the registry knows about.
+ *
+ * Usage: java com.smartfarm.bench.WeatherGridBenchmark [max fields] [seconds per run]
+ */
+public class WeatherGridBenchmark {
+
+    private static final long TICK_MS = 250;
+
+    public static void main(String[] args) throws Exception {
+        int maxFields = args.length > 0 ? Integer.parseInt(args[0]) : 4000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        PrintStream console = System.out;
+        console.println("============================================================");
+        console.println("       WEATHER GRID BENCHMARK");
+        console.println("============================================================");
+
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        Runtime runtime = Runtime.instance();
+        Profile profile = new ProfileImpl();
+        profile.setParameter(Profile.MAIN_HOST, "localhost");
+        profile.setParameter(Profile.GUI, "false");
+        profile.setParameter(Profile.SERVICES, Main.PLATFORM_SERVICES);
+        profile.setParameter(Profile.CONTAINER_NAME, "Main-Container");
+        ContainerController mainContainer = runtime.createMainContainer(profile);
+        FieldContainerPool pool = Main.configureFieldPool("localhost", 50, FieldContainerPool.Placement.FILL_FIRST);
+        FieldRegistry registry = Main.configureFieldRegistry(20, 5);
+
+        console.printf("%-8s %-10s %-10s %-10s %-12s %-14s %-12s%n", "Fields", "Regions", "Mode", "Ticks",
+                "Msgs/tick", "Receivers/tick", "CPU ms/tick");
+
+        int bought = 0;
+        for (int step = maxFields / 4; step <= maxFields; step *= 2) {
+            int before = bought;
+            long start = System.nanoTime();
+            while (bought < step) {
+                bought++;
+                Main.createFieldAgent(bought, bought % 2 == 0 ? CropType.WHEAT : CropType.CORN);
+            }
+            console.printf("-- bought %d more fields, %.2f ms per purchase (incl. topic subscription)%n",
+                    bought - before, (System.nanoTime() - start) / 1e6 / (bought - before));
+            Thread.sleep(2000);
+
+            for (String mode : new String[] { "per-field", "grid" }) {
+                WeatherAgent weather = new WeatherAgent();
+                weather.setArguments(new Object[] { null, TICK_MS, mode });
+                AgentController controller = mainContainer.acceptNewAgent("Weather-" + mode + "-" + step, weather);
+                controller.start();
+                Thread.sleep(seconds * 1000L);
+                controller.kill();
+
+                long ticks = Math.max(1, weather.getTicks());
+                console.printf("%-8d %-10d %-10s %-10d %-12.1f %-14.1f %-12.2f%n", registry.getFieldCount(),
+                        registry.getRegions().size(), mode, weather.getTicks(),
+                        (double) weather.getMessagesSent() / ticks, (double) weather.getReceiversAddressed() / ticks,
+                        weather.getSendNanos() / 1e6 / ticks);
+                Thread.sleep(1000);
+            }
+        }
+
+        console.println();
+        console.println("Fields bought: " + bought + ", in registry: " + registry.getFieldCount() + ", containers: "
+                + pool.getContainerCount());
+        System.exit(0);
+    }
+}
@@ -0,0 +1,99 @@
+package com.smartfarm.bench;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.smartfarm.web.WebServer;
+
+/**
+ * WebFanoutBenchmark - Server-side cost of pushing farm events to many
+ * dashboards, each showing one field: every event to every client (what a
+ * client that never subscribes gets, as all did before topics) versus
+ * per-client topic subscriptions.
+ *
+ * Uses WebServer without starting Javalin: each client is a stand-in that
+ * encodes the message to UTF-8, as the WebSocket frame would, and counts
+ * it. Client i subscribes to "field/i", "inventory" and "log?level=warn";
+ * every round publishes one FIELD_UPDATE per field, an inventory update,
+ * and an info and a warning log line.
+ *
+ * Usage: java com.smartfarm.bench.WebFanoutBenchmark [clients] [rounds]
+ */
+public class WebFanoutBenchmark {
+
+    private static class CountingClient implements WebServer.Client {
+        final LongAdder messages;
+        final LongAdder bytes;
+
+        CountingClient(LongAdder messages, LongAdder bytes) {
+            this.messages = messages;
+            this.bytes = bytes;
+        }
+
+        @Override
+        public void send(String message) {
+            bytes.add(message.getBytes(StandardCharsets.UTF_8).length);
+            messages.increment();
+        }
+    }
+
+    public static void main(String[] args) {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        PrintStream console = System.out;
+        console.println("============================================================");
+        console.println("       WEB FAN-OUT BENCHMARK (" + clients + " clients, one field each)");
+        console.println("============================================================");
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        console.printf("%-10s %-12s %-16s %-14s %-14s %-12s%n", "Mode", "Events/s", "Deliveries/ev", "Msgs/client",
+                "MB sent", "Run ms");
+        for (int pass = 0; pass < 2; pass++) { // first pass warms up
+            for (String mode : new String[] { "broadcast", "topics" }) {
+                LongAdder messages = new LongAdder();
+                LongAdder bytes = new LongAdder();
+                WebServer server = new WebServer();
+                List<WebServer.Session> sessions = new ArrayList<>();
+                for (int i = 1; i <= clients; i++) {
+                    WebServer.Session session = server.connect(new CountingClient(messages, bytes));
+                    if (mode.equals("topics")) {
+                        session.handle("{\"type\":\"SUBSCRIBE\",\"topics\":[\"field/" + i
+                                + "\",\"inventory\",\"log?level=warn\"]}");
+                    }
+                    sessions.add(session);
+                }
+
+                long events = 0;
+                long start = System.nanoTime();
+                for (int r = 0; r < rounds; r++) {
+                    for (int field = 1; field <= clients; field++) {
+                        server.publish("field/" + field, "FIELD_UPDATE", String.format(
+                                "{\"id\":%d,\"crop\":\"Corn\",\"cropIcon\":\"🌽\",\"moisture\":%d,\"health\":100,\"growth\":%d,\"scanLevel\":0,\"disease\":null,\"planted\":true}",
+                                field, 50 + r % 50, r % 100));
+                        events++;
+                    }
+                    server.broadcast("INVENTORY_UPDATE",
+                            "{\"water\":100,\"fungicide\":20,\"seeds\":10,\"crops\":" + r + ",\"money\":1000}");
+                    server.broadcast("LOG", "{\"message\":\"Irrigator-1 watering Field-" + r + " (+50%)\"}");
+                    server.log(WebServer.Level.WARN, "Irrigator-2: No water in warehouse!");
+                    events += 3;
+                }
+                double millis = (System.nanoTime() - start) / 1e6;
+
+                if (pass == 1) {
+                    console.printf("%-10s %-12.0f %-16.1f %-14.1f %-14.1f %-12.0f%n", mode, events / millis * 1000,
+                            (double) messages.sum() / events, (double) messages.sum() / clients,
+                            bytes.sum() / 1e6, millis);
+                }
+                for (WebServer.Session session : sessions) {
+                    session.close();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.smartfarm.comms;
+
+import jade.core.Agent;
+import jade.core.behaviours.CyclicBehaviour;
+import jade.lang.acl.ACLMessage;
+import jade.lang.acl.MessageTemplate;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * AsyncRequester - Request/response over ACL without blocking the agent.
+ *
+ * request() stamps the message with a fresh conversation id (unless it
+ * has one) and reply-with, sends it and returns a future. This behaviour
+ * picks up the reply, i.e. the first message on that conversation that
+ * answers the reply-with (or carries no in-reply-to), and completes the
+ * future with it; after the timeout the future fails with a
+ * TimeoutException and a late reply is dropped.
+ *
+ * Futures complete on the agent's thread, one per behaviour round, so
+ * callbacks may touch agent state. Use from the agent's own behaviours
+ * only. Other behaviours of the agent should receive with templates that
+ * do not match these replies (e.g. MatchPerformative), or a reply may be
+ * taken before it gets here.
+ *
+ * Usage:
+ *
+ * <pre>
+ * requester = new AsyncRequester(this);
+ * addBehaviour(requester);
+ * requester.request(msg, 5000).whenComplete((reply, error) -> ...);
+ * </pre>
+ */
+public class AsyncRequester extends CyclicBehaviour {
+
+    private static class Pending {
+        final String replyWith;
+        final long deadline;
+        final CompletableFuture<ACLMessage> future = new CompletableFuture<>();
+
+        Pending(String replyWith, long deadline) {
+            this.replyWith = replyWith;
+            this.deadline = deadline;
+        }
+    }
+
+    private final Map<String, Pending> pending = new HashMap<>(); // by conversation id
+    private final MessageTemplate template;
+    private long nextId = 1;
+    private long timeouts = 0;
+
+    public AsyncRequester(Agent agent) {
+        super(agent);
+        template = new MessageTemplate(msg -> msg.getConversationId() != null
+                && pending.containsKey(msg.getConversationId()));
+    }
+
+    /**
+     * Send msg and return a future for the reply.
+     */
+    public CompletableFuture<ACLMessage> request(ACLMessage msg, long timeoutMs) {
+        String id = myAgent.getLocalName() + "-req-" + (nextId++);
+        if (msg.getConversationId() == null) {
+            msg.setConversationId(id);
+        }
+        msg.setReplyWith(id);
+
+        Pending request = new Pending(id, System.currentTimeMillis() + timeoutMs);
+        Pending previous = pending.put(msg.getConversationId(), request);
+        if (previous != null) {
+            previous.future.completeExceptionally(new IllegalStateException("Superseded on the same conversation"));
+        }
+        myAgent.send(msg);
+        restart(); // recompute the wake-up time
+        return request.future;
+    }
+
+    @Override
+    public void action() {
+        // One reply per round, so that the agent's other behaviours get a
+        // turn between (possibly slow) callbacks
+        ACLMessage msg = myAgent.receive(template);
+        if (msg != null) {
+            Pending request = pending.get(msg.getConversationId());
+            if (msg.getInReplyTo() == null || msg.getInReplyTo().equals(request.replyWith)) {
+                pending.remove(msg.getConversationId());
+                request.future.complete(msg);
+            }
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        long nextDeadline = Long.MAX_VALUE;
+        Iterator<Pending> it = pending.values().iterator();
+        while (it.hasNext()) {
+            Pending request = it.next();
+            if (request.deadline <= now) {
+                it.remove();
+                timeouts++;
+                request.future.completeExceptionally(new TimeoutException("No reply to " + request.replyWith));
+            } else {
+                nextDeadline = Math.min(nextDeadline, request.deadline);
+            }
+        }
+
+        if (nextDeadline == Long.MAX_VALUE) {
+            block();
+        } else {
+            block(nextDeadline - now);
+        }
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    public long getTimeouts() {
+        return timeouts;
+    }
+}
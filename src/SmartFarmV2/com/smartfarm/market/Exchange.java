@@ -0,0 +1,170 @@
+package com.smartfarm.market;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Exchange - The Market's order books, one per tradable item, behind a
+ * line-based order-entry protocol.
+ *
+ * An order batch is one line per instruction:
+ *
+ * <pre>
+ * NEW &lt;ref&gt; &lt;BUY|SELL&gt; &lt;ITEM&gt; &lt;quantity&gt; &lt;price|MKT&gt;
+ * CANCEL &lt;ref&gt; &lt;ITEM&gt; &lt;orderId&gt;
+ * </pre>
+ *
+ * handle() answers the whole batch at once, one line per instruction, in
+ * order (ref is the sender's own tag):
+ *
+ * <pre>
+ * ACK &lt;ref&gt; &lt;orderId&gt; &lt;filled&gt; &lt;remaining&gt; &lt;RESTING|FILLED|EXPIRED&gt;
+ * CANCELLED &lt;ref&gt; &lt;orderId&gt; &lt;remaining&gt;
+ * REJECT &lt;ref&gt; &lt;reason&gt;
+ * </pre>
+ *
+ * Every trade also makes a notice for both owners, collected until
+ * drainFills():
+ *
+ * <pre>
+ * FILL &lt;orderId&gt; &lt;ITEM&gt; &lt;BUY|SELL&gt; &lt;quantity&gt; &lt;price&gt; &lt;remaining&gt;
+ * </pre>
+ *
+ * Not thread-safe, like OrderBook.
+ */
+public class Exchange {
+
+    /**
+     * Told about every trade, e.g. to settle it.
+     */
+    public interface Listener {
+        void onFill(String item, Order taker, Order maker, long price, long quantity);
+    }
+
+    private final Map<String, OrderBook> books = new LinkedHashMap<>();
+    private final Map<String, StringBuilder> fills = new LinkedHashMap<>(); // by owner
+    private final Listener listener;
+    private long nextId = 1;
+
+    public Exchange(Collection<String> items, Listener listener) {
+        this.listener = listener;
+        for (String item : items) {
+            books.put(item, new OrderBook(item, (taker, maker, price, quantity) -> {
+                notice(taker, item, quantity, price);
+                notice(maker, item, quantity, price);
+                if (this.listener != null) {
+                    this.listener.onFill(item, taker, maker, price, quantity);
+                }
+            }));
+        }
+    }
+
+    // ==================== ORDER ENTRY ====================
+
+    /**
+     * Run a batch of instructions from owner; returns the acknowledgements.
+     */
+    public String handle(String owner, String batch) {
+        StringBuilder acks = new StringBuilder();
+        for (String line : batch.split("\n")) {
+            if (line.isEmpty() || line.equals("ORDERS")) {
+                continue;
+            }
+            String[] parts = line.trim().split(" ");
+            String ref = parts.length > 1 ? parts[1] : "-";
+            try {
+                if (parts[0].equals("NEW") && parts.length == 6) {
+                    Order.Side side = Order.Side.valueOf(parts[2]);
+                    long price = parts[5].equals("MKT") ? Order.MARKET : Long.parseLong(parts[5]);
+                    Order order = submit(owner, parts[3], side, price, Long.parseLong(parts[4]));
+                    if (order == null) {
+                        reject(acks, ref, "UNKNOWN_ITEM");
+                    } else {
+                        acks.append("ACK ").append(ref).append(' ').append(order.getId()).append(' ')
+                                .append(order.getFilled()).append(' ').append(order.getRemaining()).append(' ')
+                                .append(order.isResting() ? "RESTING" : order.getRemaining() == 0 ? "FILLED" : "EXPIRED")
+                                .append('\n');
+                    }
+                } else if (parts[0].equals("CANCEL") && parts.length == 4) {
+                    Order order = cancel(owner, parts[2], Long.parseLong(parts[3]));
+                    if (order == null) {
+                        reject(acks, ref, "UNKNOWN_ORDER");
+                    } else {
+                        acks.append("CANCELLED ").append(ref).append(' ').append(order.getId()).append(' ')
+                                .append(order.getRemaining()).append('\n');
+                    }
+                } else {
+                    reject(acks, ref, "BAD_INSTRUCTION");
+                }
+            } catch (IllegalArgumentException e) {
+                reject(acks, ref, "BAD_INSTRUCTION");
+            }
+        }
+        return acks.toString();
+    }
+
+    /**
+     * Enter an order directly. Returns null for an unknown item.
+     */
+    public Order submit(String owner, String item, Order.Side side, long price, long quantity) {
+        OrderBook book = books.get(item);
+        if (book == null) {
+            return null;
+        }
+        Order order = new Order(nextId++, owner, side, price, quantity);
+        book.submit(order);
+        return order;
+    }
+
+    /**
+     * Cancel one of owner's resting orders. Returns null if there is no
+     * such order (any more).
+     */
+    public Order cancel(String owner, String item, long orderId) {
+        OrderBook book = books.get(item);
+        if (book == null) {
+            return null;
+        }
+        Order order = book.getOrder(orderId);
+        if (order == null || !order.getOwner().equals(owner)) {
+            return null;
+        }
+        return book.cancel(orderId);
+    }
+
+    private static void reject(StringBuilder acks, String ref, String reason) {
+        acks.append("REJECT ").append(ref).append(' ').append(reason).append('\n');
+    }
+
+    // ==================== FILL NOTICES ====================
+
+    private void notice(Order order, String item, long quantity, long price) {
+        fills.computeIfAbsent(order.getOwner(), o -> new StringBuilder())
+                .append("FILL ").append(order.getId()).append(' ').append(item).append(' ')
+                .append(order.getSide()).append(' ').append(quantity).append(' ').append(price).append(' ')
+                .append(order.getRemaining()).append('\n');
+    }
+
+    /**
+     * Fill notices since the last call, one block of lines per owner.
+     */
+    public Map<String, String> drainFills() {
+        Map<String, String> drained = new LinkedHashMap<>();
+        for (Map.Entry<String, StringBuilder> entry : fills.entrySet()) {
+            drained.put(entry.getKey(), entry.getValue().toString());
+        }
+        fills.clear();
+        return drained;
+    }
+
+    // ==================== VIEW ====================
+
+    public OrderBook getBook(String item) {
+        return books.get(item);
+    }
+
+    public Collection<OrderBook> getBooks() {
+        return books.values();
+    }
+}
@@ -0,0 +1,89 @@
+package com.smartfarm.market;
+
+/**
+ * Order - One buy or sell order in an OrderBook.
+ *
+ * A limit order trades at its price or better and rests in the book for
+ * whatever is left; a market order (price MARKET) takes what the book has
+ * and the rest expires. Quantities and prices are whole units and dollars.
+ */
+public class Order {
+
+    public enum Side {
+        BUY, SELL
+    }
+
+    public static final long MARKET = -1;
+
+    private final long id;
+    private final String owner;
+    private final Side side;
+    private final long price;
+    private final long quantity;
+    long remaining;
+    boolean cancelled = false;
+    boolean resting = false;
+
+    public Order(long id, String owner, Side side, long price, long quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive: " + quantity);
+        }
+        if (price != MARKET && price <= 0) {
+            throw new IllegalArgumentException("Price must be positive: " + price);
+        }
+        this.id = id;
+        this.owner = owner;
+        this.side = side;
+        this.price = price;
+        this.quantity = quantity;
+        this.remaining = quantity;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public Side getSide() {
+        return side;
+    }
+
+    public long getPrice() {
+        return price;
+    }
+
+    public boolean isMarket() {
+        return price == MARKET;
+    }
+
+    public long getQuantity() {
+        return quantity;
+    }
+
+    public long getRemaining() {
+        return remaining;
+    }
+
+    public long getFilled() {
+        return quantity - remaining;
+    }
+
+    /**
+     * In the book, waiting for a counterparty.
+     */
+    public boolean isResting() {
+        return resting;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    @Override
+    public String toString() {
+        return side + " " + remaining + "/" + quantity + (isMarket() ? " MKT" : " @" + price) + " #" + id;
+    }
+}
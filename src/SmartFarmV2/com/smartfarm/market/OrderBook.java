@@ -0,0 +1,176 @@
+package com.smartfarm.market;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * OrderBook - Limit order book for one tradable item, price-time priority.
+ *
+ * Bids and asks are kept as price levels (best price first), each a FIFO
+ * queue of resting orders. An incoming order trades against the best
+ * levels while prices cross, oldest order first within a level, always at
+ * the resting order's price; a limit order rests with what is left, a
+ * market order expires. Cancelling marks the order and takes its quantity
+ * off the level; the matcher skips it later instead of searching the
+ * queue for it.
+ *
+ * Not thread-safe: owned by one thread (the Market agent's).
+ */
+public class OrderBook {
+
+    /**
+     * Told about every trade, as it happens.
+     */
+    public interface Listener {
+        void onFill(Order taker, Order maker, long price, long quantity);
+    }
+
+    private static class Level {
+        final ArrayDeque<Order> orders = new ArrayDeque<>();
+        long quantity = 0;
+    }
+
+    private final String item;
+    private final Listener listener;
+    private final TreeMap<Long, Level> bids = new TreeMap<>(Collections.reverseOrder());
+    private final TreeMap<Long, Level> asks = new TreeMap<>();
+    private final Map<Long, Order> resting = new HashMap<>();
+
+    // Statistics
+    private long trades = 0;
+    private long volume = 0;
+    private long lastPrice = 0;
+
+    public OrderBook(String item, Listener listener) {
+        this.item = item;
+        this.listener = listener;
+    }
+
+    // ==================== ORDER ENTRY ====================
+
+    /**
+     * Match the order against the book; what is left of a limit order
+     * rests, what is left of a market order expires. Check
+     * order.getRemaining() and isResting() afterwards.
+     */
+    public void submit(Order order) {
+        if (resting.containsKey(order.getId())) {
+            throw new IllegalArgumentException("Duplicate order id " + order.getId());
+        }
+        boolean buy = order.getSide() == Order.Side.BUY;
+        TreeMap<Long, Level> opposite = buy ? asks : bids;
+
+        while (order.remaining > 0 && !opposite.isEmpty()) {
+            Map.Entry<Long, Level> best = opposite.firstEntry();
+            long price = best.getKey();
+            if (!order.isMarket() && (buy ? price > order.getPrice() : price < order.getPrice())) {
+                break;
+            }
+
+            Level level = best.getValue();
+            while (order.remaining > 0 && !level.orders.isEmpty()) {
+                Order maker = level.orders.peekFirst();
+                if (maker.cancelled) {
+                    level.orders.pollFirst();
+                    continue;
+                }
+                long quantity = Math.min(order.remaining, maker.remaining);
+                order.remaining -= quantity;
+                maker.remaining -= quantity;
+                level.quantity -= quantity;
+                trades++;
+                volume += quantity;
+                lastPrice = price;
+                if (maker.remaining == 0) {
+                    level.orders.pollFirst();
+                    maker.resting = false;
+                    resting.remove(maker.getId());
+                }
+                listener.onFill(order, maker, price, quantity);
+            }
+            if (level.quantity == 0) {
+                opposite.pollFirstEntry();
+            }
+        }
+
+        if (order.remaining > 0 && !order.isMarket()) {
+            TreeMap<Long, Level> own = buy ? bids : asks;
+            Level level = own.computeIfAbsent(order.getPrice(), p -> new Level());
+            level.orders.addLast(order);
+            level.quantity += order.remaining;
+            order.resting = true;
+            resting.put(order.getId(), order);
+        }
+    }
+
+    /**
+     * Take a resting order out of the book. Returns it, or null if it
+     * already traded, expired or was cancelled.
+     */
+    public Order cancel(long orderId) {
+        Order order = resting.remove(orderId);
+        if (order == null) {
+            return null;
+        }
+        order.cancelled = true;
+        order.resting = false;
+        TreeMap<Long, Level> own = order.getSide() == Order.Side.BUY ? bids : asks;
+        Level level = own.get(order.getPrice());
+        level.quantity -= order.remaining;
+        if (level.quantity == 0) {
+            own.remove(order.getPrice());
+        }
+        return order;
+    }
+
+    // ==================== VIEW ====================
+
+    public String getItem() {
+        return item;
+    }
+
+    public Order getOrder(long orderId) {
+        return resting.get(orderId);
+    }
+
+    /**
+     * Best bid, or 0 if there is none.
+     */
+    public long getBestBid() {
+        return bids.isEmpty() ? 0 : bids.firstKey();
+    }
+
+    /**
+     * Best ask, or 0 if there is none.
+     */
+    public long getBestAsk() {
+        return asks.isEmpty() ? 0 : asks.firstKey();
+    }
+
+    /**
+     * Quantity resting at a price on one side.
+     */
+    public long getDepth(Order.Side side, long price) {
+        Level level = (side == Order.Side.BUY ? bids : asks).get(price);
+        return level != null ? level.quantity : 0;
+    }
+
+    public int getRestingCount() {
+        return resting.size();
+    }
+
+    public long getTrades() {
+        return trades;
+    }
+
+    public long getVolume() {
+        return volume;
+    }
+
+    public long getLastPrice() {
+        return lastPrice;
+    }
+}
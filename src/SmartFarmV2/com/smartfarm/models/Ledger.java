@@ -0,0 +1,289 @@
+package com.smartfarm.models;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.smartfarm.web.WebServer;
+
+/**
+ * Ledger - Shared resource and money balances for the farm.
+ * All workers consume/deposit resources here.
+ *
+ * One instance per farm, handed to agents as an argument (like the
+ * WebServer). Lock-free:
+ * - One atomic balance per item, money included; debits are CAS loops that
+ * never take a balance below zero. Each balance carries the number of
+ * changes committed to it, so every change gets its sequence number in
+ * the same CAS that commits it
+ * - exchange() debits one item and credits another as one transaction:
+ * the credit only happens if the debit succeeded, so there is no partial
+ * purchase or sale
+ * - Log lines and the INVENTORY_UPDATE broadcast happen after commit on a
+ * single publisher thread; a burst of changes becomes one broadcast
+ * - Listeners hear about every committed change, with the balance it left,
+ * on the publisher thread. Changes to one item arrive in commit order (by
+ * sequence number, whatever order the committing threads queued them in);
+ * changes to different items are not ordered against each other. A
+ * listener that throws is logged and skipped for that change
+ * - Amounts are never negative: a negative debit would be a credit that
+ * skips the balance check
+ */
+public class Ledger {
+
+    public enum Item {
+        WATER("Water", 100),
+        FUNGICIDE("Fungicide", 20),
+        SEEDS("Seeds", 10),
+        CROPS("Crops", 0),
+        MONEY("Money", 1000);
+
+        private final String displayName;
+        private final int initial;
+
+        Item(String displayName, int initial) {
+            this.displayName = displayName;
+            this.initial = initial;
+        }
+
+        public String getDisplayName() {
+            return displayName;
+        }
+    }
+
+    /**
+     * Told about committed changes on the publisher thread; must not block.
+     */
+    public interface Listener {
+        void onChange(Item item, long delta, long balance);
+    }
+
+    /**
+     * An item's balance and the number of changes committed to it; replaced
+     * as a whole on every commit.
+     */
+    private static final class Balance {
+        final long value;
+        final long seq;
+
+        Balance(long value, long seq) {
+            this.value = value;
+            this.seq = seq;
+        }
+    }
+
+    /**
+     * A committed (or refused) balance change, as seen by the publisher.
+     */
+    private static class Change {
+        final Item item;
+        final long delta;
+        final long balance;
+        final long seq; // 0 for refused changes
+        final boolean refused;
+
+        Change(Item item, long delta, long balance, long seq, boolean refused) {
+            this.item = item;
+            this.delta = delta;
+            this.balance = balance;
+            this.seq = seq;
+            this.refused = refused;
+        }
+    }
+
+    private final AtomicReferenceArray<Balance> balances = new AtomicReferenceArray<>(Item.values().length);
+    private final ConcurrentLinkedQueue<Change> changes = new ConcurrentLinkedQueue<>();
+    // Publisher thread only: per item, the next sequence number to release
+    // and the changes that overtook it
+    private final long[] nextSeq = new long[Item.values().length];
+    private final List<PriorityQueue<Change>> held = new ArrayList<>();
+    private final AtomicBoolean publishScheduled = new AtomicBoolean(false);
+    private final ExecutorService publisher = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "Ledger-Publisher");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final WebServer webServer;
+    private volatile boolean logging = true;
+
+    public Ledger(WebServer webServer) {
+        this.webServer = webServer;
+        for (Item item : Item.values()) {
+            balances.set(item.ordinal(), new Balance(item.initial, 0));
+            nextSeq[item.ordinal()] = 1;
+            held.add(new PriorityQueue<>((a, b) -> Long.compare(a.seq, b.seq)));
+        }
+    }
+
+    // ==================== TRANSACTIONS ====================
+
+    public long get(Item item) {
+        return balances.get(item.ordinal()).value;
+    }
+
+    /**
+     * Take amount of item. Returns false, and changes nothing, if the
+     * balance is too low.
+     */
+    public boolean debit(Item item, long amount) {
+        checkAmount(amount);
+        Balance debited = tryDebit(item, amount);
+        if (debited == null) {
+            publish(new Change(item, -amount, get(item), 0, true));
+            return false;
+        }
+        publish(new Change(item, -amount, debited.value, debited.seq, false));
+        return true;
+    }
+
+    public void credit(Item item, long amount) {
+        checkAmount(amount);
+        Balance credited = add(item, amount);
+        publish(new Change(item, amount, credited.value, credited.seq, false));
+    }
+
+    /**
+     * Pay debitAmount of debitItem for creditAmount of creditItem, e.g.
+     * money for water, or crops for money. All or nothing.
+     */
+    public boolean exchange(Item debitItem, long debitAmount, Item creditItem, long creditAmount) {
+        checkAmount(debitAmount);
+        checkAmount(creditAmount);
+        Balance debited = tryDebit(debitItem, debitAmount);
+        if (debited == null) {
+            publish(new Change(debitItem, -debitAmount, get(debitItem), 0, true));
+            return false;
+        }
+        Balance credited = add(creditItem, creditAmount);
+        publish(new Change(debitItem, -debitAmount, debited.value, debited.seq, false));
+        publish(new Change(creditItem, creditAmount, credited.value, credited.seq, false));
+        return true;
+    }
+
+    private static void checkAmount(long amount) {
+        if (amount < 0) {
+            throw new IllegalArgumentException("Negative amount: " + amount);
+        }
+    }
+
+    /**
+     * The balance this debit committed, or null if it would go below zero.
+     */
+    private Balance tryDebit(Item item, long amount) {
+        int index = item.ordinal();
+        while (true) {
+            Balance current = balances.get(index);
+            if (current.value < amount) {
+                return null;
+            }
+            Balance next = new Balance(current.value - amount, current.seq + 1);
+            if (balances.compareAndSet(index, current, next)) {
+                return next;
+            }
+        }
+    }
+
+    private Balance add(Item item, long amount) {
+        int index = item.ordinal();
+        while (true) {
+            Balance current = balances.get(index);
+            Balance next = new Balance(current.value + amount, current.seq + 1);
+            if (balances.compareAndSet(index, current, next)) {
+                return next;
+            }
+        }
+    }
+
+    // ==================== EVENTS ====================
+
+    /**
+     * Per-change log lines; off for load tests.
+     */
+    public void setLogging(boolean logging) {
+        this.logging = logging;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    private void publish(Change change) {
+        changes.add(change);
+        if (publishScheduled.compareAndSet(false, true)) {
+            publisher.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        publishScheduled.set(false);
+        Change change;
+        boolean committed = false;
+        while ((change = changes.poll()) != null) {
+            if (change.refused) {
+                if (logging) {
+                    log(change);
+                }
+                continue;
+            }
+            committed = true;
+            // A thread can queue its change after one committed later; hold
+            // changes back until every earlier one on the item has been told
+            int index = change.item.ordinal();
+            PriorityQueue<Change> waiting = held.get(index);
+            waiting.add(change);
+            while (!waiting.isEmpty() && waiting.peek().seq == nextSeq[index]) {
+                nextSeq[index]++;
+                release(waiting.poll());
+            }
+        }
+        if (committed && webServer != null) {
+            webServer.broadcast("INVENTORY_UPDATE", toJson());
+        }
+    }
+
+    private void release(Change change) {
+        if (logging) {
+            log(change);
+        }
+        for (Listener listener : listeners) {
+            // A failing listener must not stop the item's events, or the others from hearing
+            try {
+                listener.onChange(change.item, change.delta, change.balance);
+            } catch (RuntimeException e) {
+                System.err.println("[Ledger] Listener failed on " + change.item + ": " + e);
+            }
+        }
+    }
+
+    private static void log(Change change) {
+        String name = change.item.getDisplayName();
+        String amount = change.item == Item.MONEY ? "$" + Math.abs(change.delta) : String.valueOf(Math.abs(change.delta));
+        if (change.refused) {
+            System.out.println("[Ledger] Not enough " + name.toLowerCase() + "! Need " + amount + ", have "
+                    + (change.item == Item.MONEY ? "$" : "") + change.balance);
+        } else {
+            System.out.println("[Ledger] " + name + (change.delta < 0 ? ": -" : ": +") + amount + " (balance: "
+                    + (change.item == Item.MONEY ? "$" : "") + change.balance + ")");
+        }
+    }
+
+    /**
+     * JSON representation
+     */
+    public String toJson() {
+        return String.format(
+                "{\"water\":%d,\"fungicide\":%d,\"seeds\":%d,\"crops\":%d,\"money\":%d}",
+                get(Item.WATER), get(Item.FUNGICIDE), get(Item.SEEDS), get(Item.CROPS), get(Item.MONEY));
+    }
+}
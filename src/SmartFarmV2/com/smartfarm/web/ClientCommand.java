@@ -0,0 +1,231 @@
+package com.smartfarm.web;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ClientCommand - A message from a browser, parsed once.
+ *
+ * The GUI sends flat JSON objects:
+ *
+ * <pre>
+ * {"type":"COMMAND","command":"BUY_FIELD","payload":"WHEAT"}
+ * {"type":"COMMAND","command":"BUY_ITEM","payload":"SMART_DRONE"}
+ * {"type":"COMMAND","command":"PLANT","fieldId":3,"crop":"CORN"}
+ * {"type":"SUBSCRIBE","topics":["field/7","inventory","log?level=warn"]}
+ * {"type":"UNSUBSCRIBE","topics":["field/7"]}
+ * </pre>
+ *
+ * Anything else parses as UNKNOWN; malformed JSON throws
+ * IllegalArgumentException.
+ */
+public class ClientCommand {
+
+    public enum Kind {
+        BUY_FIELD, BUY_ITEM, PLANT, SUBSCRIBE, UNSUBSCRIBE, UNKNOWN
+    }
+
+    private final Kind kind;
+    private final Map<String, Object> fields;
+
+    private ClientCommand(Kind kind, Map<String, Object> fields) {
+        this.kind = kind;
+        this.fields = fields;
+    }
+
+    public static ClientCommand parse(String json) {
+        Map<String, Object> fields = new Parser(json).object();
+        String type = String.valueOf(fields.get("type"));
+        Kind kind = Kind.UNKNOWN;
+        if (type.equals("SUBSCRIBE") || type.equals("UNSUBSCRIBE")) {
+            kind = Kind.valueOf(type);
+        } else if (type.equals("COMMAND")) {
+            try {
+                kind = Kind.valueOf(String.valueOf(fields.get("command")));
+            } catch (IllegalArgumentException e) {
+                kind = Kind.UNKNOWN;
+            }
+        }
+        return new ClientCommand(kind, fields);
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * BUY_FIELD's field type, BUY_ITEM's item.
+     */
+    public String getPayload() {
+        return getString("payload");
+    }
+
+    public String getString(String name) {
+        Object value = fields.get(name);
+        return value != null ? value.toString() : null;
+    }
+
+    /**
+     * SUBSCRIBE / UNSUBSCRIBE patterns.
+     */
+    public List<String> getTopics() {
+        Object value = fields.get("topics");
+        if (!(value instanceof List)) {
+            return Collections.emptyList();
+        }
+        List<String> topics = new ArrayList<>();
+        for (Object topic : (List<?>) value) {
+            topics.add(String.valueOf(topic));
+        }
+        return topics;
+    }
+
+    @Override
+    public String toString() {
+        return kind + " " + fields;
+    }
+
+    /**
+     * Just enough JSON for one flat object: string, number, boolean and
+     * null values, and arrays of those.
+     */
+    private static class Parser {
+        private final String text;
+        private int pos = 0;
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        Map<String, Object> object() {
+            Map<String, Object> fields = new HashMap<>();
+            expect('{');
+            if (peek() == '}') {
+                pos++;
+                return fields;
+            }
+            while (true) {
+                String name = string();
+                expect(':');
+                fields.put(name, value());
+                char next = next();
+                if (next == '}') {
+                    return fields;
+                }
+                if (next != ',') {
+                    throw error("',' or '}'");
+                }
+            }
+        }
+
+        private Object value() {
+            char c = peek();
+            if (c == '"') {
+                return string();
+            }
+            if (c == '[') {
+                pos++;
+                List<Object> items = new ArrayList<>();
+                if (peek() == ']') {
+                    pos++;
+                    return items;
+                }
+                while (true) {
+                    items.add(value());
+                    char next = next();
+                    if (next == ']') {
+                        return items;
+                    }
+                    if (next != ',') {
+                        throw error("',' or ']'");
+                    }
+                }
+            }
+            int start = pos;
+            while (pos < text.length() && ",}] \t\r\n".indexOf(text.charAt(pos)) < 0) {
+                pos++;
+            }
+            String literal = text.substring(start, pos);
+            switch (literal) {
+                case "true":
+                    return Boolean.TRUE;
+                case "false":
+                    return Boolean.FALSE;
+                case "null":
+                    return null;
+                default:
+                    try {
+                        return literal.contains(".") ? Double.parseDouble(literal) : Long.parseLong(literal);
+                    } catch (NumberFormatException e) {
+                        throw error("a value");
+                    }
+            }
+        }
+
+        private String string() {
+            expect('"');
+            StringBuilder sb = new StringBuilder();
+            while (pos < text.length()) {
+                char c = text.charAt(pos++);
+                if (c == '"') {
+                    return sb.toString();
+                }
+                if (c == '\\' && pos < text.length()) {
+                    char escaped = text.charAt(pos++);
+                    switch (escaped) {
+                        case 'n':
+                            sb.append('\n');
+                            break;
+                        case 't':
+                            sb.append('\t');
+                            break;
+                        case 'r':
+                            sb.append('\r');
+                            break;
+                        case 'u':
+                            if (pos + 4 > text.length()) {
+                                throw error("a unicode escape");
+                            }
+                            sb.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                            pos += 4;
+                            break;
+                        default:
+                            sb.append(escaped);
+                    }
+                } else {
+                    sb.append(c);
+                }
+            }
+            throw error("'\"'");
+        }
+
+        private void expect(char c) {
+            if (next() != c) {
+                throw error("'" + c + "'");
+            }
+        }
+
+        private char next() {
+            char c = peek();
+            pos++;
+            return c;
+        }
+
+        private char peek() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+            if (pos >= text.length()) {
+                throw error("more input");
+            }
+            return text.charAt(pos);
+        }
+
+        private IllegalArgumentException error(String expected) {
+            return new IllegalArgumentException("Expected " + expected + " at " + pos + " in " + text);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.smartfarm.web;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * TopicTrie - Subscriptions indexed by topic path, for routing events to
+ * the WebSocket clients that asked for them.
+ *
+ * Topics are '/'-separated paths such as "field/7", "agent/Drone-1" or
+ * "inventory". A subscription pattern is a topic path, where a "*" segment
+ * stands for any one segment ("field/*" is every field) and a final "**"
+ * for anything below, including nothing ("**" is everything). Matching a
+ * topic walks one trie node per segment, so its cost depends on the
+ * topic's depth and the wildcards in play, not on how many clients there
+ * are.
+ *
+ * Safe for concurrent publishing and (un)subscribing.
+ */
+public class TopicTrie<T> {
+
+    private static final String ONE = "*";
+    private static final String ALL = "**";
+
+    private static class Node<T> {
+        final Map<String, Node<T>> children = new ConcurrentHashMap<>();
+        final Set<T> subscribers = ConcurrentHashMap.newKeySet();
+    }
+
+    private final Node<T> root = new Node<>();
+
+    public void subscribe(String pattern, T subscriber) {
+        Node<T> node = root;
+        for (String segment : split(pattern)) {
+            node = node.children.computeIfAbsent(segment, s -> new Node<>());
+        }
+        node.subscribers.add(subscriber);
+    }
+
+    /**
+     * Remove a subscription. Empty nodes stay; the set of topics is small.
+     */
+    public void unsubscribe(String pattern, T subscriber) {
+        Node<T> node = root;
+        for (String segment : split(pattern)) {
+            node = node.children.get(segment);
+            if (node == null) {
+                return;
+            }
+        }
+        node.subscribers.remove(subscriber);
+    }
+
+    /**
+     * Add every subscriber whose pattern matches the topic to out.
+     */
+    public void match(String topic, Collection<T> out) {
+        match(root, split(topic), 0, out);
+    }
+
+    private void match(Node<T> node, String[] segments, int depth, Collection<T> out) {
+        Node<T> all = node.children.get(ALL);
+        if (all != null) {
+            out.addAll(all.subscribers);
+        }
+        if (depth == segments.length) {
+            out.addAll(node.subscribers);
+            return;
+        }
+        Node<T> exact = node.children.get(segments[depth]);
+        if (exact != null) {
+            match(exact, segments, depth + 1, out);
+        }
+        Node<T> one = node.children.get(ONE);
+        if (one != null) {
+            match(one, segments, depth + 1, out);
+        }
+    }
+
+    private static String[] split(String path) {
+        return path.isEmpty() ? new String[0] : path.split("/");
+    }
+}
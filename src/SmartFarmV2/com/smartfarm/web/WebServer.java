@@ -3,19 +3,53 @@ package com.smartfarm.web;
 import io.javalin.Javalin;
 import io.javalin.websocket.WsContext;
 import io.javalin.http.staticfiles.Location;
+import com.smartfarm.models.FieldType;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * WebServer - Javalin server for SmartFarm V2 GUI
- * 
- * Handles WebSocket connections and broadcasts farm state to all connected
- * clients.
+ *
+ * Handles WebSocket connections and pushes farm state to the connected
+ * clients that asked for it.
+ *
+ * Every event goes out on a topic: "field/<id>", "agent/<id>",
+ * "supplier/<id>", "client/<id>", "inventory", "weather", "time" and "log"
+ * (log lines also carry a level). A client picks its topics with
+ * SUBSCRIBE / UNSUBSCRIBE messages (see ClientCommand), using the patterns
+ * of TopicTrie, e.g. "field/7", "agent/*", and "log?level=warn" for
+ * warnings and worse. Until its first SUBSCRIBE a client gets everything,
+ * as before. Each event is formatted once, and only if someone wants it.
+ *
+ * Anything that can take a string can stand in for a browser, see
+ * connect(Client).
  */
 public class WebServer {
 
+    /**
+     * Where a session's messages go: a WebSocket, or a stand-in.
+     */
+    public interface Client {
+        void send(String message);
+    }
+
+    public enum Level {
+        DEBUG, INFO, WARN, ERROR
+    }
+
+    private static final String EVERYTHING = "**";
+
     private Javalin app;
-    private final Set<WsContext> clients = ConcurrentHashMap.newKeySet();
+    private final Map<WsContext, Session> sockets = new ConcurrentHashMap<>();
+    private final Set<Session> sessions = ConcurrentHashMap.newKeySet();
+    private final TopicTrie<Subscription> topics = new TopicTrie<>();
+    private final LongAdder messagesSent = new LongAdder();
 
     public void start(int port) {
         app = Javalin.create(config -> {
@@ -29,42 +63,24 @@ public class WebServer {
         // WebSocket endpoint
         app.ws("/ws", ws -> {
             ws.onConnect(ctx -> {
-                clients.add(ctx);
-                System.out.println("[WebServer] Client connected. Total: " + clients.size());
+                sockets.put(ctx, connect(ctx::send));
+                System.out.println("[WebServer] Client connected. Total: " + sessions.size());
                 // Send initial state
                 ctx.send("{\"type\":\"CONNECTED\",\"message\":\"SmartFarm V2 Connected!\"}");
             });
 
             ws.onClose(ctx -> {
-                clients.remove(ctx);
-                System.out.println("[WebServer] Client disconnected. Total: " + clients.size());
+                Session session = sockets.remove(ctx);
+                if (session != null) {
+                    session.close();
+                }
+                System.out.println("[WebServer] Client disconnected. Total: " + sessions.size());
             });
 
             ws.onMessage(ctx -> {
-                try {
-                    String msg = ctx.message();
-                    System.out.println("[WebServer] Received: " + msg);
-                    
-                    if (msg.contains("BUY_FIELD")) {
-                        // Extract payload nicely
-                        String payload = "WHEAT"; // Default
-                        if (msg.contains("CORN")) payload = "CORN";
-                        else if (msg.contains("EXPERIMENTAL")) payload = "EXPERIMENTAL";
-                        else if (msg.contains("WHEAT")) payload = "WHEAT";
-                        
-                        System.out.println("[WebServer] Routing command BUY_FIELD:" + payload + " to FarmManager");
-                        
-                        // Send to FarmManager via O2A
-                        jade.wrapper.AgentController ac = com.smartfarm.Main.getFarmManager();
-                        if (ac != null) {
-                            ac.putO2AObject("BUY_FIELD:" + payload, jade.wrapper.AgentController.ASYNC);
-                        } else {
-                            System.err.println("[WebServer] FarmManager AgentController is null!");
-                        }
-                    }
-                } catch (Exception e) {
-                    System.err.println("[WebServer] Error handling message: " + e.getMessage());
-                    e.printStackTrace();
+                Session session = sockets.get(ctx);
+                if (session != null) {
+                    session.handle(ctx.message());
                 }
             });
 
@@ -85,13 +101,109 @@ public class WebServer {
         }
     }
 
+    // ==================== SESSIONS ====================
+
     /**
-     * Broadcast a message to all connected clients.
+     * One subscriber's interest in a topic pattern.
      */
-    public void broadcast(String message) {
-        for (WsContext client : clients) {
+    private static class Subscription {
+        final Session session;
+        final Level minLevel;
+
+        Subscription(Session session, Level minLevel) {
+            this.session = session;
+            this.minLevel = minLevel;
+        }
+    }
+
+    /**
+     * A connected client and its subscriptions.
+     */
+    public class Session {
+        private final Client client;
+        private final Map<String, Subscription> subscriptions = new ConcurrentHashMap<>(); // by pattern as sent
+
+        private Session(Client client) {
+            this.client = client;
+        }
+
+        /**
+         * Handle a message from the client.
+         */
+        public void handle(String message) {
+            ClientCommand command;
+            try {
+                command = ClientCommand.parse(message);
+            } catch (IllegalArgumentException e) {
+                System.err.println("[WebServer] Bad message: " + e.getMessage());
+                return;
+            }
+            System.out.println("[WebServer] Received: " + command);
+
+            switch (command.getKind()) {
+                case SUBSCRIBE:
+                    unsubscribe(EVERYTHING); // from now on, only what was asked for
+                    for (String pattern : command.getTopics()) {
+                        subscribe(pattern);
+                    }
+                    break;
+                case UNSUBSCRIBE:
+                    for (String pattern : command.getTopics()) {
+                        unsubscribe(pattern);
+                    }
+                    break;
+                case BUY_FIELD:
+                    routeBuyField(command.getPayload());
+                    break;
+                default:
+                    System.out.println("[WebServer] No handler for " + command.getKind());
+            }
+        }
+
+        /**
+         * Subscribe to a pattern, optionally followed by "?level=<level>".
+         */
+        public void subscribe(String pattern) {
+            String path = pattern;
+            Level minLevel = Level.DEBUG;
+            int query = pattern.indexOf('?');
+            if (query >= 0) {
+                path = pattern.substring(0, query);
+                for (String param : pattern.substring(query + 1).split("&")) {
+                    if (param.startsWith("level=")) {
+                        try {
+                            minLevel = Level.valueOf(param.substring(6).toUpperCase());
+                        } catch (IllegalArgumentException e) {
+                            System.err.println("[WebServer] Unknown log level in " + pattern);
+                        }
+                    }
+                }
+            }
+            unsubscribe(pattern);
+            Subscription subscription = new Subscription(this, minLevel);
+            subscriptions.put(pattern, subscription);
+            topics.subscribe(path, subscription);
+        }
+
+        public void unsubscribe(String pattern) {
+            Subscription subscription = subscriptions.remove(pattern);
+            if (subscription != null) {
+                int query = pattern.indexOf('?');
+                topics.unsubscribe(query >= 0 ? pattern.substring(0, query) : pattern, subscription);
+            }
+        }
+
+        public void close() {
+            for (String pattern : new ArrayList<>(subscriptions.keySet())) {
+                unsubscribe(pattern);
+            }
+            sessions.remove(this);
+        }
+
+        private void send(String message) {
             try {
                 client.send(message);
+                messagesSent.increment();
             } catch (Exception e) {
                 System.err.println("[WebServer] Failed to send to client: " + e.getMessage());
             }
@@ -99,17 +211,120 @@ public class WebServer {
     }
 
     /**
-     * Broadcast a typed JSON message.
+     * Open a session for a client; it starts out subscribed to everything.
+     */
+    public Session connect(Client client) {
+        Session session = new Session(client);
+        sessions.add(session);
+        session.subscribe(EVERYTHING);
+        return session;
+    }
+
+    private void routeBuyField(String payload) {
+        try {
+            FieldType.valueOf(payload);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            System.err.println("[WebServer] Unknown field type: " + payload);
+            return;
+        }
+        System.out.println("[WebServer] Routing command BUY_FIELD:" + payload + " to FarmManager");
+
+        // Send to FarmManager via O2A
+        jade.wrapper.AgentController ac = com.smartfarm.Main.getFarmManager();
+        if (ac == null) {
+            System.err.println("[WebServer] FarmManager AgentController is null!");
+            return;
+        }
+        try {
+            ac.putO2AObject("BUY_FIELD:" + payload, jade.wrapper.AgentController.ASYNC);
+        } catch (Exception e) {
+            System.err.println("[WebServer] Error handling message: " + e.getMessage());
+        }
+    }
+
+    // ==================== PUBLISHING ====================
+
+    /**
+     * Send a typed JSON message to the clients subscribed to topic.
+     */
+    public void publish(String topic, String type, String data) {
+        publish(topic, type, data, null);
+    }
+
+    private void publish(String topic, String type, String data, Level level) {
+        List<Subscription> matched = new ArrayList<>();
+        topics.match(topic, matched);
+        if (matched.isEmpty()) {
+            return;
+        }
+
+        String json = null;
+        Set<Session> reached = new HashSet<>();
+        for (Subscription subscription : matched) {
+            if (level != null && level.compareTo(subscription.minLevel) < 0) {
+                continue;
+            }
+            if (!reached.add(subscription.session)) {
+                continue;
+            }
+            if (json == null) {
+                json = String.format("{\"type\":\"%s\",\"data\":%s}", type, data);
+            }
+            subscription.session.send(json);
+        }
+    }
+
+    /**
+     * A log line on the "log" topic.
+     */
+    public void log(Level level, String message) {
+        publish("log", "LOG", String.format("{\"message\":\"%s\",\"level\":\"%s\"}", message,
+                level.name().toLowerCase()), level);
+    }
+
+    /**
+     * Broadcast a message to all connected clients.
+     */
+    public void broadcast(String message) {
+        for (Session session : sessions) {
+            session.send(message);
+        }
+    }
+
+    /**
+     * Broadcast a typed JSON message, on the type's own topic; LOG data
+     * goes out at INFO level.
      */
     public void broadcast(String type, String data) {
-        String json = String.format("{\"type\":\"%s\",\"data\":%s}", type, data);
-        broadcast(json);
+        switch (type) {
+            case "LOG":
+                publish("log", type, data, Level.INFO);
+                break;
+            case "INVENTORY_UPDATE":
+                publish("inventory", type, data);
+                break;
+            case "WEATHER_UPDATE":
+                publish("weather", type, data);
+                break;
+            case "TIME_UPDATE":
+                publish("time", type, data);
+                break;
+            default:
+                publish(type.toLowerCase(), type, data);
+        }
     }
 
     /**
      * Get the number of connected clients.
      */
     public int getClientCount() {
-        return clients.size();
+        return sessions.size();
+    }
+
+    /**
+     * Messages handed to clients since start.
+     */
+    public long getMessagesSent() {
+        return messagesSent.sum();
     }
 }
@@ -1,6 +1,14 @@
 /**
  * SmartFarm V2 - Professional Frontend Logic
  * Handles WebSocket communication, UI updates, tabs, and modals.
+ *
+ * Incoming messages are only queued. Once per animation frame the queue is
+ * applied to an in-memory model, and the page is brought up to date with
+ * the model, writing only what changed. Fields and logs are virtualized:
+ * only the cards and rows in view exist in the DOM.
+ *
+ * Open the page with ?render=direct to render after every message instead,
+ * for comparison.
  */
 
 /* ==========================================================================
@@ -9,18 +17,79 @@
 const state = {
     connected: false,
     ws: null,
-    workersAtFields: {},
     activeTab: 'overview',
-    logs: []
+    money: 0
 };
 
+const RENDER_MODE = new URLSearchParams(window.location.search).get('render') === 'direct' ? 'direct' : 'frame';
+
+const FIELDS_PER_ROW = 2;
+const FIELD_ROW_HEIGHT = 324; // .field-list .card-field height + gap, see style.css
+const LOG_ROW_HEIGHT = 26;    // .log-entry height
+const OVERSCAN_ROWS = 2;      // rendered beyond the viewport, so scrolling shows no gaps
+const LOG_CAPACITY = 1000;
+const MINI_LOG_COUNT = 5;
+
+// What the server has told us; the DOM is drawn from this
+const model = {
+    fields: new Map(),   // id -> last FIELD_UPDATE data
+    fieldIds: [],        // ascending, the display order
+    agents: new Map(),   // id -> last AGENT_UPDATE data
+    workers: new Map(),  // field id -> Set of ids of the agents there
+    inventory: null,
+    time: null,
+    weather: null,
+    logs: [],            // oldest first, the last LOG_CAPACITY
+    logSeq: 0            // seq of the newest log
+};
+
+// What changed since the last frame
+const dirty = {
+    fields: new Set(),
+    agents: new Set(),
+    fieldList: true,     // fields added, scrolled or resized
+    logs: true,
+    inventory: false,
+    time: false,
+    weather: false
+};
+
+const inbox = [];        // raw messages not applied yet
+let framePending = false;
+
+// Frame statistics, read by tools/dashboard-replay.js
+const stats = {
+    frames: 0,
+    messages: 0,
+    maxBatch: 0
+};
+window.dashboardStats = stats;
+
 document.addEventListener('DOMContentLoaded', () => {
     initWebSocket();
     initTabs();
     initModals();
     initMarket(); // Initialize Market Grid
+    initViewport();
 });
 
+function initViewport() {
+    const refreshFields = () => {
+        dirty.fieldList = true;
+        scheduleFrame();
+    };
+    const refreshLogs = () => {
+        dirty.logs = true;
+        scheduleFrame();
+    };
+    document.querySelector('.content-wrapper')?.addEventListener('scroll', refreshFields, { passive: true });
+    document.getElementById('systemLogs')?.addEventListener('scroll', refreshLogs, { passive: true });
+    window.addEventListener('resize', () => {
+        refreshFields();
+        refreshLogs();
+    });
+}
+
 /* ==========================================================================
    WebSocket Communication
    ========================================================================== */
@@ -32,6 +101,12 @@ function initWebSocket() {
         updateConnectionStatus(true);
         addLog('System connected', 'success');
         document.querySelector('.connection-overlay')?.classList.add('hidden');
+
+        // Only what this page shows (suppliers and clients are not on it)
+        state.ws.send(JSON.stringify({
+            type: 'SUBSCRIBE',
+            topics: ['field/*', 'agent/*', 'inventory', 'weather', 'time', 'log']
+        }));
     };
 
     state.ws.onclose = () => {
@@ -46,57 +121,201 @@ function initWebSocket() {
     };
 
     state.ws.onmessage = (event) => {
+        inbox.push(event.data);
+        if (RENDER_MODE === 'direct') {
+            frame();
+        } else {
+            scheduleFrame();
+        }
+    };
+}
+
+/* ==========================================================================
+   Frames
+   ========================================================================== */
+function scheduleFrame() {
+    if (!framePending) {
+        framePending = true;
+        requestAnimationFrame(frame);
+    }
+}
+
+/**
+ * Apply everything that arrived since the last frame, then render once.
+ */
+function frame() {
+    framePending = false;
+    const batch = inbox.splice(0, inbox.length);
+    stats.frames++;
+    stats.messages += batch.length;
+    stats.maxBatch = Math.max(stats.maxBatch, batch.length);
+
+    for (const data of batch) {
         try {
-            const msg = JSON.parse(event.data);
-            handleMessage(msg);
+            applyMessage(JSON.parse(data));
         } catch (e) {
             console.error('Message parse error:', e);
         }
-    };
+    }
+    if (model.logs.length > LOG_CAPACITY) {
+        model.logs.splice(0, model.logs.length - LOG_CAPACITY);
+    }
+    render();
 }
 
-function handleMessage(msg) {
-    // Console log for debug (optional)
-    // console.log('RX:', msg);
+function render() {
+    if (dirty.time && model.time) updateTimeUI(model.time);
+    if (dirty.weather && model.weather) updateWeatherUI(model.weather);
+    if (dirty.inventory && model.inventory) updateInventoryUI(model.inventory);
+    dirty.time = dirty.weather = dirty.inventory = false;
 
+    // Off-screen tabs catch up when shown, see switchTab()
+    if (state.activeTab === 'overview' && (dirty.fieldList || dirty.fields.size > 0)) {
+        renderFields();
+    }
+    if (dirty.agents.size > 0) {
+        renderAgents();
+    }
+    if (dirty.logs) {
+        renderLogs();
+    }
+}
+
+/* ==========================================================================
+   Model Updates
+   ========================================================================== */
+function applyMessage(msg) {
     switch (msg.type) {
         case 'CONNECTED':
             addLog(msg.message, 'success');
             break;
         case 'FIELD_UPDATE':
-            updateFieldUI(msg.data);
+            applyField(msg.data);
             break;
         case 'AGENT_UPDATE':
-            updateAgentUI(msg.data);
+            applyAgent(msg.data);
             break;
         case 'AGENT_MOVE':
-            handleAgentMove(msg.data);
+            addLog(`${msg.data.agent} moving: ${msg.data.from} -> ${msg.data.to}`);
             break;
         case 'INVENTORY_UPDATE':
-            updateInventoryUI(msg.data);
+            model.inventory = msg.data;
+            dirty.inventory = true;
             break;
         case 'TIME_UPDATE':
-            updateTimeUI(msg.data);
+            model.time = msg.data;
+            dirty.time = true;
             break;
         case 'WEATHER_UPDATE':
-            updateWeatherUI(msg.data);
+            model.weather = msg.data;
+            dirty.weather = true;
             break;
         case 'LOG':
-            addLog(msg.data.message);
-            // Also route logs if necessary
+            addLog(msg.data.message, msg.data.level === 'info' ? '' : msg.data.level || '');
             break;
         default:
             console.warn('Unknown message type:', msg.type);
     }
 }
 
+function applyField(data) {
+    if (!model.fields.has(data.id)) {
+        // Keep ids ascending; they mostly arrive in order
+        let i = model.fieldIds.length;
+        while (i > 0 && model.fieldIds[i - 1] > data.id) i--;
+        model.fieldIds.splice(i, 0, data.id);
+        dirty.fieldList = true;
+        addLog(`New Field detected: Field-${data.id}`, 'success');
+    }
+    model.fields.set(data.id, data);
+    dirty.fields.add(data.id);
+}
+
+function applyAgent(data) {
+    const previous = model.agents.get(data.id);
+    model.agents.set(data.id, data);
+    dirty.agents.add(data.id);
+
+    // Workers on fields
+    const from = previous ? fieldAt(previous.location) : null;
+    const to = fieldAt(data.location);
+    if (from !== to) {
+        if (from !== null) {
+            model.workers.get(from)?.delete(data.id);
+            dirty.fields.add(from);
+        }
+        if (to !== null) {
+            if (!model.workers.has(to)) model.workers.set(to, new Set());
+            model.workers.get(to).add(data.id);
+            dirty.fields.add(to);
+        }
+    }
+}
+
+function fieldAt(location) {
+    return location && location.startsWith('Field-Container-')
+        ? Number(location.replace('Field-Container-', ''))
+        : null;
+}
+
+/* ==========================================================================
+   Rendering Helpers
+   ========================================================================== */
+
+/**
+ * Write a value to the DOM only if it differs from the one written last.
+ * view.shown remembers what was written.
+ */
+function patch(view, key, value, write) {
+    if (view.shown[key] !== value) {
+        view.shown[key] = value;
+        write(value);
+    }
+}
+
+/**
+ * Make container hold the views for keys, in that order. Views no longer
+ * wanted are taken out and handed to release, missing ones are made with
+ * create, and the rest stay put. update(key, view, isNew) runs for every key.
+ */
+function reconcile(container, keys, views, create, update, release) {
+    const wanted = new Set(keys);
+    for (const [key, view] of views) {
+        if (!wanted.has(key)) {
+            container.removeChild(view.el);
+            views.delete(key);
+            if (release) release(view);
+        }
+    }
+
+    let cursor = container.firstChild;
+    for (const key of keys) {
+        let view = views.get(key);
+        const isNew = !view;
+        if (isNew) {
+            view = create(key);
+            views.set(key, view);
+        }
+        update(key, view, isNew);
+        if (view.el === cursor) {
+            cursor = cursor.nextSibling;
+        } else {
+            container.insertBefore(view.el, cursor);
+        }
+    }
+}
+
+function clamp(value, min, max) {
+    return Math.max(min, Math.min(max, value));
+}
+
 /* ==========================================================================
    UI Updates
    ========================================================================== */
 function updateConnectionStatus(isConnected) {
     const dot = document.getElementById('statusDot');
     const text = document.getElementById('statusText');
-    
+
     if (dot && text) {
         if (isConnected) {
             dot.className = 'status-dot connected';
@@ -110,12 +329,12 @@ function updateConnectionStatus(isConnected) {
 
 function updateTimeUI(data) {
     document.getElementById('gameTime').textContent = data.display;
-    
+
     // Day/Night Cycle
     const hour = data.hour;
     const isNight = hour >= 18 || hour < 6;
     const overlay = document.getElementById('nightOverlay');
-    
+
     if (overlay) {
         let opacity = 0;
         if (isNight) {
@@ -135,10 +354,10 @@ function updateWeatherUI(data) {
 
 function updateInventoryUI(data) {
     // Header Money
-    if (data.money !== undefined) {
+    if (data.money !== undefined && data.money !== state.money) {
         state.money = data.money; // Update local state for checks
         document.getElementById('moneyDisplay').textContent = `$${data.money.toLocaleString()}`;
-        
+
         // Refresh Market UI to update disabled states
         const marketTab = document.getElementById('market');
         if (marketTab && marketTab.classList.contains('active')) {
@@ -160,210 +379,238 @@ function updateInventoryUI(data) {
     }
 }
 
-/* Field Updates */
-function updateFieldUI(data) {
-    let fieldCard = document.getElementById(`field-${data.id}`);
+/* Fields: a virtualized list, cards are recycled as rows scroll out */
+const fieldViews = new Map(); // field id -> card in the DOM
+const fieldCardPool = [];
+const fieldListView = { shown: {} };
+
+function renderFields() {
+    const list = document.getElementById('fieldList');
+    const scroller = document.querySelector('.content-wrapper');
+    if (!list || !scroller) return;
+
+    // Rows in view, counted from the top of the list
+    const rows = Math.ceil(model.fieldIds.length / FIELDS_PER_ROW);
+    const viewTop = scroller.getBoundingClientRect().top - list.getBoundingClientRect().top;
+    const first = clamp(Math.floor(viewTop / FIELD_ROW_HEIGHT) - OVERSCAN_ROWS, 0, rows);
+    const last = clamp(Math.ceil((viewTop + scroller.clientHeight) / FIELD_ROW_HEIGHT) + OVERSCAN_ROWS, first, rows);
+
+    // Padding stands in for the rows not rendered
+    patch(fieldListView, 'top', first * FIELD_ROW_HEIGHT, v => { list.style.paddingTop = `${v}px`; });
+    patch(fieldListView, 'bottom', (rows - last) * FIELD_ROW_HEIGHT, v => { list.style.paddingBottom = `${v}px`; });
+
+    const ids = model.fieldIds.slice(first * FIELDS_PER_ROW, last * FIELDS_PER_ROW);
+    reconcile(list, ids, fieldViews, acquireFieldCard, (id, view, isNew) => {
+        if (isNew || dirty.fields.has(id)) {
+            updateFieldCard(view, model.fields.get(id), model.workers.get(id));
+        }
+    }, view => fieldCardPool.push(view));
+
+    dirty.fields.clear();
+    dirty.fieldList = false;
+}
+
+function acquireFieldCard(id) {
+    const view = fieldCardPool.pop() || createFieldCard();
+    view.id = id;
+    view.shown = {}; // a recycled card is rewritten in full
+    return view;
+}
+
+function updateFieldCard(view, data, workers) {
+    const refs = view.refs;
+
+    patch(view, 'id', data.id, id => { refs.title.textContent = `🌱 Field ${id}`; });
+    patch(view, 'workers', workers ? [...workers].sort().join(',') : '', () => {
+        refs.workers.innerHTML = workers ? [...workers].sort().map(workerBadge).join('') : '';
+    });
 
-    // If field doesn't exist in DOM, create it dynamically (Dynamic Expansion!)
-    if (!fieldCard) {
-        createFieldCard(data);
-        fieldCard = document.getElementById(`field-${data.id}`);
-    }
-    
     // Handle empty field state
-    const emptyOverlay = document.getElementById(`empty-field-${data.id}`);
-    const activeOverlay = document.getElementById(`active-field-${data.id}`);
-    
-    if (data.planted === false) {
-        emptyOverlay.style.display = 'flex';
-        activeOverlay.style.display = 'none';
-        
-        // Update Plant Button Text based on type (if we had specific crop types per field type)
-        // For now, simple fallback
-        const btnText = emptyOverlay.querySelector('span:last-child');
-        if (btnText && !btnText.textContent.includes('Plant')) {
-             btnText.textContent = `Plant ${data.crop || 'Crop'} ($500)`;
-        }
-        
+    const planted = data.planted !== false;
+    patch(view, 'planted', planted, p => {
+        refs.empty.style.display = p ? 'none' : 'flex';
+        refs.active.style.display = p ? 'block' : 'none';
+    });
+    if (!planted) {
         return; // Stop update if empty
-    } else {
-        emptyOverlay.style.display = 'none';
-        activeOverlay.style.display = 'block';
     }
 
     // Update Basic Info
-    document.getElementById(`crop-icon-${data.id}`).textContent = data.cropIcon || '🌱';
-    document.getElementById(`crop-name-${data.id}`).textContent = data.crop || 'Unknown';
-    
+    patch(view, 'icon', data.cropIcon || '🌱', v => { refs.cropIcon.textContent = v; });
+    patch(view, 'crop', data.crop || 'Unknown', v => { refs.cropName.textContent = v; });
+
     // Update Progress Bars
-    setProgressBar(`moisture-${data.id}`, data.moisture, 20);
-    setProgressBar(`health-${data.id}`, data.health, 40);
-    setProgressBar(`growth-${data.id}`, data.growth, 999); // No low warning for growth
-    setProgressBar(`scan-${data.id}`, data.scanLevel, 30);
+    setProgressBar(view, 'moisture', data.moisture);
+    setProgressBar(view, 'health', data.health);
+    setProgressBar(view, 'growth', data.growth);
+    setProgressBar(view, 'scan', data.scanLevel);
 
     // Update Badges (Disease / Harvest)
-    const statusContainer = document.getElementById(`status-badges-${data.id}`);
     let badgesHtml = '';
-    
+    let border = 'transparent';
     if (data.disease) {
         // Check for specific JSON string or raw
-        let diseaseName = data.disease.replace(/"/g, '');
+        const diseaseName = data.disease.replace(/"/g, '');
         if (diseaseName !== 'null') {
-             badgesHtml += `<span class="badge badge-danger">🦠 ${diseaseName}</span>`;
-             fieldCard.style.borderColor = 'var(--accent-red)';
-        } else {
-             fieldCard.style.borderColor = 'transparent';
-        }
-    } else {
-        fieldCard.style.borderColor = 'transparent'; // Reset border
-        if (data.growth >= 100) {
-            badgesHtml += `<span class="badge badge-success">✨ Ready to Harvest</span>`;
-            fieldCard.style.borderColor = 'var(--accent-green)';
+            badgesHtml = `<span class="badge badge-danger">🦠 ${diseaseName}</span>`;
+            border = 'var(--accent-red)';
         }
+    } else if (data.growth >= 100) {
+        badgesHtml = `<span class="badge badge-success">✨ Ready to Harvest</span>`;
+        border = 'var(--accent-green)';
     }
-    statusContainer.innerHTML = badgesHtml;
+    patch(view, 'badges', badgesHtml, v => { refs.badges.innerHTML = v; });
+    patch(view, 'border', border, v => { view.el.style.borderColor = v; });
 }
 
-function createFieldCard(data) {
-    const grid = document.querySelector('.dashboard-grid'); // or handle specific container if needed
-    // Assuming fields are just appended to the grid
-    
+function createFieldCard() {
     const div = document.createElement('div');
     div.className = 'card card-field';
-    div.id = `field-${data.id}`;
-    
+
     div.innerHTML = `
         <div class="card-header">
-            <span class="card-title">🌱 Field ${data.id}</span>
-            <div id="status-badges-${data.id}" style="display:flex; gap:0.5rem"></div>
+            <span class="card-title field-title">🌱 Field</span>
+            <div class="status-badges" style="display:flex; gap:0.5rem"></div>
         </div>
 
         <!-- Empty State -->
-        <div id="empty-field-${data.id}" class="action-btn-lg" onclick="plantField(${data.id})" style="display:none">
+        <div class="action-btn-lg field-empty" style="display:none">
             <span class="action-icon">➕</span>
             <span>Plant Crop ($500)</span>
         </div>
 
         <!-- Active State -->
-        <div id="active-field-${data.id}" class="field-content">
+        <div class="field-content">
             <div class="field-header">
                 <div class="field-info">
-                    <h3><span id="crop-icon-${data.id}">🌱</span> <span id="crop-name-${data.id}">Unknown</span></h3>
+                    <h3><span class="crop-icon">🌱</span> <span class="crop-name">Unknown</span></h3>
                 </div>
-                <div class="workers-container" id="workers-${data.id}"></div>
+                <div class="workers-container"></div>
             </div>
 
             <div class="farm-stats">
                 <div class="stat-group">
                     <div class="stat-bar-header">
                         <span>💧 Moisture</span>
-                        <span id="val-moisture-${data.id}">0%</span>
+                        <span class="val-moisture">0%</span>
                     </div>
                     <div class="progress-track">
-                        <div id="bar-moisture-${data.id}" class="progress-fill fill-moisture" style="width: 0%"></div>
+                        <div class="progress-fill fill-moisture" style="width: 0%"></div>
                     </div>
                 </div>
 
                 <div class="stat-group">
                     <div class="stat-bar-header">
                         <span>❤️ Health</span>
-                        <span id="val-health-${data.id}">100%</span>
+                        <span class="val-health">100%</span>
                     </div>
                     <div class="progress-track">
-                        <div id="bar-health-${data.id}" class="progress-fill fill-health" style="width: 100%"></div>
+                        <div class="progress-fill fill-health" style="width: 100%"></div>
                     </div>
                 </div>
 
                 <div class="stat-group">
                     <div class="stat-bar-header">
                         <span>📈 Growth</span>
-                        <span id="val-growth-${data.id}">0%</span>
+                        <span class="val-growth">0%</span>
                     </div>
                     <div class="progress-track">
-                        <div id="bar-growth-${data.id}" class="progress-fill fill-growth" style="width: 0%"></div>
+                        <div class="progress-fill fill-growth" style="width: 0%"></div>
                     </div>
                 </div>
 
                 <div class="stat-group">
                     <div class="stat-bar-header">
                         <span>🔍 Scan Level</span>
-                        <span id="val-scan-${data.id}">100%</span>
+                        <span class="val-scan">100%</span>
                     </div>
                     <div class="progress-track">
-                        <div id="bar-scan-${data.id}" class="progress-fill fill-scan" style="width: 100%"></div>
+                        <div class="progress-fill fill-scan" style="width: 100%"></div>
                     </div>
                 </div>
             </div>
         </div>
     `;
-    
-    grid.appendChild(div);
-    addLog(`New Field detected: Field-${data.id}`, 'success');
-}
 
-function setProgressBar(id, value, lowThreshold) {
-    const bar = document.getElementById(`bar-${id}`);
-    const text = document.getElementById(`val-${id}`);
-    
-    if (bar && text) {
-        bar.style.width = `${value}%`;
-        text.textContent = `${value}%`;
-        
-        // Color logic based on thresholds (simple version)
-        if (value <= lowThreshold) {
-            // Could add 'bg-red' class here if desired
-        }
+    const view = { el: div, id: null, shown: {}, refs: {} };
+    const refs = view.refs;
+    refs.title = div.querySelector('.field-title');
+    refs.badges = div.querySelector('.status-badges');
+    refs.empty = div.querySelector('.field-empty');
+    refs.active = div.querySelector('.field-content');
+    refs.cropIcon = div.querySelector('.crop-icon');
+    refs.cropName = div.querySelector('.crop-name');
+    refs.workers = div.querySelector('.workers-container');
+    for (const bar of ['moisture', 'health', 'growth', 'scan']) {
+        refs[bar] = { fill: div.querySelector(`.fill-${bar}`), text: div.querySelector(`.val-${bar}`) };
     }
+    refs.empty.addEventListener('click', () => plantField(view.id));
+    return view;
+}
+
+function setProgressBar(view, name, value) {
+    patch(view, name, value, v => {
+        view.refs[name].fill.style.width = `${v}%`;
+        view.refs[name].text.textContent = `${v}%`;
+    });
+}
+
+function workerBadge(agentId) {
+    let icon = '🤖';
+    if (agentId.includes('Irrigator')) icon = '💧';
+    else if (agentId.includes('Harvester')) icon = '🌾';
+    else if (agentId.includes('Sprayer')) icon = '💉';
+
+    return `<div class="worker-badge" data-agent="${agentId}">${icon} <span>${agentId.split('-')[0]}</span></div>`;
 }
 
 /* Agent Updates */
-function updateAgentUI(data) {
-    // 1. Update Agent Grid (Agents Tab)
-    let agentCard = document.getElementById(`agent-card-${data.id}`);
-    if (!agentCard) {
-        createAgentCard(data);
-        agentCard = document.getElementById(`agent-card-${data.id}`);
+const agentViews = new Map();   // id -> card in the Agents tab
+const monitorViews = new Map(); // id -> card in the monitor widget
+
+function renderAgents() {
+    for (const id of dirty.agents) {
+        const data = model.agents.get(id);
+        updateAgentCard(data);
+        updateMonitorCard(data);
     }
+    dirty.agents.clear();
+}
 
-    if (agentCard) {
-        const locationSpan = agentCard.querySelector('.agent-location');
-        const statusSpan = agentCard.querySelector('.agent-state');
-        const batBar = agentCard.querySelector('.battery-fill');
-        
-        const locName = data.location.replace('-Container', '');
-        locationSpan.textContent = locName;
-        statusSpan.textContent = data.status;
-        
-        batBar.style.width = `${data.battery}%`;
-        
-        // Battery color
-        if (data.battery < 20) batBar.style.backgroundColor = 'var(--accent-red)';
-        else if (data.battery < 50) batBar.style.backgroundColor = 'var(--accent-orange)';
-        else batBar.style.backgroundColor = 'var(--accent-green)';
+function updateAgentCard(data) {
+    // 1. Update Agent Grid (Agents Tab)
+    let view = agentViews.get(data.id);
+    if (!view) {
+        view = createAgentCard(data);
+        if (!view) return;
+        agentViews.set(data.id, view);
     }
 
-    // 2. Update Workers on Field (Overview)
-    updateWorkerLocation(data.id, data.location);
+    patch(view, 'location', data.location.replace('-Container', ''), v => { view.location.textContent = v; });
+    patch(view, 'status', data.status, v => { view.status.textContent = v; });
+    patch(view, 'battery', data.battery, v => { view.battery.style.width = `${v}%`; });
 
-    // 3. Update Monitor Widget (Bottom Right)
-    updateMonitorCard(data);
+    // Battery color
+    let color = 'var(--accent-green)';
+    if (data.battery < 20) color = 'var(--accent-red)';
+    else if (data.battery < 50) color = 'var(--accent-orange)';
+    patch(view, 'color', color, v => { view.battery.style.backgroundColor = v; });
 }
 
 function updateMonitorCard(data) {
     const container = document.getElementById('agent-monitor');
     if (!container) return; // Should exist
 
-    let card = document.getElementById(`monitor-card-${data.id}`);
-    
+    let view = monitorViews.get(data.id);
+
     // Create if new
-    if (!card) {
+    if (!view) {
         // Only for mobile agents or agents with battery
         if (!['drone', 'sprayer', 'irrigator', 'harvester'].includes(data.type)) return;
 
-        card = document.createElement('div');
-        card.id = `monitor-card-${data.id}`;
+        const card = document.createElement('div');
         card.className = 'agent-card-mini';
-        
+
         let icon = '🤖';
         if (data.type === 'sprayer') icon = '🚿';
         if (data.type === 'irrigator') icon = '💧';
@@ -384,90 +631,69 @@ function updateMonitorCard(data) {
             </div>
         `;
         container.appendChild(card);
-    }
 
-    // Update Data
-    if (card) {
-        const circle = card.querySelector('.progress-ring-circle');
-        const statusText = card.querySelector('.agent-status-mini');
-        
-        // Status Text
-        statusText.textContent = data.status;
+        view = {
+            el: card,
+            shown: {},
+            circle: card.querySelector('.progress-ring-circle'),
+            status: card.querySelector('.agent-status-mini')
+        };
+        monitorViews.set(data.id, view);
 
         // Ring Progress
-        const radius = 20;
-        const circumference = 2 * Math.PI * radius; // ~125.6
-        const percent = data.battery || 0;
-        const offset = circumference - (percent / 100) * circumference;
-        
-        circle.style.strokeDasharray = `${circumference} ${circumference}`;
-        circle.style.strokeDashoffset = offset;
-
-        // Color Logic
-        circle.classList.remove('warn', 'danger');
-        if (percent < 30) circle.classList.add('danger');
-        else if (percent < 60) circle.classList.add('warn');
+        const circumference = 2 * Math.PI * 20; // ~125.6
+        view.circle.style.strokeDasharray = `${circumference} ${circumference}`;
     }
+
+    // Status Text
+    patch(view, 'status', data.status, v => { view.status.textContent = v; });
+
+    // Ring Progress
+    const radius = 20;
+    const circumference = 2 * Math.PI * radius;
+    const percent = data.battery || 0;
+    patch(view, 'battery', percent, v => {
+        view.circle.style.strokeDashoffset = circumference - (v / 100) * circumference;
+    });
+
+    // Color Logic
+    const level = percent < 30 ? 'danger' : percent < 60 ? 'warn' : '';
+    patch(view, 'level', level, v => {
+        view.circle.classList.remove('warn', 'danger');
+        if (v) view.circle.classList.add(v);
+    });
 }
 
 function createAgentCard(data) {
     const container = document.getElementById('agentsGrid');
-    if (!container) return;
+    if (!container) return null;
 
     const icon = data.type === 'drone' ? '🤖' : '🚜';
     const card = document.createElement('div');
     card.className = 'agent-card-item';
-    card.id = `agent-card-${data.id}`;
-    
+
     card.innerHTML = `
         <div class="agent-avatar">${icon}</div>
         <div class="agent-info" style="flex:1">
             <h4>${data.id}</h4>
             <div class="agent-status-text">
-                📍 <span class="agent-location">${data.location}</span>
-                • <span class="agent-state">${data.status}</span>
+                📍 <span class="agent-location"></span>
+                • <span class="agent-state"></span>
             </div>
             <div class="progress-track" style="margin-top:0.5rem; height:4px">
-                <div class="progress-fill battery-fill" style="width:${data.battery}%; background-color:var(--accent-green)"></div>
+                <div class="progress-fill battery-fill"></div>
             </div>
         </div>
     `;
-    
-    container.appendChild(card);
-}
-
-function updateWorkerLocation(agentId, location) {
-    // Remove from old trackers
-    for (let i = 1; i <= 20; i++) { // Support up to 20 fields dynamically? Check DOM.
-        const fieldWorkers = document.getElementById(`workers-${i}`);
-        if (fieldWorkers) {
-            const existing = fieldWorkers.querySelector(`[data-agent="${agentId}"]`);
-            if (existing) existing.remove();
-        }
-    }
-
-    // Add to new tracker if it's a field
-    if (location.startsWith('Field-Container-')) {
-        const fieldId = location.replace('Field-Container-', '');
-        const targetContainer = document.getElementById(`workers-${fieldId}`);
-        if (targetContainer) {
-            const badge = document.createElement('div');
-            badge.className = 'worker-badge';
-            badge.setAttribute('data-agent', agentId);
-            
-            let icon = '🤖';
-            if (agentId.includes('Irrigator')) icon = '💧';
-            else if (agentId.includes('Harvester')) icon = '🌾';
-            else if (agentId.includes('Sprayer')) icon = '💉';
-            
-            badge.innerHTML = `${icon} <span>${agentId.split('-')[0]}</span>`;
-            targetContainer.appendChild(badge);
-        }
-    }
-}
 
-function handleAgentMove(data) {
-    addLog(`${data.agent} moving: ${data.from} -> ${data.to}`);
+    container.appendChild(card);
+    return {
+        el: card,
+        shown: {},
+        location: card.querySelector('.agent-location'),
+        status: card.querySelector('.agent-state'),
+        battery: card.querySelector('.battery-fill')
+    };
 }
 
 /* ==========================================================================
@@ -604,45 +830,72 @@ function plantField(id) {
    Logs & Tabs
    ========================================================================== */
 function addLog(text, type = '') {
-    // 1. Main Log Panel
-    const logContainer = document.getElementById('systemLogs');
-    const time = new Date().toLocaleTimeString('en-US', { hour12: false });
-    
-    if (logContainer) {
-        const row = document.createElement('div');
-        row.className = 'log-entry';
-        row.innerHTML = `
-            <span class="log-time">[${time}]</span>
-            <span class="log-msg ${type}">${text}</span>
-        `;
-        logContainer.insertBefore(row, logContainer.firstChild);
+    model.logs.push({ seq: ++model.logSeq, time: Date.now(), text, type });
+    dirty.logs = true;
+    scheduleFrame();
+}
 
-        // Prune logs
-        if (logContainer.children.length > 50) {
-            logContainer.removeChild(logContainer.lastChild);
-        }
+/* Logs: newest first, a virtualized panel and the last few in the overlay */
+const logViews = new Map();     // seq -> row in the Logs tab
+const miniLogViews = new Map(); // seq -> row in the overlay
+const logPanelView = { shown: {} };
+
+function renderLogs() {
+    // 1. Main Log Panel, only while it is shown
+    const panel = document.getElementById('systemLogs');
+    const rows = document.getElementById('logRows');
+    if (state.activeTab === 'logs' && panel && rows) {
+        const count = model.logs.length;
+        const first = clamp(Math.floor(panel.scrollTop / LOG_ROW_HEIGHT) - OVERSCAN_ROWS, 0, count);
+        const last = clamp(Math.ceil((panel.scrollTop + panel.clientHeight) / LOG_ROW_HEIGHT) + OVERSCAN_ROWS,
+            first, count);
+
+        patch(logPanelView, 'top', first * LOG_ROW_HEIGHT, v => { rows.style.paddingTop = `${v}px`; });
+        patch(logPanelView, 'bottom', (count - last) * LOG_ROW_HEIGHT, v => { rows.style.paddingBottom = `${v}px`; });
+        reconcile(rows, newestSeqs(first, last), logViews, seq => {
+            const entry = logEntry(seq);
+            const row = document.createElement('div');
+            row.className = 'log-entry';
+            row.innerHTML = `
+                <span class="log-time">[${formatClock(entry.time)}]</span>
+                <span class="log-msg ${entry.type}">${entry.text}</span>
+            `;
+            return { el: row };
+        }, () => {});
     }
 
-    // 2. Mini Logs Overlay (Bottom Right)
+    // 2. Mini Logs Overlay (Bottom Right), newest top like the main logs
     const miniContainer = document.getElementById('miniLogs');
     if (miniContainer) {
-        const miniRow = document.createElement('div');
-        miniRow.className = `mini-log-entry ${type}`;
-        miniRow.innerHTML = `<span style="opacity:0.6">[${time}]</span> ${text}`;
-        
-        // Flex-direction is column-reverse in CSS? No, wait. 
-        // If we want it to look like a stream at the bottom, we might want to appendChild 
-        // and let it scroll or just show mostly recent.
-        // Let's prepend to coincide with "newest top" or "newest bottom".
-        // Usually overlays are "newest at bottom".
-        // Let's prepend for consistency with main logs (newest top).
-        miniContainer.insertBefore(miniRow, miniContainer.firstChild);
-        
-        // Prune mini logs hard (only keep 5)
-        if (miniContainer.children.length > 5) {
-            miniContainer.removeChild(miniContainer.lastChild);
-        }
+        reconcile(miniContainer, newestSeqs(0, Math.min(MINI_LOG_COUNT, model.logs.length)), miniLogViews, seq => {
+            const entry = logEntry(seq);
+            const miniRow = document.createElement('div');
+            miniRow.className = `mini-log-entry ${entry.type}`;
+            miniRow.innerHTML = `<span style="opacity:0.6">[${formatClock(entry.time)}]</span> ${entry.text}`;
+            return { el: miniRow };
+        }, () => {});
+    }
+
+    dirty.logs = false;
+}
+
+/**
+ * Seqs of the logs from the first newest (0 is the newest) up to last.
+ */
+function newestSeqs(first, last) {
+    const seqs = [];
+    for (let i = first; i < last; i++) {
+        seqs.push(model.logSeq - i);
     }
+    return seqs;
+}
+
+function logEntry(seq) {
+    return model.logs[model.logs.length - 1 - (model.logSeq - seq)];
+}
+
+function formatClock(millis) {
+    return new Date(millis).toLocaleTimeString('en-US', { hour12: false });
 }
 
 function initTabs() {
@@ -664,8 +917,13 @@ function switchTab(tabId) {
     // Update Content
     document.querySelectorAll('.tab-pane').forEach(el => el.classList.remove('active'));
     document.getElementById(tabId)?.classList.add('active');
-    
+
     state.activeTab = tabId;
+
+    // Hidden tabs are not rendered; catch up
+    dirty.fieldList = true;
+    dirty.logs = true;
+    scheduleFrame();
 }
 
 function initModals() {
@@ -0,0 +1,323 @@
+/**
+ * dashboard-replay.js - Replays a recorded message stream against the
+ * dashboard front-end (resources/public/main.js), headless, and reports the
+ * frame rate it could keep and how far behind the stream it fell.
+ *
+ * main.js runs in a sandbox with a stand-in DOM that only counts writes:
+ * there is no layout or paint here, so the times below are script time
+ * alone, and "DOM writes" and "nodes in DOM" stand in for the style and
+ * layout work a browser would do on top. The display is a 60 Hz vsync:
+ * requestAnimationFrame callbacks run on the next vsync the event loop is
+ * free for, and a vsync missed because the loop was busy is a dropped frame.
+ * Messages are handed to the WebSocket's onmessage at their recorded times
+ * (divided by speed); the backlog is how many messages are due but not yet
+ * applied to the model.
+ *
+ * Record a stream first with com.smartfarm.bench.DashboardStreamRecorder.
+ *
+ * Usage: node dashboard-replay.js <stream> [frame|direct] [speed] [overview|logs]
+ */
+'use strict';
+
+const fs = require('fs');
+const path = require('path');
+const vm = require('vm');
+const { performance } = require('perf_hooks');
+
+const streamFile = process.argv[2];
+const mode = process.argv[3] || 'frame';
+const speed = Number(process.argv[4] || 1);
+const tab = process.argv[5] || 'overview';
+if (!streamFile) {
+    console.error('Usage: node dashboard-replay.js <stream> [frame|direct] [speed] [overview|logs]');
+    process.exit(1);
+}
+
+const VSYNC_MS = 1000 / 60;
+const VIEWPORT_HEIGHT = 900;
+const LOG_PANEL_HEIGHT = 400;
+
+/* ==========================================================================
+   Stand-in DOM
+   ========================================================================== */
+const counts = { writes: 0 };
+
+function countingStyle() {
+    return new Proxy({}, {
+        set(target, key, value) {
+            counts.writes++;
+            target[key] = value;
+            return true;
+        }
+    });
+}
+
+class Element {
+    constructor(tag) {
+        this.tagName = tag;
+        this.children = [];
+        this.parentNode = null;
+        this.style = countingStyle();
+        this.classes = new Set();
+        this.descendants = new Map(); // selector -> stand-in for what innerHTML made
+        this.scrollTop = 0;
+        this.clientHeight = 0;
+        this.text = '';
+        const classes = this.classes;
+        this.classList = {
+            add: (...names) => { counts.writes++; names.forEach(n => classes.add(n)); },
+            remove: (...names) => { counts.writes++; names.forEach(n => classes.delete(n)); },
+            contains: name => classes.has(name)
+        };
+    }
+
+    set className(value) {
+        counts.writes++;
+        this.classes = new Set(String(value).split(/\s+/).filter(Boolean));
+    }
+
+    get className() {
+        return [...this.classes].join(' ');
+    }
+
+    set textContent(value) {
+        counts.writes++;
+        this.text = String(value);
+    }
+
+    get textContent() {
+        return this.text;
+    }
+
+    set innerHTML(value) {
+        counts.writes++;
+        this.text = String(value);
+        this.descendants.clear();
+    }
+
+    get firstChild() {
+        return this.children[0] || null;
+    }
+
+    get lastChild() {
+        return this.children[this.children.length - 1] || null;
+    }
+
+    get nextSibling() {
+        if (!this.parentNode) return null;
+        const siblings = this.parentNode.children;
+        return siblings[siblings.indexOf(this) + 1] || null;
+    }
+
+    appendChild(child) {
+        return this.insertBefore(child, null);
+    }
+
+    insertBefore(child, before) {
+        counts.writes++;
+        if (child.parentNode) child.parentNode.detach(child);
+        const i = before ? this.children.indexOf(before) : -1;
+        if (i >= 0) this.children.splice(i, 0, child);
+        else this.children.push(child);
+        child.parentNode = this;
+        return child;
+    }
+
+    removeChild(child) {
+        counts.writes++;
+        this.detach(child);
+        return child;
+    }
+
+    remove() {
+        if (this.parentNode) this.parentNode.removeChild(this);
+    }
+
+    detach(child) {
+        const i = this.children.indexOf(child);
+        if (i >= 0) this.children.splice(i, 1);
+        child.parentNode = null;
+    }
+
+    querySelector(selector) {
+        if (!this.descendants.has(selector)) this.descendants.set(selector, new Element('div'));
+        return this.descendants.get(selector);
+    }
+
+    querySelectorAll() {
+        return [];
+    }
+
+    addEventListener() {}
+
+    setAttribute() {}
+
+    getBoundingClientRect() {
+        return { top: 0, bottom: this.clientHeight, left: 0, right: 0, width: 0, height: this.clientHeight };
+    }
+
+    // Elements in the tree below, counting each innerHTML template as one
+    countNodes() {
+        return 1 + this.children.reduce((sum, child) => sum + child.countNodes(), 0);
+    }
+}
+
+const byId = new Map();
+const document = {
+    getElementById(id) {
+        if (!byId.has(id)) byId.set(id, new Element('div'));
+        return byId.get(id);
+    },
+    querySelector(selector) {
+        return selector === '.content-wrapper' ? scroller : null;
+    },
+    querySelectorAll() {
+        return [];
+    },
+    createElement(tag) {
+        return new Element(tag);
+    },
+    addEventListener(type, listener) {
+        if (type === 'DOMContentLoaded') ready = listener;
+    }
+};
+let ready = null;
+
+const scroller = new Element('div');
+scroller.clientHeight = VIEWPORT_HEIGHT;
+document.getElementById('systemLogs').clientHeight = LOG_PANEL_HEIGHT;
+
+/* ==========================================================================
+   Event loop: vsync, requestAnimationFrame, WebSocket
+   ========================================================================== */
+let rafCallbacks = [];
+let socket = null;
+
+class FakeWebSocket {
+    constructor() {
+        socket = this;
+    }
+
+    send() {}
+}
+
+const sandbox = {
+    window: {
+        location: { search: mode === 'direct' ? '?render=direct' : '' },
+        addEventListener() {}
+    },
+    document,
+    WebSocket: FakeWebSocket,
+    requestAnimationFrame: cb => { rafCallbacks.push(cb); return rafCallbacks.length; },
+    setTimeout: () => 0,
+    console: { log() {}, warn() {}, error: console.error },
+    alert() {},
+    event: null,
+    URLSearchParams,
+    Date,
+    Math,
+    JSON,
+    Number,
+    Map,
+    Set
+};
+vm.createContext(sandbox);
+vm.runInContext(fs.readFileSync(path.join(__dirname, '../resources/public/main.js'), 'utf8'), sandbox,
+    { filename: 'main.js' });
+ready();
+vm.runInContext(`switchTab(${JSON.stringify(tab)})`, sandbox);
+const stats = sandbox.window.dashboardStats;
+
+const messages = fs.readFileSync(streamFile, 'utf8').split('\n').filter(Boolean).map(line => {
+    const tabAt = line.indexOf('\t');
+    return { at: Number(line.slice(0, tabAt)) / speed, data: line.slice(tabAt + 1) };
+});
+const duration = messages[messages.length - 1].at;
+
+const frameTimes = [];   // script ms per vsync with work
+const backlogs = [];     // at each vsync
+let vsyncs = 0;
+let missed = 0;
+let delivered = 0;
+let busyMs = 0;
+let start = 0;
+let lastVsync = 0;
+
+function due(now) {
+    let lo = 0;
+    let hi = messages.length;
+    while (lo < hi) {
+        const mid = (lo + hi) >> 1;
+        if (messages[mid].at <= now) lo = mid + 1;
+        else hi = mid;
+    }
+    return lo;
+}
+
+// The network: hand over everything due, one onmessage per message
+function deliver() {
+    const now = performance.now() - start;
+    const until = due(now);
+    while (delivered < until) {
+        const t0 = performance.now();
+        socket.onmessage({ data: messages[delivered++].data });
+        busyMs += performance.now() - t0;
+    }
+    if (delivered < messages.length) setImmediate(deliver);
+}
+
+// The display
+function vsync() {
+    const now = performance.now() - start;
+    const slot = Math.floor(now / VSYNC_MS);
+    if (slot <= lastVsync) { // timer fired early
+        setTimeout(vsync, Math.max(0, (lastVsync + 1) * VSYNC_MS - now));
+        return;
+    }
+    missed += slot - lastVsync - 1;
+    lastVsync = slot;
+    vsyncs++;
+
+    backlogs.push(due(now) - stats.messages);
+    const callbacks = rafCallbacks;
+    rafCallbacks = [];
+    if (callbacks.length > 0) {
+        const t0 = performance.now();
+        callbacks.forEach(cb => cb(now));
+        const took = performance.now() - t0;
+        busyMs += took;
+        frameTimes.push(took);
+    }
+
+    if (now < duration || stats.messages < messages.length) {
+        setTimeout(vsync, Math.max(0, (slot + 1) * VSYNC_MS - (performance.now() - start)));
+    } else {
+        report(now);
+    }
+}
+
+function percentile(values, p) {
+    if (values.length === 0) return 0;
+    const sorted = [...values].sort((a, b) => a - b);
+    return sorted[Math.min(sorted.length - 1, Math.floor(sorted.length * p))];
+}
+
+function report(elapsed) {
+    const seconds = elapsed / 1000;
+    const backlogMean = backlogs.reduce((a, b) => a + b, 0) / Math.max(1, backlogs.length);
+    console.log(`Mode ${mode}, ${messages.length} messages over ${(duration / 1000).toFixed(1)} s `
+        + `(x${speed}, ${Math.round(messages.length / (duration / 1000))} msg/s), ${tab} tab`);
+    console.log(`  fps                ${(vsyncs / seconds).toFixed(1)} (missed vsyncs: ${missed})`);
+    console.log(`  frames rendered    ${stats.frames} (largest batch ${stats.maxBatch} messages)`);
+    console.log(`  backlog            mean ${backlogMean.toFixed(1)}, max ${Math.max(...backlogs)} messages`);
+    console.log(`  script ms/vsync    p50 ${percentile(frameTimes, 0.5).toFixed(2)}, `
+        + `p99 ${percentile(frameTimes, 0.99).toFixed(2)}, busy ${(100 * busyMs / elapsed).toFixed(1)}%`);
+    console.log(`  DOM writes         ${Math.round(counts.writes / seconds)}/s`);
+    console.log(`  nodes in DOM       fields ${document.getElementById('fieldList').countNodes() - 1}, `
+        + `logs ${document.getElementById('logRows').countNodes() - 1}, `
+        + `mini logs ${document.getElementById('miniLogs').countNodes() - 1}`);
+}
+
+start = performance.now();
+setImmediate(deliver);
+setTimeout(vsync, VSYNC_MS);